@@ -0,0 +1,37 @@
+#!/bin/bash
+#
+# Downloads the aggregator pom.xml files of adams-base, adams-addons and
+# adams-lts into the benchmark resources, replacing the checked-in ones.
+# The files get pinned to the current revision of the master branch, which
+# gets recorded in a comment below the XML declaration.
+#
+BASEDIR=`dirname $0`
+BASEDIR=`(cd "$BASEDIR"; pwd)`
+FIXTURES="$BASEDIR"/src/main/resources/adams/bootstrap/fixtures
+API=https://api.github.com/repos/waikato-datamining
+URL=https://raw.githubusercontent.com/waikato-datamining
+TMP=`mktemp`
+trap 'rm -f "$TMP"' EXIT
+
+mkdir -p "$FIXTURES" || exit 1
+for REPO in adams-base adams-addons adams-lts
+do
+  SHA=`curl -sSfL -H "Accept: application/vnd.github.sha" "$API/$REPO/commits/master"` || exit 1
+  echo "$REPO@$SHA -> $FIXTURES/$REPO-all.xml"
+  curl -sSfL -o "$TMP" "$URL/$REPO/$SHA/pom.xml" || exit 1
+  {
+    if head -n 1 "$TMP" | grep -q '^<?xml'
+    then
+      head -n 1 "$TMP"
+      START=2
+    else
+      START=1
+    fi
+    echo "<!--"
+    echo "  pom.xml of https://github.com/waikato-datamining/$REPO"
+    echo "  revision: $SHA"
+    echo "  fetched: `date -u +%Y-%m-%d`"
+    echo "-->"
+    tail -n +$START "$TMP"
+  } > "$FIXTURES/$REPO-all.xml"
+done
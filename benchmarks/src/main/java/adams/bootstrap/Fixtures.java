@@ -0,0 +1,212 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Fixtures.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inputs for the benchmarks: module lists and aggregator pom.xml files.
+ * <br>
+ * The ADAMS aggregator poms (base, addons, LTS) get loaded from the
+ * resources ({@link #AGGREGATORS}), which fetch-fixtures.sh downloads from
+ * upstream, recording the revision in a header comment. Other poms can be
+ * used instead by pointing the
+ * {@link #PROPERTY_FIXTURES} system property at a directory containing them,
+ * e.g., the catalog cache below the instant-adams home directory. Generated
+ * poms ({@link #aggregator(String, List)}) are only used for the scaling
+ * benchmarks with an arbitrary number of modules.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Fixtures {
+
+  /** the system property with the directory of real aggregator poms. */
+  public final static String PROPERTY_FIXTURES = "instant-adams.fixtures";
+
+  /** the resource directory with the aggregator poms. */
+  public final static String RESOURCES = "adams/bootstrap/fixtures/";
+
+  /** the aggregator poms in the resources. */
+  public final static String[] AGGREGATORS = {
+    "adams-base-all.xml",
+    "adams-addons-all.xml",
+    "adams-lts-all.xml",
+  };
+
+  /** the version used in the benchmarks. */
+  public final static String VERSION = "25.4.0";
+
+  /** every n-th module also gets an LTS variant. */
+  public final static int LTS_EVERY = 10;
+
+  /**
+   * Returns the module names.
+   *
+   * @param num		the number of modules
+   * @param lts		whether to add LTS variants (non-conflicting)
+   * @return		the modules
+   */
+  public static List<String> modules(int num, boolean lts) {
+    List<String>	result;
+    int			i;
+
+    result = new ArrayList<>();
+    for (i = 0; i < num; i++) {
+      if (lts && (i % LTS_EVERY == 0))
+	result.add(String.format("adams-module%04d-lts", i));
+      else
+	result.add(String.format("adams-module%04d", i));
+    }
+
+    return result;
+  }
+
+  /**
+   * Generates an aggregator pom.xml, with a quarter of the modules listed
+   * in profiles.
+   *
+   * @param name	the name of the aggregator
+   * @param modules	the modules to list
+   * @return		the pom.xml content
+   */
+  public static String aggregator(String name, List<String> modules) {
+    StringBuilder	result;
+    int			i;
+    int			profiles;
+
+    result = new StringBuilder();
+    result.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    result.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+    result.append("         xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 http://maven.apache.org/maven-v4_0_0.xsd\">\n");
+    result.append("  <modelVersion>4.0.0</modelVersion>\n\n");
+    result.append("  <parent>\n");
+    result.append("    <groupId>nz.ac.waikato.cms.adams</groupId>\n");
+    result.append("    <artifactId>adams-pom</artifactId>\n");
+    result.append("    <version>").append(VERSION).append("</version>\n");
+    result.append("  </parent>\n\n");
+    result.append("  <artifactId>").append(name).append("</artifactId>\n");
+    result.append("  <packaging>pom</packaging>\n");
+    result.append("  <name>").append(name).append("</name>\n\n");
+    result.append("  <properties>\n");
+    result.append("    <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>\n");
+    result.append("    <adams.version>").append(VERSION).append("</adams.version>\n");
+    result.append("  </properties>\n\n");
+
+    profiles = modules.size() / 4;
+    result.append("  <modules>\n");
+    for (i = 0; i < modules.size() - profiles; i++) {
+      if (i % 20 == 0)
+	result.append("    <!-- group ").append(i / 20).append(" -->\n");
+      result.append("    <module>").append(modules.get(i)).append("</module>\n");
+    }
+    result.append("  </modules>\n\n");
+
+    result.append("  <profiles>\n");
+    for (; i < modules.size(); i++) {
+      result.append("    <profile>\n");
+      result.append("      <id>").append(modules.get(i)).append("</id>\n");
+      result.append("      <activation>\n");
+      result.append("        <property>\n");
+      result.append("          <name>").append(modules.get(i)).append("</name>\n");
+      result.append("        </property>\n");
+      result.append("      </activation>\n");
+      result.append("      <modules>\n");
+      result.append("        <module>").append(modules.get(i)).append("</module>\n");
+      result.append("      </modules>\n");
+      result.append("    </profile>\n");
+    }
+    result.append("  </profiles>\n\n");
+
+    result.append("  <build>\n");
+    result.append("    <plugins>\n");
+    result.append("      <plugin>\n");
+    result.append("        <groupId>org.apache.maven.plugins</groupId>\n");
+    result.append("        <artifactId>maven-compiler-plugin</artifactId>\n");
+    result.append("        <configuration>\n");
+    result.append("          <source>11</source>\n");
+    result.append("          <target>11</target>\n");
+    result.append("        </configuration>\n");
+    result.append("      </plugin>\n");
+    result.append("    </plugins>\n");
+    result.append("  </build>\n");
+    result.append("</project>\n");
+
+    return result.toString();
+  }
+
+  /**
+   * Reads the aggregator pom from the resources.
+   *
+   * @param name	the name of the pom, see {@link #AGGREGATORS}
+   * @return		the pom.xml content
+   * @throws Exception	if the resource is not available
+   */
+  public static String resource(String name) throws Exception {
+    try (InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(RESOURCES + name)) {
+      if (in == null)
+	throw new IllegalStateException("Resource not available: " + RESOURCES + name + " (run benchmarks/fetch-fixtures.sh)");
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Returns the aggregator poms: either the ones from the directory
+   * specified via {@link #PROPERTY_FIXTURES} or the ADAMS ones from the
+   * resources (base, addons and LTS).
+   *
+   * @return		the pom.xml contents
+   * @throws Exception	if reading of the poms fails
+   */
+  public static List<String> aggregators() throws Exception {
+    List<String>	result;
+    String		dir;
+    File[]		files;
+    String		content;
+
+    result = new ArrayList<>();
+    dir    = System.getProperty(PROPERTY_FIXTURES);
+    if (dir != null) {
+      files = new File(dir).listFiles();
+      if (files == null)
+	throw new IllegalArgumentException("Not a directory: " + dir);
+      for (File file: files) {
+	if (!file.isFile())
+	  continue;
+	content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	if (content.contains("<project") && content.contains("<module>"))
+	  result.add(content);
+      }
+      if (result.isEmpty())
+	throw new IllegalArgumentException("No aggregator poms found in: " + dir);
+    }
+    else {
+      for (String name: AGGREGATORS)
+	result.add(resource(name));
+    }
+
+    return result;
+  }
+}
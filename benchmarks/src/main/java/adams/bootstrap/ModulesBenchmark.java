@@ -0,0 +1,206 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ModulesBenchmark.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap;
+
+import adams.bootstrap.core.PomParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks checking the module list for LTS conflicts and extracting the
+ * modules from aggregator pom.xml files. The line-based extraction that was
+ * used before the StAX parser serves as baseline, the StAX parser on its own
+ * shows the cost of the fallback for poms that don't take the fast path.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModulesBenchmark {
+
+  /**
+   * The ADAMS aggregator poms, in a state of their own so that only the
+   * benchmarks using them fail if the fixtures haven't been fetched.
+   */
+  @State(Scope.Benchmark)
+  public static class Aggregators {
+
+    /** the aggregator poms. */
+    public List<String> poms;
+
+    /**
+     * Reads the aggregator poms.
+     *
+     * @throws Exception	if reading the fixtures fails
+     */
+    @Setup
+    public void setUp() throws Exception {
+      poms = Fixtures.aggregators();
+    }
+  }
+
+  /** the number of modules. */
+  @Param({"50", "500", "5000"})
+  public int numModules;
+
+  /** the bootstrapper. */
+  protected Main m_Main;
+
+  /** the modules to check. */
+  protected String[] m_Modules;
+
+  /** the generated aggregator pom. */
+  protected String m_Pom;
+
+  /**
+   * Sets up the inputs.
+   */
+  @Setup
+  public void setUp() {
+    List<String>	modules;
+
+    modules   = Fixtures.modules(numModules, true);
+    m_Main    = new Main();
+    m_Modules = modules.toArray(new String[0]);
+    m_Pom     = Fixtures.aggregator("adams-all", modules);
+  }
+
+  /**
+   * The line-based extraction of the modules that was used before the StAX
+   * parser, which does not handle comments, profiles or several modules per
+   * line.
+   *
+   * @param pom		the pom.xml string to parse
+   * @return		the modules that were found
+   */
+  public static List<String> extractModulesLineBased(String pom) {
+    List<String>	result;
+    String[]		lines;
+
+    result = new ArrayList<>();
+    lines  = pom.split("\n");
+    for (String line: lines) {
+      if (line.contains("<module>")) {
+	line = line.substring(line.indexOf('>') + 1);
+	line = line.substring(0, line.indexOf('<'));
+	if (!line.contains("$"))
+	  result.add(line);
+      }
+    }
+
+    Collections.sort(result);
+
+    return result;
+  }
+
+  /**
+   * Checks the modules for LTS/non-LTS conflicts.
+   *
+   * @return		the result of the check
+   */
+  @Benchmark
+  public String checkModules() {
+    return m_Main.checkModules(m_Modules);
+  }
+
+  /**
+   * Extracts the modules from the generated aggregator pom.
+   *
+   * @return		the modules
+   * @throws Exception	if parsing fails
+   */
+  @Benchmark
+  public List<String> extractModules() throws Exception {
+    return m_Main.extractModules(m_Pom);
+  }
+
+  /**
+   * Extracts the modules from the generated aggregator pom, line-based
+   * (baseline).
+   *
+   * @return		the modules
+   */
+  @Benchmark
+  public List<String> extractModulesLineBased() {
+    return extractModulesLineBased(m_Pom);
+  }
+
+  /**
+   * Extracts the modules from all the aggregator poms, line-based (baseline).
+   *
+   * @param aggregators	the aggregator poms
+   * @param bh		for consuming the modules
+   */
+  @Benchmark
+  public void extractModulesAggregatorsLineBased(Aggregators aggregators, Blackhole bh) {
+    for (String pom: aggregators.poms)
+      bh.consume(extractModulesLineBased(pom));
+  }
+
+  /**
+   * Extracts the modules from all the aggregator poms, like when listing the
+   * modules.
+   *
+   * @param aggregators	the aggregator poms
+   * @param bh		for consuming the modules
+   * @throws Exception	if parsing fails
+   */
+  @Benchmark
+  public void extractModulesAggregators(Aggregators aggregators, Blackhole bh) throws Exception {
+    for (String pom: aggregators.poms)
+      bh.consume(m_Main.extractModules(pom));
+  }
+
+  /**
+   * Extracts the modules from all the aggregator poms, always using the
+   * StAX parser (ie without the line-based fast path).
+   *
+   * @param aggregators	the aggregator poms
+   * @param bh		for consuming the modules
+   * @throws Exception	if parsing fails
+   */
+  @Benchmark
+  public void extractModulesAggregatorsStreaming(Aggregators aggregators, Blackhole bh) throws Exception {
+    for (String pom: aggregators.poms)
+      bh.consume(PomParser.extractModulesStreaming(new ByteArrayInputStream(pom.getBytes(StandardCharsets.UTF_8)), true));
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * OptionsBenchmark.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap;
+
+import com.github.fracpete.simpleargparse4j.ArgumentParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the option parsing and the assembly of the dependencies.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptionsBenchmark {
+
+  /** the number of modules. */
+  @Param({"50", "500", "5000"})
+  public int numModules;
+
+  /** the number of additional dependencies. */
+  public final static int NUM_DEPENDENCIES = 50;
+
+  /** the command-line options. */
+  protected String[] m_Options;
+
+  /** the bootstrapper with the options set. */
+  protected Main m_Main;
+
+  /**
+   * Sets up the inputs.
+   */
+  @Setup
+  public void setUp() {
+    List<String>	options;
+    int			i;
+
+    options = new ArrayList<>();
+    options.add("-n");
+    options.add("adams-bench");
+    options.add("-M");
+    options.add(String.join(",", Fixtures.modules(numModules, false)));
+    options.add("-V");
+    options.add(Fixtures.VERSION);
+    options.add("-o");
+    options.add(System.getProperty("java.io.tmpdir") + "/adams-bench");
+    for (i = 0; i < NUM_DEPENDENCIES; i++) {
+      options.add("-d");
+      options.add("org.example:dep" + i + ":1.0." + i);
+    }
+    options.add("-v");
+    options.add("-Xmx1g");
+    options.add("-s");
+    m_Options = options.toArray(new String[0]);
+
+    m_Main = new Main();
+    if (!m_Main.setOptions(m_Options))
+      throw new IllegalStateException("Failed to parse options!");
+  }
+
+  /**
+   * Configures the parser.
+   *
+   * @return		the parser
+   */
+  @Benchmark
+  public ArgumentParser getParser() {
+    return new Main().getParser();
+  }
+
+  /**
+   * Parses the command-line options.
+   *
+   * @return		the configured bootstrapper
+   */
+  @Benchmark
+  public Main setOptions() {
+    Main	result;
+
+    result = new Main();
+    result.setOptions(m_Options);
+    return result;
+  }
+
+  /**
+   * Turns modules and additional dependencies into the list of dependencies.
+   *
+   * @return		the result
+   */
+  @Benchmark
+  public String initDependencies() {
+    return m_Main.initDependencies();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TemplateBenchmark.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap;
+
+import com.github.fracpete.bootstrapp.core.Template;
+import com.github.fracpete.resourceextractor4j.Files;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks rendering the pom.xml from the bundled template.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+  /** the number of modules. */
+  @Param({"50", "500", "5000"})
+  public int numModules;
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /** the extracted template. */
+  protected File m_Template;
+
+  /** the generated pom.xml. */
+  protected File m_Pom;
+
+  /** the template configuration. */
+  protected Template.Configuration m_Config;
+
+  /**
+   * Sets up the inputs.
+   *
+   * @throws Exception	if extracting the template fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+    m_Dir = java.nio.file.Files.createTempDirectory("adams-bench").toFile();
+    m_Template = new File(Files.extractTo(Main.RESOURCES, Main.POMTEMPLATE_FILE, m_Dir.getAbsolutePath()));
+    m_Pom = new File(m_Dir, "pom.xml");
+
+    m_Config = new Template.Configuration();
+    m_Config.outputDirMaven  = m_Dir;
+    m_Config.dependencies    = new ArrayList<>();
+    for (String module: Fixtures.modules(numModules, false))
+      m_Config.dependencies.add("nz.ac.waikato.cms.adams:" + module + ":" + Fixtures.VERSION);
+    m_Config.exclusions      = new ArrayList<>();
+    m_Config.repositories    = new ArrayList<>();
+    m_Config.externalJars    = new ArrayList<>();
+    m_Config.externalSources = new ArrayList<>();
+    m_Config.mainClass       = "adams.gui.Main";
+    m_Config.name            = "adams-bench";
+    m_Config.version         = Fixtures.VERSION;
+    m_Config.buildPlugins    = "";
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @TearDown
+  public void tearDown() {
+    m_Pom.delete();
+    m_Template.delete();
+    m_Dir.delete();
+  }
+
+  /**
+   * Renders the pom.xml.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Benchmark
+  public String configureTemplate() {
+    return Template.configureTemplate(m_Template, m_Pom, m_Config);
+  }
+}
@@ -0,0 +1,633 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Batch.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap;
+
+import adams.bootstrap.core.VersionResolver;
+import com.github.fracpete.bootstrapp.core.Maven;
+import com.github.fracpete.simpleargparse4j.ArgumentParser;
+import com.github.fracpete.simpleargparse4j.ArgumentParserException;
+import com.github.fracpete.simpleargparse4j.Namespace;
+import com.github.fracpete.simpleargparse4j.Option.Type;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bootstraps several ADAMS applications in one go. Maven user settings,
+ * LATEST version and pom template are only resolved once and then shared
+ * between the applications, which get built concurrently using a bounded
+ * pool of workers.
+ * <br>
+ * The spec file lists one application per line, using the same options as
+ * {@link Main}. Empty lines and lines starting with '#' get ignored,
+ * arguments containing blanks can be surrounded by single or double quotes.
+ * For example:
+ * <pre>
+ * # weka app
+ * -n weka -M adams-weka,adams-excel -V LATEST -o ./out/weka
+ * -n groovy -M adams-groovy -V 20.1.1 -o ./out/groovy -v -Xmx2g
+ * </pre>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Batch {
+
+  /** the default number of concurrent builds. */
+  public final static int DEFAULT_NUM_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+  /**
+   * Container for the result of bootstrapping a single application.
+   */
+  public static class Result {
+
+    /** the application. */
+    protected Main m_Application;
+
+    /** the error message, null if successful. */
+    protected String m_Error;
+
+    /** the duration in msec. */
+    protected long m_Duration;
+
+    /**
+     * Initializes the result.
+     *
+     * @param app	the application
+     * @param error	the error message, null if successful
+     * @param duration	the duration in msec
+     */
+    public Result(Main app, String error, long duration) {
+      m_Application = app;
+      m_Error       = error;
+      m_Duration    = duration;
+    }
+
+    /**
+     * Returns the application.
+     *
+     * @return		the application
+     */
+    public Main getApplication() {
+      return m_Application;
+    }
+
+    /**
+     * Returns whether bootstrapping was successful.
+     *
+     * @return		true if successful
+     */
+    public boolean isSuccess() {
+      return (m_Error == null);
+    }
+
+    /**
+     * Returns the error message.
+     *
+     * @return		the error, null if successful
+     */
+    public String getError() {
+      return m_Error;
+    }
+
+    /**
+     * Returns the duration.
+     *
+     * @return		the duration in msec
+     */
+    public long getDuration() {
+      return m_Duration;
+    }
+
+    /**
+     * Returns a short description of the result.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      return m_Application.getName() + "\t"
+	+ m_Application.getOutputDir() + "\t"
+	+ (isSuccess() ? "OK" : "FAILED") + "\t"
+	+ String.format("%.1f", m_Duration / 1000.0) + "\t"
+	+ (isSuccess() ? "" : m_Error.replaceAll("\\s+", " "));
+    }
+  }
+
+  /** the applications to bootstrap. */
+  protected List<Main> m_Applications;
+
+  /** the number of concurrent builds. */
+  protected int m_NumThreads;
+
+  /** the file to write the report to. */
+  protected File m_ReportFile;
+
+  /** for logging. */
+  protected Logger m_Logger;
+
+  /** whether help got requested. */
+  protected boolean m_HelpRequested;
+
+  /**
+   * Initializes the object.
+   */
+  public Batch() {
+    initialize();
+  }
+
+  /**
+   * Initializes the members.
+   */
+  protected void initialize() {
+    m_Applications  = new ArrayList<>();
+    m_NumThreads    = DEFAULT_NUM_THREADS;
+    m_ReportFile    = null;
+    m_Logger        = null;
+    m_HelpRequested = false;
+  }
+
+  /**
+   * Returns the logger instance to use.
+   *
+   * @return		the logger
+   */
+  protected Logger getLogger() {
+    if (m_Logger == null)
+      m_Logger = Logger.getLogger(getClass().getName());
+    return m_Logger;
+  }
+
+  /**
+   * Adds the application to bootstrap.
+   *
+   * @param app		the application
+   * @return		itself
+   */
+  public Batch add(Main app) {
+    m_Applications.add(app);
+    return this;
+  }
+
+  /**
+   * Sets the applications to bootstrap.
+   *
+   * @param apps	the applications
+   * @return		itself
+   */
+  public Batch applications(List<Main> apps) {
+    m_Applications = new ArrayList<>(apps);
+    return this;
+  }
+
+  /**
+   * Returns the applications to bootstrap.
+   *
+   * @return		the applications
+   */
+  public List<Main> getApplications() {
+    return m_Applications;
+  }
+
+  /**
+   * Sets the number of applications to build concurrently.
+   *
+   * @param num		the number of threads
+   * @return		itself
+   */
+  public Batch numThreads(int num) {
+    if (num < 1)
+      throw new IllegalArgumentException("At least one thread required: " + num);
+    m_NumThreads = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of applications to build concurrently.
+   *
+   * @return		the number of threads
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Sets the file to write the report to.
+   *
+   * @param file	the file, null to only output it on stdout
+   * @return		itself
+   */
+  public Batch reportFile(File file) {
+    m_ReportFile = file;
+    return this;
+  }
+
+  /**
+   * Returns the file to write the report to.
+   *
+   * @return		the file, null to only output it on stdout
+   */
+  public File getReportFile() {
+    return m_ReportFile;
+  }
+
+  /**
+   * Splits the line into arguments, taking single and double quotes into
+   * account.
+   *
+   * @param line	the line to split
+   * @return		the arguments
+   */
+  protected static String[] split(String line) {
+    List<String>	result;
+    StringBuilder	current;
+    char		quote;
+    boolean		inArg;
+    char		c;
+    int			i;
+
+    result  = new ArrayList<>();
+    current = new StringBuilder();
+    quote   = 0;
+    inArg   = false;
+    for (i = 0; i < line.length(); i++) {
+      c = line.charAt(i);
+      if (quote != 0) {
+        if (c == quote)
+          quote = 0;
+        else
+          current.append(c);
+      }
+      else if ((c == '"') || (c == '\'')) {
+        quote = c;
+        inArg = true;
+      }
+      else if (Character.isWhitespace(c)) {
+        if (inArg)
+          result.add(current.toString());
+        current.setLength(0);
+        inArg = false;
+      }
+      else {
+        current.append(c);
+        inArg = true;
+      }
+    }
+    if (quote != 0)
+      throw new IllegalArgumentException("Unbalanced quotes: " + line);
+    if (inArg)
+      result.add(current.toString());
+
+    return result.toArray(new String[0]);
+  }
+
+  /**
+   * Reads the applications from the spec file.
+   *
+   * @param spec	the spec file to read
+   * @return		null if successful, otherwise error message
+   */
+  public String readSpecFile(File spec) {
+    List<String>	lines;
+    Main		app;
+    int			i;
+    String		line;
+
+    try {
+      lines = Files.readAllLines(spec.toPath(), StandardCharsets.UTF_8);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to read spec file: " + spec, e);
+      return "Failed to read spec file: " + spec;
+    }
+
+    for (i = 0; i < lines.size(); i++) {
+      line = lines.get(i).trim();
+      if (line.isEmpty() || line.startsWith("#"))
+        continue;
+      app = new Main();
+      try {
+	if (!app.setOptions(split(line)) || app.getHelpRequested())
+	  return "Invalid application options in line #" + (i + 1) + " of " + spec + ": " + line;
+      }
+      catch (Exception e) {
+        getLogger().log(Level.SEVERE, "Failed to parse line #" + (i + 1) + " of " + spec + ": " + line, e);
+	return "Failed to parse line #" + (i + 1) + " of " + spec + ": " + e.getMessage();
+      }
+      add(app);
+    }
+
+    return null;
+  }
+
+  /**
+   * Resolves the Maven installation, user settings, pom template and LATEST
+   * versions once and configures the applications to use them.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String prepare() {
+    String				result;
+    Main				shared;
+    Map<String,VersionResolver>		resolvers;
+    VersionResolver			resolver;
+    String				key;
+
+    shared = new Main();
+    for (Main app: m_Applications) {
+      if (app.getMavenUserSettings() == null) {
+        shared.offline(app.getOffline()).userSettingsURL(app.getUserSettingsURL());
+        break;
+      }
+    }
+
+    // maven
+    for (Main app: m_Applications) {
+      if (app.getMavenHome() == null) {
+        if ((result = Maven.initRemoteMaven()) != null)
+          return result;
+        break;
+      }
+    }
+
+    // settings
+    if ((result = shared.initMavenUserSettings()) != null)
+      return result;
+    for (Main app: m_Applications) {
+      if (app.getMavenUserSettings() == null)
+        app.mavenUserSettings(shared.m_ActMavenUserSettings);
+    }
+
+    // pom template
+    if ((result = shared.initPomTemplate()) != null)
+      return result;
+    for (Main app: m_Applications) {
+      if (app.getPomTemplate() == null)
+        app.pomTemplate(shared.m_ActPomTemplate);
+    }
+
+    // LATEST version
+    resolvers = new HashMap<>();
+    for (Main app: m_Applications) {
+      if (!Main.LATEST.equals(app.getVersion()))
+        continue;
+      key = app.getAdamsRepository() + "\t" + app.getVersionTTL() + "\t" + app.getAdamsBaseURL() + "\t" + app.getOffline();
+      if (!resolvers.containsKey(key))
+        resolvers.put(key, app.getVersionResolver());
+      resolver = resolvers.get(key);
+      app.versionResolver(resolver);
+      if ((result = app.initVersion()) != null)
+        return result;
+    }
+
+    return null;
+  }
+
+  /**
+   * Bootstraps the application.
+   *
+   * @param app		the application to bootstrap
+   * @return		the result
+   */
+  protected Result execute(Main app) {
+    long	start;
+    String	error;
+
+    start = System.currentTimeMillis();
+    try {
+      error = app.execute();
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to bootstrap: " + app.getName(), e);
+      error = "Failed to bootstrap: " + e;
+    }
+
+    return new Result(app, error, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Generates the report from the results.
+   *
+   * @param results	the results to turn into a report
+   * @return		the report (tab-separated)
+   */
+  public static String toReport(List<Result> results) {
+    StringBuilder	result;
+    int			failed;
+
+    result = new StringBuilder();
+    result.append("Name\tOutput\tStatus\tTime (s)\tMessage\n");
+    failed = 0;
+    for (Result r: results) {
+      result.append(r.toString()).append("\n");
+      if (!r.isSuccess())
+        failed++;
+    }
+    result.append("# total: ").append(results.size()).append(", failed: ").append(failed).append("\n");
+
+    return result.toString();
+  }
+
+  /**
+   * Bootstraps all the applications.
+   *
+   * @return		the results, one per application (same order)
+   */
+  public List<Result> execute() {
+    List<Result>		result;
+    List<Future<Result>>	futures;
+    ExecutorService		executor;
+    String			msg;
+    int				i;
+
+    result = new ArrayList<>();
+    if ((msg = prepare()) != null) {
+      getLogger().severe(msg);
+      for (Main app: m_Applications)
+        result.add(new Result(app, msg, 0));
+      return result;
+    }
+
+    executor = Executors.newFixedThreadPool(Math.min(m_NumThreads, Math.max(1, m_Applications.size())));
+    futures  = new ArrayList<>();
+    for (final Main app: m_Applications)
+      futures.add(executor.submit(() -> execute(app)));
+    executor.shutdown();
+
+    for (i = 0; i < futures.size(); i++) {
+      try {
+        result.add(futures.get(i).get());
+      }
+      catch (InterruptedException e) {
+        executor.shutdownNow();
+        result.add(new Result(m_Applications.get(i), "Interrupted!", 0));
+      }
+      catch (ExecutionException e) {
+        result.add(new Result(m_Applications.get(i), "Failed to bootstrap: " + e.getCause(), 0));
+      }
+    }
+
+    // source jars that got deferred until all applications were usable
+    for (i = 0; i < result.size(); i++) {
+      if (result.get(i).getError() != null)
+        continue;
+      if ((msg = result.get(i).getApplication().waitForSources()) != null)
+        result.set(i, new Result(result.get(i).getApplication(), msg, result.get(i).getDuration()));
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes the report to the report file, if any.
+   *
+   * @param results	the results to write
+   * @return		null if successful, otherwise error message
+   */
+  public String writeReport(List<Result> results) {
+    if (m_ReportFile == null)
+      return null;
+
+    try (PrintWriter writer = new PrintWriter(m_ReportFile, StandardCharsets.UTF_8)) {
+      writer.print(toReport(results));
+    }
+    catch (IOException e) {
+      getLogger().log(Level.SEVERE, "Failed to write report to: " + m_ReportFile, e);
+      return "Failed to write report to: " + m_ReportFile;
+    }
+
+    return null;
+  }
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("Bootstraps several ADAMS applications, sharing settings, version and template resolution.");
+    parser.addOption("-f", "--spec")
+      .required(true)
+      .type(Type.EXISTING_FILE)
+      .dest("spec")
+      .metaVar("FILE")
+      .help("The file with the applications to bootstrap, one per line using the options of " + Main.class.getName() + ".");
+    parser.addOption("-t", "--threads")
+      .type(Type.INTEGER)
+      .setDefault(DEFAULT_NUM_THREADS)
+      .dest("threads")
+      .metaVar("NUM")
+      .help("The maximum number of applications to bootstrap concurrently.");
+    parser.addOption("-r", "--report")
+      .required(false)
+      .type(Type.FILE)
+      .dest("report")
+      .metaVar("FILE")
+      .help("The file to write the (tab-separated) report with the results to.");
+
+    return parser;
+  }
+
+  /**
+   * Returns whether help got requested when setting the options.
+   *
+   * @return		true if help got requested
+   */
+  public boolean getHelpRequested() {
+    return m_HelpRequested;
+  }
+
+  /**
+   * Parses the options and configures the object.
+   *
+   * @param options	the command-line options
+   * @return		true if successfully set (or help requested)
+   */
+  public boolean setOptions(String[] options) {
+    ArgumentParser 	parser;
+    Namespace 		ns;
+    String		msg;
+
+    m_HelpRequested = false;
+    parser          = getParser();
+    try {
+      ns = parser.parseArgs(options);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      m_HelpRequested = parser.getHelpRequested();
+      return m_HelpRequested;
+    }
+
+    numThreads(ns.getInt("threads"));
+    reportFile(ns.getFile("report"));
+    if ((msg = readSpecFile(ns.getFile("spec"))) != null) {
+      System.err.println(msg);
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Executes the batch bootstrapping with the specified command-line arguments.
+   *
+   * @param args	the options to use
+   */
+  public static void main(String[] args) {
+    Batch		batch;
+    List<Result>	results;
+    String		msg;
+
+    batch = new Batch();
+    if (!batch.setOptions(args)) {
+      System.err.println("Failed to parse options!");
+      System.exit(1);
+    }
+    else if (batch.getHelpRequested()) {
+      System.exit(0);
+    }
+
+    results = batch.execute();
+    System.out.println(toReport(results));
+    if ((msg = batch.writeReport(results)) != null)
+      System.err.println(msg);
+
+    for (Result result: results) {
+      if (!result.isSuccess())
+        System.exit(2);
+    }
+  }
+}
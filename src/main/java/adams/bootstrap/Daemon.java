@@ -0,0 +1,1417 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Daemon.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap;
+
+import adams.bootstrap.core.BootstrapListener;
+import adams.bootstrap.core.BootstrapReport;
+import adams.bootstrap.core.BootstrapReport.Phase;
+import adams.bootstrap.core.Cache;
+import adams.bootstrap.core.VersionResolver;
+import com.github.fracpete.simpleargparse4j.ArgumentParser;
+import com.github.fracpete.simpleargparse4j.ArgumentParserException;
+import com.github.fracpete.simpleargparse4j.Namespace;
+import com.github.fracpete.simpleargparse4j.Option.Type;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.RepositoryCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Long-running process that accepts bootstrap jobs via a HTTP/JSON API on
+ * localhost, avoiding JVM startup and cold caches for every bootstrap.
+ * Catalog caches, LATEST versions (for their time-to-live), Maven user
+ * settings, pom template and in-process resolution results (artifact
+ * descriptors) are kept in memory and shared between the jobs, which get
+ * executed by a bounded pool of workers with a bounded queue.
+ * <br>
+ * API:
+ * <ul>
+ *   <li>POST /jobs -- submits a job, the body is a JSON object with either
+ *   an "args" array or an "options" string, using the options of
+ *   {@link Main}; responds with 202 and the job, 400 for invalid options,
+ *   503 if the queue is full; with "?stream=true" the progress events
+ *   get streamed back instead, like with /jobs/ID/events</li>
+ *   <li>GET /jobs -- lists the jobs</li>
+ *   <li>GET /jobs/ID -- the job, including the report once finished</li>
+ *   <li>GET /jobs/ID/events -- streams the progress events of the job
+ *   (one JSON object per line) until the job finishes</li>
+ *   <li>GET /status -- the state of the daemon</li>
+ *   <li>DELETE /caches -- discards the in-memory caches</li>
+ *   <li>POST /shutdown -- shuts down the daemon after the running jobs</li>
+ * </ul>
+ * Every request must supply the random token of the daemon in the
+ * {@link #TOKEN_HEADER} header. The token gets written to a file in the
+ * home directory that only the user can read ({@link #getTokenFile()}).
+ * Requests with a Host or Origin header that isn't a loopback address get
+ * rejected, as do requests other than GET without a JSON content type. This
+ * prevents web pages from submitting jobs via the browser.
+ * For example:
+ * <pre>
+ * curl -s -X POST "http://localhost:8765/jobs?stream=true" \
+ *   -H "Content-Type: application/json" \
+ *   -H "X-Instant-Adams-Token: $(cat ~/.local/share/instant-adams/daemon-8765.token)" \
+ *   -d '{"options": "-n weka -M adams-weka -V LATEST -o ./out/weka"}'
+ * </pre>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Daemon {
+
+  /** the default port. */
+  public final static int DEFAULT_PORT = 8765;
+
+  /** the default maximum number of queued jobs. */
+  public final static int DEFAULT_QUEUE_SIZE = 100;
+
+  /** the default maximum number of finished jobs to keep. */
+  public final static int DEFAULT_HISTORY = 100;
+
+  /** the seconds to wait for running jobs when shutting down. */
+  public final static int SHUTDOWN_TIMEOUT = 600;
+
+  /** the header for the token. */
+  public final static String TOKEN_HEADER = "X-Instant-Adams-Token";
+
+  /** the number of random bytes of the token. */
+  public final static int TOKEN_LENGTH = 32;
+
+  /** the required content type for requests other than GET. */
+  public final static String CONTENT_TYPE = "application/json";
+
+  /**
+   * The states of a job.
+   */
+  public enum Status {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+  }
+
+  /**
+   * Container for a submitted job, which also records its progress.
+   */
+  public static class Job
+    implements BootstrapListener {
+
+    /** the ID. */
+    protected String m_ID;
+
+    /** the options. */
+    protected List<String> m_Args;
+
+    /** the application to bootstrap. */
+    protected Main m_Application;
+
+    /** the state. */
+    protected Status m_Status;
+
+    /** when the job got submitted. */
+    protected long m_Submitted;
+
+    /** when the job got started. */
+    protected long m_Started;
+
+    /** when the job finished. */
+    protected long m_Finished;
+
+    /** the error, null if none. */
+    protected String m_Error;
+
+    /** the progress events. */
+    protected List<JsonObject> m_Events;
+
+    /** the report of the run, null if not finished. */
+    protected JsonObject m_Report;
+
+    /**
+     * Initializes the job.
+     *
+     * @param id		the ID
+     * @param args	the options
+     * @param app		the configured application
+     */
+    public Job(String id, List<String> args, Main app) {
+      m_ID          = id;
+      m_Args        = args;
+      m_Application = app;
+      m_Status      = Status.QUEUED;
+      m_Submitted   = System.currentTimeMillis();
+      m_Started     = -1;
+      m_Finished    = -1;
+      m_Error       = null;
+      m_Events      = new ArrayList<>();
+      m_Report      = null;
+      m_Application.addListener(this);
+    }
+
+    /**
+     * Returns the ID.
+     *
+     * @return		the ID
+     */
+    public String getID() {
+      return m_ID;
+    }
+
+    /**
+     * Returns the application.
+     *
+     * @return		the application
+     */
+    public Main getApplication() {
+      return m_Application;
+    }
+
+    /**
+     * Returns the state.
+     *
+     * @return		the state
+     */
+    public synchronized Status getStatus() {
+      return m_Status;
+    }
+
+    /**
+     * Returns whether the job has finished.
+     *
+     * @return		true if finished
+     */
+    public synchronized boolean isFinished() {
+      return (m_Status == Status.SUCCEEDED) || (m_Status == Status.FAILED);
+    }
+
+    /**
+     * Adds the event and notifies any waiting streams.
+     *
+     * @param event	the event type
+     * @param data	the event, gets the type and timestamp added
+     */
+    protected synchronized void addEvent(String event, JsonObject data) {
+      data.addProperty("job", m_ID);
+      data.addProperty("event", event);
+      data.addProperty("timestamp", Instant.now().toString());
+      m_Events.add(data);
+      notifyAll();
+    }
+
+    /**
+     * Adds the event and notifies any waiting streams.
+     *
+     * @param event	the event type
+     * @param data	the event, gets the type and timestamp added
+     * @param status	the new state
+     */
+    protected synchronized void addEvent(String event, JsonObject data, Status status) {
+      m_Status = status;
+      addEvent(event, data);
+    }
+
+    /**
+     * Returns the event at the specified position, waiting for it if
+     * necessary.
+     *
+     * @param index	the position
+     * @return		the event, null if the job finished without it
+     * @throws InterruptedException	if interrupted while waiting
+     */
+    public synchronized JsonObject waitForEvent(int index) throws InterruptedException {
+      while ((index >= m_Events.size()) && !isFinished())
+	wait();
+      if (index < m_Events.size())
+	return m_Events.get(index);
+      return null;
+    }
+
+    /**
+     * Marks the job as running.
+     */
+    public synchronized void started() {
+      m_Started = System.currentTimeMillis();
+      addEvent("started", new JsonObject(), Status.RUNNING);
+    }
+
+    /**
+     * Marks the job as finished.
+     *
+     * @param error	the error, null if successful
+     * @param report	the report, null if not available
+     */
+    public synchronized void finished(String error, BootstrapReport report) {
+      JsonObject	data;
+
+      m_Error    = error;
+      m_Report   = (report == null) ? null : report.toJson();
+      m_Finished = System.currentTimeMillis();
+      data       = new JsonObject();
+      data.addProperty("success", error == null);
+      data.addProperty("error", error);
+      data.addProperty("duration", m_Finished - m_Started);
+      addEvent("finished", data, (error == null) ? Status.SUCCEEDED : Status.FAILED);
+    }
+
+    /**
+     * Gets called when a phase starts.
+     *
+     * @param report	the report of the run
+     * @param phase	the phase
+     */
+    @Override
+    public void phaseStarted(BootstrapReport report, Phase phase) {
+      JsonObject	data;
+
+      data = new JsonObject();
+      data.addProperty("phase", phase.toString().toLowerCase());
+      addEvent("phaseStarted", data);
+    }
+
+    /**
+     * Gets called when a phase finishes.
+     *
+     * @param report	the report of the run
+     * @param phase	the phase
+     * @param duration	the duration of the phase in msec
+     */
+    @Override
+    public void phaseFinished(BootstrapReport report, Phase phase, long duration) {
+      JsonObject	data;
+
+      data = new JsonObject();
+      data.addProperty("phase", phase.toString().toLowerCase());
+      data.addProperty("duration", duration);
+      addEvent("phaseFinished", data);
+    }
+
+    /**
+     * Gets called when an artifact got downloaded by the in-process resolution.
+     *
+     * @param report	the report of the run
+     * @param artifact	the artifact (path in the repository)
+     * @param bytes	the downloaded bytes
+     */
+    @Override
+    public void artifactDownloaded(BootstrapReport report, String artifact, long bytes) {
+      JsonObject	data;
+
+      data = new JsonObject();
+      data.addProperty("artifact", artifact);
+      data.addProperty("bytes", bytes);
+      addEvent("artifactDownloaded", data);
+    }
+
+    /**
+     * Gets called when a problem occurred that does not stop the run, or when
+     * the run got cancelled or timed out.
+     *
+     * @param report	the report of the run
+     * @param message	the warning
+     */
+    @Override
+    public void warning(BootstrapReport report, String message) {
+      JsonObject	data;
+
+      data = new JsonObject();
+      data.addProperty("message", message);
+      addEvent("warning", data);
+    }
+
+    /**
+     * Returns the job as JSON.
+     *
+     * @param full	whether to include options and report
+     * @return		the JSON object
+     */
+    public synchronized JsonObject toJson(boolean full) {
+      JsonObject	result;
+      JsonArray		args;
+
+      result = new JsonObject();
+      result.addProperty("id", m_ID);
+      result.addProperty("name", m_Application.getName());
+      result.addProperty("outputDir", (m_Application.getOutputDir() == null) ? null : m_Application.getOutputDir().getAbsolutePath());
+      result.addProperty("status", m_Status.toString().toLowerCase());
+      result.addProperty("submitted", Instant.ofEpochMilli(m_Submitted).toString());
+      result.addProperty("started", (m_Started == -1) ? null : Instant.ofEpochMilli(m_Started).toString());
+      result.addProperty("finished", (m_Finished == -1) ? null : Instant.ofEpochMilli(m_Finished).toString());
+      result.addProperty("error", m_Error);
+      if (full) {
+	args = new JsonArray();
+	for (String arg: m_Args)
+	  args.add(arg);
+	result.add("args", args);
+	result.add("report", m_Report);
+      }
+
+      return result;
+    }
+  }
+
+  /**
+   * Container for a shared LATEST version resolver.
+   */
+  protected static class SharedResolver {
+
+    /** the resolver. */
+    public VersionResolver resolver;
+
+    /** when the resolver got created. */
+    public long created;
+  }
+
+  /**
+   * Container for a shared resolution cache.
+   */
+  protected static class SharedRepositoryCache {
+
+    /** the cache. */
+    public RepositoryCache cache;
+
+    /** when the cache got created. */
+    public long created;
+  }
+
+  /** the port to listen on. */
+  protected int m_Port;
+
+  /** the number of concurrent builds. */
+  protected int m_NumThreads;
+
+  /** the maximum number of queued jobs. */
+  protected int m_QueueSize;
+
+  /** the maximum number of finished jobs to keep. */
+  protected int m_History;
+
+  /** for logging. */
+  protected Logger m_Logger;
+
+  /** whether help got requested. */
+  protected boolean m_HelpRequested;
+
+  /** the HTTP server. */
+  protected transient HttpServer m_Server;
+
+  /** the executor for the jobs. */
+  protected transient ThreadPoolExecutor m_Executor;
+
+  /** the jobs (in order of submission). */
+  protected transient Map<String,Job> m_Jobs;
+
+  /** for generating the job IDs. */
+  protected transient AtomicLong m_Counter;
+
+  /** the shared catalog caches (key: TTL and offline). */
+  protected transient Map<String,Cache> m_Caches;
+
+  /** the shared LATEST version resolvers. */
+  protected transient Map<String,SharedResolver> m_VersionResolvers;
+
+  /** the shared Maven user settings (key: URL and offline). */
+  protected transient Map<String,File> m_Settings;
+
+  /** the shared pom template. */
+  protected transient File m_PomTemplate;
+
+  /** the shared resolution caches (key: settings, TTL and offline). */
+  protected transient Map<String,SharedRepositoryCache> m_RepositoryCaches;
+
+  /** for waiting on the shutdown. */
+  protected transient CountDownLatch m_Shutdown;
+
+  /** for synchronizing starting/stopping. */
+  protected transient Object m_Lock;
+
+  /** the token that requests must supply. */
+  protected transient byte[] m_Token;
+
+  /** the file with the token, null if not running. */
+  protected transient File m_TokenFile;
+
+  /**
+   * Initializes the object.
+   */
+  public Daemon() {
+    initialize();
+  }
+
+  /**
+   * Initializes the members.
+   */
+  protected void initialize() {
+    m_Port             = DEFAULT_PORT;
+    m_NumThreads       = Batch.DEFAULT_NUM_THREADS;
+    m_QueueSize        = DEFAULT_QUEUE_SIZE;
+    m_History          = DEFAULT_HISTORY;
+    m_Logger           = null;
+    m_HelpRequested    = false;
+    m_Server           = null;
+    m_Executor         = null;
+    m_Jobs             = new LinkedHashMap<>();
+    m_Counter          = new AtomicLong();
+    m_Caches           = new HashMap<>();
+    m_VersionResolvers = new HashMap<>();
+    m_Settings         = new HashMap<>();
+    m_PomTemplate      = null;
+    m_RepositoryCaches = new HashMap<>();
+    m_Shutdown         = new CountDownLatch(1);
+    m_Lock             = new Object();
+    m_Token            = null;
+    m_TokenFile        = null;
+  }
+
+  /**
+   * Returns the logger instance to use.
+   *
+   * @return		the logger
+   */
+  protected Logger getLogger() {
+    if (m_Logger == null)
+      m_Logger = Logger.getLogger(getClass().getName());
+    return m_Logger;
+  }
+
+  /**
+   * Sets the port to listen on (localhost only).
+   *
+   * @param port	the port, 0 for any free one
+   * @return		itself
+   */
+  public Daemon port(int port) {
+    m_Port = port;
+    return this;
+  }
+
+  /**
+   * Returns the port to listen on (localhost only).
+   *
+   * @return		the port
+   */
+  public int getPort() {
+    return m_Port;
+  }
+
+  /**
+   * Sets the number of applications to build concurrently.
+   *
+   * @param num		the number of threads
+   * @return		itself
+   */
+  public Daemon numThreads(int num) {
+    if (num < 1)
+      throw new IllegalArgumentException("At least one thread required: " + num);
+    m_NumThreads = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of applications to build concurrently.
+   *
+   * @return		the number of threads
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Sets the maximum number of jobs waiting for execution.
+   *
+   * @param size	the maximum
+   * @return		itself
+   */
+  public Daemon queueSize(int size) {
+    if (size < 1)
+      throw new IllegalArgumentException("Queue size must be at least 1: " + size);
+    m_QueueSize = size;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of jobs waiting for execution.
+   *
+   * @return		the maximum
+   */
+  public int getQueueSize() {
+    return m_QueueSize;
+  }
+
+  /**
+   * Sets the maximum number of finished jobs to keep.
+   *
+   * @param num		the maximum
+   * @return		itself
+   */
+  public Daemon history(int num) {
+    m_History = num;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of finished jobs to keep.
+   *
+   * @return		the maximum
+   */
+  public int getHistory() {
+    return m_History;
+  }
+
+  /**
+   * Returns the actual port the daemon listens on.
+   *
+   * @return		the port, -1 if not running
+   */
+  public int getActualPort() {
+    if (m_Server == null)
+      return -1;
+    return m_Server.getAddress().getPort();
+  }
+
+  /**
+   * Returns the file with the token that requests must supply in the
+   * {@link #TOKEN_HEADER} header.
+   *
+   * @return		the file, null if not running
+   */
+  public File getTokenFile() {
+    return m_TokenFile;
+  }
+
+  /**
+   * Discards the shared in-memory caches.
+   */
+  public synchronized void clearCaches() {
+    m_Caches.clear();
+    m_VersionResolvers.clear();
+    m_Settings.clear();
+    m_PomTemplate = null;
+    m_RepositoryCaches.clear();
+    getLogger().info("Caches cleared");
+  }
+
+  /**
+   * Configures the application to use the shared settings, template,
+   * catalog cache, LATEST version and resolution cache, initializing them
+   * if necessary.
+   *
+   * @param app		the application to configure
+   * @return		null if successful, otherwise error message
+   */
+  protected String prepare(Main app) {
+    String			result;
+    Main			shared;
+    String			key;
+    File			file;
+    SharedResolver		resolver;
+    SharedRepositoryCache	repoCache;
+
+    // catalogs
+    key = app.getCacheTTL() + "\t" + app.getOffline();
+    synchronized (this) {
+      if (!m_Caches.containsKey(key))
+	m_Caches.put(key, app.getCache());
+      app.cache(m_Caches.get(key));
+    }
+
+    // settings, downloaded outside the lock (the download locks the file)
+    if (app.getMavenUserSettings() == null) {
+      key = app.getUserSettingsURL() + "\t" + app.getOffline();
+      synchronized (this) {
+	file = m_Settings.get(key);
+      }
+      if (file == null) {
+	shared = new Main().offline(app.getOffline()).userSettingsURL(app.getUserSettingsURL()).cache(app.getCache());
+	if ((result = shared.initMavenUserSettings()) != null)
+	  return result;
+	synchronized (this) {
+	  m_Settings.putIfAbsent(key, shared.m_ActMavenUserSettings);
+	  file = m_Settings.get(key);
+	}
+      }
+      app.mavenUserSettings(file);
+    }
+
+    // pom template
+    if (app.getPomTemplate() == null) {
+      synchronized (this) {
+	file = m_PomTemplate;
+      }
+      if (file == null) {
+	shared = new Main();
+	if ((result = shared.initPomTemplate()) != null)
+	  return result;
+	synchronized (this) {
+	  if (m_PomTemplate == null)
+	    m_PomTemplate = shared.m_ActPomTemplate;
+	  file = m_PomTemplate;
+	}
+      }
+      app.pomTemplate(file);
+    }
+
+    // LATEST version, only kept for its time-to-live
+    if (Main.LATEST.equals(app.getVersion())) {
+      key = app.getAdamsRepository() + "\t" + app.getVersionTTL() + "\t" + app.getAdamsBaseURL() + "\t" + app.getOffline();
+      synchronized (this) {
+	resolver = m_VersionResolvers.get(key);
+	if ((resolver == null) || (System.currentTimeMillis() - resolver.created > app.getVersionTTL() * 60 * 1000)) {
+	  resolver          = new SharedResolver();
+	  resolver.resolver = app.getVersionResolver();
+	  resolver.created  = System.currentTimeMillis();
+	  m_VersionResolvers.put(key, resolver);
+	}
+      }
+      app.versionResolver(resolver.resolver);
+    }
+
+    // resolution, only kept for the same time-to-live as LATEST, as it
+    // holds on to resolved SNAPSHOT and LATEST metadata as well
+    key = app.getMavenUserSettings().getAbsolutePath() + "\t" + app.getVersionTTL() + "\t" + app.getOffline();
+    synchronized (this) {
+      repoCache = m_RepositoryCaches.get(key);
+      if ((repoCache == null) || (System.currentTimeMillis() - repoCache.created > app.getVersionTTL() * 60 * 1000)) {
+	repoCache         = new SharedRepositoryCache();
+	repoCache.cache   = new DefaultRepositoryCache();
+	repoCache.created = System.currentTimeMillis();
+	m_RepositoryCaches.put(key, repoCache);
+      }
+    }
+    app.repositoryCache(repoCache.cache);
+
+    return null;
+  }
+
+  /**
+   * Removes the oldest finished jobs beyond the history size.
+   */
+  protected void trimHistory() {
+    Iterator<Job>	iter;
+    int			finished;
+
+    synchronized (m_Jobs) {
+      finished = 0;
+      for (Job job: m_Jobs.values()) {
+	if (job.isFinished())
+	  finished++;
+      }
+      iter = m_Jobs.values().iterator();
+      while ((finished > m_History) && iter.hasNext()) {
+	if (iter.next().isFinished()) {
+	  iter.remove();
+	  finished--;
+	}
+      }
+    }
+  }
+
+  /**
+   * Bootstraps the application of the job.
+   *
+   * @param job		the job to execute
+   */
+  protected void execute(Job job) {
+    String	error;
+
+    job.started();
+    getLogger().info("Job " + job.getID() + " started: " + job.getApplication().getName());
+    try {
+      error = prepare(job.getApplication());
+      if (error == null)
+	error = job.getApplication().execute();
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Job " + job.getID() + " failed: " + job.getApplication().getName(), e);
+      error = "Failed to bootstrap: " + e;
+    }
+    job.finished(error, job.getApplication().m_Report);
+    getLogger().info("Job " + job.getID() + " " + job.getStatus().toString().toLowerCase() + ": " + job.getApplication().getName());
+    trimHistory();
+  }
+
+  /**
+   * Creates and submits the job.
+   *
+   * @param args	the options for the application
+   * @param errors	for storing the error and HTTP status, if any
+   * @return		the job, null if failed to submit
+   */
+  public Job submit(List<String> args, StringBuilder errors) {
+    Main	app;
+    Job		job;
+
+    app = new Main();
+    try {
+      if (!app.setOptions(args.toArray(new String[0])) || app.getHelpRequested()) {
+	errors.append("Invalid options: ").append(String.join(" ", args));
+	return null;
+      }
+    }
+    catch (Exception e) {
+      errors.append("Failed to parse options: ").append(e.getMessage());
+      return null;
+    }
+    if (app.getListModules() || app.getCleanUpStore() || app.getGC() || (app.getBatch() != null) || app.getDaemon()) {
+      errors.append("Only bootstrap jobs are supported!");
+      return null;
+    }
+
+    job = new Job("" + m_Counter.incrementAndGet(), args, app);
+    synchronized (m_Jobs) {
+      m_Jobs.put(job.getID(), job);
+    }
+    try {
+      m_Executor.execute(() -> execute(job));
+    }
+    catch (RejectedExecutionException e) {
+      synchronized (m_Jobs) {
+	m_Jobs.remove(job.getID());
+      }
+      errors.append("Queue full or shutting down, please retry later!");
+      return null;
+    }
+    getLogger().info("Job " + job.getID() + " queued: " + app.getName());
+
+    return job;
+  }
+
+  /**
+   * Returns the job.
+   *
+   * @param id		the ID of the job
+   * @return		the job, null if not found
+   */
+  public Job getJob(String id) {
+    synchronized (m_Jobs) {
+      return m_Jobs.get(id);
+    }
+  }
+
+  /**
+   * Returns the jobs.
+   *
+   * @return		the jobs, in order of submission
+   */
+  public List<Job> getJobs() {
+    synchronized (m_Jobs) {
+      return new ArrayList<>(m_Jobs.values());
+    }
+  }
+
+  /**
+   * Returns the state of the daemon as JSON.
+   *
+   * @return		the state
+   */
+  protected JsonObject statusToJson() {
+    JsonObject	result;
+    int		hits;
+    int		misses;
+
+    result = new JsonObject();
+    result.addProperty("port", getActualPort());
+    result.addProperty("threads", m_NumThreads);
+    result.addProperty("running", m_Executor.getActiveCount());
+    result.addProperty("queued", m_Executor.getQueue().size());
+    result.addProperty("queueSize", m_QueueSize);
+    result.addProperty("jobs", getJobs().size());
+    synchronized (this) {
+      hits   = 0;
+      misses = 0;
+      for (Cache cache: m_Caches.values()) {
+	hits   += cache.getHits();
+	misses += cache.getMisses();
+      }
+      result.addProperty("catalogHits", hits);
+      result.addProperty("catalogMisses", misses);
+      result.addProperty("versionResolvers", m_VersionResolvers.size());
+      result.addProperty("resolutionCaches", m_RepositoryCaches.size());
+    }
+
+    return result;
+  }
+
+  /**
+   * Sends the JSON as response.
+   *
+   * @param exchange	the exchange to respond to
+   * @param code	the HTTP status code
+   * @param json	the JSON to send
+   * @throws IOException	if sending fails
+   */
+  protected void send(HttpExchange exchange, int code, JsonElement json) throws IOException {
+    byte[]	data;
+
+    data = (new GsonBuilder().setPrettyPrinting().serializeNulls().create().toJson(json) + "\n").getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(code, data.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(data);
+    }
+  }
+
+  /**
+   * Sends the error as JSON response.
+   *
+   * @param exchange	the exchange to respond to
+   * @param code	the HTTP status code
+   * @param msg		the error message
+   * @throws IOException	if sending fails
+   */
+  protected void sendError(HttpExchange exchange, int code, String msg) throws IOException {
+    JsonObject	json;
+
+    json = new JsonObject();
+    json.addProperty("error", msg);
+    send(exchange, code, json);
+  }
+
+  /**
+   * Streams the events of the job (one JSON object per line) until the job
+   * has finished.
+   *
+   * @param exchange	the exchange to respond to
+   * @param code	the HTTP status code
+   * @param job		the job to stream the events for
+   * @throws IOException	if sending fails
+   */
+  protected void stream(HttpExchange exchange, int code, Job job) throws IOException {
+    JsonObject	event;
+    int		index;
+
+    exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+    exchange.getResponseHeaders().set("Location", "/jobs/" + job.getID());
+    exchange.sendResponseHeaders(code, 0);
+    try (OutputStream out = exchange.getResponseBody()) {
+      index = 0;
+      while ((event = job.waitForEvent(index)) != null) {
+	out.write((event.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+	out.flush();
+	index++;
+      }
+    }
+    catch (InterruptedException e) {
+      // shutting down
+    }
+  }
+
+  /**
+   * Checks whether the host (with optional port) refers to the loopback
+   * interface. Only "localhost" and IP literals are accepted, no other names
+   * get resolved, as they could be rebound to the loopback address.
+   *
+   * @param host	the host to check, eg from the Host header
+   * @return		true if loopback
+   */
+  protected static boolean isLoopback(String host) {
+    if (host == null)
+      return false;
+    host = host.trim().toLowerCase();
+    if (host.startsWith("[")) {
+      if (!host.contains("]"))
+	return false;
+      host = host.substring(1, host.indexOf(']'));
+      // IPv6 literals only
+      if (!host.matches("[0-9a-f:.]+"))
+	return false;
+    }
+    else {
+      if (host.contains(":"))
+	host = host.substring(0, host.indexOf(':'));
+      if (host.equals("localhost"))
+	return true;
+      // IPv4 literals only
+      if (!host.matches("[0-9]{1,3}(\\.[0-9]{1,3}){3}"))
+	return false;
+    }
+    try {
+      return InetAddress.getByName(host).isLoopbackAddress();
+    }
+    catch (Exception e) {
+      return false;
+    }
+  }
+
+  /**
+   * Checks the headers of the request: the token, a loopback Host/Origin and
+   * the JSON content type for requests other than GET.
+   *
+   * @param exchange	the exchange to check
+   * @param code	for storing the HTTP status code in case of an error
+   * @return		null if acceptable, otherwise error message
+   */
+  protected String checkRequest(HttpExchange exchange, int[] code) {
+    String	origin;
+    String	token;
+    String	type;
+    URI		uri;
+
+    code[0] = 403;
+    if (!isLoopback(exchange.getRequestHeaders().getFirst("Host")))
+      return "Host must be localhost or a loopback address!";
+    origin = exchange.getRequestHeaders().getFirst("Origin");
+    if (origin != null) {
+      try {
+	uri = new URI(origin);
+      }
+      catch (Exception e) {
+	return "Invalid origin: " + origin;
+      }
+      if (!"http".equals(uri.getScheme()) || !isLoopback(uri.getRawAuthority()))
+	return "Origin must be localhost or a loopback address!";
+    }
+
+    code[0] = 401;
+    token   = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+    if ((token == null) || !MessageDigest.isEqual(m_Token, token.trim().getBytes(StandardCharsets.UTF_8)))
+      return "Missing or invalid " + TOKEN_HEADER + " header, see: " + m_TokenFile;
+
+    if (!exchange.getRequestMethod().equals("GET")) {
+      code[0] = 415;
+      type    = exchange.getRequestHeaders().getFirst("Content-Type");
+      if ((type == null) || !type.split(";")[0].trim().equalsIgnoreCase(CONTENT_TYPE))
+	return "Content-Type must be " + CONTENT_TYPE + "!";
+    }
+
+    return null;
+  }
+
+  /**
+   * Parses the options of the job from the request body.
+   *
+   * @param exchange	the exchange to read the body from
+   * @param args	for storing the options
+   * @return		null if successful, otherwise error message
+   */
+  protected String parseArgs(HttpExchange exchange, List<String> args) {
+    JsonObject	json;
+    String	body;
+
+    try (InputStream in = exchange.getRequestBody()) {
+      body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      json = JsonParser.parseString(body).getAsJsonObject();
+      if (json.has("args")) {
+	for (JsonElement arg: json.getAsJsonArray("args"))
+	  args.add(arg.getAsString());
+      }
+      else if (json.has("options")) {
+	for (String arg: Batch.split(json.get("options").getAsString()))
+	  args.add(arg);
+      }
+      else {
+	return "Either 'args' array or 'options' string required!";
+      }
+    }
+    catch (Exception e) {
+      return "Invalid job: " + e.getMessage();
+    }
+
+    return null;
+  }
+
+  /**
+   * Handles the requests.
+   *
+   * @param exchange	the exchange to handle
+   * @throws IOException	if sending the response fails
+   */
+  protected void handle(HttpExchange exchange) throws IOException {
+    String	method;
+    String[]	parts;
+    String	query;
+    List<String>	args;
+    StringBuilder	errors;
+    String	msg;
+    Job		job;
+    JsonArray	jobs;
+    int[]	code;
+
+    method = exchange.getRequestMethod();
+    parts  = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+    query  = exchange.getRequestURI().getQuery();
+
+    try {
+      code = new int[1];
+      if ((msg = checkRequest(exchange, code)) != null) {
+	getLogger().warning("Rejected request " + method + " " + exchange.getRequestURI().getPath() + " from " + exchange.getRemoteAddress() + ": " + msg);
+	sendError(exchange, code[0], msg);
+	return;
+      }
+      if (parts[0].equals("jobs")) {
+	if ((parts.length == 1) && method.equals("POST")) {
+	  args = new ArrayList<>();
+	  if ((msg = parseArgs(exchange, args)) != null) {
+	    sendError(exchange, 400, msg);
+	    return;
+	  }
+	  errors = new StringBuilder();
+	  job    = submit(args, errors);
+	  if (job == null) {
+	    sendError(exchange, errors.toString().startsWith("Queue") ? 503 : 400, errors.toString());
+	    return;
+	  }
+	  if ((query != null) && query.matches("(.*&)?stream=true(&.*)?")) {
+	    stream(exchange, 202, job);
+	  }
+	  else {
+	    exchange.getResponseHeaders().set("Location", "/jobs/" + job.getID());
+	    send(exchange, 202, job.toJson(false));
+	  }
+	  return;
+	}
+	if ((parts.length == 1) && method.equals("GET")) {
+	  jobs = new JsonArray();
+	  for (Job j: getJobs())
+	    jobs.add(j.toJson(false));
+	  send(exchange, 200, jobs);
+	  return;
+	}
+	if ((parts.length == 2) || (parts.length == 3)) {
+	  job = getJob(parts[1]);
+	  if (job == null) {
+	    sendError(exchange, 404, "Unknown job: " + parts[1]);
+	    return;
+	  }
+	  if ((parts.length == 2) && method.equals("GET")) {
+	    send(exchange, 200, job.toJson(true));
+	    return;
+	  }
+	  if ((parts.length == 2) && method.equals("DELETE")) {
+	    if (!job.isFinished())
+	      job.getApplication().cancel("Job " + job.getID() + " cancelled");
+	    send(exchange, 202, job.toJson(false));
+	    return;
+	  }
+	  if ((parts.length == 3) && parts[2].equals("events") && method.equals("GET")) {
+	    stream(exchange, 200, job);
+	    return;
+	  }
+	}
+      }
+      else if (parts[0].equals("status") && method.equals("GET")) {
+	send(exchange, 200, statusToJson());
+	return;
+      }
+      else if (parts[0].equals("caches") && method.equals("DELETE")) {
+	clearCaches();
+	send(exchange, 200, statusToJson());
+	return;
+      }
+      else if (parts[0].equals("shutdown") && method.equals("POST")) {
+	send(exchange, 202, statusToJson());
+	new Thread(this::stop, "instant-adams-shutdown").start();
+	return;
+      }
+      sendError(exchange, 404, "Unsupported request: " + method + " " + exchange.getRequestURI().getPath());
+    }
+    catch (IOException e) {
+      getLogger().log(Level.WARNING, "Failed to respond to: " + method + " " + exchange.getRequestURI(), e);
+      throw e;
+    }
+    finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Writes the token to the file, readable by the user only.
+   *
+   * @param file	the file to write to
+   * @param token	the token
+   * @throws IOException	if writing fails
+   */
+  protected void writeToken(File file, byte[] token) throws IOException {
+    Path	tmp;
+
+    if (!file.getParentFile().exists() && !file.getParentFile().mkdirs() && !file.getParentFile().exists())
+      throw new IOException("Failed to create directory: " + file.getParentFile());
+    if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp",
+	PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    }
+    else {
+      tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+      tmp.toFile().setReadable(false, false);
+      tmp.toFile().setReadable(true, true);
+      tmp.toFile().setWritable(false, false);
+      tmp.toFile().setWritable(true, true);
+    }
+    try {
+      Files.write(tmp, token);
+      Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Generates a random token (hex string).
+   *
+   * @return		the token
+   */
+  protected static byte[] generateToken() {
+    byte[]		random;
+    StringBuilder	result;
+
+    random = new byte[TOKEN_LENGTH];
+    new SecureRandom().nextBytes(random);
+    result = new StringBuilder();
+    for (byte b: random)
+      result.append(String.format("%02x", b));
+
+    return result.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Starts the daemon.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String start() {
+    synchronized (m_Lock) {
+      return doStart();
+    }
+  }
+
+  /**
+   * Starts the daemon.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String doStart() {
+    ExecutorService	handlers;
+
+    if (m_Server != null)
+      return "Daemon already running on port " + getActualPort() + "!";
+
+    m_Executor = new ThreadPoolExecutor(m_NumThreads, m_NumThreads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(m_QueueSize));
+    try {
+      m_Server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), m_Port), 0);
+    }
+    catch (IOException e) {
+      getLogger().log(Level.SEVERE, "Failed to start daemon on port " + m_Port, e);
+      m_Executor.shutdown();
+      m_Executor = null;
+      return "Failed to start daemon on port " + m_Port + ": " + e.getMessage();
+    }
+    // event streams block a handler thread each
+    handlers = Executors.newCachedThreadPool(r -> {
+      Thread t = new Thread(r, "instant-adams-http");
+      t.setDaemon(true);
+      return t;
+    });
+    m_Server.setExecutor(handlers);
+    m_Server.createContext("/", this::handle);
+    m_Token     = generateToken();
+    m_TokenFile = new File(new Main().homeDir(), "daemon-" + getActualPort() + ".token");
+    try {
+      writeToken(m_TokenFile, m_Token);
+    }
+    catch (IOException e) {
+      getLogger().log(Level.SEVERE, "Failed to write token file: " + m_TokenFile, e);
+      m_Server.stop(0);
+      m_Server = null;
+      m_Executor.shutdown();
+      m_Executor = null;
+      handlers.shutdown();
+      return "Failed to write token file: " + m_TokenFile;
+    }
+    m_Server.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "instant-adams-daemon-stop"));
+    getLogger().info("Daemon listening on http://" + m_Server.getAddress().getHostString() + ":" + getActualPort() + "/ with " + m_NumThreads + " worker(s), token in: " + m_TokenFile);
+
+    return null;
+  }
+
+  /**
+   * Stops the daemon, letting running and queued jobs finish.
+   */
+  public void stop() {
+    synchronized (m_Lock) {
+      if (m_Server == null)
+	return;
+
+      getLogger().info("Shutting down daemon");
+      m_Executor.shutdown();
+      try {
+	if (!m_Executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS))
+	  m_Executor.shutdownNow();
+      }
+      catch (InterruptedException e) {
+	m_Executor.shutdownNow();
+      }
+      m_Server.stop(1);
+      m_Server = null;
+      if ((m_TokenFile != null) && m_TokenFile.exists() && !m_TokenFile.delete())
+	getLogger().warning("Failed to delete token file: " + m_TokenFile);
+      m_TokenFile = null;
+      m_Shutdown.countDown();
+    }
+  }
+
+  /**
+   * Waits until the daemon has been shut down.
+   */
+  public void waitForShutdown() {
+    try {
+      m_Shutdown.await();
+    }
+    catch (InterruptedException e) {
+      // ignored
+    }
+  }
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("Accepts bootstrap jobs via a HTTP/JSON API on localhost, keeping caches warm.");
+    parser.addOption("-p", "--port")
+      .type(Type.INTEGER)
+      .setDefault(DEFAULT_PORT)
+      .dest("port")
+      .metaVar("PORT")
+      .help("The port to listen on (localhost only).");
+    parser.addOption("-t", "--threads")
+      .type(Type.INTEGER)
+      .setDefault(Batch.DEFAULT_NUM_THREADS)
+      .dest("threads")
+      .metaVar("NUM")
+      .help("The maximum number of applications to bootstrap concurrently.");
+    parser.addOption("-q", "--queue")
+      .type(Type.INTEGER)
+      .setDefault(DEFAULT_QUEUE_SIZE)
+      .dest("queue")
+      .metaVar("NUM")
+      .help("The maximum number of jobs waiting for execution, further jobs get rejected.");
+    parser.addOption("--history")
+      .type(Type.INTEGER)
+      .setDefault(DEFAULT_HISTORY)
+      .dest("history")
+      .metaVar("NUM")
+      .help("The maximum number of finished jobs to keep.");
+
+    return parser;
+  }
+
+  /**
+   * Returns whether help got requested when setting the options.
+   *
+   * @return		true if help got requested
+   */
+  public boolean getHelpRequested() {
+    return m_HelpRequested;
+  }
+
+  /**
+   * Parses the options and configures the object.
+   *
+   * @param options	the command-line options
+   * @return		true if successfully set (or help requested)
+   */
+  public boolean setOptions(String[] options) {
+    ArgumentParser 	parser;
+    Namespace 		ns;
+
+    m_HelpRequested = false;
+    parser          = getParser();
+    try {
+      ns = parser.parseArgs(options);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      m_HelpRequested = parser.getHelpRequested();
+      return m_HelpRequested;
+    }
+
+    port(ns.getInt("port"));
+    numThreads(ns.getInt("threads"));
+    queueSize(ns.getInt("queue"));
+    history(ns.getInt("history"));
+
+    return true;
+  }
+
+  /**
+   * Runs the daemon with the specified command-line arguments.
+   *
+   * @param args	the options to use
+   */
+  public static void main(String[] args) {
+    Daemon	daemon;
+    String	msg;
+
+    daemon = new Daemon();
+    if (!daemon.setOptions(args)) {
+      System.err.println("Failed to parse options!");
+      System.exit(1);
+    }
+    else if (daemon.getHelpRequested()) {
+      System.exit(0);
+    }
+
+    if ((msg = daemon.start()) != null) {
+      System.err.println(msg);
+      System.exit(2);
+    }
+    daemon.waitForShutdown();
+  }
+}
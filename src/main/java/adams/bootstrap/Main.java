@@ -20,24 +20,65 @@
 
 package adams.bootstrap;
 
+import adams.bootstrap.core.BootstrapListener;
+import adams.bootstrap.core.BootstrapReport;
+import adams.bootstrap.core.BootstrapReport.Phase;
+import adams.bootstrap.core.Cache;
+import adams.bootstrap.core.ClassIndex;
+import adams.bootstrap.core.ClassPathLauncher;
+import adams.bootstrap.core.DependencyResolver;
+import adams.bootstrap.core.Fingerprint;
+import adams.bootstrap.core.GroupFilter;
+import adams.bootstrap.core.HomeCache;
+import adams.bootstrap.core.IntegrityManifest;
+import adams.bootstrap.core.JarStore;
+import adams.bootstrap.core.Lockfile;
+import adams.bootstrap.core.OciImage;
+import adams.bootstrap.core.PackageWriter;
+import adams.bootstrap.core.SharedArchive;
+import adams.bootstrap.core.SharedLock;
+import adams.bootstrap.core.TargetPlatform;
+import adams.bootstrap.core.PomParser;
+import adams.bootstrap.core.ResolverBootstrapp;
+import adams.bootstrap.core.RuntimeImage;
+import adams.bootstrap.core.TimedBootstrapp;
+import adams.bootstrap.core.VersionResolver;
+import com.github.fracpete.bootstrapp.core.Maven;
 import com.github.fracpete.bootstrapp.core.Template;
-import com.github.fracpete.requests4j.Requests;
-import com.github.fracpete.requests4j.response.BasicResponse;
-import com.github.fracpete.requests4j.response.Response;
-import com.github.fracpete.resourceextractor4j.Files;
+import com.github.fracpete.resourceextractor4j.Content;
 import com.github.fracpete.simpleargparse4j.ArgumentParser;
 import com.github.fracpete.simpleargparse4j.ArgumentParserException;
 import com.github.fracpete.simpleargparse4j.Namespace;
 import com.github.fracpete.simpleargparse4j.Option.Type;
 import org.apache.commons.lang.SystemUtils;
+import org.apache.maven.settings.Settings;
+import org.apache.maven.settings.io.DefaultSettingsReader;
+import org.apache.maven.settings.io.DefaultSettingsWriter;
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.util.artifact.JavaScopes;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -74,6 +115,47 @@ public class Main {
 
   public static final String LATEST = "LATEST";
 
+  /** the sub-directory in the home directory for cached catalogs. */
+  public final static String CACHE_DIR = "cache";
+
+  /** the lock file in the output directory, held while bootstrapping. */
+  public final static String OUTPUTDIR_LOCK = "instant-adams.busy";
+
+  /** the content of the bundled pom template, loaded once. */
+  protected static byte[] POMTEMPLATE_CONTENT;
+
+  /**
+   * How the dependencies get resolved and copied.
+   */
+  public enum Engine {
+    /** forked Maven build. */
+    MAVEN,
+    /** in-process resolver, with forked Maven build as fallback. */
+    RESOLVER,
+  }
+
+  /**
+   * How the start scripts supply the class path.
+   */
+  public enum Launcher {
+    /** all jars in the lib directory (wildcard). */
+    WILDCARD,
+    /** pre-computed argument file (Java 9+). */
+    ARGFILE,
+    /** pre-computed manifest-only jar. */
+    MANIFEST,
+  }
+
+  /**
+   * How the Debian/Redhat packages get generated.
+   */
+  public enum Packager {
+    /** plugins in the forked Maven build. */
+    MAVEN,
+    /** in-process from the output directory. */
+    JAVA,
+  }
+
   /** the alternative maven installation. */
   protected File m_MavenHome;
 
@@ -83,6 +165,12 @@ public class Main {
   /** the actual maven user settings to use. */
   protected File m_ActMavenUserSettings;
 
+  /** the actual Debian snippet to use. */
+  protected File m_ActDebianSnippet;
+
+  /** the actual Redhat snippet to use. */
+  protected File m_ActRedhatSnippet;
+
   /** the alternative java installation. */
   protected File m_JavaHome;
 
@@ -104,6 +192,9 @@ public class Main {
   /** whether to call the "clean" goal. */
   protected boolean m_Clean;
 
+  /** whether to bootstrap even if the inputs are unchanged. */
+  protected boolean m_Force;
+
   /** the JVM options. */
   protected List<String> m_JVM;
 
@@ -125,6 +216,24 @@ public class Main {
   /** the external source jar files/dirs. */
   protected List<File> m_ExternalSources;
 
+  /** the groups to retrieve source jars for (comma-separated patterns), null for all. */
+  protected String m_SourcesInclude;
+
+  /** the groups to not retrieve source jars for (comma-separated patterns), null for none. */
+  protected String m_SourcesExclude;
+
+  /** whether to retrieve the source jars in the background, after the application is usable. */
+  protected boolean m_SourcesDeferred;
+
+  /** the pending deferred source retrieval of the current run, null if none. */
+  protected transient Runnable m_DeferredSources;
+
+  /** the thread retrieving the source jars in the background, null if none. */
+  protected transient Thread m_SourcesThread;
+
+  /** the result of the deferred source retrieval. */
+  protected transient String m_SourcesResult;
+
   /** the dependencies. */
   protected List<String> m_Dependencies;
 
@@ -149,15 +258,156 @@ public class Main {
   /** the custom redhat maven snippet to use. */
   protected File m_RedhatSnippet;
 
+  /** how to generate the packages. */
+  protected Packager m_Packager;
+
+  /** whether to write an OCI image layout. */
+  protected boolean m_OCI;
+
+  /** the OCI image layout of the base image. */
+  protected File m_OCIBase;
+
   /** whether to list modules. */
   protected boolean m_ListModules;
 
+  /** the time-to-live in minutes for cached catalogs. */
+  protected long m_CacheTTL;
+
+  /** the cache for catalogs. */
+  protected transient Cache m_Cache;
+
+  /** the repository to resolve the LATEST version from. */
+  protected String m_AdamsRepository;
+
+  /** the time-to-live in minutes for the cached LATEST version. */
+  protected long m_VersionTTL;
+
+  /** the resolver for the LATEST version. */
+  protected transient VersionResolver m_VersionResolver;
+
+  /** the in-memory resolution cache, null for a new one per resolver. */
+  protected transient RepositoryCache m_RepositoryCache;
+
+  /** whether to use the shared jar store. */
+  protected boolean m_SharedStore;
+
+  /** whether to clean up the shared jar store. */
+  protected boolean m_CleanUpStore;
+
+  /** the maximum size in MB of the caches, 0 for unlimited. */
+  protected long m_CacheMaxSize;
+
+  /** whether to evict least-recently-used cache entries. */
+  protected boolean m_GC;
+
+  /** the spec file for batch bootstrapping. */
+  protected File m_Batch;
+
+  /** the number of concurrent batch builds. */
+  protected int m_BatchThreads;
+
+  /** the report file for batch bootstrapping. */
+  protected File m_BatchReport;
+
+  /** whether to run as daemon. */
+  protected boolean m_Daemon;
+
+  /** the port of the daemon. */
+  protected int m_DaemonPort;
+
+  /** the number of concurrent daemon builds. */
+  protected int m_DaemonThreads;
+
+  /** the engine for resolving the dependencies. */
+  protected Engine m_Engine;
+
+  /** whether to fall back on the forked Maven build. */
+  protected boolean m_Fallback;
+
+  /** the number of concurrent downloads. */
+  protected int m_DownloadThreads;
+
+  /** the maximum number of connections per host. */
+  protected int m_ConnectionsPerHost;
+
+  /** the number of retries for failed downloads. */
+  protected int m_DownloadRetries;
+
+  /** whether to work offline. */
+  protected boolean m_Offline;
+
+  /** the URL for the ADAMS settings.xml file. */
+  protected String m_UserSettingsURL;
+
+  /** the URL for the ADAMS base pom.xml file. */
+  protected String m_AdamsBaseURL;
+
+  /** the URL for the ADAMS addons pom.xml file. */
+  protected String m_AdamsAddonsURL;
+
+  /** the URL for the ADAMS lts pom.xml file. */
+  protected String m_AdamsLtsURL;
+
+  /** the URL for the ADAMS spectral base pom.xml file. */
+  protected String m_AdamsSpectralBaseURL;
+
+  /** whether to write a lockfile. */
+  protected boolean m_WriteLockfile;
+
+  /** the lockfile to bootstrap from. */
+  protected File m_Lockfile;
+
+  /** whether to generate an AppCDS archive. */
+  protected boolean m_AppCDS;
+
+  /** the class list for the AppCDS archive, null for a training run. */
+  protected File m_AppCDSClassList;
+
+  /** the timeout in seconds for the AppCDS training run. */
+  protected int m_AppCDSTimeout;
+
+  /** how the start scripts supply the class path. */
+  protected Launcher m_Launcher;
+
+  /** whether to analyze the classes of the jars. */
+  protected boolean m_AnalyzeClasses;
+
+  /** whether to verify the jars and write the integrity manifest. */
+  protected boolean m_Verify;
+
+  /** the policy for removing redundant jars. */
+  protected ClassIndex.Policy m_Prune;
+
+  /** whether to generate a trimmed runtime via jlink. */
+  protected boolean m_Runtime;
+
+  /** the additional modules for the runtime (comma-separated). */
+  protected String m_RuntimeModules;
+
+  /** the target platform(s) (comma-separated os-arch), null for all. */
+  protected String m_TargetPlatform;
+
+  /** the timeouts per phase (comma-separated phase=seconds), null for none. */
+  protected String m_PhaseTimeouts;
+
   /** for logging. */
   protected Logger m_Logger;
 
   /** whether help got requested. */
   protected boolean m_HelpRequested;
 
+  /** the listeners for the bootstrap runs. */
+  protected List<BootstrapListener> m_Listeners;
+
+  /** the report of the last bootstrap run. */
+  protected transient volatile BootstrapReport m_Report;
+
+  /** the reason for cancelling the current run, null if not cancelled. */
+  protected transient volatile String m_Cancel;
+
+  /** the temp directory of the current run. */
+  protected transient File m_TempDir;
+
   /**
    * Initializes the object.
    */
@@ -181,6 +431,9 @@ public class Main {
     m_Modules              = null;
     m_ExternalJars         = null;
     m_Sources              = false;
+    m_SourcesInclude       = null;
+    m_SourcesExclude       = null;
+    m_SourcesDeferred      = false;
     m_ExternalSources      = null;
     m_AllDependencies      = null;
     m_Dependencies         = null;
@@ -188,13 +441,58 @@ public class Main {
     m_MainClass            = "adams.gui.Main";
     m_Name                 = Template.DEFAULT_NAME;
     m_Clean                = false;
+    m_Force                = false;
     m_Debian               = false;
     m_DebianSnippet        = null;
     m_Redhat               = false;
     m_RedhatSnippet        = null;
+    m_Packager             = Packager.MAVEN;
+    m_OCI                  = false;
+    m_OCIBase              = null;
     m_ListModules          = false;
+    m_CacheTTL             = Cache.DEFAULT_TTL;
+    m_Cache                = null;
+    m_AdamsRepository      = VersionResolver.DEFAULT_REPOSITORY;
+    m_VersionTTL           = Cache.DEFAULT_TTL;
+    m_VersionResolver      = null;
+    m_SharedStore          = false;
+    m_CleanUpStore         = false;
+    m_CacheMaxSize         = 0;
+    m_GC                   = false;
+    m_Batch                = null;
+    m_BatchThreads         = Batch.DEFAULT_NUM_THREADS;
+    m_BatchReport          = null;
+    m_Daemon               = false;
+    m_DaemonPort           = Daemon.DEFAULT_PORT;
+    m_DaemonThreads        = Batch.DEFAULT_NUM_THREADS;
+    m_Engine               = Engine.MAVEN;
+    m_Fallback             = true;
+    m_DownloadThreads      = DependencyResolver.DEFAULT_DOWNLOAD_THREADS;
+    m_ConnectionsPerHost   = DependencyResolver.DEFAULT_CONNECTIONS_PER_HOST;
+    m_DownloadRetries      = DependencyResolver.DEFAULT_RETRIES;
+    m_Offline              = false;
+    m_UserSettingsURL      = USER_SETTINGS_URL;
+    m_AdamsBaseURL         = ADAMS_BASE_URL;
+    m_AdamsAddonsURL       = ADAMS_ADDONS_URL;
+    m_AdamsLtsURL          = ADAMS_LTS_URL;
+    m_AdamsSpectralBaseURL = ADAMS_SPECTRAL_BASE_URL;
+    m_WriteLockfile        = false;
+    m_Lockfile             = null;
+    m_AppCDS               = false;
+    m_AppCDSClassList      = null;
+    m_AppCDSTimeout        = SharedArchive.DEFAULT_TIMEOUT;
+    m_Launcher             = Launcher.WILDCARD;
+    m_AnalyzeClasses       = false;
+    m_Verify               = false;
+    m_Prune                = ClassIndex.Policy.NONE;
+    m_Runtime              = false;
+    m_RuntimeModules       = RuntimeImage.DEFAULT_MODULES;
+    m_TargetPlatform       = null;
+    m_PhaseTimeouts        = null;
     m_Logger               = null;
     m_HelpRequested        = false;
+    m_Listeners            = new ArrayList<>();
+    m_Report               = null;
     m_ActualVersion        = null;
   }
 
@@ -541,6 +839,28 @@ public class Main {
     return m_Clean;
   }
 
+  /**
+   * Sets whether to bootstrap even if the inputs have not changed since
+   * the last run into the same output directory.
+   *
+   * @param force	true if to always bootstrap
+   * @return		itself
+   */
+  public Main force(boolean force) {
+    m_Force = force;
+    return this;
+  }
+
+  /**
+   * Returns whether to bootstrap even if the inputs have not changed since
+   * the last run into the same output directory.
+   *
+   * @return		true if to always bootstrap
+   */
+  public boolean getForce() {
+    return m_Force;
+  }
+
   /**
    * Sets whether to retrieve the source jars as well.
    *
@@ -561,6 +881,83 @@ public class Main {
     return m_Sources;
   }
 
+  /**
+   * Sets the groups to retrieve source jars for. A pattern matches the group
+   * and all groups below it, * matches any characters.
+   *
+   * @param patterns	the comma-separated patterns (eg nz.ac.waikato,com.github.fracpete), null or empty for all
+   * @return		itself
+   * @see		GroupFilter
+   */
+  public Main sourcesInclude(String patterns) {
+    m_SourcesInclude = ((patterns == null) || patterns.trim().isEmpty()) ? null : patterns.trim();
+    return this;
+  }
+
+  /**
+   * Returns the groups to retrieve source jars for.
+   *
+   * @return		the comma-separated patterns, null for all
+   */
+  public String getSourcesInclude() {
+    return m_SourcesInclude;
+  }
+
+  /**
+   * Sets the groups to not retrieve source jars for, takes precedence over
+   * the included ones.
+   *
+   * @param patterns	the comma-separated patterns, null or empty for none
+   * @return		itself
+   * @see		GroupFilter
+   */
+  public Main sourcesExclude(String patterns) {
+    m_SourcesExclude = ((patterns == null) || patterns.trim().isEmpty()) ? null : patterns.trim();
+    return this;
+  }
+
+  /**
+   * Returns the groups to not retrieve source jars for.
+   *
+   * @return		the comma-separated patterns, null for none
+   */
+  public String getSourcesExclude() {
+    return m_SourcesExclude;
+  }
+
+  /**
+   * Sets whether to retrieve the source jars in the background, once the
+   * application is usable. {@link #execute()} returns before they are
+   * available, use {@link #waitForSources()} to wait for them.
+   *
+   * @param deferred	true if to defer
+   * @return		itself
+   */
+  public Main sourcesDeferred(boolean deferred) {
+    m_SourcesDeferred = deferred;
+    return this;
+  }
+
+  /**
+   * Returns whether to retrieve the source jars in the background.
+   *
+   * @return		true if deferred
+   */
+  public boolean getSourcesDeferred() {
+    return m_SourcesDeferred;
+  }
+
+  /**
+   * Returns the filter for the groups to retrieve source jars for.
+   *
+   * @return		the filter, null for all
+   */
+  protected GroupFilter newSourcesFilter() {
+    if ((m_SourcesInclude == null) && (m_SourcesExclude == null))
+      return null;
+    return new GroupFilter(m_SourcesInclude, m_SourcesExclude);
+  }
+
   /**
    * Sets the JVM options to use for launching the main class.
    *
@@ -763,6 +1160,84 @@ public class Main {
     return m_RedhatSnippet;
   }
 
+  /**
+   * Sets how to generate the Debian/Redhat packages.
+   *
+   * @param packager	the packager
+   * @return		itself
+   */
+  public Main packager(Packager packager) {
+    m_Packager = packager;
+    return this;
+  }
+
+  /**
+   * Returns how to generate the Debian/Redhat packages.
+   *
+   * @return		the packager
+   */
+  public Packager getPackager() {
+    return m_Packager;
+  }
+
+  /**
+   * Sets whether to write an OCI image layout.
+   *
+   * @param oci		true if to write
+   * @return		itself
+   */
+  public Main oci(boolean oci) {
+    m_OCI = oci;
+    return this;
+  }
+
+  /**
+   * Returns whether to write an OCI image layout.
+   *
+   * @return		true if to write
+   */
+  public boolean getOCI() {
+    return m_OCI;
+  }
+
+  /**
+   * Sets the OCI image layout of the base image (eg a JRE image).
+   *
+   * @param base	the directory, null for none
+   * @return		itself
+   */
+  public Main ociBase(File base) {
+    m_OCIBase = base;
+    return this;
+  }
+
+  /**
+   * Returns the OCI image layout of the base image.
+   *
+   * @return		the directory, null for none
+   */
+  public File getOCIBase() {
+    return m_OCIBase;
+  }
+
+  /**
+   * Returns whether the forked Maven build generates Debian/Redhat packages.
+   *
+   * @return		true if packaging via Maven
+   */
+  protected boolean isMavenPackaging() {
+    return (m_Debian || m_Redhat) && (m_Packager == Packager.MAVEN);
+  }
+
+  /**
+   * Returns whether the Debian/Redhat packages get written in-process.
+   *
+   * @return		true if packaging in-process
+   */
+  protected boolean isJavaPackaging() {
+    return (m_Debian || m_Redhat) && (m_Packager == Packager.JAVA);
+  }
+
   /**
    * Sets whether to list modules.
    *
@@ -784,86 +1259,1103 @@ public class Main {
   }
 
   /**
-   * Configures and returns the commandline parser.
+   * Sets the time-to-live for cached catalogs.
    *
-   * @return		the parser
+   * @param ttl		the TTL in minutes, 0 to always revalidate
+   * @return		itself
    */
-  protected ArgumentParser getParser() {
-    ArgumentParser 		parser;
+  public Main cacheTTL(long ttl) {
+    m_CacheTTL = ttl;
+    m_Cache    = null;
+    return this;
+  }
 
-    parser = new ArgumentParser("Allows bootstrapping of ADAMS applications by simply supplying the modules.");
-    parser.addOption("-m", "--maven_home")
-      .required(false)
-      .type(Type.EXISTING_DIR)
-      .dest("maven_home")
-      .metaVar("DIR")
-      .help("The directory with a local Maven installation to use instead of the bundled one.");
-    parser.addOption("-u", "--maven_user_settings")
-      .required(false)
-      .type(Type.EXISTING_FILE)
-      .dest("maven_user_settings")
-      .metaVar("FILE")
-      .help("The file with the maven user settings to use other than $HOME/.m2/settings.xml.");
-    parser.addOption("-j", "--java_home")
-      .required(false)
-      .type(Type.EXISTING_DIR)
-      .dest("java_home")
-      .metaVar("DIR")
-      .help("The Java home to use for the Maven execution.");
-    parser.addOption("-p", "--pom_template")
-      .required(false)
-      .type(Type.EXISTING_FILE)
-      .dest("pom_template")
-      .metaVar("FILE")
-      .help("The alternative template for the pom.xml to use.");
-    parser.addOption("-n", "--name")
-      .required(false)
-      .setDefault("adams")
-      .dest("name")
-      .help("The name to use for the project in the pom.xml. Also used as library directory and executable name when generating Debian/Redhat packages.");
-    parser.addOption("-M", "--module")
-      .required(true)
-      .dest("modules")
-      .help("The comma-separated list of ADAMS modules to use for the application, e.g.: adams-weka,adams-groovy,adams-excel");
-    parser.addOption("-V", "--version")
-      .required(true)
-      .dest("version")
-      .help("The version of ADAMS to use, e.g., '20.1.1' or '20.2.0-SNAPSHOT'.\nUse '" + LATEST + "' to use the latest snapshot version available.");
-    parser.addOption("-d", "--dependency")
-      .required(false)
-      .multiple(true)
-      .dest("dependencies")
-      .metaVar("DEPENDENCY")
-      .help("The additional maven dependencies to use for bootstrapping ADAMS (group:artifact:version), e.g.: nz.ac.waikato.cms.weka:kfGroovy:1.0.12");
-    parser.addOption("-D", "--dependency-file")
-      .required(false)
-      .multiple(true)
-      .type(Type.EXISTING_FILE)
-      .dest("dependency_files")
-      .metaVar("FILE")
-      .help("The file(s) with additional maven dependencies to use for bootstrapping ADAMS (group:artifact:version), one dependency per line.");
-    parser.addOption("-J", "--external-jar")
-      .required(false)
-      .multiple(true)
-      .type(Type.EXISTING_FILE_OR_DIRECTORY)
-      .dest("external_jars")
-      .metaVar("JAR_OR_DIR")
-      .help("The external jar or directory with jar files to also include in the application.");
-    parser.addOption("-s", "--sources")
-      .type(Type.BOOLEAN)
-      .setDefault(false)
-      .dest("sources")
-      .help("If enabled, source jars of all the Maven artifacts will get downloaded as well and stored in a separated directory.");
-    parser.addOption("-S", "--external-source")
-      .required(false)
-      .multiple(true)
-      .type(Type.EXISTING_FILE_OR_DIRECTORY)
-      .dest("external_sources")
-      .metaVar("JAR_OR_DIR")
-      .help("The external source jar or directory with source jar files to also include in the application.");
-    parser.addOption("-o", "--output_dir")
-      .required(true)
-      .type(Type.DIRECTORY)
+  /**
+   * Returns the time-to-live for cached catalogs.
+   *
+   * @return		the TTL in minutes, 0 to always revalidate
+   */
+  public long getCacheTTL() {
+    return m_CacheTTL;
+  }
+
+  /**
+   * Sets the cache for catalogs to use. Allows sharing the cache across
+   * several instances.
+   *
+   * @param cache	the cache, null to use a default one
+   * @return		itself
+   * @see		#getCache()
+   */
+  public Main cache(Cache cache) {
+    m_Cache = cache;
+    return this;
+  }
+
+  /**
+   * Sets the Maven repository with the maven-metadata.xml for resolving
+   * the LATEST version.
+   *
+   * @param url		the repository URL (remote or file:)
+   * @return		itself
+   */
+  public Main adamsRepository(String url) {
+    m_AdamsRepository = url;
+    m_VersionResolver = null;
+    m_ActualVersion   = null;
+    return this;
+  }
+
+  /**
+   * Returns the Maven repository with the maven-metadata.xml for resolving
+   * the LATEST version.
+   *
+   * @return		the repository URL
+   */
+  public String getAdamsRepository() {
+    return m_AdamsRepository;
+  }
+
+  /**
+   * Sets the time-to-live for the cached LATEST version.
+   *
+   * @param ttl		the TTL in minutes, 0 to always revalidate
+   * @return		itself
+   */
+  public Main versionTTL(long ttl) {
+    m_VersionTTL      = ttl;
+    m_VersionResolver = null;
+    m_ActualVersion   = null;
+    return this;
+  }
+
+  /**
+   * Returns the time-to-live for the cached LATEST version.
+   *
+   * @return		the TTL in minutes, 0 to always revalidate
+   */
+  public long getVersionTTL() {
+    return m_VersionTTL;
+  }
+
+  /**
+   * Sets the resolver to use for the LATEST version. Allows sharing the
+   * resolved version across several instances.
+   *
+   * @param resolver	the resolver, null to use a default one
+   * @return		itself
+   */
+  public Main versionResolver(VersionResolver resolver) {
+    m_VersionResolver = resolver;
+    m_ActualVersion   = null;
+    return this;
+  }
+
+  /**
+   * Returns the resolver for the LATEST version.
+   *
+   * @return		the resolver
+   */
+  public synchronized VersionResolver getVersionResolver() {
+    if (m_VersionResolver == null)
+      m_VersionResolver = new VersionResolver(
+	new Cache(new File(homeDir() + "/" + CACHE_DIR), m_VersionTTL, m_Offline), m_AdamsRepository, m_AdamsBaseURL);
+    return m_VersionResolver;
+  }
+
+  /**
+   * Sets the in-memory cache for the in-process resolution (artifact
+   * descriptors, version ranges). Allows sharing resolution results across
+   * several instances.
+   *
+   * @param cache	the cache, null for a new one per resolver
+   * @return		itself
+   */
+  public Main repositoryCache(RepositoryCache cache) {
+    m_RepositoryCache = cache;
+    return this;
+  }
+
+  /**
+   * Returns the in-memory cache for the in-process resolution.
+   *
+   * @return		the cache, null for a new one per resolver
+   */
+  public RepositoryCache getRepositoryCache() {
+    return m_RepositoryCache;
+  }
+
+  /**
+   * Sets whether to place the jars in the shared, content-addressed store
+   * and only link them into the lib/src directories.
+   *
+   * @param shared	true if to use the store
+   * @return		itself
+   * @see		#getJarStore()
+   */
+  public Main sharedStore(boolean shared) {
+    m_SharedStore = shared;
+    return this;
+  }
+
+  /**
+   * Returns whether to place the jars in the shared, content-addressed store
+   * and only link them into the lib/src directories.
+   *
+   * @return		true if to use the store
+   * @see		#getJarStore()
+   */
+  public boolean getSharedStore() {
+    return m_SharedStore;
+  }
+
+  /**
+   * Sets whether to remove unreferenced jars from the shared store.
+   *
+   * @param cleanUp	true if to clean up
+   * @return		itself
+   */
+  public Main cleanUpStore(boolean cleanUp) {
+    m_CleanUpStore = cleanUp;
+    return this;
+  }
+
+  /**
+   * Returns whether to remove unreferenced jars from the shared store.
+   *
+   * @return		true if to clean up
+   */
+  public boolean getCleanUpStore() {
+    return m_CleanUpStore;
+  }
+
+  /**
+   * Sets the maximum size of the caches (home directory and local Maven
+   * repository), evicting least-recently-used entries after bootstrapping.
+   *
+   * @param size	the size in MB, 0 for unlimited
+   * @return		itself
+   */
+  public Main cacheMaxSize(long size) {
+    m_CacheMaxSize = size;
+    return this;
+  }
+
+  /**
+   * Returns the maximum size of the caches.
+   *
+   * @return		the size in MB, 0 for unlimited
+   */
+  public long getCacheMaxSize() {
+    return m_CacheMaxSize;
+  }
+
+  /**
+   * Sets whether to evict least-recently-used cache entries.
+   *
+   * @param gc		true if to evict
+   * @return		itself
+   */
+  public Main gc(boolean gc) {
+    m_GC = gc;
+    return this;
+  }
+
+  /**
+   * Returns whether to evict least-recently-used cache entries.
+   *
+   * @return		true if to evict
+   */
+  public boolean getGC() {
+    return m_GC;
+  }
+
+  /**
+   * Returns the accounting/eviction of the caches below the home directory
+   * and of the local Maven repository.
+   *
+   * @return		the cache
+   * @see		#homeDir()
+   */
+  public HomeCache getHomeCache() {
+    File	settings;
+
+    settings = m_ActMavenUserSettings;
+    if (settings == null)
+      settings = (m_MavenUserSettings != null) ? m_MavenUserSettings : new File(homeDir() + "/settings.xml");
+
+    return new HomeCache(new File(homeDir()))
+      .catalogs(new File(homeDir() + "/" + CACHE_DIR))
+      .store(getJarStore())
+      .localRepository(new DependencyResolver(settings, getMavenHome()).getLocalRepository())
+      .maxSize(m_CacheMaxSize * 1024 * 1024)
+      .lockfiles((m_Lockfile == null) ? null : new ArrayList<>(Collections.singletonList(m_Lockfile)));
+  }
+
+  /**
+   * Returns the shared jar store, located below the home directory.
+   *
+   * @return		the store
+   * @see		#homeDir()
+   */
+  public JarStore getJarStore() {
+    return new JarStore(new File(homeDir() + "/" + JarStore.STORE_DIR));
+  }
+
+  /**
+   * Sets the spec file for bootstrapping several applications.
+   *
+   * @param spec	the file, null for regular bootstrapping
+   * @return		itself
+   * @see		Batch
+   */
+  public Main batch(File spec) {
+    m_Batch = spec;
+    return this;
+  }
+
+  /**
+   * Returns the spec file for bootstrapping several applications.
+   *
+   * @return		the file, null for regular bootstrapping
+   * @see		Batch
+   */
+  public File getBatch() {
+    return m_Batch;
+  }
+
+  /**
+   * Sets the number of applications to bootstrap concurrently in batch mode.
+   *
+   * @param num		the number of threads
+   * @return		itself
+   */
+  public Main batchThreads(int num) {
+    m_BatchThreads = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of applications to bootstrap concurrently in batch mode.
+   *
+   * @return		the number of threads
+   */
+  public int getBatchThreads() {
+    return m_BatchThreads;
+  }
+
+  /**
+   * Sets the file to write the batch report to.
+   *
+   * @param file	the file, null for stdout only
+   * @return		itself
+   */
+  public Main batchReport(File file) {
+    m_BatchReport = file;
+    return this;
+  }
+
+  /**
+   * Returns the file to write the batch report to.
+   *
+   * @return		the file, null for stdout only
+   */
+  public File getBatchReport() {
+    return m_BatchReport;
+  }
+
+  /**
+   * Sets whether to run as daemon, accepting bootstrap jobs via HTTP.
+   *
+   * @param daemon	true if to run as daemon
+   * @return		itself
+   * @see		Daemon
+   */
+  public Main daemon(boolean daemon) {
+    m_Daemon = daemon;
+    return this;
+  }
+
+  /**
+   * Returns whether to run as daemon, accepting bootstrap jobs via HTTP.
+   *
+   * @return		true if to run as daemon
+   * @see		Daemon
+   */
+  public boolean getDaemon() {
+    return m_Daemon;
+  }
+
+  /**
+   * Sets the port the daemon listens on (localhost only).
+   *
+   * @param port	the port
+   * @return		itself
+   */
+  public Main daemonPort(int port) {
+    m_DaemonPort = port;
+    return this;
+  }
+
+  /**
+   * Returns the port the daemon listens on (localhost only).
+   *
+   * @return		the port
+   */
+  public int getDaemonPort() {
+    return m_DaemonPort;
+  }
+
+  /**
+   * Sets the number of applications the daemon bootstraps concurrently.
+   *
+   * @param num		the number of threads
+   * @return		itself
+   */
+  public Main daemonThreads(int num) {
+    m_DaemonThreads = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of applications the daemon bootstraps concurrently.
+   *
+   * @return		the number of threads
+   */
+  public int getDaemonThreads() {
+    return m_DaemonThreads;
+  }
+
+  /**
+   * Sets the engine for resolving and copying the dependencies.
+   *
+   * @param engine	the engine
+   * @return		itself
+   */
+  public Main engine(Engine engine) {
+    m_Engine = engine;
+    return this;
+  }
+
+  /**
+   * Returns the engine for resolving and copying the dependencies.
+   *
+   * @return		the engine
+   */
+  public Engine getEngine() {
+    return m_Engine;
+  }
+
+  /**
+   * Sets whether to fall back on the forked Maven build if in-process
+   * resolution fails.
+   *
+   * @param fallback	true if to fall back
+   * @return		itself
+   */
+  public Main fallback(boolean fallback) {
+    m_Fallback = fallback;
+    return this;
+  }
+
+  /**
+   * Returns whether to fall back on the forked Maven build if in-process
+   * resolution fails.
+   *
+   * @return		true if to fall back
+   */
+  public boolean getFallback() {
+    return m_Fallback;
+  }
+
+  /**
+   * Sets the number of concurrent downloads when resolving in-process.
+   *
+   * @param num		the number of threads
+   * @return		itself
+   * @see		Engine#RESOLVER
+   */
+  public Main downloadThreads(int num) {
+    m_DownloadThreads = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of concurrent downloads when resolving in-process.
+   *
+   * @return		the number of threads
+   * @see		Engine#RESOLVER
+   */
+  public int getDownloadThreads() {
+    return m_DownloadThreads;
+  }
+
+  /**
+   * Sets the maximum number of connections per host when resolving
+   * in-process.
+   *
+   * @param num		the maximum number of connections
+   * @return		itself
+   * @see		Engine#RESOLVER
+   */
+  public Main connectionsPerHost(int num) {
+    m_ConnectionsPerHost = num;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of connections per host when resolving
+   * in-process.
+   *
+   * @return		the maximum number of connections
+   * @see		Engine#RESOLVER
+   */
+  public int getConnectionsPerHost() {
+    return m_ConnectionsPerHost;
+  }
+
+  /**
+   * Sets the number of retries for failed downloads when resolving
+   * in-process.
+   *
+   * @param num		the number of retries
+   * @return		itself
+   * @see		Engine#RESOLVER
+   */
+  public Main downloadRetries(int num) {
+    m_DownloadRetries = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of retries for failed downloads when resolving
+   * in-process.
+   *
+   * @return		the number of retries
+   * @see		Engine#RESOLVER
+   */
+  public int getDownloadRetries() {
+    return m_DownloadRetries;
+  }
+
+  /**
+   * Sets whether to work offline, ie only use the local Maven repository
+   * and the cached catalogs/settings. Remote URLs never get accessed, file:
+   * ones still do.
+   *
+   * @param offline	true if offline
+   * @return		itself
+   */
+  public Main offline(boolean offline) {
+    m_Offline         = offline;
+    m_Cache           = null;
+    m_VersionResolver = null;
+    m_ActualVersion   = null;
+    return this;
+  }
+
+  /**
+   * Returns whether to work offline, ie only use the local Maven repository
+   * and the cached catalogs/settings.
+   *
+   * @return		true if offline
+   */
+  public boolean getOffline() {
+    return m_Offline;
+  }
+
+  /**
+   * Sets the URL of the Maven user settings to use if none supplied and
+   * none present in the home directory yet.
+   *
+   * @param url		the URL (remote or file:)
+   * @return		itself
+   * @see		#USER_SETTINGS_URL
+   */
+  public Main userSettingsURL(String url) {
+    m_UserSettingsURL = url;
+    return this;
+  }
+
+  /**
+   * Returns the URL of the Maven user settings to use if none supplied and
+   * none present in the home directory yet.
+   *
+   * @return		the URL
+   */
+  public String getUserSettingsURL() {
+    return m_UserSettingsURL;
+  }
+
+  /**
+   * Sets the URL of the ADAMS base pom.xml, used for listing the modules
+   * and as fallback for resolving the LATEST version.
+   *
+   * @param url		the URL (remote or file:)
+   * @return		itself
+   * @see		#ADAMS_BASE_URL
+   */
+  public Main adamsBaseURL(String url) {
+    m_AdamsBaseURL    = url;
+    m_VersionResolver = null;
+    m_ActualVersion   = null;
+    return this;
+  }
+
+  /**
+   * Returns the URL of the ADAMS base pom.xml.
+   *
+   * @return		the URL
+   */
+  public String getAdamsBaseURL() {
+    return m_AdamsBaseURL;
+  }
+
+  /**
+   * Sets the URL of the ADAMS addons pom.xml, used for listing the modules.
+   *
+   * @param url		the URL (remote or file:)
+   * @return		itself
+   * @see		#ADAMS_ADDONS_URL
+   */
+  public Main adamsAddonsURL(String url) {
+    m_AdamsAddonsURL = url;
+    return this;
+  }
+
+  /**
+   * Returns the URL of the ADAMS addons pom.xml.
+   *
+   * @return		the URL
+   */
+  public String getAdamsAddonsURL() {
+    return m_AdamsAddonsURL;
+  }
+
+  /**
+   * Sets the URL of the ADAMS lts pom.xml, used for listing the modules.
+   *
+   * @param url		the URL (remote or file:)
+   * @return		itself
+   * @see		#ADAMS_LTS_URL
+   */
+  public Main adamsLtsURL(String url) {
+    m_AdamsLtsURL = url;
+    return this;
+  }
+
+  /**
+   * Returns the URL of the ADAMS lts pom.xml.
+   *
+   * @return		the URL
+   */
+  public String getAdamsLtsURL() {
+    return m_AdamsLtsURL;
+  }
+
+  /**
+   * Sets the URL of the ADAMS spectral base pom.xml, used for listing the
+   * modules.
+   *
+   * @param url		the URL (remote or file:)
+   * @return		itself
+   * @see		#ADAMS_SPECTRAL_BASE_URL
+   */
+  public Main adamsSpectralBaseURL(String url) {
+    m_AdamsSpectralBaseURL = url;
+    return this;
+  }
+
+  /**
+   * Returns the URL of the ADAMS spectral base pom.xml.
+   *
+   * @return		the URL
+   */
+  public String getAdamsSpectralBaseURL() {
+    return m_AdamsSpectralBaseURL;
+  }
+
+  /**
+   * Sets whether to write a lockfile with all the resolved artifacts to the
+   * output directory.
+   *
+   * @param write	true if to write the lockfile
+   * @return		itself
+   * @see		Lockfile#FILENAME
+   */
+  public Main writeLockfile(boolean write) {
+    m_WriteLockfile = write;
+    return this;
+  }
+
+  /**
+   * Returns whether to write a lockfile with all the resolved artifacts to
+   * the output directory.
+   *
+   * @return		true if to write the lockfile
+   */
+  public boolean getWriteLockfile() {
+    return m_WriteLockfile;
+  }
+
+  /**
+   * Sets the lockfile to bootstrap from. The listed artifacts get copied
+   * without any transitive resolution, only downloading the ones missing
+   * from the local repository and verifying their checksums.
+   *
+   * @param file	the lockfile, null to resolve the dependencies
+   * @return		itself
+   */
+  public Main lockfile(File file) {
+    m_Lockfile      = file;
+    m_ActualVersion = null;
+    return this;
+  }
+
+  /**
+   * Returns the lockfile to bootstrap from.
+   *
+   * @return		the lockfile, null if resolving the dependencies
+   */
+  public File getLockfile() {
+    return m_Lockfile;
+  }
+
+  /**
+   * Sets whether to generate an AppCDS archive for the main class and use it
+   * in the start scripts. Debian/Redhat packages let the JVM create the
+   * archive on the first start instead (Java 19+).
+   *
+   * @param enabled	true if to generate
+   * @return		itself
+   * @see		SharedArchive
+   */
+  public Main appCDS(boolean enabled) {
+    m_AppCDS = enabled;
+    return this;
+  }
+
+  /**
+   * Returns whether to generate an AppCDS archive for the main class and use
+   * it in the start scripts.
+   *
+   * @return		true if to generate
+   */
+  public boolean getAppCDS() {
+    return m_AppCDS;
+  }
+
+  /**
+   * Sets the class list to generate the AppCDS archive from instead of
+   * performing a training run.
+   *
+   * @param file	the class list (-XX:DumpLoadedClassList), null for training run
+   * @return		itself
+   */
+  public Main appCDSClassList(File file) {
+    m_AppCDSClassList = file;
+    return this;
+  }
+
+  /**
+   * Returns the class list to generate the AppCDS archive from instead of
+   * performing a training run.
+   *
+   * @return		the class list, null for training run
+   */
+  public File getAppCDSClassList() {
+    return m_AppCDSClassList;
+  }
+
+  /**
+   * Sets the time after which the AppCDS training run gets terminated.
+   *
+   * @param seconds	the timeout in seconds
+   * @return		itself
+   */
+  public Main appCDSTimeout(int seconds) {
+    m_AppCDSTimeout = seconds;
+    return this;
+  }
+
+  /**
+   * Returns the time after which the AppCDS training run gets terminated.
+   *
+   * @return		the timeout in seconds
+   */
+  public int getAppCDSTimeout() {
+    return m_AppCDSTimeout;
+  }
+
+  /**
+   * Sets how the start scripts supply the class path.
+   *
+   * @param launcher	the launcher
+   * @return		itself
+   * @see		ClassPathLauncher
+   */
+  public Main launcher(Launcher launcher) {
+    m_Launcher = launcher;
+    return this;
+  }
+
+  /**
+   * Returns how the start scripts supply the class path.
+   *
+   * @return		the launcher
+   */
+  public Launcher getLauncher() {
+    return m_Launcher;
+  }
+
+  /**
+   * Sets whether to index the classes of the jars and report the classes
+   * present in several jars.
+   *
+   * @param analyze	true if to analyze
+   * @return		itself
+   * @see		ClassIndex#FILENAME
+   */
+  public Main analyzeClasses(boolean analyze) {
+    m_AnalyzeClasses = analyze;
+    return this;
+  }
+
+  /**
+   * Returns whether to index the classes of the jars and report the classes
+   * present in several jars.
+   *
+   * @return		true if to analyze
+   */
+  public boolean getAnalyzeClasses() {
+    return m_AnalyzeClasses;
+  }
+
+  /**
+   * Sets whether to hash the jars, verify them against the checksums of the
+   * repository (or lockfile) and write the integrity manifest for the start
+   * scripts.
+   *
+   * @param verify	true if to verify
+   * @return		itself
+   * @see		IntegrityManifest
+   */
+  public Main verify(boolean verify) {
+    m_Verify = verify;
+    return this;
+  }
+
+  /**
+   * Returns whether to hash the jars, verify them against the checksums of
+   * the repository (or lockfile) and write the integrity manifest.
+   *
+   * @return		true if to verify
+   */
+  public boolean getVerify() {
+    return m_Verify;
+  }
+
+  /**
+   * Sets the policy for removing redundant jars from the lib directory.
+   * Anything other than {@link ClassIndex.Policy#NONE} implies analyzing
+   * the classes.
+   *
+   * @param policy	the policy
+   * @return		itself
+   */
+  public Main prune(ClassIndex.Policy policy) {
+    m_Prune = policy;
+    return this;
+  }
+
+  /**
+   * Returns the policy for removing redundant jars from the lib directory.
+   *
+   * @return		the policy
+   */
+  public ClassIndex.Policy getPrune() {
+    return m_Prune;
+  }
+
+  /**
+   * Sets whether to generate a trimmed runtime with the JDK modules
+   * required by the jars, used by the start scripts and bundled in the
+   * Debian/Redhat packages. Requires a JDK 11+ as Java home.
+   *
+   * @param runtime	true if to generate
+   * @return		itself
+   * @see		RuntimeImage
+   */
+  public Main runtime(boolean runtime) {
+    m_Runtime = runtime;
+    return this;
+  }
+
+  /**
+   * Returns whether to generate a trimmed runtime with the JDK modules
+   * required by the jars.
+   *
+   * @return		true if to generate
+   */
+  public boolean getRuntime() {
+    return m_Runtime;
+  }
+
+  /**
+   * Sets the modules to include in the runtime in addition to the ones
+   * determined by jdeps (eg ones only loaded via reflection or services).
+   *
+   * @param modules	the modules (comma-separated), null or empty for none
+   * @return		itself
+   */
+  public Main runtimeModules(String modules) {
+    m_RuntimeModules = (modules == null) ? "" : modules;
+    return this;
+  }
+
+  /**
+   * Returns the modules to include in the runtime in addition to the ones
+   * determined by jdeps.
+   *
+   * @return		the modules (comma-separated)
+   */
+  public String getRuntimeModules() {
+    return m_RuntimeModules;
+  }
+
+  /**
+   * Sets the platform(s) to bootstrap for. Jars with a native classifier
+   * for other platforms (eg windows-x86_64 when targeting linux-x86_64)
+   * get left out.
+   *
+   * @param platform	the comma-separated platforms (os-arch), null or empty for all
+   * @return		itself
+   * @see		TargetPlatform
+   */
+  public Main targetPlatform(String platform) {
+    m_TargetPlatform = ((platform == null) || platform.trim().isEmpty()) ? null : platform.trim();
+    return this;
+  }
+
+  /**
+   * Returns the platform(s) to bootstrap for.
+   *
+   * @return		the comma-separated platforms (os-arch), null for all
+   */
+  public String getTargetPlatform() {
+    return m_TargetPlatform;
+  }
+
+  /**
+   * Returns the target platform(s) for resolving and pruning.
+   *
+   * @return		the platform(s), null for all
+   */
+  protected TargetPlatform newTargetPlatform() {
+    return (m_TargetPlatform == null) ? null : new TargetPlatform(m_TargetPlatform);
+  }
+
+  /**
+   * Sets the timeouts for the phases. A phase running longer cancels the
+   * run, eg for stopping downloads that got stuck.
+   *
+   * @param timeouts	the comma-separated phase=seconds (eg maven=600,resolution=300), null or empty for none
+   * @return		itself
+   * @see		Phase
+   */
+  public Main phaseTimeouts(String timeouts) {
+    m_PhaseTimeouts = ((timeouts == null) || timeouts.trim().isEmpty()) ? null : timeouts.trim();
+    return this;
+  }
+
+  /**
+   * Returns the timeouts for the phases.
+   *
+   * @return		the comma-separated phase=seconds, null for none
+   */
+  public String getPhaseTimeouts() {
+    return m_PhaseTimeouts;
+  }
+
+  /**
+   * Parses the timeouts for the phases.
+   *
+   * @return		the timeouts in seconds per phase
+   * @throws IllegalArgumentException	if a phase or timeout is invalid
+   */
+  protected Map<Phase,Integer> newPhaseTimeouts() {
+    Map<Phase,Integer>	result;
+    String[]		parts;
+    Phase		phase;
+    int			timeout;
+
+    result = new EnumMap<>(Phase.class);
+    if (m_PhaseTimeouts == null)
+      return result;
+    for (String entry: m_PhaseTimeouts.split(",")) {
+      if (entry.trim().isEmpty())
+	continue;
+      parts = entry.trim().split("=");
+      if (parts.length != 2)
+	throw new IllegalArgumentException("Invalid phase timeout (expected phase=seconds): " + entry.trim());
+      try {
+	phase = Phase.valueOf(parts[0].trim().toUpperCase());
+      }
+      catch (Exception e) {
+	throw new IllegalArgumentException("Unknown phase: " + parts[0].trim());
+      }
+      try {
+	timeout = Integer.parseInt(parts[1].trim());
+      }
+      catch (Exception e) {
+	timeout = -1;
+      }
+      if (timeout < 1)
+	throw new IllegalArgumentException("Invalid timeout for phase " + parts[0].trim() + " (expected seconds > 0): " + parts[1].trim());
+      result.put(phase, timeout);
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds the listener to be notified about the phases of bootstrap runs.
+   *
+   * @param l		the listener to add
+   * @return		itself
+   */
+  public Main addListener(BootstrapListener l) {
+    m_Listeners.add(l);
+    return this;
+  }
+
+  /**
+   * Removes the listener.
+   *
+   * @param l		the listener to remove
+   * @return		itself
+   */
+  public Main removeListener(BootstrapListener l) {
+    m_Listeners.remove(l);
+    return this;
+  }
+
+  /**
+   * Returns the listeners.
+   *
+   * @return		the listeners
+   */
+  public List<BootstrapListener> getListeners() {
+    return m_Listeners;
+  }
+
+  /**
+   * Returns the report of the last bootstrap run, also written to the
+   * output directory.
+   *
+   * @return		the report, null if not run yet
+   * @see		BootstrapReport#FILENAME
+   */
+  public BootstrapReport getReport() {
+    return m_Report;
+  }
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("Allows bootstrapping of ADAMS applications by simply supplying the modules.");
+    parser.addOption("-m", "--maven_home")
+      .required(false)
+      .type(Type.EXISTING_DIR)
+      .dest("maven_home")
+      .metaVar("DIR")
+      .help("The directory with a local Maven installation to use instead of the bundled one.");
+    parser.addOption("-u", "--maven_user_settings")
+      .required(false)
+      .type(Type.EXISTING_FILE)
+      .dest("maven_user_settings")
+      .metaVar("FILE")
+      .help("The file with the maven user settings to use other than $HOME/.m2/settings.xml.");
+    parser.addOption("-j", "--java_home")
+      .required(false)
+      .type(Type.EXISTING_DIR)
+      .dest("java_home")
+      .metaVar("DIR")
+      .help("The Java home to use for the Maven execution.");
+    parser.addOption("-p", "--pom_template")
+      .required(false)
+      .type(Type.EXISTING_FILE)
+      .dest("pom_template")
+      .metaVar("FILE")
+      .help("The alternative template for the pom.xml to use.");
+    parser.addOption("-n", "--name")
+      .required(false)
+      .setDefault("adams")
+      .dest("name")
+      .help("The name to use for the project in the pom.xml. Also used as library directory and executable name when generating Debian/Redhat packages.");
+    parser.addOption("-M", "--module")
+      .required(true)
+      .dest("modules")
+      .help("The comma-separated list of ADAMS modules to use for the application, e.g.: adams-weka,adams-groovy,adams-excel");
+    parser.addOption("-V", "--version")
+      .required(true)
+      .dest("version")
+      .help("The version of ADAMS to use, e.g., '20.1.1' or '20.2.0-SNAPSHOT'.\nUse '" + LATEST + "' to use the latest snapshot version available.");
+    parser.addOption("-d", "--dependency")
+      .required(false)
+      .multiple(true)
+      .dest("dependencies")
+      .metaVar("DEPENDENCY")
+      .help("The additional maven dependencies to use for bootstrapping ADAMS (group:artifact:version), e.g.: nz.ac.waikato.cms.weka:kfGroovy:1.0.12");
+    parser.addOption("-D", "--dependency-file")
+      .required(false)
+      .multiple(true)
+      .type(Type.EXISTING_FILE)
+      .dest("dependency_files")
+      .metaVar("FILE")
+      .help("The file(s) with additional maven dependencies to use for bootstrapping ADAMS (group:artifact:version), one dependency per line.");
+    parser.addOption("-J", "--external-jar")
+      .required(false)
+      .multiple(true)
+      .type(Type.EXISTING_FILE_OR_DIRECTORY)
+      .dest("external_jars")
+      .metaVar("JAR_OR_DIR")
+      .help("The external jar or directory with jar files to also include in the application.");
+    parser.addOption("-s", "--sources")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("sources")
+      .help("If enabled, source jars of all the Maven artifacts will get downloaded as well and stored in a separated directory.");
+    parser.addOption("--sources_include")
+      .required(false)
+      .dest("sources_include")
+      .metaVar("PATTERNS")
+      .help("The comma-separated groups to download source jars for (a group includes the ones below it, * matches any characters), eg nz.ac.waikato,com.github.fracpete. Default: all groups.");
+    parser.addOption("--sources_exclude")
+      .required(false)
+      .dest("sources_exclude")
+      .metaVar("PATTERNS")
+      .help("The comma-separated groups to not download source jars for, takes precedence over --sources_include.");
+    parser.addOption("--sources_deferred")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("sources_deferred")
+      .help("If enabled, source jars get downloaded in the background once the application is usable.");
+    parser.addOption("-S", "--external-source")
+      .required(false)
+      .multiple(true)
+      .type(Type.EXISTING_FILE_OR_DIRECTORY)
+      .dest("external_sources")
+      .metaVar("JAR_OR_DIR")
+      .help("The external source jar or directory with source jar files to also include in the application.");
+    parser.addOption("-o", "--output_dir")
+      .required(true)
+      .type(Type.DIRECTORY)
       .dest("output_dir")
       .metaVar("DIR")
       .help("The directory to output the bootstrapped ADAMS application in.");
@@ -872,6 +2364,11 @@ public class Main {
       .setDefault(false)
       .dest("clean")
       .help("If enabled, the 'clean' goals gets executed.");
+    parser.addOption("-F", "--force")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("force")
+      .help("If enabled, bootstrapping is performed even if none of the inputs have changed since the last run into the output directory (always the case for SNAPSHOT versions or when cleaning).");
     parser.addOption("-v", "--jvm")
       .required(false)
       .multiple(true)
@@ -905,395 +2402,2085 @@ public class Main {
       .dest("rpm_snippet")
       .metaVar("FILE")
       .help("The custom Maven pom.xml snippet for generating a Redhat package.");
+    parser.addOption("--packager")
+      .required(false)
+      .setDefault(Packager.MAVEN.toString().toLowerCase())
+      .dest("packager")
+      .metaVar("PACKAGER")
+      .help("How to generate the Debian/Redhat packages: 'maven' uses plugins in the forked Maven build, 'java' writes them in-process from the output directory (no fakeroot/dpkg-deb required, concurrently).");
+    parser.addOption("--oci")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("oci")
+      .help("If enabled, an OCI image layout is written to the 'target/" + OciImage.DIR + "' directory, with the jars split into layers by how often they change. No container daemon required.");
+    parser.addOption("--oci_base")
+      .type(Type.EXISTING_DIR)
+      .required(false)
+      .dest("oci_base")
+      .metaVar("DIR")
+      .help("The OCI image layout of the base image (eg a JRE image exported with 'skopeo copy docker://eclipse-temurin:21-jre oci:DIR'); without base image and runtime, the image contains no Java.");
     parser.addOption("-l", "--list_modules")
       .type(Type.BOOLEAN)
       .setDefault(false)
       .dest("list_modules")
       .help("If enabled, all currently available ADAMS modules are output (all other options get ignored).");
+    parser.addOption("--cache_ttl")
+      .type(Type.LONG)
+      .setDefault(Cache.DEFAULT_TTL)
+      .dest("cache_ttl")
+      .metaVar("MINUTES")
+      .help("The time in minutes before cached module catalogs get revalidated, 0 to always revalidate.");
+    parser.addOption("--adams_repository")
+      .required(false)
+      .setDefault(VersionResolver.DEFAULT_REPOSITORY)
+      .dest("adams_repository")
+      .metaVar("URL")
+      .help("The Maven repository (remote or file: URL) with the maven-metadata.xml for resolving the '" + LATEST + "' version.");
+    parser.addOption("--version_ttl")
+      .type(Type.LONG)
+      .setDefault(Cache.DEFAULT_TTL)
+      .dest("version_ttl")
+      .metaVar("MINUTES")
+      .help("The time in minutes before the cached '" + LATEST + "' version gets revalidated, 0 to always revalidate.");
+    parser.addOption("--shared_store")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("shared_store")
+      .help("If enabled, the jars are placed in a content-addressed store below the home directory and the lib/src directories only contain (hard)links to them.");
+    parser.addOption("--store_gc")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("store_gc")
+      .help("If enabled, jars that are no longer referenced by any output directory get removed from the shared store (all other options get ignored).");
+    parser.addOption("--cache_max_size")
+      .type(Type.LONG)
+      .setDefault(0L)
+      .dest("cache_max_size")
+      .metaVar("MB")
+      .help("The maximum size in MB of the caches in the home directory and the local Maven repository; least-recently-used entries not referenced by existing output directories or lockfiles get evicted after bootstrapping; 0 for unlimited.");
+    parser.addOption("--gc")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("gc")
+      .help("If enabled, outputs the size of the caches and evicts least-recently-used entries until below --cache_max_size (all other options except --maven_user_settings and --lockfile get ignored).");
+    parser.addOption("-b", "--batch")
+      .required(false)
+      .type(Type.EXISTING_FILE)
+      .dest("batch")
+      .metaVar("FILE")
+      .help("The spec file with the applications to bootstrap, one per line using these options (all other options get ignored).");
+    parser.addOption("--batch_threads")
+      .type(Type.INTEGER)
+      .setDefault(Batch.DEFAULT_NUM_THREADS)
+      .dest("batch_threads")
+      .metaVar("NUM")
+      .help("The maximum number of applications to bootstrap concurrently in batch mode.");
+    parser.addOption("--batch_report")
+      .required(false)
+      .type(Type.FILE)
+      .dest("batch_report")
+      .metaVar("FILE")
+      .help("The file to write the (tab-separated) batch report to.");
+    parser.addOption("--daemon")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("daemon")
+      .help("If enabled, runs as daemon that accepts bootstrap jobs (using these options) via a HTTP/JSON API on localhost, keeping catalogs, versions, template and resolution results in memory (all other options get ignored).");
+    parser.addOption("--daemon_port")
+      .type(Type.INTEGER)
+      .setDefault(Daemon.DEFAULT_PORT)
+      .dest("daemon_port")
+      .metaVar("PORT")
+      .help("The port for the daemon to listen on (localhost only).");
+    parser.addOption("--daemon_threads")
+      .type(Type.INTEGER)
+      .setDefault(Batch.DEFAULT_NUM_THREADS)
+      .dest("daemon_threads")
+      .metaVar("NUM")
+      .help("The maximum number of applications the daemon bootstraps concurrently.");
+    parser.addOption("--engine")
+      .required(false)
+      .setDefault(Engine.MAVEN.toString().toLowerCase())
+      .dest("engine")
+      .metaVar("ENGINE")
+      .help("How to resolve and copy the dependencies: 'maven' forks a Maven build, 'resolver' resolves them in-process (Debian/Redhat packages generated by Maven always use Maven).");
+    parser.addOption("--no_fallback")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("no_fallback")
+      .help("If enabled, the forked Maven build is not used as fallback when resolving the dependencies in-process fails.");
+    parser.addOption("--download_threads")
+      .type(Type.INTEGER)
+      .setDefault(DependencyResolver.DEFAULT_DOWNLOAD_THREADS)
+      .dest("download_threads")
+      .metaVar("NUM")
+      .help("The number of concurrent downloads when resolving the dependencies in-process.");
+    parser.addOption("--connections_per_host")
+      .type(Type.INTEGER)
+      .setDefault(DependencyResolver.DEFAULT_CONNECTIONS_PER_HOST)
+      .dest("connections_per_host")
+      .metaVar("NUM")
+      .help("The maximum number of connections per host when resolving the dependencies in-process.");
+    parser.addOption("--download_retries")
+      .type(Type.INTEGER)
+      .setDefault(DependencyResolver.DEFAULT_RETRIES)
+      .dest("download_retries")
+      .metaVar("NUM")
+      .help("The number of retries for failed downloads when resolving the dependencies in-process.");
+    parser.addOption("--offline")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("offline")
+      .help("If enabled, only the local Maven repository and the cached catalogs/settings get used; fails with the list of missing artifacts if the local repository is incomplete.");
+    parser.addOption("--user_settings_url")
+      .required(false)
+      .setDefault(USER_SETTINGS_URL)
+      .dest("user_settings_url")
+      .metaVar("URL")
+      .help("The URL (remote or file:) of the Maven user settings to use if neither supplied nor present in the home directory yet.");
+    parser.addOption("--adams_base_url")
+      .required(false)
+      .setDefault(ADAMS_BASE_URL)
+      .dest("adams_base_url")
+      .metaVar("URL")
+      .help("The URL (remote or file:) of the adams-base pom.xml.");
+    parser.addOption("--adams_addons_url")
+      .required(false)
+      .setDefault(ADAMS_ADDONS_URL)
+      .dest("adams_addons_url")
+      .metaVar("URL")
+      .help("The URL (remote or file:) of the adams-addons pom.xml.");
+    parser.addOption("--adams_lts_url")
+      .required(false)
+      .setDefault(ADAMS_LTS_URL)
+      .dest("adams_lts_url")
+      .metaVar("URL")
+      .help("The URL (remote or file:) of the adams-lts pom.xml.");
+    parser.addOption("--adams_spectral_base_url")
+      .required(false)
+      .setDefault(ADAMS_SPECTRAL_BASE_URL)
+      .dest("adams_spectral_base_url")
+      .metaVar("URL")
+      .help("The URL (remote or file:) of the adams-spectral-base pom.xml.");
+    parser.addOption("--write_lockfile")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("write_lockfile")
+      .help("If enabled, a lockfile listing all resolved artifacts (coordinates, file, checksum) gets written to the output directory (" + Lockfile.FILENAME + ").");
+    parser.addOption("--lockfile")
+      .required(false)
+      .type(Type.EXISTING_FILE)
+      .dest("lockfile")
+      .metaVar("FILE")
+      .help("The lockfile to bootstrap from: skips transitive resolution and only copies the listed artifacts, verifying their checksums.");
+    parser.addOption("--appcds")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("appcds")
+      .help("If enabled, an AppCDS archive gets generated for the main class (training run or class list) and used by the start scripts; Debian/Redhat packages create the archive on first start (Java 19+).");
+    parser.addOption("--appcds_class_list")
+      .required(false)
+      .type(Type.EXISTING_FILE)
+      .dest("appcds_class_list")
+      .metaVar("FILE")
+      .help("The class list (-XX:DumpLoadedClassList) to generate the AppCDS archive from instead of a training run.");
+    parser.addOption("--appcds_timeout")
+      .type(Type.INTEGER)
+      .setDefault(SharedArchive.DEFAULT_TIMEOUT)
+      .dest("appcds_timeout")
+      .metaVar("SECONDS")
+      .help("The time after which the AppCDS training run of the main class gets terminated.");
+    parser.addOption("--launcher")
+      .required(false)
+      .setDefault(Launcher.WILDCARD.toString().toLowerCase())
+      .dest("launcher")
+      .metaVar("LAUNCHER")
+      .help("How the start scripts supply the class path: 'wildcard' uses all jars in the lib directory, 'argfile' a pre-computed argument file (" + ClassPathLauncher.ARGFILE + ", Java 9+, absolute paths), 'manifest' a pre-computed manifest-only jar (" + ClassPathLauncher.MANIFEST_JAR + ").");
+    parser.addOption("--analyze_classes")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("analyze_classes")
+      .help("If enabled, the classes of all jars get indexed and the ones present in several jars get written to the output directory (" + ClassIndex.FILENAME + ").");
+    parser.addOption("--prune")
+      .required(false)
+      .setDefault(ClassIndex.Policy.NONE.toString().toLowerCase())
+      .dest("prune")
+      .metaVar("POLICY")
+      .help("Which redundant jars to remove from the lib directory (implies --analyze_classes): 'none', 'shadowed' removes jars whose classes all occur in jars before them in the class path (sorted by name), 'contained' jars whose classes all occur in other jars.");
+    parser.addOption("--runtime")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("runtime")
+      .help("If enabled, a trimmed runtime with only the JDK modules required by the jars (jdeps) gets generated via jlink (stripped debug information, compressed modules) from the Java home (JDK 11+), used by the start scripts and bundled in Debian/Redhat packages instead of depending on an installed JRE.");
+    parser.addOption("--runtime_modules")
+      .required(false)
+      .setDefault(RuntimeImage.DEFAULT_MODULES)
+      .dest("runtime_modules")
+      .metaVar("MODULES")
+      .help("The comma-separated modules to include in the runtime in addition to the ones determined by jdeps, eg ones loaded via reflection or services; unavailable ones get skipped.");
+    parser.addOption("--target_platform")
+      .required(false)
+      .dest("target_platform")
+      .metaVar("PLATFORMS")
+      .help("The comma-separated platforms (os-arch, eg linux-x86_64) to bootstrap for; jars with native classifiers for other platforms get left out. Default: all platforms.");
+    parser.addOption("--verify")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("verify")
+      .help("If enabled, all jars in the lib/src directories get hashed in parallel (SHA-256/SHA-1) and checked against the checksums of the repository (or the lockfile); an integrity manifest gets written and the start scripts support --verify (only hashes files whose size/mtime changed) and --verify-full.");
+    parser.addOption("--phase_timeout")
+      .required(false)
+      .dest("phase_timeout")
+      .metaVar("TIMEOUTS")
+      .help("The comma-separated timeouts in seconds per phase (phase=seconds, eg maven=600,resolution=300); a phase exceeding its timeout cancels the run (interrupts downloads, kills the Maven build). Default: none.");
+
+    return parser;
+  }
+
+  /**
+   * Sets the parsed options.
+   *
+   * @param ns		the parsed options
+   * @return		if successfully set
+   */
+  protected boolean setOptions(Namespace ns) {
+    mavenHome(ns.getFile("maven_home"));
+    mavenUserSettings(ns.getFile("maven_user_settings"));
+    javaHome(ns.getFile("java_home"));
+    outputDir(ns.getFile("output_dir"));
+    clean(ns.getBoolean("clean"));
+    force(ns.getBoolean("force"));
+    pomTemplate(ns.getFile("pom_template"));
+    jvm(ns.getList("jvm"));
+    name(ns.getString("name"));
+    modules(ns.getString("modules"));
+    version(ns.getString("version"));
+    dependencies(ns.getList("dependencies"));
+    dependencyFiles(ns.getList("dependency_files"));
+    externalJars(ns.getList("external_jars"));
+    sources(ns.getBoolean("sources"));
+    sourcesInclude(ns.getString("sources_include"));
+    sourcesExclude(ns.getString("sources_exclude"));
+    sourcesDeferred(ns.getBoolean("sources_deferred"));
+    externalSources(ns.getList("external_sources"));
+    mainClass(ns.getString("main_class"));
+    debian(ns.getBoolean("debian"));
+    debianSnippet(ns.getFile("debian_snippet"));
+    redhat(ns.getBoolean("redhat"));
+    redhatSnippet(ns.getFile("redhat_snippet"));
+    try {
+      packager(Packager.valueOf(ns.getString("packager").toUpperCase()));
+    }
+    catch (Exception e) {
+      getLogger().severe("Unknown packager: " + ns.getString("packager"));
+      return false;
+    }
+    oci(ns.getBoolean("oci"));
+    ociBase(ns.getFile("oci_base"));
+    listModules(ns.getBoolean("list_modules"));
+    cacheTTL(ns.getLong("cache_ttl"));
+    adamsRepository(ns.getString("adams_repository"));
+    versionTTL(ns.getLong("version_ttl"));
+    sharedStore(ns.getBoolean("shared_store"));
+    cleanUpStore(ns.getBoolean("store_gc"));
+    cacheMaxSize(ns.getLong("cache_max_size"));
+    gc(ns.getBoolean("gc"));
+    batch(ns.getFile("batch"));
+    batchThreads(ns.getInt("batch_threads"));
+    batchReport(ns.getFile("batch_report"));
+    daemon(ns.getBoolean("daemon"));
+    daemonPort(ns.getInt("daemon_port"));
+    daemonThreads(ns.getInt("daemon_threads"));
+    try {
+      engine(Engine.valueOf(ns.getString("engine").toUpperCase()));
+    }
+    catch (Exception e) {
+      getLogger().severe("Unknown engine: " + ns.getString("engine"));
+      return false;
+    }
+    fallback(!ns.getBoolean("no_fallback"));
+    downloadThreads(ns.getInt("download_threads"));
+    connectionsPerHost(ns.getInt("connections_per_host"));
+    downloadRetries(ns.getInt("download_retries"));
+    offline(ns.getBoolean("offline"));
+    userSettingsURL(ns.getString("user_settings_url"));
+    adamsBaseURL(ns.getString("adams_base_url"));
+    adamsAddonsURL(ns.getString("adams_addons_url"));
+    adamsLtsURL(ns.getString("adams_lts_url"));
+    adamsSpectralBaseURL(ns.getString("adams_spectral_base_url"));
+    writeLockfile(ns.getBoolean("write_lockfile"));
+    lockfile(ns.getFile("lockfile"));
+    appCDS(ns.getBoolean("appcds"));
+    appCDSClassList(ns.getFile("appcds_class_list"));
+    appCDSTimeout(ns.getInt("appcds_timeout"));
+    try {
+      launcher(Launcher.valueOf(ns.getString("launcher").toUpperCase()));
+    }
+    catch (Exception e) {
+      getLogger().severe("Unknown launcher: " + ns.getString("launcher"));
+      return false;
+    }
+    analyzeClasses(ns.getBoolean("analyze_classes"));
+    verify(ns.getBoolean("verify"));
+    try {
+      prune(ClassIndex.Policy.valueOf(ns.getString("prune").toUpperCase()));
+    }
+    catch (Exception e) {
+      getLogger().severe("Unknown prune policy: " + ns.getString("prune"));
+      return false;
+    }
+    runtime(ns.getBoolean("runtime"));
+    runtimeModules(ns.getString("runtime_modules"));
+    try {
+      targetPlatform(ns.getString("target_platform"));
+      newTargetPlatform();
+      phaseTimeouts(ns.getString("phase_timeout"));
+      newPhaseTimeouts();
+    }
+    catch (IllegalArgumentException e) {
+      getLogger().severe(e.getMessage());
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether help got requested when setting the options.
+   *
+   * @return		true if help got requested
+   */
+  public boolean getHelpRequested() {
+    return m_HelpRequested;
+  }
+
+  /**
+   * Parses the options and configures the object.
+   *
+   * @param options	the command-line options
+   * @return		true if successfully set (or help requested)
+   */
+  public boolean setOptions(String[] options) {
+    return setOptions(options, false);
+  }
+
+  /**
+   * Parses the options and configures the object.
+   *
+   * @param options	the command-line options
+   * @param noErrors 	whether to suppress exceptions
+   * @return		true if successfully set (or help requested)
+   */
+  public boolean setOptions(String[] options, boolean noErrors) {
+    ArgumentParser 	parser;
+    Namespace 		ns;
+
+    m_HelpRequested = false;
+    parser          = getParser();
+    try {
+      ns = parser.parseArgs(options, false, noErrors);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      m_HelpRequested = parser.getHelpRequested();
+      return m_HelpRequested;
+    }
+
+    return setOptions(ns);
+  }
+
+  /**
+   * Determines the version that the lockfile pins the requested modules to.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String initLockedVersion() {
+    Lockfile		lockfile;
+    Set<String>		versions;
+    boolean		found;
+
+    try {
+      lockfile = Lockfile.read(m_Lockfile);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to read lockfile: " + m_Lockfile, e);
+      return "Failed to read lockfile: " + m_Lockfile;
+    }
+
+    versions = new TreeSet<>();
+    for (String module: m_Modules.split(",")) {
+      module = module.trim();
+      if (module.isEmpty())
+	continue;
+      found = false;
+      for (Lockfile.Entry entry: lockfile.getEntries(Lockfile.Type.LIB)) {
+	if (entry.getArtifact().getGroupId().equals("nz.ac.waikato.cms.adams") && entry.getArtifact().getArtifactId().equals(module)) {
+	  versions.add(entry.getArtifact().getBaseVersion());
+	  found = true;
+	}
+      }
+      if (!found)
+	return "Module '" + module + "' not pinned by lockfile: " + m_Lockfile;
+    }
+    if (versions.isEmpty())
+      return "No modules provided!";
+    if (versions.size() > 1)
+      return "Modules pinned to different versions by lockfile " + m_Lockfile + ": " + String.join(", ", versions);
+
+    m_ActualVersion = versions.iterator().next();
+    getLogger().info(LATEST + " version pinned by lockfile " + m_Lockfile + ": " + m_ActualVersion);
+
+    return null;
+  }
+
+  /**
+   * Determines the actual version to use, ie resolves LATEST to the latest
+   * version listed in the repository metadata or, if a lockfile is used,
+   * to the version that the lockfile pins the modules to.
+   *
+   * @return		null if successful, otherwise error message
+   * @see		#getVersionResolver()
+   * @see		#initLockedVersion()
+   */
+  protected String initVersion() {
+    VersionResolver	resolver;
+
+    if (m_ActualVersion == null) {
+      if (m_Version.equals(LATEST) && (m_Lockfile != null)) {
+	return initLockedVersion();
+      }
+      else if (m_Version.equals(LATEST)) {
+        resolver = getVersionResolver();
+        try {
+          m_ActualVersion = resolver.resolve();
+	  getLogger().info("LATEST version resolves to: " + m_ActualVersion);
+	}
+	catch (Exception e) {
+	  getLogger().log(Level.SEVERE, "Failed to determine version from: " + resolver.metadataURL(), e);
+          return "Failed to determine version from: " + resolver.metadataURL();
+	}
+      }
+      else {
+        m_ActualVersion = m_Version;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the actual version to use, ie with LATEST resolved.
+   *
+   * @return		the version
+   * @throws IllegalStateException	if the version cannot be determined
+   */
+  public String resolveVersion() {
+    String	msg;
+
+    if ((msg = initVersion()) != null)
+      throw new IllegalStateException(msg);
+    return m_ActualVersion;
+  }
+
+  /**
+   * Initializes the dependencies.
+   *
+   * @return		the dependencies
+   */
+  protected String initDependencies() {
+    String	result;
+
+    if (m_Modules.trim().isEmpty())
+      return "No modules provided!";
+
+    if ((result = initVersion()) != null)
+      return result;
+
+    m_AllDependencies = new ArrayList<>();
+    if (m_Modules.contains(",")) {
+      for (String module : m_Modules.split(","))
+	m_AllDependencies.add("nz.ac.waikato.cms.adams:" + module.trim() + ":" + m_ActualVersion);
+    }
+    else {
+      m_AllDependencies.add("nz.ac.waikato.cms.adams:" + m_Modules.trim() + ":" + m_ActualVersion);
+    }
+
+    if (m_Dependencies != null)
+      m_AllDependencies.addAll(m_Dependencies);
+
+    return null;
+  }
+
+  /**
+   * Returns the home directory for the application.
+   * Can be overriding with the {@link #HOME_DIR_ENV} environment variable.
+   *
+   * @return		the directory
+   */
+  public String homeDir() {
+    String	result;
+
+    if (System.getenv(HOME_DIR_ENV) != null) {
+      result = System.getenv(HOME_DIR_ENV);
+    }
+    else {
+      result = System.getProperty("user.home");
+
+      if (!SystemUtils.IS_OS_WINDOWS)
+	result += "/.local/share";
+
+      result += "/instant-adams";
+    }
+
+    return result;
+  }
+
+  /**
+   * Initializes the maven user settings.
+   *
+   * @return		null if sucessful, otherwise error message
+   */
+  protected String initMavenUserSettings() {
+    File	settings;
+
+    if (m_MavenUserSettings != null) {
+      m_ActMavenUserSettings = m_MavenUserSettings;
+    }
+    else {
+      settings = new File(homeDir() + "/settings.xml");
+      if (!settings.exists()) {
+        try {
+	  SharedLock.run(SharedLock.lockFile(settings), () -> {
+	    File	tmp;
+
+	    // another run may have downloaded it in the meantime
+	    if (!settings.exists()) {
+	      tmp = java.nio.file.Files.createTempFile(settings.getParentFile().toPath(), settings.getName(), ".tmp").toFile();
+	      try {
+		java.nio.file.Files.copy(getCache().get(m_UserSettingsURL).toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		java.nio.file.Files.move(tmp.toPath(), settings.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	      }
+	      finally {
+		java.nio.file.Files.deleteIfExists(tmp.toPath());
+	      }
+	    }
+	    return null;
+	  });
+	  m_ActMavenUserSettings = settings;
+	}
+	catch (Exception e) {
+          getLogger().log(Level.SEVERE, "Failed to download Maven user settings from: " + m_UserSettingsURL, e);
+          return "Failed to download Maven user settings from: " + m_UserSettingsURL;
+	}
+      }
+      else {
+        m_ActMavenUserSettings = settings;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Initializes the pom template.
+   *
+   * @return		null if sucessful, otherwise error message
+   */
+  protected String initPomTemplate() {
+    File	file;
+
+    if (m_PomTemplate != null) {
+      m_ActPomTemplate = m_PomTemplate;
+    }
+    else {
+      try {
+	file = new File(getTempDir(), POMTEMPLATE_FILE);
+	java.nio.file.Files.write(file.toPath(), pomTemplateContent());
+	file.deleteOnExit();
+	m_ActPomTemplate = file;
+      }
+      catch (Exception e) {
+        getLogger().log(Level.SEVERE, "Failed to extract pom.xml template!", e);
+        return "Failed to extract pom.xml template!";
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Extracts the modules from the pom.xml stream.
+   *
+   * @param pom		the pom.xml stream to parse
+   * @return		the modules that were found
+   * @throws Exception	if parsing fails
+   */
+  protected List<String> extractModules(InputStream pom) throws Exception {
+    return PomParser.extractModules(pom, true);
+  }
+
+  /**
+   * Extracts the modules from the pom xml string.
+   *
+   * @param pom		the pom.xml string to parse
+   * @return		the modules that were found
+   * @throws Exception	if parsing fails
+   */
+  protected List<String> extractModules(String pom) throws Exception {
+    return PomParser.extractModules(pom, true);
+  }
+
+  /**
+   * Returns the cache for catalogs, located below the home directory.
+   *
+   * @return		the cache
+   * @see		#homeDir()
+   */
+  public synchronized Cache getCache() {
+    if (m_Cache == null)
+      m_Cache = new Cache(new File(homeDir() + "/" + CACHE_DIR), m_CacheTTL, m_Offline);
+    return m_Cache;
+  }
+
+  /**
+   * Returns the temp directory of the current run, creating it if necessary.
+   * Each run uses its own directory, so concurrent runs do not overwrite
+   * each other's files.
+   *
+   * @return		the directory
+   * @throws IOException	if creating the directory fails
+   */
+  protected synchronized File getTempDir() throws IOException {
+    if (m_TempDir == null) {
+      m_TempDir = java.nio.file.Files.createTempDirectory("instant-adams-").toFile();
+      m_TempDir.deleteOnExit();
+    }
+    return m_TempDir;
+  }
+
+  /**
+   * Removes the temp directory of the current run, if any.
+   */
+  protected synchronized void removeTempDir() {
+    File[]	files;
+
+    if (m_TempDir == null)
+      return;
+    files = m_TempDir.listFiles();
+    if (files != null) {
+      for (File file: files) {
+	if (!file.delete())
+	  getLogger().warning("Failed to delete temp file: " + file);
+      }
+    }
+    if (!m_TempDir.delete())
+      getLogger().warning("Failed to delete temp directory: " + m_TempDir);
+    m_TempDir = null;
+  }
+
+  /**
+   * Returns the content of the bundled pom template, only reading the
+   * resource the first time.
+   *
+   * @return		the content
+   * @throws IOException	if the resource is not available
+   */
+  protected static synchronized byte[] pomTemplateContent() throws IOException {
+    if (POMTEMPLATE_CONTENT == null) {
+      POMTEMPLATE_CONTENT = Content.readBytes(RESOURCES + "/" + POMTEMPLATE_FILE);
+      if (POMTEMPLATE_CONTENT == null)
+	throw new IOException("Failed to read pom.xml template: " + RESOURCES + "/" + POMTEMPLATE_FILE);
+    }
+    return POMTEMPLATE_CONTENT;
+  }
+
+  /**
+   * Retrieves the ADAMS modules from the specified pom.xml, using the cache.
+   *
+   * @param url 	the URL to grab
+   * @return		the modules
+   * @throws Exception	if retrieval or extraction fails
+   */
+  protected List<String> retrieveModules(String url) throws Exception {
+    File		file;
+    List<String>	result;
+
+    file = getCache().get(url);
+    try (InputStream in = new FileInputStream(file)) {
+      result = extractModules(in);
+    }
+    if (result.size() == 0)
+      throw new IllegalStateException("Failed to extract any modules from: " + url);
+
+    return result;
+  }
+
+  /**
+   * Outputs the ADAMS modules in the console.
+   *
+   * @param modules 	the modules to output
+   * @param title 	the title to use in the console
+   */
+  protected void outputModules(List<String> modules, String title) {
+    int		i;
+
+    System.out.println("\n" + title + ":");
+    for (i = 0; i < modules.size(); i++) {
+      if (i > 0)
+        System.out.print(", ");
+      System.out.print(modules.get(i));
+    }
+    System.out.println();
+  }
+
+  /**
+   * Outputs all available ADAMS modules in the console.
+   * The catalogs get retrieved concurrently.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String outputModules() {
+    String				result;
+    final String[]			urls;
+    String[]				titles;
+    ExecutorService			executor;
+    List<Future<List<String>>>		futures;
+    int					i;
+
+    urls   = new String[]{m_AdamsBaseURL, m_AdamsAddonsURL, m_AdamsLtsURL, m_AdamsSpectralBaseURL};
+    titles = new String[]{"adams-base", "adams-addons", "adams-lts", "adams-spectral-base"};
+    result = null;
+
+    executor = Executors.newFixedThreadPool(urls.length);
+    futures  = new ArrayList<>();
+    for (i = 0; i < urls.length; i++) {
+      final String url = urls[i];
+      futures.add(executor.submit(() -> retrieveModules(url)));
+    }
+    executor.shutdown();
+
+    System.out.println("\nAvailable modules:");
+
+    for (i = 0; i < urls.length; i++) {
+      try {
+        outputModules(futures.get(i).get(), titles[i]);
+      }
+      catch (ExecutionException e) {
+        getLogger().log(Level.SEVERE, "Failed to extract modules from: " + urls[i], e.getCause());
+        if (result == null)
+          result = "Failed to extract modules from: " + urls[i];
+      }
+      catch (InterruptedException e) {
+        executor.shutdownNow();
+        return "Interrupted while retrieving modules!";
+      }
+    }
+
+    System.out.println("\nNote:\nLTS and non-LTS modules (e.g., 'adams-weka-lts' and 'adams-weka') cannot be mixed.");
+
+    return result;
+  }
+
+  /**
+   * Checks whether everything required for bootstrapping is available
+   * offline: a Maven installation (if required) and all the artifacts in
+   * the local repository.
+   *
+   * @return		null if available, otherwise error message with the missing artifacts
+   */
+  protected String checkOffline() {
+    DependencyResolver	resolver;
+    List<String>	missing;
+    StringBuilder	result;
+
+    if ((getMavenHome() == null) && (((m_Engine == Engine.MAVEN) && (m_Lockfile == null)) || isMavenPackaging()) && !new File(Maven.homeDir()).isDirectory())
+      return "Offline and bundled Maven not available yet, please supply a Maven installation!";
+
+    // locked artifacts get checked when copying them
+    if (m_Lockfile != null)
+      return null;
+
+    resolver = new DependencyResolver(m_ActMavenUserSettings, getMavenHome())
+      .offline(true)
+      .targetPlatform(newTargetPlatform());
+    try {
+      missing = resolver.findMissing(m_AllDependencies);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to check local repository: " + resolver.getLocalRepository(), e);
+      return "Failed to check local repository: " + resolver.getLocalRepository();
+    }
+    if (missing.isEmpty())
+      return null;
+
+    result = new StringBuilder();
+    result.append("Offline and ").append(missing.size()).append(" artifact(s) missing from local repository ");
+    result.append(resolver.getLocalRepository()).append(":");
+    for (String artifact: missing)
+      result.append("\n  ").append(artifact);
+
+    return result.toString();
+  }
+
+  /**
+   * Creates a temporary copy of the actual Maven user settings with offline
+   * mode enabled, for the forked Maven build.
+   *
+   * @return		the settings file
+   * @throws Exception	if reading or writing fails
+   */
+  protected File createOfflineSettings() throws Exception {
+    Settings	settings;
+    File	result;
+
+    settings = new DefaultSettingsReader().read(m_ActMavenUserSettings, null);
+    settings.setOffline(true);
+    result = File.createTempFile("settings-", ".xml", getTempDir());
+    result.deleteOnExit();
+    new DefaultSettingsWriter().write(result, null, settings);
+
+    return result;
+  }
+
+  /**
+   * Computes the fingerprint of all the inputs of the bootstrap run.
+   *
+   * @return		the fingerprint
+   * @throws Exception	if computing fails, eg hashing of files
+   */
+  protected Fingerprint computeFingerprint() throws Exception {
+    Fingerprint		result;
+
+    result = new Fingerprint()
+      .add("name", m_Name)
+      .add("modules", m_Modules)
+      .add("version", m_ActualVersion)
+      .addDependencies("dependencies", m_AllDependencies)
+      .addDependencyFiles("dependencyFiles", m_DependencyFiles)
+      .addFiles("externalJars", m_ExternalJars)
+      .add("sources", m_Sources)
+      .add("sourcesInclude", m_SourcesInclude)
+      .add("sourcesExclude", m_SourcesExclude)
+      .addFiles("externalSources", m_ExternalSources)
+      .add("jvm", m_JVM)
+      .add("mainClass", m_MainClass)
+      .add("javaHome", m_JavaHome)
+      .add("mavenHome", m_MavenHome)
+      .add("engine", m_Engine)
+      .addFile("mavenUserSettings", m_ActMavenUserSettings)
+      .add("pomTemplate", Fingerprint.hash(m_ActPomTemplate))
+      .add("debian", m_Debian)
+      .addFile("debianSnippet", m_DebianSnippet)
+      .add("redhat", m_Redhat)
+      .addFile("redhatSnippet", m_RedhatSnippet)
+      .add("packager", m_Packager)
+      .add("oci", m_OCI)
+      .addFile("ociBase", (m_OCIBase == null) ? null : new File(m_OCIBase, "index.json"))
+      .addFile("lockfile", m_Lockfile)
+      .add("writeLockfile", m_WriteLockfile)
+      .add("appCDS", m_AppCDS)
+      .addFile("appCDSClassList", m_AppCDSClassList)
+      .add("appCDSTimeout", m_AppCDSTimeout)
+      .add("launcher", m_Launcher)
+      .add("analyzeClasses", m_AnalyzeClasses)
+      .add("prune", m_Prune)
+      .add("runtime", m_Runtime)
+      .add("runtimeModules", m_RuntimeModules)
+      .add("targetPlatform", m_TargetPlatform)
+      .add("verify", m_Verify)
+      .add("sharedStore", m_SharedStore)
+      .add("store", m_SharedStore ? getJarStore().getDirectory().getAbsolutePath() : null);
+    if (m_ActualVersion.endsWith("-SNAPSHOT"))
+      result.addDependencies("snapshot", Collections.singletonList(m_ActualVersion));
+
+    return result;
+  }
+
+  /**
+   * Checks whether the output directory is up-to-date, ie was bootstrapped
+   * with the same (non-SNAPSHOT) inputs.
+   *
+   * @param fingerprint	the fingerprint of the current inputs, can be null
+   * @return		true if up-to-date
+   */
+  protected boolean isUpToDate(Fingerprint fingerprint) {
+    if (m_Clean || m_Force || (fingerprint == null))
+      return false;
+    if (fingerprint.hasSnapshot())
+      return false;
+    if (!new File(m_OutputDirMaven, "lib").isDirectory())
+      return false;
+    return fingerprint.matches(getOutputDir());
+  }
+
+  /**
+   * Indexes the classes of the jars, writes the classes present in several
+   * jars to the output directory and removes redundant jars according to
+   * the prune policy. Performed before adding the jars to the store.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String analyzeClasses() {
+    ClassIndex		index;
+    List<File>		shadowed;
+    List<File>		pruned;
+    List<String>	shadowedNames;
+    List<String>	prunedNames;
+    File		file;
+
+    m_Report.phaseStarted(Phase.CLASS_INDEX);
+    try {
+      index = ClassIndex.build(ClassPathLauncher.jars(m_OutputDirMaven), Runtime.getRuntime().availableProcessors());
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to index classes of jars in: " + m_OutputDirMaven, e);
+      return "Failed to index classes of jars in: " + m_OutputDirMaven;
+    }
+    finally {
+      m_Report.phaseFinished(Phase.CLASS_INDEX);
+    }
+
+    file = ClassIndex.file(getOutputDir());
+    try {
+      index.writeDuplicates(file);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to write duplicate classes to: " + file, e);
+      return "Failed to write duplicate classes to: " + file;
+    }
+
+    shadowed      = index.prunable(ClassIndex.Policy.SHADOWED);
+    shadowedNames = new ArrayList<>();
+    for (File jar: shadowed)
+      shadowedNames.add(jar.getName());
+    getLogger().info("Indexed " + index.getNumClasses() + " classes in " + index.getJars().size() + " jar(s) in "
+      + m_Report.getDuration(Phase.CLASS_INDEX) + "ms: " + index.getDuplicates().size() + " class(es) in several jars (see " + file + ")"
+      + (shadowed.isEmpty() ? "" : ", fully shadowed: " + String.join(", ", shadowedNames)));
+
+    pruned      = index.prunable(m_Prune);
+    prunedNames = new ArrayList<>();
+    if (!pruned.isEmpty()) {
+      m_Report.phaseStarted(Phase.PRUNING);
+      for (File jar: pruned) {
+	if (!jar.delete()) {
+	  m_Report.phaseFinished(Phase.PRUNING);
+	  return "Failed to remove redundant jar: " + jar;
+	}
+	prunedNames.add(jar.getName());
+      }
+      m_Report.phaseFinished(Phase.PRUNING);
+      getLogger().info("Removed " + pruned.size() + " redundant jar(s) (" + m_Prune.toString().toLowerCase() + "): " + String.join(", ", prunedNames));
+    }
+
+    m_Report.classes(index.getJars().size(), index.getNumClasses(), index.getDuplicates().size(), shadowedNames, prunedNames);
+
+    return null;
+  }
+
+  /**
+   * Removes the jars with native classifiers for other platforms from the
+   * lib directory, ie the ones the forked Maven build copied. The in-process
+   * resolution does not download them in the first place.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String pruneOtherPlatforms() {
+    List<String>	pruned;
+    long		bytes;
+
+    pruned = new ArrayList<>();
+    bytes  = newTargetPlatform().prune(new File(m_OutputDirMaven, "lib"), pruned);
+    if (pruned.isEmpty())
+      return null;
+
+    getLogger().info("Removed " + pruned.size() + " jar(s) for platforms other than " + m_TargetPlatform + ", saving "
+      + String.format("%.2f", bytes / 1024.0 / 1024.0) + " MB: " + String.join(", ", pruned));
+    m_Report.addPlatformPruned(pruned, bytes);
+
+    return null;
+  }
+
+  /**
+   * Returns the checksums the jars in the output are expected to have: the
+   * SHA-256 hashes from the lockfile or the SHA-1 checksums published by
+   * the repository (stored next to the artifacts in the local repository).
+   * Resolves offline, as all artifacts are available locally by now.
+   *
+   * @param settings	the Maven user settings to use
+   * @return		the checksums per file name, empty if not available
+   */
+  protected Map<String,String> expectedChecksums(File settings) {
+    Map<String,String>	result;
+    DependencyResolver	resolver;
+    Map<String,File>	located;
+    File		sha1;
+
+    result = new HashMap<>();
+    try {
+      if (m_Lockfile != null) {
+	for (Lockfile.Entry entry: Lockfile.read(m_Lockfile).getEntries())
+	  result.put(entry.getFilename(), entry.getChecksum());
+	return result;
+      }
+      resolver = new DependencyResolver(settings, getMavenHome())
+	.offline(true)
+	.repositoryCache(m_RepositoryCache)
+	.targetPlatform(newTargetPlatform())
+	.sourcesFilter(newSourcesFilter());
+      located = resolver.locate(m_AllDependencies, m_Sources);
+      for (String name: located.keySet()) {
+	sha1 = new File(located.get(name).getPath() + ".sha1");
+	if (sha1.exists())
+	  result.put(name, java.nio.file.Files.readString(sha1.toPath()).trim().split("\\s+")[0].toLowerCase());
+      }
+    }
+    catch (Exception e) {
+      warning("Failed to determine repository checksums, jars only get hashed", e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Hashes the jars in the lib/src directories in parallel, verifies them
+   * against the checksums of the repository (or lockfile), writes the
+   * integrity manifest and updates the start scripts. Jars unchanged since
+   * the previous manifest (size and modification time) do not get hashed
+   * again.
+   *
+   * @param settings	the Maven user settings to use
+   * @return		null if successful, otherwise error message
+   */
+  protected String verifyJars(File settings) {
+    IntegrityManifest	manifest;
+    List<String>	mismatches;
+    List<String>	verified;
+    File		bin;
+    String		result;
+
+    try {
+      manifest = IntegrityManifest.compute(
+	m_OutputDirMaven, Arrays.asList("lib", "src"), IntegrityManifest.read(m_OutputDirMaven), Runtime.getRuntime().availableProcessors());
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to hash jars: " + m_OutputDirMaven, e);
+      return "Failed to hash jars: " + e;
+    }
+    verified   = new ArrayList<>();
+    mismatches = manifest.check(expectedChecksums(settings), verified);
+    m_Report.integrity(manifest.getEntries().size(), manifest.getHashed(), verified.size(), mismatches);
+    if (!mismatches.isEmpty()) {
+      for (String mismatch: mismatches)
+	getLogger().severe("Checksum mismatch: " + mismatch);
+      return "Checksum mismatch for " + mismatches.size() + " jar(s), corrupted download? Re-run with --clean after removing them from the local repository: "
+	+ String.join(", ", mismatches);
+    }
+    getLogger().info("Hashed " + manifest.getHashed() + " of " + manifest.getEntries().size() + " jar(s), "
+      + verified.size() + " verified against " + ((m_Lockfile != null) ? "lockfile" : "repository") + " checksums");
+
+    try {
+      manifest.write(m_OutputDirMaven);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to write integrity manifest: " + IntegrityManifest.file(m_OutputDirMaven), e);
+      return "Failed to write integrity manifest: " + IntegrityManifest.file(m_OutputDirMaven);
+    }
 
-    return parser;
+    // start scripts only exist with a main class
+    bin = new File(m_OutputDirMaven, "bin");
+    if (!new File(bin, "start.sh").exists())
+      return null;
+    if ((result = IntegrityManifest.writeScripts(m_OutputDirMaven)) != null)
+      return result;
+    if ((result = IntegrityManifest.patchShellScript(new File(bin, "start.sh"))) != null)
+      return result;
+    return IntegrityManifest.patchBatchScript(new File(bin, "start.bat"));
   }
 
   /**
-   * Sets the parsed options.
+   * Writes the pre-computed class path and updates the start scripts to use
+   * it. Performed after the jars have been added to the store.
    *
-   * @param ns		the parsed options
-   * @return		if successfully set
+   * @return		null if successful, otherwise error message
    */
-  protected boolean setOptions(Namespace ns) {
-    mavenHome(ns.getFile("maven_home"));
-    mavenUserSettings(ns.getFile("maven_user_settings"));
-    javaHome(ns.getFile("java_home"));
-    outputDir(ns.getFile("output_dir"));
-    clean(ns.getBoolean("clean"));
-    pomTemplate(ns.getFile("pom_template"));
-    jvm(ns.getList("jvm"));
-    name(ns.getString("name"));
-    modules(ns.getString("modules"));
-    version(ns.getString("version"));
-    dependencies(ns.getList("dependencies"));
-    dependencyFiles(ns.getList("dependency_files"));
-    externalJars(ns.getList("external_jars"));
-    sources(ns.getBoolean("sources"));
-    externalSources(ns.getList("external_sources"));
-    mainClass(ns.getString("main_class"));
-    debian(ns.getBoolean("debian"));
-    debianSnippet(ns.getFile("debian_snippet"));
-    redhat(ns.getBoolean("redhat"));
-    redhatSnippet(ns.getFile("redhat_snippet"));
-    listModules(ns.getBoolean("list_modules"));
-    return true;
+  protected String createLauncher() {
+    String	result;
+    File	bin;
+
+    if ((m_MainClass == null) || m_MainClass.trim().isEmpty())
+      return "Launcher '" + m_Launcher.toString().toLowerCase() + "' requires a main class for the start scripts!";
+
+    bin = new File(m_OutputDirMaven, "bin");
+    switch (m_Launcher) {
+      case ARGFILE:
+	if ((result = ClassPathLauncher.writeArgfile(m_OutputDirMaven)) != null)
+	  return result;
+	if ((result = ClassPathLauncher.patchShellScriptArgfile(new File(bin, "start.sh"))) != null)
+	  return result;
+	return ClassPathLauncher.patchBatchScriptArgfile(new File(bin, "start.bat"));
+      case MANIFEST:
+	if ((result = ClassPathLauncher.writeManifestJar(m_OutputDirMaven)) != null)
+	  return result;
+	if ((result = ClassPathLauncher.patchShellScriptManifest(new File(bin, "start.sh"))) != null)
+	  return result;
+	return ClassPathLauncher.patchBatchScriptManifest(new File(bin, "start.bat"));
+      default:
+	return null;
+    }
+  }
+
+  /**
+   * Returns the class path options of the start scripts.
+   *
+   * @return		the options, null if using all jars in the lib directory
+   */
+  protected List<String> launcherClassPath() {
+    switch (m_Launcher) {
+      case ARGFILE:
+	return Collections.singletonList("@" + ClassPathLauncher.argfile(m_OutputDirMaven).getAbsolutePath());
+      case MANIFEST:
+	return Arrays.asList("-cp", ClassPathLauncher.manifestJar(m_OutputDirMaven).getAbsolutePath());
+      default:
+	return null;
+    }
+  }
+
+  /**
+   * Generates the AppCDS archive and adds it to the start scripts. Performed
+   * after the jars have been added to the store, as the archive is tied to
+   * the modification times of the jars.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String createSharedArchive() {
+    String	result;
+    File	bin;
+
+    if ((m_MainClass == null) || m_MainClass.trim().isEmpty())
+      return "AppCDS requires a main class for the start scripts!";
+
+    result = new SharedArchive()
+      .javaHome(m_Runtime ? RuntimeImage.dir(m_OutputDirMaven) : m_JavaHome)
+      .jvm(m_JVM)
+      .mainClass(m_MainClass)
+      .classList(m_AppCDSClassList)
+      .timeout(m_AppCDSTimeout)
+      .classPath(launcherClassPath())
+      .generate(m_OutputDirMaven);
+    if (result != null)
+      return result;
+
+    bin = new File(m_OutputDirMaven, "bin");
+    if ((result = SharedArchive.patchShellScript(new File(bin, "start.sh"))) != null)
+      return result;
+    return SharedArchive.patchBatchScript(new File(bin, "start.bat"));
+  }
+
+  /**
+   * Returns the artifacts of the jars in the lib directory, for matching the
+   * exclusion patterns of the Debian package or assigning the jars to the
+   * layers of the OCI image. Taken from the lockfile or resolved offline, as
+   * all artifacts are available locally by now.
+   *
+   * @param settings	the Maven user settings to use
+   * @return		the artifacts per file name, empty if not available
+   */
+  protected Map<String,Artifact> packageArtifacts(File settings) {
+    Map<String,Artifact>	result;
+
+    result = new HashMap<>();
+    try {
+      if (m_Lockfile != null) {
+	for (Lockfile.Entry entry: Lockfile.read(m_Lockfile).getEntries()) {
+	  if (entry.getType() == Lockfile.Type.LIB)
+	    result.put(entry.getFilename(), entry.getArtifact());
+	}
+	return result;
+      }
+      for (Artifact artifact: new DependencyResolver(settings, getMavenHome())
+	.offline(true)
+	.repositoryCache(m_RepositoryCache)
+	.targetPlatform(newTargetPlatform())
+	.resolve(m_AllDependencies, JavaScopes.COMPILE))
+	result.put(DependencyResolver.toFilename(artifact), artifact);
+    }
+    catch (Exception e) {
+      warning("Failed to determine artifacts, matching exclusions against file names", e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes the Debian/Redhat packages in-process from the lib, src and
+   * runtime directories and the launch script, rather than via the plugins
+   * in the forked Maven build. Only the exclusions of a custom Debian
+   * snippet get used.
+   *
+   * @param settings	the Maven user settings to use
+   * @return		null if successful, otherwise error message
+   */
+  protected String writePackages(File settings) {
+    List<String>	excludes;
+
+    if (m_Debian && (m_DebianSnippet != null))
+      warning("Only the excludeArtifactsRegExp of the custom Debian snippet gets used when packaging in-process: " + m_DebianSnippet, null);
+    if (m_Redhat && (m_RedhatSnippet != null))
+      warning("Custom Redhat snippet gets ignored when packaging in-process: " + m_RedhatSnippet, null);
+
+    try {
+      excludes = m_Debian ? PackageWriter.readExcludes(m_DebianSnippet) : new ArrayList<>();
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to read exclusions from Debian snippet!", e);
+      return "Failed to read exclusions from Debian snippet: " + e;
+    }
+
+    return new PackageWriter()
+      .name(m_Name)
+      .version(m_ActualVersion)
+      .runtime(m_Runtime)
+      .excludes(excludes)
+      .artifacts(excludes.isEmpty() ? new HashMap<>() : packageArtifacts(settings))
+      .write(m_OutputDirMaven, new File(getOutputDir(), PackageWriter.LAUNCH), m_Debian, m_Redhat, null);
+  }
+
+  /**
+   * Writes the OCI image layout to the Maven output directory, using the
+   * jars in the lib directory and the runtime.
+   *
+   * @param settings	the Maven user settings to use
+   * @return		null if successful, otherwise error message
+   */
+  protected String writeImage(File settings) {
+    Set<String>		externals;
+    OciImage		image;
+    String		result;
+
+    if ((m_OCIBase == null) && !m_Runtime)
+      warning("Neither base image nor runtime for OCI image, image contains no Java!", null);
+
+    externals = new HashSet<>();
+    if (m_ExternalJars != null) {
+      for (File jar: listJars(m_ExternalJars))
+	externals.add(DependencyResolver.toFilename(jar, null));
+    }
+
+    image = new OciImage()
+      .name(m_Name)
+      .tag(m_ActualVersion)
+      .mainClass(((m_MainClass == null) || m_MainClass.trim().isEmpty()) ? null : m_MainClass)
+      .jvm(m_JVM)
+      .runtime(m_Runtime)
+      .base(m_OCIBase)
+      .artifacts(packageArtifacts(settings))
+      .externals(externals);
+    result = image.write(m_OutputDirMaven, OciImage.dir(m_OutputDirMaven));
+    if (result == null)
+      getLogger().info("OCI image: " + OciImage.dir(m_OutputDirMaven) + " (layers: " + image.getLayers().keySet() + ", reused: " + image.getReused() + ")");
+
+    return result;
+  }
+
+  /**
+   * Generates the runtime for the Debian/Redhat packages in the output
+   * directory, as it has to be present before the forked Maven build that
+   * creates the packages. The jars get resolved in-process for this.
+   * Also writes the snippets that bundle the runtime, unless custom
+   * snippets are used.
+   *
+   * @param settings	the Maven user settings to use for resolving
+   * @return		null if successful, otherwise error message
+   */
+  protected String createPackageRuntime(File settings) {
+    String		result;
+    List<File>		jars;
+
+    jars = new ArrayList<>();
+    try {
+      for (Artifact artifact: new DependencyResolver(settings, getMavenHome())
+	.downloadThreads(m_DownloadThreads)
+	.connectionsPerHost(m_ConnectionsPerHost)
+	.retries(m_DownloadRetries)
+	.offline(m_Offline)
+	.repositoryCache(m_RepositoryCache)
+	.targetPlatform(newTargetPlatform())
+	.resolve(m_AllDependencies, JavaScopes.COMPILE))
+	jars.add(artifact.getFile());
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to resolve dependencies for runtime!", e);
+      return "Failed to resolve dependencies for runtime: " + e;
+    }
+    if (m_ExternalJars != null)
+      jars.addAll(m_ExternalJars);
+
+    result = new RuntimeImage()
+      .javaHome(m_JavaHome)
+      .modules(m_RuntimeModules)
+      .generate(jars, RuntimeImage.dir(getOutputDir()));
+    if (result != null)
+      return result;
+
+    if (m_Debian) {
+      if (m_DebianSnippet != null) {
+	warning("Custom Debian snippet in use, needs to bundle runtime itself: " + RuntimeImage.dir(getOutputDir()), null);
+      }
+      else {
+	m_ActDebianSnippet = new File(getOutputDir(), RuntimeImage.DEBIAN_SNIPPET);
+	if ((result = RuntimeImage.writeDebianSnippet(getSources(), m_ActDebianSnippet)) != null)
+	  return result;
+      }
+    }
+    if (m_Redhat) {
+      if (m_RedhatSnippet != null) {
+	warning("Custom Redhat snippet in use, needs to bundle runtime itself: " + RuntimeImage.dir(getOutputDir()), null);
+      }
+      else {
+	m_ActRedhatSnippet = new File(getOutputDir(), RuntimeImage.REDHAT_SNIPPET);
+	if ((result = RuntimeImage.writeRedhatSnippet(getSources(), m_ActRedhatSnippet)) != null)
+	  return result;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Generates the runtime in the Maven output directory from the jars in
+   * the lib directory (or moves the one generated for the packages there)
+   * and updates the start scripts to use it. Performed after pruning the
+   * jars.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String createRuntime() {
+    String	result;
+    File	runtime;
+    File	bin;
+
+    runtime = RuntimeImage.dir(m_OutputDirMaven);
+    if (isMavenPackaging()) {
+      result = RuntimeImage.relocate(RuntimeImage.dir(getOutputDir()), runtime);
+    }
+    else {
+      result = new RuntimeImage()
+	.javaHome(m_JavaHome)
+	.modules(m_RuntimeModules)
+	.generate(ClassPathLauncher.jars(m_OutputDirMaven), runtime);
+    }
+    if (result != null)
+      return result;
+
+    bin = new File(m_OutputDirMaven, "bin");
+    if (!new File(bin, "start.sh").exists())
+      return null;
+    if ((result = RuntimeImage.patchShellScript(new File(bin, "start.sh"))) != null)
+      return result;
+    return RuntimeImage.patchBatchScript(new File(bin, "start.bat"));
+  }
+
+  /**
+   * Writes the lockfile with all the resolved artifacts to the output
+   * directory. When bootstrapping from a lockfile, that one simply gets
+   * copied.
+   *
+   * @param settings	the Maven user settings to use for resolving
+   * @return		null if successful, otherwise error message
+   */
+  protected String writeLockfile(File settings) {
+    File	file;
+
+    file = Lockfile.file(getOutputDir());
+    try {
+      if (m_Lockfile != null) {
+        if (!m_Lockfile.getCanonicalFile().equals(file.getCanonicalFile()))
+          java.nio.file.Files.copy(m_Lockfile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      else {
+        new DependencyResolver(settings, getMavenHome())
+	  .downloadThreads(m_DownloadThreads)
+	  .connectionsPerHost(m_ConnectionsPerHost)
+	  .retries(m_DownloadRetries)
+	  .offline(m_Offline)
+	  .repositoryCache(m_RepositoryCache)
+	  .targetPlatform(newTargetPlatform())
+	  .lock(m_AllDependencies, m_Sources)
+	  .write(file);
+      }
+      getLogger().info("Lockfile written to: " + file);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to write lockfile: " + file, e);
+      return "Failed to write lockfile: " + file;
+    }
+
+    return null;
+  }
+
+  /**
+   * Executes the step and records its duration as the phase in the report.
+   * Does not execute the step if the run got cancelled.
+   *
+   * @param phase	the phase
+   * @param step	the step to execute
+   * @return		the result of the step, the reason if cancelled
+   */
+  protected String phase(Phase phase, Supplier<String> step) {
+    String	result;
+
+    if (m_Report.isCancelled())
+      return m_Report.getCancelled();
+    m_Report.phaseStarted(phase);
+    try {
+      result = step.get();
+    }
+    finally {
+      m_Report.phaseFinished(phase);
+    }
+    if ((result != null) && m_Report.isCancelled())
+      result = m_Report.getCancelled();
+
+    return result;
+  }
+
+  /**
+   * Logs the warning and records it in the report, notifying the listeners.
+   *
+   * @param msg		the warning
+   * @param t		the exception, can be null
+   */
+  protected void warning(String msg, Throwable t) {
+    if (t == null)
+      getLogger().warning(msg);
+    else
+      getLogger().log(Level.WARNING, msg, t);
+    if (m_Report != null)
+      m_Report.warning((t == null) ? msg : msg + ": " + t);
+  }
+
+  /**
+   * Returns the number of jars in the directory.
+   *
+   * @param dir		the directory to check
+   * @return		the number of jars
+   */
+  protected static int countJars(File dir) {
+    File[]	files;
+
+    files = dir.listFiles((File f) -> f.isFile() && f.getName().endsWith(".jar"));
+    return (files == null) ? 0 : files.length;
+  }
+
+  /**
+   * Completes the report of the run, notifies the listeners and writes it
+   * to the output directory.
+   *
+   * @param error	the error of the run, null if successful
+   */
+  protected void finishReport(String error) {
+    StringBuilder	summary;
+
+    if (m_OutputDirMaven != null)
+      m_Report.artifacts(countJars(new File(m_OutputDirMaven, "lib")), countJars(new File(m_OutputDirMaven, "src")));
+    m_Report.addCache(m_Cache);
+    if (m_VersionResolver != null)
+      m_Report.addCache(m_VersionResolver.getCache());
+    m_Report.finished(error);
+    m_Report.write();
+
+    summary = new StringBuilder("Bootstrap took " + m_Report.getTotalDuration() + "ms");
+    for (Phase phase: m_Report.getDurations().keySet())
+      summary.append(", ").append(phase.toString().toLowerCase()).append("=").append(m_Report.getDuration(phase)).append("ms");
+    getLogger().info(summary.toString());
   }
 
-  /**
-   * Returns whether help got requested when setting the options.
-   *
-   * @return		true if help got requested
-   */
-  public boolean getHelpRequested() {
-    return m_HelpRequested;
+  /**
+   * Performs the bootstrapping.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String doExecute() {
+    String		result;
+    TimedBootstrapp	main;
+    Fingerprint		fingerprint;
+    File		settings;
+    GroupFilter		sourcesFilter;
+    boolean		separateSources;
+    boolean		sourcesDeferred;
+    File		deferredSettings;
+    Fingerprint		deferredFingerprint;
+
+    if (m_ListModules)
+      return outputModules();
+
+    // the forked Maven build does not support these
+    if ((m_Engine == Engine.MAVEN) && (m_Lockfile == null)
+      && ((m_DownloadThreads != DependencyResolver.DEFAULT_DOWNLOAD_THREADS)
+      || (m_ConnectionsPerHost != DependencyResolver.DEFAULT_CONNECTIONS_PER_HOST)
+      || (m_DownloadRetries != DependencyResolver.DEFAULT_RETRIES)))
+      warning("--download_threads, --connections_per_host and --download_retries only apply to in-process resolution (--engine resolver or --lockfile), not to the Maven build", null);
+
+    if ((result = phase(Phase.SETTINGS, this::initMavenUserSettings)) != null)
+      return result;
+    if ((result = phase(Phase.VERSION, this::initVersion)) != null)
+      return result;
+    if ((result = phase(Phase.DEPENDENCIES, this::initDependencies)) != null)
+      return result;
+    if ((result = phase(Phase.TEMPLATE, this::initPomTemplate)) != null)
+      return result;
+
+    m_OutputDirMaven = new File(getOutputDir().getAbsolutePath() + "/target");
+    m_Report.phaseStarted(Phase.FINGERPRINT);
+    try {
+      fingerprint = computeFingerprint();
+    }
+    catch (Exception e) {
+      warning("Failed to compute fingerprint of inputs, performing full bootstrap!", e);
+      fingerprint = null;
+    }
+    m_Report.phaseFinished(Phase.FINGERPRINT);
+    if (isUpToDate(fingerprint)) {
+      getLogger().info("Inputs unchanged since last run, skipping bootstrap of: " + getOutputDir());
+      m_Report.upToDate(true);
+      return null;
+    }
+
+    settings = m_ActMavenUserSettings;
+    if (m_Offline) {
+      if ((result = phase(Phase.RESOLUTION, this::checkOffline)) != null)
+        return result;
+      try {
+        settings = createOfflineSettings();
+      }
+      catch (Exception e) {
+        getLogger().log(Level.SEVERE, "Failed to create offline Maven user settings from: " + m_ActMavenUserSettings, e);
+        return "Failed to create offline Maven user settings from: " + m_ActMavenUserSettings;
+      }
+    }
+
+    Fingerprint.remove(getOutputDir());
+
+    m_ActDebianSnippet = m_DebianSnippet;
+    m_ActRedhatSnippet = m_RedhatSnippet;
+    if (m_Runtime && isMavenPackaging()) {
+      m_Report.phaseStarted(Phase.RUNTIME);
+      result = createPackageRuntime(settings);
+      m_Report.phaseFinished(Phase.RUNTIME);
+      if (result != null)
+        return result;
+    }
+
+    // avoid Maven writing into shared files
+    if (m_SharedStore) {
+      getJarStore().unlink(new File(m_OutputDirMaven, "lib"));
+      getJarStore().unlink(new File(m_OutputDirMaven, "src"));
+    }
+
+    if ((m_Engine == Engine.RESOLVER) || (m_Lockfile != null))
+      main = new ResolverBootstrapp()
+	.fallback(m_Fallback)
+	.downloadThreads(m_DownloadThreads)
+	.connectionsPerHost(m_ConnectionsPerHost)
+	.downloadRetries(m_DownloadRetries)
+	.offline(m_Offline)
+	.lockfile(m_Lockfile)
+	.repositoryCache(m_RepositoryCache)
+	.targetPlatform(newTargetPlatform())
+	.sourcesFilter(newSourcesFilter())
+	.report(m_Report);
+    else
+      main = new TimedBootstrapp()
+	.report(m_Report);
+
+    // packages get their sources from the Maven build, the in-process
+    // resolution filters them itself; packages written in-process need
+    // them right away
+    sourcesFilter   = newSourcesFilter();
+    sourcesDeferred = m_SourcesDeferred && !isJavaPackaging();
+    separateSources = m_Sources && !isMavenPackaging()
+      && (sourcesDeferred || ((sourcesFilter != null) && !(main instanceof ResolverBootstrapp)));
+    if (m_Sources && isMavenPackaging() && (m_SourcesDeferred || (sourcesFilter != null)))
+      warning("Debian/Redhat packages contain the source jars of all groups, retrieved by the Maven build", null);
+    if (m_Sources && m_SourcesDeferred && isJavaPackaging())
+      warning("Source jars cannot be deferred for Debian/Redhat packages, retrieving them right away", null);
+
+    try {
+      main.tempDir(getTempDir());
+    }
+    catch (IOException e) {
+      getLogger().log(Level.SEVERE, "Failed to create temp directory!", e);
+      return "Failed to create temp directory!";
+    }
+    main.appCDS(m_AppCDS)
+      .runtime(m_Runtime);
+    main.mainClass(m_MainClass)
+      .scripts((m_MainClass != null) && !m_MainClass.trim().isEmpty())
+      .javaHome(m_JavaHome)
+      .mavenHome(getMavenHome())
+      .mavenUserSettings(settings)
+      .name(m_Name)
+      .dependencies(m_AllDependencies)
+      .dependencyFiles(m_DependencyFiles)
+      .externalJars(m_ExternalJars)
+      .outputDir(getOutputDir())
+      .clean(m_Clean)
+      .springBoot(false)
+      .launch(false)
+      .sources(m_Sources && !separateSources)
+      .externalSources(m_ExternalSources)
+      .jvm(m_JVM)
+      .debian(m_Debian && isMavenPackaging())
+      .debianSnippet(m_ActDebianSnippet)
+      .redhat(m_Redhat && isMavenPackaging())
+      .redhatSnippet(m_ActRedhatSnippet);
+    main.launchScript(isJavaPackaging());
+
+    if ((result = main.execute()) != null)
+      return result;
+
+    // the forked Maven build copies the jars for all platforms
+    if (m_TargetPlatform != null) {
+      if ((result = phase(Phase.PLATFORM, this::pruneOtherPlatforms)) != null)
+	return result;
+    }
+
+    if (separateSources && !sourcesDeferred) {
+      final File sourcesSettings = settings;
+      if ((result = phase(Phase.SOURCES, () -> copySources(sourcesSettings))) != null)
+	return result;
+    }
+
+    if (m_WriteLockfile) {
+      m_Report.phaseStarted(Phase.LOCKFILE);
+      result = writeLockfile(settings);
+      m_Report.phaseFinished(Phase.LOCKFILE);
+      if (result != null)
+        return result;
+    }
+
+    if (m_AnalyzeClasses || (m_Prune != ClassIndex.Policy.NONE)) {
+      if ((result = analyzeClasses()) != null)
+        return result;
+    }
+
+    if (m_SharedStore) {
+      result = phase(Phase.STORE, () -> getJarStore().add(getOutputDir(), new File(m_OutputDirMaven, "lib"), new File(m_OutputDirMaven, "src")));
+      if (result != null)
+        return result;
+    }
+
+    if (m_Verify) {
+      final File verifySettings = settings;
+      if ((result = phase(Phase.VERIFY, () -> verifyJars(verifySettings))) != null)
+        return result;
+    }
+
+    if (m_Launcher != Launcher.WILDCARD) {
+      if ((result = phase(Phase.LAUNCHER, this::createLauncher)) != null)
+        return result;
+    }
+
+    if (m_Runtime) {
+      if ((result = phase(Phase.RUNTIME, this::createRuntime)) != null)
+        return result;
+    }
+
+    if (m_AppCDS) {
+      if ((result = phase(Phase.APPCDS, this::createSharedArchive)) != null)
+        return result;
+    }
+
+    if (isJavaPackaging()) {
+      final File packageSettings = settings;
+      if ((result = phase(Phase.PACKAGING, () -> writePackages(packageSettings))) != null)
+        return result;
+    }
+
+    if (m_OCI) {
+      final File imageSettings = settings;
+      if ((result = phase(Phase.IMAGE, () -> writeImage(imageSettings))) != null)
+        return result;
+    }
+
+    // the output directory is only complete once the sources are available
+    if (separateSources && sourcesDeferred) {
+      deferredSettings    = settings;
+      deferredFingerprint = fingerprint;
+      m_DeferredSources   = () -> retrieveDeferredSources(deferredSettings, deferredFingerprint);
+      m_Report.deferredSources("pending", -1);
+    }
+    else {
+      storeFingerprint(fingerprint);
+    }
+
+    return null;
   }
 
   /**
-   * Parses the options and configures the object.
-   *
-   * @param options	the command-line options
-   * @return		true if successfully set (or help requested)
+   * Registers the output directory with the home cache, protecting its jars
+   * from eviction and recording their access, and evicts least-recently-used
+   * entries if a maximum size is set. Failures only result in warnings.
    */
-  public boolean setOptions(String[] options) {
-    return setOptions(options, false);
+  protected void updateHomeCache() {
+    HomeCache	cache;
+    String	result;
+
+    cache  = getHomeCache();
+    result = cache.register(getOutputDir(), m_Lockfile, new File(m_OutputDirMaven, "lib"), new File(m_OutputDirMaven, "src"));
+    if (result != null)
+      warning(result, null);
+    if (m_CacheMaxSize > 0) {
+      m_Report.phaseStarted(Phase.EVICTION);
+      result = cache.evict();
+      m_Report.phaseFinished(Phase.EVICTION);
+      if (result != null)
+	warning(result, null);
+    }
   }
 
   /**
-   * Parses the options and configures the object.
+   * Stores the fingerprint in the output directory.
    *
-   * @param options	the command-line options
-   * @param noErrors 	whether to suppress exceptions
-   * @return		true if successfully set (or help requested)
+   * @param fingerprint	the fingerprint, ignored if null
    */
-  public boolean setOptions(String[] options, boolean noErrors) {
-    ArgumentParser 	parser;
-    Namespace 		ns;
-
-    m_HelpRequested = false;
-    parser          = getParser();
-    try {
-      ns = parser.parseArgs(options, false, noErrors);
-    }
-    catch (ArgumentParserException e) {
-      parser.handleError(e);
-      m_HelpRequested = parser.getHelpRequested();
-      return m_HelpRequested;
+  protected void storeFingerprint(Fingerprint fingerprint) {
+    if (fingerprint != null) {
+      try {
+        fingerprint.store(getOutputDir());
+      }
+      catch (Exception e) {
+        warning("Failed to store fingerprint in: " + getOutputDir(), e);
+      }
     }
-
-    return setOptions(ns);
   }
 
   /**
-   * Determines the actual version to use, ie resolves LATEST to the latest
-   * from the pom.xml.
+   * Returns the jars, with directories replaced by the jars they contain.
    *
-   * @return		the actual version
+   * @param files	the jars/directories
+   * @return		the jars
    */
-  protected String initVersion() {
-    BasicResponse	r;
-    String[]		lines;
+  protected static List<File> listJars(List<File> files) {
+    List<File>	result;
+    File[]	jars;
 
-    if (m_ActualVersion == null) {
-      if (m_Version.equals(LATEST)) {
-        try {
-	  r = Requests.get(ADAMS_BASE_URL)
-	    .allowRedirects(true)
-	    .execute();
-	  if (r.ok()) {
-	    lines  = r.text().split("\n");
-	    for (String line: lines) {
-	      if (line.contains("<version>")) {
-		line = line.substring(line.indexOf('>') + 1);
-		line = line.substring(0, line.indexOf('<'));
-		m_ActualVersion = line;
-		getLogger().info("LATEST version resolves to: " + m_ActualVersion);
-		break;
-	      }
-	    }
-	  }
-	  else {
-	    return "Failed to load URL (status: " + r.statusCode() + ": " + r.statusMessage() + "): " + ADAMS_BASE_URL;
-	  }
-	}
-	catch (Exception e) {
-	  getLogger().log(Level.SEVERE, "Failed to extract version from: " + ADAMS_BASE_URL, e);
-          return "Failed to extract version from: " + ADAMS_BASE_URL;
+    result = new ArrayList<>();
+    for (File file: files) {
+      if (file.isDirectory()) {
+	jars = file.listFiles((File dir, String name) -> name.endsWith(".jar"));
+	if (jars != null) {
+	  Arrays.sort(jars);
+	  result.addAll(Arrays.asList(jars));
 	}
       }
       else {
-        m_ActualVersion = m_Version;
+	result.add(file);
       }
     }
-    return null;
+
+    return result;
   }
 
   /**
-   * Initializes the dependencies.
+   * Retrieves the (filtered) source jars in-process, separately from the
+   * bootstrap of the application.
    *
-   * @return		the dependencies
+   * @param settings	the Maven user settings to use
+   * @return		null if successful, otherwise error message
    */
-  protected String initDependencies() {
-    String	result;
-
-    if (m_Modules.trim().isEmpty())
-      return "No modules provided!";
-
-    if ((result = initVersion()) != null)
-      return result;
-
-    m_AllDependencies = new ArrayList<>();
-    if (m_Modules.contains(",")) {
-      for (String module : m_Modules.split(","))
-	m_AllDependencies.add("nz.ac.waikato.cms.adams:" + module.trim() + ":" + m_ActualVersion);
+  protected String copySources(File settings) {
+    DependencyResolver	resolver;
+    File		srcDir;
+
+    srcDir   = new File(m_OutputDirMaven, "src");
+    resolver = new DependencyResolver(settings, getMavenHome())
+      .downloadThreads(m_DownloadThreads)
+      .connectionsPerHost(m_ConnectionsPerHost)
+      .retries(m_DownloadRetries)
+      .offline(m_Offline)
+      .repositoryCache(m_RepositoryCache)
+      .targetPlatform(newTargetPlatform())
+      .sourcesFilter(newSourcesFilter());
+    m_Report.addStatistics(resolver.getStatistics());
+    try {
+      if (m_Lockfile != null)
+	resolver.copyLocked(Lockfile.read(m_Lockfile), null, srcDir);
+      else
+	resolver.copyDependencies(m_AllDependencies, null, srcDir);
+      if (m_ExternalSources != null)
+	resolver.copyExternal(listJars(m_ExternalSources), srcDir, DependencyResolver.CLASSIFIER_SOURCES);
     }
-    else {
-      m_AllDependencies.add("nz.ac.waikato.cms.adams:" + m_Modules.trim() + ":" + m_ActualVersion);
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to retrieve source jars!", e);
+      return "Failed to retrieve source jars: " + e;
     }
 
-    if (m_Dependencies != null)
-      m_AllDependencies.addAll(m_Dependencies);
-
     return null;
   }
 
   /**
-   * Returns the home directory for the application.
-   * Can be overriding with the {@link #HOME_DIR_ENV} environment variable.
+   * Retrieves the source jars in the background, once the application is
+   * usable. Locks the output directory again, adds the source jars to the
+   * shared store (if enabled), stores the fingerprint and updates the
+   * report.
    *
-   * @return		the directory
+   * @param settings	the Maven user settings to use
+   * @param fingerprint	the fingerprint to store once successful, can be null
    */
-  public String homeDir() {
+  protected void retrieveDeferredSources(File settings, Fingerprint fingerprint) {
     String	result;
+    long	start;
 
-    if (System.getenv(HOME_DIR_ENV) != null) {
-      result = System.getenv(HOME_DIR_ENV);
+    start = System.currentTimeMillis();
+    try {
+      result = SharedLock.run(new File(getOutputDir(), OUTPUTDIR_LOCK), () -> {
+	String	msg;
+
+	msg = copySources(settings);
+	if ((msg == null) && m_SharedStore)
+	  msg = getJarStore().add(getOutputDir(), new File(m_OutputDirMaven, "lib"), new File(m_OutputDirMaven, "src"));
+	if ((msg == null) && m_Verify)
+	  msg = verifyJars(settings);
+	if (msg == null)
+	  storeFingerprint(fingerprint);
+	return msg;
+      });
     }
-    else {
-      result = System.getProperty("user.home");
-
-      if (!SystemUtils.IS_OS_WINDOWS)
-	result += "/.local/share";
-
-      result += "/instant-adams";
+    catch (IOException e) {
+      getLogger().log(Level.SEVERE, "Failed to lock output directory: " + getOutputDir(), e);
+      result = "Failed to lock output directory: " + getOutputDir();
+    }
+    finally {
+      removeTempDir();
     }
 
-    return result;
+    if (result == null)
+      getLogger().info("Retrieved source jars in the background in " + (System.currentTimeMillis() - start) + "ms: " + getOutputDir());
+    else
+      getLogger().severe(result);
+    m_SourcesResult = result;
+    m_Report.deferredSources((result == null) ? "done" : "failed", System.currentTimeMillis() - start);
+    m_Report.artifacts(countJars(new File(m_OutputDirMaven, "lib")), countJars(new File(m_OutputDirMaven, "src")));
+    m_Report.write();
   }
 
   /**
-   * Initializes the maven user settings.
+   * Waits for the source jars that get retrieved in the background, if any.
    *
-   * @return		null if sucessful, otherwise error message
+   * @return		null if successful or none deferred, otherwise error message
+   * @see		#sourcesDeferred(boolean)
    */
-  protected String initMavenUserSettings() {
-    File	settings;
-    Response 	r;
+  public String waitForSources() {
+    Thread	thread;
 
-    if (m_MavenUserSettings != null) {
-      m_ActMavenUserSettings = m_MavenUserSettings;
+    thread = m_SourcesThread;
+    if (thread == null)
+      return null;
+    try {
+      thread.join();
     }
-    else {
-      settings = new File(homeDir() + "/settings.xml");
-      if (!settings.exists()) {
-        try {
-          settings.getParentFile().mkdirs();
-	  r = Requests.get(USER_SETTINGS_URL).execute();
-	  ((BasicResponse) r).saveBody(settings);
-	  m_ActMavenUserSettings = settings;
-	}
-	catch (Exception e) {
-          getLogger().log(Level.SEVERE, "Failed to download Maven user settings from: " + USER_SETTINGS_URL, e);
-          return "Failed to download Maven user settings from: " + USER_SETTINGS_URL;
-	}
-      }
-      else {
-        m_ActMavenUserSettings = settings;
-      }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "Interrupted while waiting for source jars: " + getOutputDir();
     }
 
-    return null;
+    return m_SourcesResult;
   }
 
   /**
-   * Initializes the pom template.
+   * Performs the bootstrapping.
    *
-   * @return		null if sucessful, otherwise error message
+   * @return		null if successful, otherwise error message
    */
-  protected String initPomTemplate() {
-    String	path;
+  public String execute() {
+    String		result;
 
-    if (m_PomTemplate != null) {
-      m_ActPomTemplate = m_PomTemplate;
-    }
-    else {
-      try {
-	path = Files.extractTo(RESOURCES, POMTEMPLATE_FILE, System.getProperty("java.io.tmpdir"));
-	m_ActPomTemplate = new File(path);
+    // output directory may still receive the sources of the previous run
+    waitForSources();
+    m_SourcesThread   = null;
+    m_SourcesResult   = null;
+    m_DeferredSources = null;
+
+    m_Report = new BootstrapReport(m_Listeners)
+      .name(m_Name)
+      .outputDir(getOutputDir())
+      .engine(((m_Engine == Engine.RESOLVER) || (m_Lockfile != null)) ? "resolver" : "maven")
+      .targetPlatform(m_TargetPlatform)
+      .timeouts(newPhaseTimeouts())
+      .thread(Thread.currentThread());
+    // cancelled before the report existed
+    if (m_Cancel != null)
+      m_Report.cancel(m_Cancel);
+
+    try {
+      if (m_ListModules || (getOutputDir() == null)) {
+	result = doExecute();
       }
-      catch (Exception e) {
-        getLogger().log(Level.SEVERE, "Failed to extract pom.xml template!", e);
-        return "Failed to extract pom.xml template!";
+      else {
+	// no two runs may write into the same output directory at the same time
+	try {
+	  result = SharedLock.run(new File(getOutputDir(), OUTPUTDIR_LOCK), () -> {
+	    String	msg;
+
+	    msg = doExecute();
+	    if (msg == null)
+	      updateHomeCache();
+	    return msg;
+	  });
+	}
+	catch (IOException e) {
+	  getLogger().log(Level.SEVERE, "Failed to lock output directory: " + getOutputDir(), e);
+	  result = "Failed to lock output directory: " + getOutputDir();
+	}
       }
     }
+    finally {
+      if (m_DeferredSources == null)
+	removeTempDir();
+      m_Cancel = null;
+      // don't leave the (pooled) thread interrupted
+      if (m_Report.isCancelled())
+	Thread.interrupted();
+    }
+    if ((result != null) && m_Report.isCancelled())
+      result = m_Report.getCancelled();
+    if (result != null)
+      getLogger().severe(result);
+    if (!m_ListModules)
+      finishReport(result);
+    else
+      m_Report.finished(result);
+
+    if (m_DeferredSources != null) {
+      getLogger().info("Application usable, retrieving source jars in the background: " + getOutputDir());
+      m_SourcesThread = new Thread(m_DeferredSources, "instant-adams-sources");
+      m_SourcesThread.start();
+      m_DeferredSources = null;
+    }
 
-    return null;
+    return result;
   }
 
   /**
-   * Extracts the modules from the pom xml string.
+   * Performs the bootstrapping in a new thread. Cancelling the returned
+   * future cancels the run.
    *
-   * @param pom		the pom.xml string to parse
-   * @return		the modules that were found
+   * @return		the future for the result (null if successful, otherwise error message)
+   * @see		#cancel(String)
    */
-  protected List<String> extractModules(String pom) {
-    List<String>	result;
-    String[]		lines;
-
-    result = new ArrayList<>();
-    lines  = pom.split("\n");
-    for (String line: lines) {
-      if (line.contains("<module>")) {
-        line = line.substring(line.indexOf('>') + 1);
-        line = line.substring(0, line.indexOf('<'));
-        if (!line.contains("$"))
-	  result.add(line);
-      }
-    }
+  public Future<String> executeAsync() {
+    FutureTask<String>	result;
+    Thread		thread;
 
-    Collections.sort(result);
+    result = newTask();
+    thread = new Thread(result, "instant-adams-" + ((m_Name == null) ? "bootstrap" : m_Name));
+    thread.start();
 
     return result;
   }
 
   /**
-   * Outputs the ADAMS modules in the console.
+   * Performs the bootstrapping using the executor, eg one shared by many
+   * bootstrap runs. Cancelling the returned future cancels the run.
    *
-   * @param url 	the URL to grab
-   * @param title 	the title to use in the console
-   * @return		null if successful, otherwise error message
+   * @param executor	the executor to use
+   * @return		the future for the result (null if successful, otherwise error message)
+   * @see		#cancel(String)
    */
-  protected String outputModules(String url, String title) {
-    BasicResponse	r;
-    List<String>	modules;
-    int			i;
+  public Future<String> executeAsync(ExecutorService executor) {
+    FutureTask<String>	result;
 
-    try {
-      r = Requests.get(url)
-	.allowRedirects(true)
-	.execute();
-      if (r.ok()) {
-        modules = extractModules(r.text());
-        if (modules.size() == 0) {
-          return "Failed to extract any modules from: " + ADAMS_BASE_URL;
-	}
-	else {
-          System.out.println("\n" + title + ":");
-          for (i = 0; i < modules.size(); i++) {
-            if (i > 0)
-              System.out.print(", ");
-            System.out.print(modules.get(i));
-	  }
-	  System.out.println();
-	}
-      }
-      else {
-        return "Failed to load URL (status: " + r.statusCode() + ": " + r.statusMessage() + "): " + url;
-      }
-    }
-    catch (Exception e) {
-      getLogger().log(Level.SEVERE, "Failed to extract modules from: " + url, e);
-    }
+    result = newTask();
+    executor.execute(result);
 
-    return null;
+    return result;
   }
 
   /**
-   * Outputs all available ADAMS modules in the console.
+   * Creates the task for performing the bootstrapping, which cancels the
+   * run when getting cancelled.
    *
-   * @return		null if successful, otherwise error message
+   * @return		the task
    */
-  public String outputModules() {
-    String		result;
-
-    System.out.println("\nAvailable modules:");
-
-    if ((result = outputModules(ADAMS_BASE_URL, "adams-base")) != null)
-      return result;
-    if ((result = outputModules(ADAMS_ADDONS_URL, "adams-addons")) != null)
-      return result;
-    if ((result = outputModules(ADAMS_LTS_URL, "adams-lts")) != null)
-      return result;
-    if ((result = outputModules(ADAMS_SPECTRAL_BASE_URL, "adams-spectral-base")) != null)
-      return result;
+  protected FutureTask<String> newTask() {
+    return new FutureTask<String>(this::execute) {
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+	if (!isDone())
+	  Main.this.cancel("Bootstrap cancelled");
+	return super.cancel(mayInterruptIfRunning);
+      }
+    };
+  }
 
-    System.out.println("\nNote:\nLTS and non-LTS modules (e.g., 'adams-weka-lts' and 'adams-weka') cannot be mixed.");
+  /**
+   * Cancels the current run: interrupts the thread executing it, aborts
+   * running downloads and kills the forked Maven build. Remaining phases
+   * get skipped and the run fails with the reason. If no run is in progress,
+   * the next one gets cancelled right away.
+   *
+   * @param reason	the reason for cancelling
+   */
+  public void cancel(String reason) {
+    BootstrapReport	report;
 
-    return null;
+    m_Cancel = reason;
+    report   = m_Report;
+    if (report != null)
+      report.cancel(reason);
   }
 
   /**
-   * Performs the bootstrapping.
+   * Bootstraps the applications from the batch spec file.
    *
-   * @return		null if successful, otherwise error message
+   * @return		null if all successful, otherwise error message
+   * @see		Batch
    */
-  protected String doExecute() {
-    String				result;
-    com.github.fracpete.bootstrapp.Main	main;
-
-    if (m_ListModules)
-      return outputModules();
+  public String executeBatch() {
+    Batch		batch;
+    List<Batch.Result>	results;
+    String		result;
+    int			failed;
 
-    if ((result = initMavenUserSettings()) != null)
+    batch = new Batch()
+      .numThreads(m_BatchThreads)
+      .reportFile(m_BatchReport);
+    if ((result = batch.readSpecFile(m_Batch)) != null)
       return result;
-    if ((result = initDependencies()) != null)
-      return result;
-    if ((result = initPomTemplate()) != null)
+
+    results = batch.execute();
+    System.out.println(Batch.toReport(results));
+    if ((result = batch.writeReport(results)) != null)
       return result;
 
-    main = new com.github.fracpete.bootstrapp.Main()
-      .mainClass(m_MainClass)
-      .scripts((m_MainClass != null) && !m_MainClass.trim().isEmpty())
-      .javaHome(m_JavaHome)
-      .mavenHome(getMavenHome())
-      .mavenUserSettings(m_ActMavenUserSettings)
-      .name(m_Name)
-      .dependencies(m_AllDependencies)
-      .dependencyFiles(m_DependencyFiles)
-      .externalJars(m_ExternalJars)
-      .outputDir(getOutputDir())
-      .clean(m_Clean)
-      .springBoot(false)
-      .launch(false)
-      .sources(getSources())
-      .externalSources(m_ExternalSources)
-      .jvm(m_JVM)
-      .debian(m_Debian)
-      .debianSnippet(m_DebianSnippet)
-      .redhat(m_Redhat)
-      .redhatSnippet(m_RedhatSnippet);
+    failed = 0;
+    for (Batch.Result r: results) {
+      if (!r.isSuccess())
+        failed++;
+    }
+    if (failed > 0)
+      return failed + " of " + results.size() + " application(s) failed to bootstrap!";
 
-    return main.execute();
+    return null;
   }
 
   /**
-   * Performs the bootstrapping.
+   * Runs the daemon until it gets shut down.
    *
    * @return		null if successful, otherwise error message
+   * @see		Daemon
    */
-  public String execute() {
-    String		result;
+  public String executeDaemon() {
+    String	result;
+    Daemon	daemon;
 
-    result = doExecute();
-    if (result != null)
-      getLogger().severe(result);
+    daemon = new Daemon()
+      .port(m_DaemonPort)
+      .numThreads(m_DaemonThreads);
+    if ((result = daemon.start()) != null)
+      return result;
+    daemon.waitForShutdown();
 
-    return result;
+    return null;
   }
 
   /**
@@ -1311,6 +4498,46 @@ public class Main {
       System.exit(0);
     }
 
+    // clean up store?
+    if (main.getCleanUpStore()) {
+      String result = main.getJarStore().cleanUp();
+      if (result != null) {
+        System.err.println(result);
+        System.exit(2);
+      }
+      System.exit(0);
+    }
+
+    // evict cache entries?
+    if (main.getGC()) {
+      String result = main.getHomeCache().evict();
+      if (result != null) {
+        System.err.println(result);
+        System.exit(2);
+      }
+      System.exit(0);
+    }
+
+    // batch mode?
+    if (main.getBatch() != null) {
+      String result = main.executeBatch();
+      if (result != null) {
+        System.err.println("Failed to perform batch bootstrapping:\n" + result);
+        System.exit(2);
+      }
+      System.exit(0);
+    }
+
+    // daemon mode?
+    if (main.getDaemon()) {
+      String result = main.executeDaemon();
+      if (result != null) {
+        System.err.println("Failed to run daemon:\n" + result);
+        System.exit(2);
+      }
+      System.exit(0);
+    }
+
     if (!main.setOptions(args)) {
       System.err.println("Failed to parse options!");
       System.exit(1);
@@ -1324,5 +4551,10 @@ public class Main {
       System.err.println("Failed to perform bootstrapping:\n" + result);
       System.exit(2);
     }
+    result = main.waitForSources();
+    if (result != null) {
+      System.err.println("Failed to retrieve source jars:\n" + result);
+      System.exit(2);
+    }
   }
 }
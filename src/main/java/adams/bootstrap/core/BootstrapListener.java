@@ -0,0 +1,79 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * BootstrapListener.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import adams.bootstrap.core.BootstrapReport.Phase;
+
+/**
+ * Interface for classes that get notified about the progress of a
+ * bootstrap run. The methods may get called from different threads.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public interface BootstrapListener {
+
+  /**
+   * Gets called when a phase starts.
+   *
+   * @param report	the report of the run
+   * @param phase	the phase
+   */
+  default void phaseStarted(BootstrapReport report, Phase phase) {
+  }
+
+  /**
+   * Gets called when a phase finishes.
+   *
+   * @param report	the report of the run
+   * @param phase	the phase
+   * @param duration	the duration of the phase in msec
+   */
+  default void phaseFinished(BootstrapReport report, Phase phase, long duration) {
+  }
+
+  /**
+   * Gets called when an artifact got downloaded by the in-process resolution.
+   *
+   * @param report	the report of the run
+   * @param artifact	the artifact (path in the repository)
+   * @param bytes	the downloaded bytes
+   */
+  default void artifactDownloaded(BootstrapReport report, String artifact, long bytes) {
+  }
+
+  /**
+   * Gets called when a problem occurred that does not stop the run, or when
+   * the run got cancelled or timed out.
+   *
+   * @param report	the report of the run
+   * @param message	the warning
+   */
+  default void warning(BootstrapReport report, String message) {
+  }
+
+  /**
+   * Gets called when the run finishes, successful or not.
+   *
+   * @param report	the report of the run
+   */
+  default void bootstrapFinished(BootstrapReport report) {
+  }
+}
@@ -0,0 +1,1018 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * BootstrapReport.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import adams.bootstrap.core.TransferStatistics.HostStatistics;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects the timings of the phases of a bootstrap run, together with
+ * download statistics, artifact counts and cache hits, and notifies the
+ * listeners. Durations of phases that occur several times get summed up.
+ * Also the handle for cancelling the run: cancelling (explicitly or by a
+ * phase exceeding its timeout) interrupts the thread executing the run and
+ * aborts running downloads. Thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class BootstrapReport {
+
+  /** the file name for storing the report in the output directory. */
+  public final static String FILENAME = "instant-adams-report.json";
+
+  /**
+   * The phases of a bootstrap run.
+   */
+  public enum Phase {
+    /** initializing the Maven user settings. */
+    SETTINGS,
+    /** resolving the version (eg LATEST). */
+    VERSION,
+    /** initializing the dependencies. */
+    DEPENDENCIES,
+    /** extracting/generating the pom template. */
+    TEMPLATE,
+    /** computing the fingerprint of the inputs. */
+    FINGERPRINT,
+    /** initializing the Maven installation (may download it). */
+    MAVEN_HOME,
+    /** the forked Maven build (resolution, copying and packaging). */
+    MAVEN,
+    /** resolving the dependencies in-process. */
+    RESOLUTION,
+    /** copying the jars in-process. */
+    COPYING,
+    /** generating the start scripts. */
+    SCRIPTS,
+    /** removing the jars for other platforms. */
+    PLATFORM,
+    /** retrieving the (filtered) source jars separately. */
+    SOURCES,
+    /** adding the jars to the shared store. */
+    STORE,
+    /** hashing/verifying the jars and writing the integrity manifest. */
+    VERIFY,
+    /** writing the lockfile. */
+    LOCKFILE,
+    /** indexing the classes of the jars. */
+    CLASS_INDEX,
+    /** removing redundant jars. */
+    PRUNING,
+    /** pre-computing the class path of the start scripts. */
+    LAUNCHER,
+    /** generating the trimmed runtime. */
+    RUNTIME,
+    /** generating the AppCDS archive. */
+    APPCDS,
+    /** writing the Debian/Redhat packages in-process. */
+    PACKAGING,
+    /** writing the OCI image layout. */
+    IMAGE,
+    /** evicting least-recently-used cache entries. */
+    EVICTION,
+  }
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(BootstrapReport.class.getName());
+
+  /** for enforcing the phase timeouts. */
+  protected static ScheduledExecutorService WATCHDOG;
+
+  /** the listeners to notify. */
+  protected List<BootstrapListener> m_Listeners;
+
+  /** the name of the application. */
+  protected String m_Name;
+
+  /** the output directory. */
+  protected File m_OutputDir;
+
+  /** the engine in use. */
+  protected String m_Engine;
+
+  /** the start of the run (msec). */
+  protected long m_Start;
+
+  /** the end of the run (msec), -1 if still running. */
+  protected long m_End;
+
+  /** the error, null if successful. */
+  protected String m_Error;
+
+  /** whether the output was up-to-date. */
+  protected boolean m_UpToDate;
+
+  /** the start times of the running phases. */
+  protected Map<Phase,Long> m_Running;
+
+  /** the durations of the finished phases. */
+  protected Map<Phase,Long> m_Durations;
+
+  /** the download statistics. */
+  protected List<TransferStatistics> m_Statistics;
+
+  /** the number of jars. */
+  protected int m_Jars;
+
+  /** the number of source jars. */
+  protected int m_SourceJars;
+
+  /** the cache hits. */
+  protected int m_CacheHits;
+
+  /** the cache misses. */
+  protected int m_CacheMisses;
+
+  /** the number of indexed jars, -1 if not indexed. */
+  protected int m_IndexedJars;
+
+  /** the number of distinct classes. */
+  protected int m_Classes;
+
+  /** the number of classes present in several jars. */
+  protected int m_DuplicateClasses;
+
+  /** the jars whose classes are all shadowed by earlier jars. */
+  protected List<String> m_ShadowedJars;
+
+  /** the removed jars. */
+  protected List<String> m_PrunedJars;
+
+  /** the target platform(s), null for all. */
+  protected String m_TargetPlatform;
+
+  /** the names of the jars left out for other platforms. */
+  protected List<String> m_PlatformJars;
+
+  /** the bytes saved by leaving out jars for other platforms. */
+  protected long m_PlatformBytes;
+
+  /** the status of the deferred source retrieval, null if not deferred. */
+  protected String m_DeferredSources;
+
+  /** the duration of the deferred source retrieval in msec, -1 if not finished. */
+  protected long m_DeferredSourcesDuration;
+
+  /** the number of jars in the integrity manifest, -1 if not verified. */
+  protected int m_IntegrityFiles;
+
+  /** the number of jars that got hashed. */
+  protected int m_IntegrityHashed;
+
+  /** the number of jars verified against repository/lockfile checksums. */
+  protected int m_IntegrityVerified;
+
+  /** the jars whose checksums did not match. */
+  protected List<String> m_IntegrityMismatches;
+
+  /** the warnings. */
+  protected List<String> m_Warnings;
+
+  /** the timeouts per phase in seconds. */
+  protected Map<Phase,Integer> m_Timeouts;
+
+  /** the pending timeouts of the running phases. */
+  protected Map<Phase,ScheduledFuture<?>> m_Watchdogs;
+
+  /** the thread executing the run, null if none to interrupt. */
+  protected Thread m_Thread;
+
+  /** the reason for cancelling the run, null if not cancelled. */
+  protected String m_Cancelled;
+
+  /** the hooks to run when cancelling (eg killing processes). */
+  protected List<Runnable> m_CancelHooks;
+
+  /**
+   * Initializes the report.
+   *
+   * @param listeners	the listeners to notify, can be null
+   */
+  public BootstrapReport(List<BootstrapListener> listeners) {
+    m_Listeners               = (listeners == null) ? new ArrayList<>() : new ArrayList<>(listeners);
+    m_Name                    = null;
+    m_OutputDir               = null;
+    m_Engine                  = null;
+    m_Start                   = System.currentTimeMillis();
+    m_End                     = -1;
+    m_Error                   = null;
+    m_UpToDate                = false;
+    m_Running                 = new EnumMap<>(Phase.class);
+    m_Durations               = new EnumMap<>(Phase.class);
+    m_Statistics              = new ArrayList<>();
+    m_Jars                    = 0;
+    m_SourceJars              = 0;
+    m_CacheHits               = 0;
+    m_CacheMisses             = 0;
+    m_IndexedJars             = -1;
+    m_Classes                 = 0;
+    m_DuplicateClasses        = 0;
+    m_ShadowedJars            = new ArrayList<>();
+    m_PrunedJars              = new ArrayList<>();
+    m_TargetPlatform          = null;
+    m_PlatformJars            = new ArrayList<>();
+    m_PlatformBytes           = 0;
+    m_DeferredSources         = null;
+    m_DeferredSourcesDuration = -1;
+    m_IntegrityFiles          = -1;
+    m_IntegrityHashed         = 0;
+    m_IntegrityVerified       = 0;
+    m_IntegrityMismatches     = new ArrayList<>();
+    m_Warnings                = new ArrayList<>();
+    m_Timeouts                = new EnumMap<>(Phase.class);
+    m_Watchdogs               = new EnumMap<>(Phase.class);
+    m_Thread                  = null;
+    m_Cancelled               = null;
+    m_CancelHooks             = new ArrayList<>();
+  }
+
+  /**
+   * Sets the name of the application.
+   *
+   * @param name	the name
+   * @return		itself
+   */
+  public synchronized BootstrapReport name(String name) {
+    m_Name = name;
+    return this;
+  }
+
+  /**
+   * Returns the name of the application.
+   *
+   * @return		the name
+   */
+  public synchronized String getName() {
+    return m_Name;
+  }
+
+  /**
+   * Sets the output directory.
+   *
+   * @param dir		the directory
+   * @return		itself
+   */
+  public synchronized BootstrapReport outputDir(File dir) {
+    m_OutputDir = dir;
+    return this;
+  }
+
+  /**
+   * Returns the output directory.
+   *
+   * @return		the directory
+   */
+  public synchronized File getOutputDir() {
+    return m_OutputDir;
+  }
+
+  /**
+   * Sets the engine in use.
+   *
+   * @param engine	the engine
+   * @return		itself
+   */
+  public synchronized BootstrapReport engine(String engine) {
+    m_Engine = engine;
+    return this;
+  }
+
+  /**
+   * Returns the engine in use.
+   *
+   * @return		the engine
+   */
+  public synchronized String getEngine() {
+    return m_Engine;
+  }
+
+  /**
+   * Sets whether the output was up-to-date and the bootstrap got skipped.
+   *
+   * @param value	true if up-to-date
+   * @return		itself
+   */
+  public synchronized BootstrapReport upToDate(boolean value) {
+    m_UpToDate = value;
+    return this;
+  }
+
+  /**
+   * Returns whether the output was up-to-date.
+   *
+   * @return		true if up-to-date
+   */
+  public synchronized boolean getUpToDate() {
+    return m_UpToDate;
+  }
+
+  /**
+   * Sets the timeouts for the phases. A phase running longer cancels the run.
+   *
+   * @param timeouts	the timeouts in seconds per phase, can be null
+   * @return		itself
+   */
+  public synchronized BootstrapReport timeouts(Map<Phase,Integer> timeouts) {
+    m_Timeouts.clear();
+    if (timeouts != null)
+      m_Timeouts.putAll(timeouts);
+    return this;
+  }
+
+  /**
+   * Returns the timeouts for the phases.
+   *
+   * @return		the timeouts in seconds per phase
+   */
+  public synchronized Map<Phase,Integer> getTimeouts() {
+    return new EnumMap<>(m_Timeouts);
+  }
+
+  /**
+   * Sets the thread that executes the run, which gets interrupted when
+   * the run gets cancelled.
+   *
+   * @param thread	the thread, null if none
+   * @return		itself
+   */
+  public synchronized BootstrapReport thread(Thread thread) {
+    m_Thread = thread;
+    return this;
+  }
+
+  /**
+   * Returns the watchdog for the timeouts, creates it if necessary.
+   *
+   * @return		the watchdog
+   */
+  protected static synchronized ScheduledExecutorService watchdog() {
+    if (WATCHDOG == null) {
+      WATCHDOG = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+	Thread thread = new Thread(r, "instant-adams-watchdog");
+	thread.setDaemon(true);
+	return thread;
+      });
+    }
+    return WATCHDOG;
+  }
+
+  /**
+   * Adds the hook to run when the run gets cancelled.
+   *
+   * @param hook	the hook to add
+   * @return		itself
+   */
+  public synchronized BootstrapReport addCancelHook(Runnable hook) {
+    m_CancelHooks.add(hook);
+    return this;
+  }
+
+  /**
+   * Removes the hook.
+   *
+   * @param hook	the hook to remove
+   * @return		itself
+   */
+  public synchronized BootstrapReport removeCancelHook(Runnable hook) {
+    m_CancelHooks.remove(hook);
+    return this;
+  }
+
+  /**
+   * Cancels the run: runs the cancel hooks, interrupts the thread executing
+   * the run and aborts the running downloads. Subsequent phases do not get
+   * executed anymore. Only the first reason gets recorded.
+   *
+   * @param reason	the reason
+   */
+  public void cancel(String reason) {
+    List<Runnable>	hooks;
+    Thread		thread;
+
+    synchronized (this) {
+      if ((m_Cancelled != null) || (m_End != -1))
+	return;
+      m_Cancelled = reason;
+      hooks       = new ArrayList<>(m_CancelHooks);
+      thread      = m_Thread;
+    }
+    warning(reason);
+    for (Runnable hook: hooks) {
+      try {
+	hook.run();
+      }
+      catch (Exception e) {
+	LOGGER.log(Level.WARNING, "Cancel hook failed!", e);
+      }
+    }
+    if (thread != null)
+      thread.interrupt();
+  }
+
+  /**
+   * Returns whether the run got cancelled.
+   *
+   * @return		true if cancelled
+   */
+  public synchronized boolean isCancelled() {
+    return (m_Cancelled != null);
+  }
+
+  /**
+   * Returns the reason for cancelling the run.
+   *
+   * @return		the reason, null if not cancelled
+   */
+  public synchronized String getCancelled() {
+    return m_Cancelled;
+  }
+
+  /**
+   * Records the warning and notifies the listeners.
+   *
+   * @param message	the warning
+   */
+  public void warning(String message) {
+    synchronized (this) {
+      m_Warnings.add(message);
+    }
+    for (BootstrapListener l: m_Listeners)
+      l.warning(this, message);
+  }
+
+  /**
+   * Returns the warnings.
+   *
+   * @return		the warnings
+   */
+  public synchronized List<String> getWarnings() {
+    return new ArrayList<>(m_Warnings);
+  }
+
+  /**
+   * Notifies the listeners about the downloaded artifact.
+   *
+   * @param artifact	the artifact (path in the repository)
+   * @param bytes	the downloaded bytes
+   */
+  public void artifactDownloaded(String artifact, long bytes) {
+    for (BootstrapListener l: m_Listeners)
+      l.artifactDownloaded(this, artifact, bytes);
+  }
+
+  /**
+   * Records the start of the phase.
+   *
+   * @param phase	the phase
+   */
+  public void phaseStarted(Phase phase) {
+    final int	timeout;
+
+    synchronized (this) {
+      m_Running.put(phase, System.currentTimeMillis());
+      if (m_Timeouts.containsKey(phase)) {
+	timeout = m_Timeouts.get(phase);
+	m_Watchdogs.put(phase, watchdog().schedule(
+	  () -> cancel("Phase " + phase.toString().toLowerCase() + " exceeded timeout of " + timeout + "s"),
+	  timeout, TimeUnit.SECONDS));
+      }
+    }
+    for (BootstrapListener l: m_Listeners)
+      l.phaseStarted(this, phase);
+  }
+
+  /**
+   * Records the end of the phase.
+   *
+   * @param phase	the phase
+   */
+  public void phaseFinished(Phase phase) {
+    long	duration;
+
+    synchronized (this) {
+      if (!m_Running.containsKey(phase))
+        return;
+      if (m_Watchdogs.containsKey(phase))
+	m_Watchdogs.remove(phase).cancel(false);
+      duration = System.currentTimeMillis() - m_Running.remove(phase);
+      m_Durations.put(phase, m_Durations.getOrDefault(phase, 0L) + duration);
+    }
+    LOGGER.fine("Phase " + phase + ": " + duration + "ms");
+    for (BootstrapListener l: m_Listeners)
+      l.phaseFinished(this, phase, duration);
+  }
+
+  /**
+   * Returns the duration of the phase.
+   *
+   * @param phase	the phase
+   * @return		the duration in msec, -1 if the phase did not occur
+   */
+  public synchronized long getDuration(Phase phase) {
+    return m_Durations.getOrDefault(phase, -1L);
+  }
+
+  /**
+   * Returns the durations of the phases that occurred.
+   *
+   * @return		the durations in msec
+   */
+  public synchronized Map<Phase,Long> getDurations() {
+    return new EnumMap<>(m_Durations);
+  }
+
+  /**
+   * Adds the download statistics of a resolver, which from then on notifies
+   * the listeners about downloads and aborts them once cancelled.
+   *
+   * @param stats	the statistics
+   * @return		itself
+   */
+  public synchronized BootstrapReport addStatistics(TransferStatistics stats) {
+    stats.report(this);
+    m_Statistics.add(stats);
+    return this;
+  }
+
+  /**
+   * Returns the number of downloaded files.
+   *
+   * @return		the number of files
+   */
+  public synchronized int getDownloads() {
+    int		result;
+
+    result = 0;
+    for (TransferStatistics stats: m_Statistics)
+      result += stats.getDownloads();
+
+    return result;
+  }
+
+  /**
+   * Returns the number of downloaded bytes.
+   *
+   * @return		the bytes
+   */
+  public synchronized long getBytes() {
+    long	result;
+
+    result = 0;
+    for (TransferStatistics stats: m_Statistics)
+      result += stats.getBytes();
+
+    return result;
+  }
+
+  /**
+   * Sets the number of jars in the output.
+   *
+   * @param jars	the number of jars
+   * @param sourceJars	the number of source jars
+   * @return		itself
+   */
+  public synchronized BootstrapReport artifacts(int jars, int sourceJars) {
+    m_Jars       = jars;
+    m_SourceJars = sourceJars;
+    return this;
+  }
+
+  /**
+   * Returns the number of jars in the output.
+   *
+   * @return		the number of jars
+   */
+  public synchronized int getJars() {
+    return m_Jars;
+  }
+
+  /**
+   * Returns the number of source jars in the output.
+   *
+   * @return		the number of source jars
+   */
+  public synchronized int getSourceJars() {
+    return m_SourceJars;
+  }
+
+  /**
+   * Adds the hits/misses of the cache.
+   *
+   * @param cache	the cache, can be null
+   * @return		itself
+   */
+  public synchronized BootstrapReport addCache(Cache cache) {
+    if (cache != null) {
+      m_CacheHits   += cache.getHits();
+      m_CacheMisses += cache.getMisses();
+    }
+    return this;
+  }
+
+  /**
+   * Returns the cache hit rate.
+   *
+   * @return		the rate (0-1), -1 if the cache was not used
+   */
+  public synchronized double getCacheHitRate() {
+    if (m_CacheHits + m_CacheMisses == 0)
+      return -1;
+    return (double) m_CacheHits / (m_CacheHits + m_CacheMisses);
+  }
+
+  /**
+   * Sets the results of indexing the classes of the jars.
+   *
+   * @param jars	the number of indexed jars
+   * @param classes	the number of distinct classes
+   * @param duplicates	the number of classes present in several jars
+   * @param shadowed	the names of the jars whose classes are all shadowed
+   * @param pruned	the names of the removed jars
+   * @return		itself
+   */
+  public synchronized BootstrapReport classes(int jars, int classes, int duplicates, List<String> shadowed, List<String> pruned) {
+    m_IndexedJars      = jars;
+    m_Classes          = classes;
+    m_DuplicateClasses = duplicates;
+    m_ShadowedJars     = new ArrayList<>(shadowed);
+    m_PrunedJars       = new ArrayList<>(pruned);
+    return this;
+  }
+
+  /**
+   * Returns the number of classes present in several jars.
+   *
+   * @return		the number of classes, 0 if not indexed
+   */
+  public synchronized int getDuplicateClasses() {
+    return m_DuplicateClasses;
+  }
+
+  /**
+   * Returns the names of the removed jars.
+   *
+   * @return		the names
+   */
+  public synchronized List<String> getPrunedJars() {
+    return new ArrayList<>(m_PrunedJars);
+  }
+
+  /**
+   * Sets the target platform(s).
+   *
+   * @param platform	the platform(s), null for all
+   * @return		itself
+   */
+  public synchronized BootstrapReport targetPlatform(String platform) {
+    m_TargetPlatform = platform;
+    return this;
+  }
+
+  /**
+   * Returns the target platform(s).
+   *
+   * @return		the platform(s), null for all
+   */
+  public synchronized String getTargetPlatform() {
+    return m_TargetPlatform;
+  }
+
+  /**
+   * Adds jars that were left out for other platforms.
+   *
+   * @param names	the names of the jars
+   * @param bytes	the bytes saved
+   * @return		itself
+   */
+  public synchronized BootstrapReport addPlatformPruned(List<String> names, long bytes) {
+    m_PlatformJars.addAll(names);
+    m_PlatformBytes += bytes;
+    return this;
+  }
+
+  /**
+   * Returns the names of the jars left out for other platforms.
+   *
+   * @return		the names
+   */
+  public synchronized List<String> getPlatformPrunedJars() {
+    return new ArrayList<>(m_PlatformJars);
+  }
+
+  /**
+   * Returns the bytes saved by leaving out jars for other platforms.
+   *
+   * @return		the bytes
+   */
+  public synchronized long getPlatformBytesSaved() {
+    return m_PlatformBytes;
+  }
+
+  /**
+   * Sets the status of the deferred source retrieval.
+   *
+   * @param status	the status (eg pending, done, failed), null if not deferred
+   * @param duration	the duration in msec, -1 if not finished yet
+   * @return		itself
+   */
+  public synchronized BootstrapReport deferredSources(String status, long duration) {
+    m_DeferredSources         = status;
+    m_DeferredSourcesDuration = duration;
+    return this;
+  }
+
+  /**
+   * Returns the status of the deferred source retrieval.
+   *
+   * @return		the status, null if not deferred
+   */
+  public synchronized String getDeferredSources() {
+    return m_DeferredSources;
+  }
+
+  /**
+   * Sets the results of verifying the jars.
+   *
+   * @param files	the number of jars in the integrity manifest
+   * @param hashed	the number of jars that got hashed
+   * @param verified	the number of jars verified against repository/lockfile checksums
+   * @param mismatches	the jars whose checksums did not match
+   * @return		itself
+   */
+  public synchronized BootstrapReport integrity(int files, int hashed, int verified, List<String> mismatches) {
+    m_IntegrityFiles      = files;
+    m_IntegrityHashed     = hashed;
+    m_IntegrityVerified   = verified;
+    m_IntegrityMismatches = new ArrayList<>(mismatches);
+    return this;
+  }
+
+  /**
+   * Returns the jars whose checksums did not match.
+   *
+   * @return		the jars
+   */
+  public synchronized List<String> getIntegrityMismatches() {
+    return new ArrayList<>(m_IntegrityMismatches);
+  }
+
+  /**
+   * Marks the run as finished and notifies the listeners. Phases that are
+   * still running (eg due to an error) get finished as well.
+   *
+   * @param error	the error, null if successful
+   */
+  public void finished(String error) {
+    List<Phase>		running;
+
+    synchronized (this) {
+      running = new ArrayList<>(m_Running.keySet());
+    }
+    for (Phase phase: running)
+      phaseFinished(phase);
+
+    synchronized (this) {
+      m_End    = System.currentTimeMillis();
+      m_Error  = error;
+      m_Thread = null;
+    }
+    for (BootstrapListener l: m_Listeners)
+      l.bootstrapFinished(this);
+  }
+
+  /**
+   * Returns whether the run was successful.
+   *
+   * @return		true if successful
+   */
+  public synchronized boolean isSuccess() {
+    return (m_Error == null);
+  }
+
+  /**
+   * Returns the error.
+   *
+   * @return		the error, null if successful
+   */
+  public synchronized String getError() {
+    return m_Error;
+  }
+
+  /**
+   * Returns the duration of the run.
+   *
+   * @return		the duration in msec
+   */
+  public synchronized long getTotalDuration() {
+    return ((m_End == -1) ? System.currentTimeMillis() : m_End) - m_Start;
+  }
+
+  /**
+   * Returns the report as JSON object.
+   *
+   * @return		the report
+   */
+  public synchronized JsonObject toJson() {
+    JsonObject			result;
+    JsonObject			phases;
+    JsonObject			artifacts;
+    JsonObject			downloads;
+    JsonObject			hosts;
+    JsonObject			host;
+    JsonObject			cache;
+    JsonObject			classes;
+    JsonObject			platform;
+    JsonObject			integrity;
+    JsonArray			names;
+    Map<String,HostStatistics>	merged;
+    HostStatistics		stats;
+    int				failures;
+
+    result = new JsonObject();
+    result.addProperty("name", m_Name);
+    result.addProperty("outputDir", (m_OutputDir == null) ? null : m_OutputDir.getAbsolutePath());
+    result.addProperty("engine", m_Engine);
+    result.addProperty("success", isSuccess());
+    result.addProperty("error", m_Error);
+    result.addProperty("upToDate", m_UpToDate);
+    result.addProperty("start", Instant.ofEpochMilli(m_Start).toString());
+    result.addProperty("duration", getTotalDuration());
+
+    phases = new JsonObject();
+    for (Phase phase: m_Durations.keySet())
+      phases.addProperty(phase.toString().toLowerCase(), m_Durations.get(phase));
+    result.add("phases", phases);
+
+    artifacts = new JsonObject();
+    artifacts.addProperty("jars", m_Jars);
+    artifacts.addProperty("sourceJars", m_SourceJars);
+    if (m_DeferredSources != null) {
+      artifacts.addProperty("deferredSources", m_DeferredSources);
+      if (m_DeferredSourcesDuration > -1)
+	artifacts.addProperty("deferredSourcesDuration", m_DeferredSourcesDuration);
+    }
+    result.add("artifacts", artifacts);
+
+    // only available when resolving in-process
+    if (!m_Statistics.isEmpty()) {
+      merged   = new TreeMap<>();
+      failures = 0;
+      for (TransferStatistics s: m_Statistics) {
+        for (Map.Entry<String,HostStatistics> entry: s.getHosts().entrySet()) {
+          if (!merged.containsKey(entry.getKey()))
+            merged.put(entry.getKey(), new HostStatistics());
+          stats = merged.get(entry.getKey());
+          stats.m_Downloads += entry.getValue().getDownloads();
+          stats.m_Failures  += entry.getValue().getFailures();
+          stats.m_Bytes     += entry.getValue().getBytes();
+          failures          += entry.getValue().getFailures();
+        }
+      }
+      downloads = new JsonObject();
+      downloads.addProperty("files", getDownloads());
+      downloads.addProperty("bytes", getBytes());
+      downloads.addProperty("failed", failures);
+      hosts = new JsonObject();
+      for (String name: merged.keySet()) {
+        host = new JsonObject();
+        host.addProperty("files", merged.get(name).getDownloads());
+        host.addProperty("bytes", merged.get(name).getBytes());
+        host.addProperty("failed", merged.get(name).getFailures());
+        hosts.add(name, host);
+      }
+      downloads.add("hosts", hosts);
+      result.add("downloads", downloads);
+    }
+
+    cache = new JsonObject();
+    cache.addProperty("hits", m_CacheHits);
+    cache.addProperty("misses", m_CacheMisses);
+    if (getCacheHitRate() >= 0)
+      cache.addProperty("hitRate", getCacheHitRate());
+    result.add("cache", cache);
+
+    if (m_TargetPlatform != null) {
+      platform = new JsonObject();
+      platform.addProperty("target", m_TargetPlatform);
+      names = new JsonArray();
+      for (String name: m_PlatformJars)
+        names.add(name);
+      platform.add("prunedJars", names);
+      platform.addProperty("bytesSaved", m_PlatformBytes);
+      result.add("platform", platform);
+    }
+
+    if (m_IntegrityFiles > -1) {
+      integrity = new JsonObject();
+      integrity.addProperty("files", m_IntegrityFiles);
+      integrity.addProperty("hashed", m_IntegrityHashed);
+      integrity.addProperty("verified", m_IntegrityVerified);
+      names = new JsonArray();
+      for (String name: m_IntegrityMismatches)
+        names.add(name);
+      integrity.add("mismatches", names);
+      result.add("integrity", integrity);
+    }
+
+    names = new JsonArray();
+    for (String warning: m_Warnings)
+      names.add(warning);
+    result.add("warnings", names);
+
+    if (m_IndexedJars > -1) {
+      classes = new JsonObject();
+      classes.addProperty("jars", m_IndexedJars);
+      classes.addProperty("classes", m_Classes);
+      classes.addProperty("duplicates", m_DuplicateClasses);
+      names = new JsonArray();
+      for (String name: m_ShadowedJars)
+        names.add(name);
+      classes.add("shadowedJars", names);
+      names = new JsonArray();
+      for (String name: m_PrunedJars)
+        names.add(name);
+      classes.add("prunedJars", names);
+      result.add("classes", classes);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the report as (pretty-printed) JSON string.
+   *
+   * @return		the report
+   */
+  @Override
+  public String toString() {
+    return new GsonBuilder().setPrettyPrinting().serializeNulls().create().toJson(toJson());
+  }
+
+  /**
+   * Returns the file for storing the report in the output directory.
+   *
+   * @param outputDir	the output directory
+   * @return		the file
+   */
+  public static File file(File outputDir) {
+    return new File(outputDir, FILENAME);
+  }
+
+  /**
+   * Writes the report to the output directory, if it exists.
+   *
+   * @return		true if written
+   */
+  public boolean write() {
+    File	file;
+
+    if ((getOutputDir() == null) || !getOutputDir().isDirectory())
+      return false;
+    file = file(getOutputDir());
+    try {
+      Files.write(file.toPath(), toString().getBytes(StandardCharsets.UTF_8));
+      return true;
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Failed to write report: " + file, e);
+      return false;
+    }
+  }
+}
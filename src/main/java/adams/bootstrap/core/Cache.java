@@ -0,0 +1,569 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Cache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import com.github.fracpete.requests4j.Requests;
+import com.github.fracpete.requests4j.request.Request;
+import com.github.fracpete.requests4j.response.AbstractResponse;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Simple on-disk cache for remote resources, like the module catalogs.
+ * Once the time-to-live of an entry has expired, it gets revalidated:
+ * HTTP(S) URLs use a conditional request (ETag/Last-Modified), all other
+ * URLs (eg file: ones pointing to a local mirror) compare the modification
+ * timestamp. If revalidation fails, a stale entry gets used instead.
+ * In offline mode, HTTP(S) URLs are only served from the cache, regardless
+ * of their time-to-live.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Cache {
+
+  /** the default time-to-live in minutes. */
+  public final static long DEFAULT_TTL = 60;
+
+  /** the extension for the meta-data files. */
+  public final static String EXT_META = ".props";
+
+  /** the key for the URL. */
+  public final static String KEY_URL = "url";
+
+  /** the key for the ETag. */
+  public final static String KEY_ETAG = "etag";
+
+  /** the key for the last modified timestamp. */
+  public final static String KEY_LASTMODIFIED = "lastmodified";
+
+  /** the key for the timestamp of the last (re)validation. */
+  public final static String KEY_VALIDATED = "validated";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(Cache.class.getName());
+
+  /** the directory to store the entries in. */
+  protected File m_Directory;
+
+  /** the time-to-live in minutes. */
+  protected long m_TTL;
+
+  /** whether to work offline. */
+  protected boolean m_Offline;
+
+  /** the number of requests served without downloading the content. */
+  protected int m_Hits;
+
+  /** the number of requests that downloaded the content. */
+  protected int m_Misses;
+
+  /**
+   * Response that streams the body of a successful request into a file,
+   * rather than buffering it in memory. Unlike requests4j's FileResponse,
+   * failures while reading the body don't get swallowed.
+   */
+  public static class ContentResponse
+    extends AbstractResponse {
+
+    private static final long serialVersionUID = -3311298744415201738L;
+
+    /** the file to write the body to. */
+    protected File m_File;
+
+    /** the error that occurred while writing the body, null if none. */
+    protected IOException m_Error;
+
+    /**
+     * Initializes the response.
+     *
+     * @param file	the file to write the body to
+     */
+    public ContentResponse(File file) {
+      super();
+      m_File  = file;
+      m_Error = null;
+    }
+
+    /**
+     * Initializes the response, writing the body of a successful request to
+     * the file.
+     *
+     * @param response	the raw response
+     */
+    @Override
+    public void init(okhttp3.Response response) {
+      super.init(response);
+      m_Error = null;
+      if (!ok() || (response.body() == null))
+	return;
+      try (InputStream in = response.body().byteStream()) {
+	Files.copy(in, m_File.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      catch (IOException e) {
+	m_Error = e;
+      }
+    }
+
+    /**
+     * Returns the file with the body.
+     *
+     * @return		the file
+     */
+    public File getFile() {
+      return m_File;
+    }
+
+    /**
+     * Returns the error that occurred while writing the body.
+     *
+     * @return		the error, null if none
+     */
+    public IOException getError() {
+      return m_Error;
+    }
+  }
+
+  /**
+   * Initializes the cache.
+   *
+   * @param dir		the directory to store the entries in
+   * @param ttl		the time-to-live in minutes, 0 to always revalidate
+   */
+  public Cache(File dir, long ttl) {
+    this(dir, ttl, false);
+  }
+
+  /**
+   * Initializes the cache.
+   *
+   * @param dir		the directory to store the entries in
+   * @param ttl		the time-to-live in minutes, 0 to always revalidate
+   * @param offline	whether to serve HTTP(S) URLs from the cache only
+   */
+  public Cache(File dir, long ttl, boolean offline) {
+    m_Directory = dir;
+    m_TTL       = ttl;
+    m_Offline   = offline;
+    m_Hits      = 0;
+    m_Misses    = 0;
+  }
+
+  /**
+   * Returns the directory for the entries.
+   *
+   * @return		the directory
+   */
+  public File getDirectory() {
+    return m_Directory;
+  }
+
+  /**
+   * Returns the time-to-live in minutes.
+   *
+   * @return		the TTL
+   */
+  public long getTTL() {
+    return m_TTL;
+  }
+
+  /**
+   * Returns whether HTTP(S) URLs are only served from the cache.
+   *
+   * @return		true if offline
+   */
+  public boolean isOffline() {
+    return m_Offline;
+  }
+
+  /**
+   * Records a request.
+   *
+   * @param hit		true if served without downloading the content
+   */
+  protected synchronized void record(boolean hit) {
+    if (hit)
+      m_Hits++;
+    else
+      m_Misses++;
+  }
+
+  /**
+   * Returns the number of requests served without downloading the content
+   * (fresh, not modified, offline or stale entries).
+   *
+   * @return		the number of hits
+   */
+  public synchronized int getHits() {
+    return m_Hits;
+  }
+
+  /**
+   * Returns the number of requests that downloaded the content.
+   *
+   * @return		the number of misses
+   */
+  public synchronized int getMisses() {
+    return m_Misses;
+  }
+
+  /**
+   * Checks whether the URL requires network access.
+   *
+   * @param url		the URL to check
+   * @return		true if remote
+   */
+  public static boolean isRemote(String url) {
+    String	lower;
+
+    lower = url.toLowerCase();
+    return lower.startsWith("http://") || lower.startsWith("https://");
+  }
+
+  /**
+   * Generates the key for the URL.
+   *
+   * @param url		the URL to generate the key for
+   * @return		the key
+   */
+  protected String key(String url) {
+    MessageDigest	digest;
+    StringBuilder	result;
+    String		name;
+
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+      result = new StringBuilder();
+      for (byte b: digest.digest(url.getBytes(StandardCharsets.UTF_8)))
+        result.append(String.format("%02x", b));
+    }
+    catch (Exception e) {
+      throw new IllegalStateException("Failed to generate cache key for: " + url, e);
+    }
+
+    // keep the file name for readability
+    name = url.replaceAll("[?#].*", "");
+    name = name.substring(name.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._-]", "_");
+    if (!name.isEmpty())
+      result.append("-").append(name);
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the file that stores the content for the URL.
+   *
+   * @param url		the URL to get the file for
+   * @return		the file (may not exist)
+   */
+  public File contentFile(String url) {
+    return new File(m_Directory, key(url));
+  }
+
+  /**
+   * Returns the file that stores the meta-data for the URL.
+   *
+   * @param url		the URL to get the file for
+   * @return		the file (may not exist)
+   */
+  protected File metaFile(String url) {
+    return new File(m_Directory, key(url) + EXT_META);
+  }
+
+  /**
+   * Loads the meta-data for the URL.
+   *
+   * @param url		the URL to load the meta-data for
+   * @return		the meta-data, empty if not available
+   */
+  protected Properties loadMeta(String url) {
+    Properties	result;
+    File	file;
+
+    result = new Properties();
+    file   = metaFile(url);
+    if (file.exists()) {
+      try (InputStream in = new FileInputStream(file)) {
+        result.load(in);
+      }
+      catch (Exception e) {
+        LOGGER.log(Level.WARNING, "Failed to read cache meta-data: " + file, e);
+        result.clear();
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Saves the meta-data for the URL.
+   *
+   * @param url		the URL to save the meta-data for
+   * @param meta	the meta-data
+   * @throws IOException	if writing fails
+   */
+  protected void saveMeta(String url, Properties meta) throws IOException {
+    File	file;
+    File	tmp;
+
+    meta.setProperty(KEY_URL, url);
+    file = metaFile(url);
+    tmp  = Files.createTempFile(m_Directory.toPath(), file.getName(), ".tmp").toFile();
+    try {
+      try (OutputStream out = new FileOutputStream(tmp)) {
+	meta.store(out, null);
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+
+  /**
+   * Stores the content from the stream in the cache.
+   *
+   * @param url		the URL the content belongs to
+   * @param in		the stream to read from
+   * @throws IOException	if writing fails
+   */
+  protected void saveContent(String url, InputStream in) throws IOException {
+    File	tmp;
+
+    tmp = Files.createTempFile(m_Directory.toPath(), contentFile(url).getName(), ".tmp").toFile();
+    try {
+      Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      replaceContent(url, tmp);
+    }
+    finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+
+  /**
+   * Replaces the content in the cache with the (complete) temp file.
+   *
+   * @param url		the URL the content belongs to
+   * @param tmp		the temp file with the new content, in the cache directory
+   * @throws IOException	if moving fails
+   */
+  protected void replaceContent(String url, File tmp) throws IOException {
+    Files.move(tmp.toPath(), contentFile(url).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns the first value of the header (case-insensitive).
+   *
+   * @param headers	the headers to search
+   * @param name	the header to look for
+   * @return		the value, null if not present
+   */
+  protected String header(Map<String,List<String>> headers, String name) {
+    for (String key: headers.keySet()) {
+      if (key.equalsIgnoreCase(name) && !headers.get(key).isEmpty())
+        return headers.get(key).get(0);
+    }
+    return null;
+  }
+
+  /**
+   * Checks whether the entry is still within its time-to-live.
+   *
+   * @param meta	the meta-data of the entry
+   * @return		true if still fresh
+   */
+  protected boolean isFresh(Properties meta) {
+    long	validated;
+
+    if (!meta.containsKey(KEY_VALIDATED))
+      return false;
+    validated = Long.parseLong(meta.getProperty(KEY_VALIDATED));
+    return (System.currentTimeMillis() - validated) < m_TTL * 60 * 1000;
+  }
+
+  /**
+   * Fetches/revalidates an HTTP(S) URL.
+   *
+   * @param url		the URL to fetch
+   * @param meta	the current meta-data, gets updated
+   * @return		true if the content got downloaded, false if not modified
+   * @throws Exception	if fetching fails
+   */
+  protected boolean fetchHttp(String url, Properties meta) throws Exception {
+    Request		request;
+    ContentResponse	r;
+    File		tmp;
+
+    request = Requests.get(url).allowRedirects(true);
+    if (contentFile(url).exists()) {
+      if (meta.containsKey(KEY_ETAG))
+        request.header("If-None-Match", meta.getProperty(KEY_ETAG));
+      if (meta.containsKey(KEY_LASTMODIFIED))
+        request.header("If-Modified-Since", meta.getProperty(KEY_LASTMODIFIED));
+    }
+    // the body gets streamed into a temp file next to the content
+    tmp = Files.createTempFile(m_Directory.toPath(), contentFile(url).getName(), ".tmp").toFile();
+    try {
+      r = request.execute(new ContentResponse(tmp));
+      if (r.statusCode() == 304) {
+        LOGGER.fine("Not modified: " + url);
+        return false;
+      }
+      else if (r.ok()) {
+        if (r.getError() != null)
+          throw new IOException("Failed to download URL: " + url, r.getError());
+        replaceContent(url, tmp);
+        meta.remove(KEY_ETAG);
+        meta.remove(KEY_LASTMODIFIED);
+        if (header(r.headers(), "ETag") != null)
+          meta.setProperty(KEY_ETAG, header(r.headers(), "ETag"));
+        if (header(r.headers(), "Last-Modified") != null)
+          meta.setProperty(KEY_LASTMODIFIED, header(r.headers(), "Last-Modified"));
+        return true;
+      }
+      else {
+        throw new IOException("Failed to load URL (status: " + r.statusCode() + ": " + r.statusMessage() + "): " + url);
+      }
+    }
+    finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+
+  /**
+   * Fetches/revalidates a non-HTTP URL, eg file: or jar:.
+   *
+   * @param url		the URL to fetch
+   * @param meta	the current meta-data, gets updated
+   * @return		true if the content got downloaded, false if not modified
+   * @throws Exception	if fetching fails
+   */
+  protected boolean fetchOther(String url, Properties meta) throws Exception {
+    URLConnection	conn;
+    long		modified;
+
+    conn     = new URL(url).openConnection();
+    modified = conn.getLastModified();
+    if ((modified != 0) && contentFile(url).exists() && ("" + modified).equals(meta.getProperty(KEY_LASTMODIFIED))) {
+      LOGGER.fine("Not modified: " + url);
+      return false;
+    }
+    try (InputStream in = conn.getInputStream()) {
+      saveContent(url, in);
+    }
+    if (modified != 0)
+      meta.setProperty(KEY_LASTMODIFIED, "" + modified);
+    else
+      meta.remove(KEY_LASTMODIFIED);
+    return true;
+  }
+
+  /**
+   * Returns the cached content of the URL, fetching or revalidating it
+   * if necessary. Only the entry gets locked (within this JVM and on disk),
+   * so that concurrent bootstrap runs and other processes sharing the cache
+   * directory can fetch different URLs in parallel. The modification time of
+   * the content records the access.
+   *
+   * @param url		the URL to get
+   * @return		the local file with the content
+   * @throws Exception	if retrieval fails and no cached content is available
+   */
+  public File get(String url) throws Exception {
+    File	content;
+
+    if (!m_Directory.exists() && !m_Directory.mkdirs() && !m_Directory.exists())
+      throw new IOException("Failed to create cache directory: " + m_Directory);
+
+    content = contentFile(url);
+    return SharedLock.run(SharedLock.lockFile(content), () -> {
+      File	result;
+
+      result = get(url, content);
+      // records the access for the eviction of least-recently-used entries
+      if (!result.setLastModified(System.currentTimeMillis()))
+	LOGGER.fine("Failed to update access time: " + result);
+      return result;
+    });
+  }
+
+  /**
+   * Returns the cached content of the URL, fetching or revalidating it
+   * if necessary. Must be called while holding the lock on the entry.
+   *
+   * @param url		the URL to get
+   * @param content	the file for the content
+   * @return		the local file with the content
+   * @throws Exception	if retrieval fails and no cached content is available
+   */
+  protected File get(String url, File content) throws Exception {
+    Properties	meta;
+    boolean	modified;
+
+    meta = loadMeta(url);
+    if (content.exists() && isFresh(meta)) {
+      LOGGER.fine("Cache hit: " + url);
+      record(true);
+      return content;
+    }
+
+    if (m_Offline && isRemote(url)) {
+      if (!content.exists())
+        throw new IOException("Not available offline (not cached): " + url);
+      LOGGER.fine("Offline, using cache entry: " + url);
+      record(true);
+      return content;
+    }
+
+    try {
+      if (isRemote(url))
+        modified = fetchHttp(url, meta);
+      else
+        modified = fetchOther(url, meta);
+      meta.setProperty(KEY_VALIDATED, "" + System.currentTimeMillis());
+      saveMeta(url, meta);
+      record(!modified);
+    }
+    catch (Exception e) {
+      if (!content.exists())
+        throw e;
+      LOGGER.log(Level.WARNING, "Failed to revalidate, using stale cache entry: " + url, e);
+      record(true);
+    }
+
+    return content;
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassIndex.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of the classes across the jars of a class path, for detecting
+ * classes that are present in several jars and jars whose classes are all
+ * provided by other jars already. The order of the jars is the class path
+ * order, i.e., the first jar with a class wins and shadows the others.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassIndex {
+
+  /** the file name for the duplicates in the output directory. */
+  public final static String FILENAME = "instant-adams-duplicates.tsv";
+
+  /** the header of the duplicates file. */
+  public final static String HEADER = "# class\tjar\tshadowed";
+
+  /**
+   * Which jars get removed from the class path.
+   */
+  public enum Policy {
+    /** report only. */
+    NONE,
+    /** jars whose classes all occur in jars earlier in the class path. */
+    SHADOWED,
+    /** jars whose classes all occur in other jars, regardless of order. */
+    CONTAINED,
+  }
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(ClassIndex.class.getName());
+
+  /** the jars in class path order with their classes. */
+  protected Map<File,Set<String>> m_Jars;
+
+  /** the class entries with the jars containing them (class path order). */
+  protected Map<String,List<File>> m_Classes;
+
+  /**
+   * Initializes the index.
+   *
+   * @param jars	the jars in class path order with their classes
+   */
+  protected ClassIndex(Map<File,Set<String>> jars) {
+    m_Jars    = jars;
+    m_Classes = new HashMap<>();
+    for (File jar: m_Jars.keySet()) {
+      for (String cls: m_Jars.get(jar))
+	m_Classes.computeIfAbsent(cls, k -> new ArrayList<>(1)).add(jar);
+    }
+  }
+
+  /**
+   * Returns the class entries of the jar, skipping module-info and
+   * versioned entries of multi-release jars.
+   *
+   * @param jar		the jar to read
+   * @return		the entries
+   * @throws IOException	if reading fails
+   */
+  protected static Set<String> classes(File jar) throws IOException {
+    Set<String>			result;
+    Enumeration<? extends ZipEntry>	entries;
+    String			name;
+
+    result = new HashSet<>();
+    try (ZipFile zip = new ZipFile(jar)) {
+      entries = zip.entries();
+      while (entries.hasMoreElements()) {
+	name = entries.nextElement().getName();
+	if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class"))
+	  result.add(name);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Indexes the jars concurrently.
+   *
+   * @param jars	the jars in class path order
+   * @param threads	the number of threads to use
+   * @return		the index
+   * @throws IOException	if reading a jar fails
+   */
+  public static ClassIndex build(List<File> jars, int threads) throws IOException {
+    Map<File,Set<String>>	result;
+    ExecutorService		executor;
+    List<Future<Set<String>>>	futures;
+    int				i;
+
+    result   = new LinkedHashMap<>();
+    executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, jars.size())));
+    futures  = new ArrayList<>();
+    for (File jar: jars)
+      futures.add(executor.submit(() -> classes(jar)));
+    executor.shutdown();
+
+    try {
+      for (i = 0; i < jars.size(); i++)
+	result.put(jars.get(i), futures.get(i).get());
+    }
+    catch (ExecutionException e) {
+      executor.shutdownNow();
+      if (e.getCause() instanceof IOException)
+	throw (IOException) e.getCause();
+      throw new IOException("Failed to index jars!", e.getCause());
+    }
+    catch (InterruptedException e) {
+      executor.shutdownNow();
+      throw new IOException("Interrupted while indexing jars!", e);
+    }
+
+    return new ClassIndex(result);
+  }
+
+  /**
+   * Returns the jars in class path order.
+   *
+   * @return		the jars
+   */
+  public List<File> getJars() {
+    return new ArrayList<>(m_Jars.keySet());
+  }
+
+  /**
+   * Returns the number of distinct classes.
+   *
+   * @return		the number of classes
+   */
+  public int getNumClasses() {
+    return m_Classes.size();
+  }
+
+  /**
+   * Returns the classes present in more than one jar.
+   *
+   * @return		the classes (sorted) with the jars in class path order
+   */
+  public Map<String,List<File>> getDuplicates() {
+    Map<String,List<File>>	result;
+
+    result = new TreeMap<>();
+    for (String cls: m_Classes.keySet()) {
+      if (m_Classes.get(cls).size() > 1)
+	result.put(cls, m_Classes.get(cls));
+    }
+
+    return result;
+  }
+
+  /**
+   * Determines the jars to remove according to the policy. Jars get
+   * checked from the end of the class path, checking against the remaining
+   * jars, so that of identical jars only the first one is kept.
+   * Jars without classes are never removed.
+   *
+   * @param policy	the policy to apply
+   * @return		the jars that can be removed, in class path order
+   */
+  public List<File> prunable(Policy policy) {
+    List<File>		result;
+    List<File>		jars;
+    Map<File,Integer>	pos;
+    Set<File>		removed;
+    int			i;
+    boolean		all;
+
+    result = new ArrayList<>();
+    if (policy == Policy.NONE)
+      return result;
+
+    jars    = getJars();
+    pos     = new HashMap<>();
+    for (i = 0; i < jars.size(); i++)
+      pos.put(jars.get(i), i);
+    removed = new HashSet<>();
+    for (i = jars.size() - 1; i >= 0; i--) {
+      if (m_Jars.get(jars.get(i)).isEmpty())
+	continue;
+      all = true;
+      for (String cls: m_Jars.get(jars.get(i))) {
+	all = false;
+	for (File other: m_Classes.get(cls)) {
+	  if (other.equals(jars.get(i)) || removed.contains(other))
+	    continue;
+	  if ((policy == Policy.CONTAINED) || (pos.get(other) < i)) {
+	    all = true;
+	    break;
+	  }
+	}
+	if (!all)
+	  break;
+      }
+      if (all)
+	removed.add(jars.get(i));
+    }
+
+    for (File jar: jars) {
+      if (removed.contains(jar))
+	result.add(jar);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the duplicates as tab-separated text: class, the jar it gets
+   * loaded from and the jars that get shadowed.
+   *
+   * @return		the content
+   */
+  public String duplicatesToString() {
+    StringBuilder		result;
+    Map<String,List<File>>	duplicates;
+    List<String>		shadowed;
+    List<File>			jars;
+    int				i;
+
+    result = new StringBuilder();
+    result.append(HEADER).append("\n");
+    duplicates = getDuplicates();
+    for (String cls: duplicates.keySet()) {
+      jars     = duplicates.get(cls);
+      shadowed = new ArrayList<>();
+      for (i = 1; i < jars.size(); i++)
+	shadowed.add(jars.get(i).getName());
+      result.append(cls.substring(0, cls.length() - ".class".length()).replace('/', '.'))
+	.append("\t").append(jars.get(0).getName())
+	.append("\t").append(String.join(",", shadowed))
+	.append("\n");
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Writes the duplicates to the file.
+   *
+   * @param file	the file to write to
+   * @throws IOException	if writing fails
+   * @see		#duplicatesToString()
+   */
+  public void writeDuplicates(File file) throws IOException {
+    Files.write(file.toPath(), duplicatesToString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the file for storing the duplicates in the output directory.
+   *
+   * @param outputDir	the output directory
+   * @return		the file
+   */
+  public static File file(File outputDir) {
+    return new File(outputDir, FILENAME);
+  }
+}
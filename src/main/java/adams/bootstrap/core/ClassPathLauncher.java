@@ -0,0 +1,244 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassPathLauncher.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pre-computes the class path of the start scripts at bootstrap time, so the
+ * JVM gets started without globbing the lib directory and with the jars in a
+ * fixed order (sorted by file name). Either as argument file (Java 9+,
+ * absolute paths) or as manifest-only jar whose Class-Path attribute lists
+ * the jars relative to the bin directory.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassPathLauncher {
+
+  /** the argument file in the bin directory. */
+  public final static String ARGFILE = "classpath.args";
+
+  /** the manifest-only jar in the bin directory. */
+  public final static String MANIFEST_JAR = "classpath.jar";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(ClassPathLauncher.class.getName());
+
+  /**
+   * Returns the normalized absolute Maven output directory, as used by the
+   * start scripts.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		the absolute directory
+   */
+  protected static File absolute(File outputDirMaven) {
+    return outputDirMaven.toPath().toAbsolutePath().normalize().toFile();
+  }
+
+  /**
+   * Returns the jars in the lib directory, sorted by file name.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		the jars
+   */
+  public static List<File> jars(File outputDirMaven) {
+    List<File>	result;
+    File[]	files;
+
+    result = new ArrayList<>();
+    files  = new File(absolute(outputDirMaven), "lib").listFiles((File dir, String name) -> name.endsWith(".jar"));
+    if (files != null) {
+      Arrays.sort(files);
+      result.addAll(Arrays.asList(files));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the argument file.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		the file
+   */
+  public static File argfile(File outputDirMaven) {
+    return new File(absolute(outputDirMaven), "bin/" + ARGFILE);
+  }
+
+  /**
+   * Returns the manifest-only jar.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		the file
+   */
+  public static File manifestJar(File outputDirMaven) {
+    return new File(absolute(outputDirMaven), "bin/" + MANIFEST_JAR);
+  }
+
+  /**
+   * Writes the argument file with the class path option, using the path
+   * separator of the current platform.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		null if successful, otherwise error message
+   */
+  public static String writeArgfile(File outputDirMaven) {
+    File		file;
+    List<String>	paths;
+
+    file  = argfile(outputDirMaven);
+    paths = new ArrayList<>();
+    for (File jar: jars(outputDirMaven))
+      paths.add(jar.getAbsolutePath());
+    try {
+      // backslashes are escape characters within quotes
+      Files.write(file.toPath(), ("-cp\n\"" + String.join(File.pathSeparator, paths).replace("\\", "\\\\") + "\"\n").getBytes(StandardCharsets.UTF_8));
+      LOGGER.info("Class path of " + paths.size() + " jar(s) written to: " + file);
+      return null;
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to write argument file: " + file, e);
+      return "Failed to write argument file: " + file;
+    }
+  }
+
+  /**
+   * Writes the manifest-only jar with the jars as Class-Path.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		null if successful, otherwise error message
+   */
+  public static String writeManifestJar(File outputDirMaven) {
+    File		file;
+    Manifest		manifest;
+    List<String>	paths;
+
+    file  = manifestJar(outputDirMaven);
+    paths = new ArrayList<>();
+    for (File jar: jars(outputDirMaven))
+      paths.add("../lib/" + jar.getName().replace("%", "%25").replace(" ", "%20"));
+    manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(new Attributes.Name("Created-By"), "instant-adams");
+    manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, String.join(" ", paths));
+    try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), manifest)) {
+      jos.flush();
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to write manifest jar: " + file, e);
+      return "Failed to write manifest jar: " + file;
+    }
+    LOGGER.info("Class path of " + paths.size() + " jar(s) written to: " + file);
+
+    return null;
+  }
+
+  /**
+   * Replaces the line starting with the prefix and the occurrence of the
+   * class path option in the java command.
+   *
+   * @param script	the script to update
+   * @param prefix	the start of the line to replace
+   * @param line	the replacement line
+   * @param cp		the class path option to replace, null to keep
+   * @param param	the replacement for the class path option
+   * @return		null if successful, otherwise error message
+   */
+  protected static String patch(File script, String prefix, String line, String cp, String param) {
+    List<String>	content;
+    int			i;
+    boolean		replaced;
+
+    try {
+      content  = Files.readAllLines(script.toPath());
+      replaced = false;
+      for (i = 0; i < content.size(); i++) {
+	if (content.get(i).startsWith(prefix)) {
+	  content.set(i, line);
+	  replaced = true;
+	}
+	else if ((cp != null) && (StartScripts.javaCommand(content.get(i)) != null)) {
+	  content.set(i, content.get(i).replace(cp, param));
+	}
+      }
+      if (!replaced)
+	return "No class path found in script: " + script;
+      Files.write(script.toPath(), content);
+      return null;
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to update script: " + script, e);
+      return "Failed to update script: " + script;
+    }
+  }
+
+  /**
+   * Updates the bash start script to use the argument file.
+   *
+   * @param script	the start.sh script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchShellScriptArgfile(File script) {
+    return patch(script, "CP=", "ARGS=\"$BASEDIR/bin/" + ARGFILE + "\"", "-cp \"$CP\"", "\"@$ARGS\"");
+  }
+
+  /**
+   * Updates the batch start script to use the argument file.
+   *
+   * @param script	the start.bat script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchBatchScriptArgfile(File script) {
+    return patch(script, "set CP=", "set ARGS=%BASEDIR%\\bin\\" + ARGFILE, "-cp \"%CP%\"", "\"@%ARGS%\"");
+  }
+
+  /**
+   * Updates the bash start script to use the manifest-only jar.
+   *
+   * @param script	the start.sh script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchShellScriptManifest(File script) {
+    return patch(script, "CP=", "CP=\"$BASEDIR/bin/" + MANIFEST_JAR + "\"", null, null);
+  }
+
+  /**
+   * Updates the batch start script to use the manifest-only jar.
+   *
+   * @param script	the start.bat script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchBatchScriptManifest(File script) {
+    return patch(script, "set CP=", "set CP=%BASEDIR%\\bin\\" + MANIFEST_JAR, null, null);
+  }
+}
@@ -0,0 +1,1034 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * DependencyResolver.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import adams.bootstrap.core.BootstrapReport.Phase;
+import com.github.fracpete.requests4j.Requests;
+import com.github.fracpete.requests4j.response.BasicResponse;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.apache.maven.settings.Mirror;
+import org.apache.maven.settings.Profile;
+import org.apache.maven.settings.Repository;
+import org.apache.maven.settings.RepositoryPolicy;
+import org.apache.maven.settings.Server;
+import org.apache.maven.settings.Settings;
+import org.apache.maven.settings.building.DefaultSettingsBuilderFactory;
+import org.apache.maven.settings.building.DefaultSettingsBuildingRequest;
+import org.apache.maven.settings.building.SettingsBuildingRequest;
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.repository.Authentication;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.Proxy;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.supplier.RepositorySystemSupplier;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.eclipse.aether.transport.http.ChecksumExtractor;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.filter.DependencyFilterUtils;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.eclipse.aether.util.repository.DefaultAuthenticationSelector;
+import org.eclipse.aether.util.repository.DefaultMirrorSelector;
+import org.eclipse.aether.util.repository.DefaultProxySelector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the transitive closure of Maven dependencies in-process and
+ * copies the jars into a directory, like the copy-dependencies goal of the
+ * maven-dependency-plugin does in the forked Maven build. Uses the same
+ * settings.xml (local repository, mirrors, proxies, servers, repositories
+ * of active profiles) and the same scopes: compile for the jars, all for
+ * the source jars. In offline mode, only the local repository and file:
+ * repositories get used.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class DependencyResolver {
+
+  /** the URL of Maven Central. */
+  public final static String CENTRAL_URL = "https://repo.maven.apache.org/maven2";
+
+  /** the ID of Maven Central. */
+  public final static String CENTRAL_ID = "central";
+
+  /** the classifier for source jars. */
+  public final static String CLASSIFIER_SOURCES = "sources";
+
+  /** the default number of concurrent downloads. */
+  public final static int DEFAULT_DOWNLOAD_THREADS = 8;
+
+  /** the default maximum number of connections per host. */
+  public final static int DEFAULT_CONNECTIONS_PER_HOST = 8;
+
+  /** the default number of retries for failed downloads. */
+  public final static int DEFAULT_RETRIES = 3;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(DependencyResolver.class.getName());
+
+  /** the repository system (thread-safe, shared). */
+  protected static RepositorySystem SYSTEM;
+
+  /** the user settings.xml, can be null. */
+  protected File m_UserSettings;
+
+  /** the global settings.xml, can be null. */
+  protected File m_GlobalSettings;
+
+  /** the effective settings. */
+  protected Settings m_Settings;
+
+  /** the session. */
+  protected DefaultRepositorySystemSession m_Session;
+
+  /** the remote repositories (mirrors applied). */
+  protected List<RemoteRepository> m_Repositories;
+
+  /** the number of concurrent downloads. */
+  protected int m_DownloadThreads;
+
+  /** the maximum number of connections per host. */
+  protected int m_ConnectionsPerHost;
+
+  /** the number of retries for failed downloads. */
+  protected int m_Retries;
+
+  /** whether to work offline. */
+  protected boolean m_Offline;
+
+  /** the download statistics. */
+  protected TransferStatistics m_Statistics;
+
+  /** the report to record the phases in, can be null. */
+  protected BootstrapReport m_Report;
+
+  /** the in-memory cache for artifact descriptors etc, can be null. */
+  protected RepositoryCache m_RepositoryCache;
+
+  /** the target platform(s), null for all. */
+  protected TargetPlatform m_TargetPlatform;
+
+  /** the artifacts left out as they are for other platforms. */
+  protected Set<Artifact> m_Dropped;
+
+  /** the groups to retrieve source jars for, null for all. */
+  protected GroupFilter m_SourcesFilter;
+
+  /**
+   * Initializes the resolver.
+   *
+   * @param userSettings	the user settings.xml, can be null
+   * @param mavenHome		the Maven installation with the global settings (conf/settings.xml), can be null
+   */
+  public DependencyResolver(File userSettings, File mavenHome) {
+    m_UserSettings   = userSettings;
+    m_GlobalSettings = (mavenHome == null) ? null : new File(mavenHome, "conf/settings.xml");
+    m_Settings       = null;
+    m_Session            = null;
+    m_Repositories       = null;
+    m_DownloadThreads    = DEFAULT_DOWNLOAD_THREADS;
+    m_ConnectionsPerHost = DEFAULT_CONNECTIONS_PER_HOST;
+    m_Retries            = DEFAULT_RETRIES;
+    m_Offline            = false;
+    m_Statistics         = new TransferStatistics();
+    m_Report             = null;
+    m_RepositoryCache    = null;
+    m_TargetPlatform     = null;
+    m_Dropped            = new LinkedHashSet<>();
+    m_SourcesFilter      = null;
+  }
+
+  /**
+   * Sets the number of concurrent downloads, used for downloading the poms
+   * while collecting the dependencies and for downloading the artifacts.
+   * Must be set before resolving.
+   *
+   * @param num		the number of threads
+   * @return		itself
+   */
+  public DependencyResolver downloadThreads(int num) {
+    m_DownloadThreads = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of concurrent downloads.
+   *
+   * @return		the number of threads
+   */
+  public int getDownloadThreads() {
+    return m_DownloadThreads;
+  }
+
+  /**
+   * Sets the maximum number of concurrent requests per host, shared by all
+   * repositories on that host. Must be set before resolving.
+   *
+   * @param num		the maximum number of connections
+   * @return		itself
+   */
+  public DependencyResolver connectionsPerHost(int num) {
+    m_ConnectionsPerHost = num;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of concurrent requests per host.
+   *
+   * @return		the maximum number of connections
+   */
+  public int getConnectionsPerHost() {
+    return m_ConnectionsPerHost;
+  }
+
+  /**
+   * Sets the number of retries for failed downloads (I/O errors, HTTP 429
+   * and 503). Must be set before resolving.
+   *
+   * @param num		the number of retries
+   * @return		itself
+   */
+  public DependencyResolver retries(int num) {
+    m_Retries = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of retries for failed downloads.
+   *
+   * @return		the number of retries
+   */
+  public int getRetries() {
+    return m_Retries;
+  }
+
+  /**
+   * Sets whether to work offline, ie only use the local repository and
+   * file: repositories. Offline is also enabled via the settings.xml.
+   * Must be set before resolving.
+   *
+   * @param offline	true if offline
+   * @return		itself
+   */
+  public DependencyResolver offline(boolean offline) {
+    m_Offline = offline;
+    return this;
+  }
+
+  /**
+   * Returns whether to work offline.
+   *
+   * @return		true if offline
+   */
+  public boolean getOffline() {
+    return m_Offline;
+  }
+
+  /**
+   * Sets the in-memory cache for artifact descriptors, version ranges etc.
+   * Allows sharing resolution results across several resolvers, eg in a
+   * long-running process. Must be set before resolving.
+   *
+   * @param cache	the cache, null for a new one per session
+   * @return		itself
+   */
+  public DependencyResolver repositoryCache(RepositoryCache cache) {
+    m_RepositoryCache = cache;
+    return this;
+  }
+
+  /**
+   * Returns the in-memory cache for artifact descriptors, version ranges etc.
+   *
+   * @return		the cache, null for a new one per session
+   */
+  public RepositoryCache getRepositoryCache() {
+    return m_RepositoryCache;
+  }
+
+  /**
+   * Sets the target platform(s). Artifacts with a native classifier for
+   * other platforms do not get resolved (nor downloaded).
+   *
+   * @param platform	the platform(s), null for all
+   * @return		itself
+   */
+  public DependencyResolver targetPlatform(TargetPlatform platform) {
+    m_TargetPlatform = platform;
+    return this;
+  }
+
+  /**
+   * Returns the target platform(s).
+   *
+   * @return		the platform(s), null for all
+   */
+  public TargetPlatform getTargetPlatform() {
+    return m_TargetPlatform;
+  }
+
+  /**
+   * Sets the groups to retrieve source jars for.
+   *
+   * @param filter	the filter, null for all
+   * @return		itself
+   */
+  public DependencyResolver sourcesFilter(GroupFilter filter) {
+    m_SourcesFilter = filter;
+    return this;
+  }
+
+  /**
+   * Returns the groups to retrieve source jars for.
+   *
+   * @return		the filter, null for all
+   */
+  public GroupFilter getSourcesFilter() {
+    return m_SourcesFilter;
+  }
+
+  /**
+   * Returns the artifacts that were left out, as they are for other
+   * platforms.
+   *
+   * @return		the artifacts
+   */
+  public List<Artifact> getDropped() {
+    synchronized (m_Dropped) {
+      return new ArrayList<>(m_Dropped);
+    }
+  }
+
+  /**
+   * Sets the report to record the resolution/copying phases in.
+   *
+   * @param report	the report, null for none
+   * @return		itself
+   */
+  public DependencyResolver report(BootstrapReport report) {
+    m_Report = report;
+    return this;
+  }
+
+  /**
+   * Returns the report to record the resolution/copying phases in.
+   *
+   * @return		the report, null if none
+   */
+  public BootstrapReport getReport() {
+    return m_Report;
+  }
+
+  /**
+   * Records the start of the phase in the report, if any.
+   *
+   * @param phase	the phase
+   */
+  protected void phaseStarted(Phase phase) {
+    if (m_Report != null)
+      m_Report.phaseStarted(phase);
+  }
+
+  /**
+   * Records the end of the phase in the report, if any.
+   *
+   * @param phase	the phase
+   */
+  protected void phaseFinished(Phase phase) {
+    if (m_Report != null)
+      m_Report.phaseFinished(phase);
+  }
+
+  /**
+   * Returns the download statistics.
+   *
+   * @return		the statistics
+   */
+  public TransferStatistics getStatistics() {
+    return m_Statistics;
+  }
+
+  /**
+   * Returns the shared repository system.
+   *
+   * @return		the system
+   */
+  protected static synchronized RepositorySystem getSystem() {
+    if (SYSTEM == null) {
+      SYSTEM = new RepositorySystemSupplier() {
+	@Override
+	protected Map<String,TransporterFactory> getTransporterFactories(Map<String,ChecksumExtractor> extractors) {
+	  Map<String,TransporterFactory> result = new HashMap<>();
+	  for (Map.Entry<String,TransporterFactory> entry: super.getTransporterFactories(extractors).entrySet())
+	    result.put(entry.getKey(), new HostLimitedTransporterFactory(entry.getValue()));
+	  return result;
+	}
+      }.get();
+    }
+    return SYSTEM;
+  }
+
+  /**
+   * Reads the user and global settings.
+   *
+   * @return		the effective settings
+   * @throws Exception	if reading fails
+   */
+  protected Settings readSettings() throws Exception {
+    SettingsBuildingRequest	request;
+
+    request = new DefaultSettingsBuildingRequest();
+    request.setSystemProperties(System.getProperties());
+    if ((m_UserSettings != null) && m_UserSettings.exists())
+      request.setUserSettingsFile(m_UserSettings);
+    if ((m_GlobalSettings != null) && m_GlobalSettings.exists())
+      request.setGlobalSettingsFile(m_GlobalSettings);
+
+    return new DefaultSettingsBuilderFactory().newInstance().build(request).getEffectiveSettings();
+  }
+
+  /**
+   * Returns the local repository to use: the maven.repo.local system
+   * property, the one from the settings or ~/.m2/repository. Reads the
+   * settings if not yet initialized.
+   *
+   * @return		the directory
+   */
+  public File getLocalRepository() {
+    if (System.getProperty("maven.repo.local") != null)
+      return new File(System.getProperty("maven.repo.local"));
+    if (m_Settings == null) {
+      try {
+	m_Settings = readSettings();
+      }
+      catch (Exception e) {
+	LOGGER.log(Level.WARNING, "Failed to read settings, using default local repository!", e);
+      }
+    }
+    if ((m_Settings != null) && (m_Settings.getLocalRepository() != null) && !m_Settings.getLocalRepository().trim().isEmpty())
+      return new File(m_Settings.getLocalRepository().trim());
+    return new File(System.getProperty("user.home"), ".m2/repository");
+  }
+
+  /**
+   * Turns the settings policy into a resolver one.
+   *
+   * @param policy	the policy, can be null
+   * @return		the resolver policy
+   */
+  protected org.eclipse.aether.repository.RepositoryPolicy toPolicy(RepositoryPolicy policy) {
+    if (policy == null)
+      return new org.eclipse.aether.repository.RepositoryPolicy();
+    return new org.eclipse.aether.repository.RepositoryPolicy(policy.isEnabled(), policy.getUpdatePolicy(), policy.getChecksumPolicy());
+  }
+
+  /**
+   * Returns the repositories of the active profiles, with Maven Central
+   * first (unless overridden by a profile).
+   *
+   * @return		the repositories
+   */
+  protected List<RemoteRepository> declaredRepositories() {
+    Map<String,RemoteRepository>	result;
+    List<String>			active;
+
+    result = new LinkedHashMap<>();
+    result.put(CENTRAL_ID, new RemoteRepository.Builder(CENTRAL_ID, "default", CENTRAL_URL)
+      .setSnapshotPolicy(new org.eclipse.aether.repository.RepositoryPolicy(false, null, null))
+      .build());
+
+    active = m_Settings.getActiveProfiles();
+    for (Profile profile: m_Settings.getProfiles()) {
+      if (!active.contains(profile.getId()) && ((profile.getActivation() == null) || !profile.getActivation().isActiveByDefault()))
+        continue;
+      for (Repository repo: profile.getRepositories()) {
+        result.put(repo.getId(), new RemoteRepository.Builder(repo.getId(), repo.getLayout(), repo.getUrl())
+          .setReleasePolicy(toPolicy(repo.getReleases()))
+          .setSnapshotPolicy(toPolicy(repo.getSnapshots()))
+          .build());
+      }
+    }
+
+    return new ArrayList<>(result.values());
+  }
+
+  /**
+   * Initializes the session from the settings, if necessary.
+   *
+   * @throws Exception	if initialization fails
+   */
+  protected synchronized void initialize() throws Exception {
+    DefaultMirrorSelector		mirrors;
+    DefaultProxySelector		proxies;
+    DefaultAuthenticationSelector	auths;
+    Authentication			auth;
+
+    if (m_Session != null)
+      return;
+
+    m_Settings = readSettings();
+    m_Session  = MavenRepositorySystemUtils.newSession();
+    m_Session.setSystemProperties(System.getProperties());
+    m_Session.setOffline(m_Offline || m_Settings.isOffline());
+    m_Session.setConfigProperty("aether.offline.protocols", "file");
+    m_Session.setLocalRepositoryManager(getSystem().newLocalRepositoryManager(m_Session, new LocalRepository(getLocalRepository())));
+    m_Session.setTransferListener(m_Statistics);
+    if (m_RepositoryCache != null)
+      m_Session.setCache(m_RepositoryCache);
+
+    // concurrency
+    if (m_DownloadThreads > 1) {
+      m_Session.setConfigProperty("aether.dependencyCollector.impl", "bf");
+      m_Session.setConfigProperty("aether.dependencyCollector.bf.threads", m_DownloadThreads);
+    }
+    m_Session.setConfigProperty("aether.connector.basic.threads", m_DownloadThreads);
+    m_Session.setConfigProperty(ConfigurationProperties.HTTP_MAX_CONNECTIONS_PER_ROUTE, m_ConnectionsPerHost);
+    m_Session.setConfigProperty(HostLimitedTransporterFactory.CONFIG_PROP_CONNECTIONS_PER_HOST, m_ConnectionsPerHost);
+    m_Session.setConfigProperty(ConfigurationProperties.HTTP_RETRY_HANDLER_COUNT, m_Retries);
+
+    mirrors = new DefaultMirrorSelector();
+    for (Mirror mirror: m_Settings.getMirrors())
+      mirrors.add(mirror.getId(), mirror.getUrl(), mirror.getLayout(), false, mirror.isBlocked(), mirror.getMirrorOf(), mirror.getMirrorOfLayouts());
+    m_Session.setMirrorSelector(mirrors);
+
+    proxies = new DefaultProxySelector();
+    for (org.apache.maven.settings.Proxy proxy: m_Settings.getProxies()) {
+      if (!proxy.isActive())
+        continue;
+      auth = new AuthenticationBuilder().addUsername(proxy.getUsername()).addPassword(proxy.getPassword()).build();
+      proxies.add(new Proxy(proxy.getProtocol(), proxy.getHost(), proxy.getPort(), auth), proxy.getNonProxyHosts());
+    }
+    m_Session.setProxySelector(proxies);
+
+    auths = new DefaultAuthenticationSelector();
+    for (Server server: m_Settings.getServers()) {
+      auth = new AuthenticationBuilder()
+        .addUsername(server.getUsername())
+        .addPassword(server.getPassword())
+        .addPrivateKey(server.getPrivateKey(), server.getPassphrase())
+        .build();
+      auths.add(server.getId(), auth);
+    }
+    m_Session.setAuthenticationSelector(auths);
+
+    m_Repositories = getSystem().newResolutionRepositories(m_Session, declaredRepositories());
+    for (RemoteRepository repo: m_Repositories)
+      LOGGER.fine("Repository: " + repo);
+  }
+
+  /**
+   * Returns the file name that the maven-dependency-plugin would use for the
+   * artifact, ie artifactId-baseVersion[-classifier].extension.
+   *
+   * @param artifact	the artifact to generate the name for
+   * @return		the file name
+   */
+  public static String toFilename(Artifact artifact) {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    result.append(artifact.getArtifactId()).append("-").append(artifact.getBaseVersion());
+    if (!artifact.getClassifier().isEmpty())
+      result.append("-").append(artifact.getClassifier());
+    result.append(".").append(artifact.getExtension());
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the file name of the external jar in the lib directory, using
+   * the same naming scheme as the system-scoped dependencies of the forked
+   * Maven build.
+   *
+   * @param jar		the external jar
+   * @param classifier	the classifier to use, null for none
+   * @return		the file name
+   */
+  public static String toFilename(File jar, String classifier) {
+    return "ext-" + jar.getName().toLowerCase().replace(".jar", "") + "-0.0.0" + ((classifier == null) ? "" : "-" + classifier) + ".jar";
+  }
+
+  /**
+   * Copies the file into the directory.
+   *
+   * @param file	the file to copy
+   * @param dir		the target directory
+   * @param name	the file name to use
+   * @throws IOException	if copying fails
+   */
+  protected void copy(File file, File dir, String name) throws IOException {
+    File	target;
+
+    target = new File(dir, name);
+    // don't write through existing (hard)links
+    Files.deleteIfExists(target.toPath());
+    Files.copy(file.toPath(), target.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+  }
+
+  /**
+   * Resolves the transitive closure of the dependencies.
+   *
+   * @param dependencies	the dependencies (group:artifact:version)
+   * @param scopes		the scopes to include (as on a classpath), none for all
+   * @return			the resolved artifacts (with files)
+   * @throws Exception		if resolution fails
+   */
+  public List<Artifact> resolve(List<String> dependencies, String... scopes) throws Exception {
+    List<Artifact>	result;
+    CollectRequest	collect;
+    DependencyRequest	request;
+    DependencyFilter	filter;
+
+    initialize();
+
+    collect = new CollectRequest();
+    collect.setRepositories(m_Repositories);
+    for (String dependency: dependencies)
+      collect.addDependency(new Dependency(new DefaultArtifact(dependency.trim()), JavaScopes.COMPILE));
+    filter = (scopes.length == 0) ? null : DependencyFilterUtils.classpathFilter(scopes);
+    if (m_TargetPlatform != null)
+      filter = (filter == null) ? m_TargetPlatform.filter(m_Dropped) : DependencyFilterUtils.andFilter(filter, m_TargetPlatform.filter(m_Dropped));
+    request = new DependencyRequest(collect, filter);
+
+    result = new ArrayList<>();
+    for (ArtifactResult artifact: getSystem().resolveDependencies(m_Session, request).getArtifactResults())
+      result.add(artifact.getArtifact());
+
+    return result;
+  }
+
+  /**
+   * Collects the artifacts that failed to resolve from the exception and
+   * its causes.
+   *
+   * @param t		the exception to inspect
+   * @param missing	for adding the artifacts
+   */
+  protected static void collectMissing(Throwable t, Set<String> missing) {
+    if (t == null)
+      return;
+    if (t instanceof ArtifactTransferException) {
+      missing.add(((ArtifactTransferException) t).getArtifact().toString());
+    }
+    else if (t instanceof ArtifactResolutionException) {
+      for (ArtifactResult r: ((ArtifactResolutionException) t).getResults()) {
+        if (!r.isResolved())
+          missing.add(r.getRequest().getArtifact().toString());
+      }
+    }
+    for (Throwable s: t.getSuppressed())
+      collectMissing(s, missing);
+    if (t.getCause() != t)
+      collectMissing(t.getCause(), missing);
+  }
+
+  /**
+   * Determines the artifacts that cannot be resolved, eg the ones missing
+   * from the local repository when offline.
+   *
+   * @param dependencies	the dependencies (group:artifact:version)
+   * @param scopes		the scopes to include (as on a classpath), none for all
+   * @return			the missing artifacts, empty if all could be resolved
+   * @throws Exception		if initialization fails or the failure is not due to missing artifacts
+   */
+  public List<String> findMissing(List<String> dependencies, String... scopes) throws Exception {
+    Set<String>		result;
+
+    result = new TreeSet<>();
+    try {
+      resolve(dependencies, scopes);
+    }
+    catch (DependencyResolutionException e) {
+      if (e.getResult() != null) {
+        for (Exception c: e.getResult().getCollectExceptions())
+          collectMissing(c, result);
+        for (ArtifactResult r: e.getResult().getArtifactResults()) {
+          if (!r.isResolved())
+            result.add(r.getRequest().getArtifact().toString());
+        }
+      }
+      collectMissing(e.getCause(), result);
+      if (result.isEmpty())
+        throw e;
+    }
+
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Resolves the source jars for the artifacts. Missing source jars and
+   * the ones of groups not matching the sources filter are skipped.
+   *
+   * @param artifacts	the artifacts to get the source jars for
+   * @return		the resolved source jars
+   * @throws Exception	if initialization fails
+   */
+  public List<Artifact> resolveSources(List<Artifact> artifacts) throws Exception {
+    List<Artifact>		result;
+    List<ArtifactRequest>	requests;
+    List<ArtifactResult>	results;
+    Artifact			sources;
+
+    initialize();
+
+    requests = new ArrayList<>();
+    for (Artifact artifact: artifacts) {
+      if ((m_SourcesFilter != null) && !m_SourcesFilter.accept(artifact))
+	continue;
+      sources = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), CLASSIFIER_SOURCES, "jar", artifact.getVersion());
+      requests.add(new ArtifactRequest(sources, m_Repositories, null));
+    }
+
+    try {
+      results = getSystem().resolveArtifacts(m_Session, requests);
+    }
+    catch (ArtifactResolutionException e) {
+      results = e.getResults();
+    }
+
+    result = new ArrayList<>();
+    for (ArtifactResult r: results) {
+      if (r.isResolved())
+        result.add(r.getArtifact());
+      else
+        LOGGER.fine("No source jar available: " + r.getRequest().getArtifact());
+    }
+
+    return result;
+  }
+
+  /**
+   * Resolves the dependencies and copies the jars (compile scope) into the
+   * lib directory and, if requested, the source jars (all scopes) into the
+   * src directory.
+   *
+   * @param dependencies	the dependencies (group:artifact:version)
+   * @param libDir		the directory for the jars, null to skip the jars (sources only)
+   * @param srcDir		the directory for the source jars, null to skip sources
+   * @return			the number of copied jars (excluding source jars)
+   * @throws Exception		if resolution or copying fails
+   */
+  public int copyDependencies(List<String> dependencies, File libDir, File srcDir) throws Exception {
+    List<Artifact>	artifacts;
+    List<Artifact>	sources;
+
+    artifacts = new ArrayList<>();
+    if (libDir != null) {
+      phaseStarted(Phase.RESOLUTION);
+      artifacts = resolve(dependencies, JavaScopes.COMPILE);
+      phaseFinished(Phase.RESOLUTION);
+      phaseStarted(Phase.COPYING);
+      if (!libDir.exists() && !libDir.mkdirs())
+	throw new IOException("Failed to create directory: " + libDir);
+      for (Artifact artifact: artifacts)
+	copy(artifact.getFile(), libDir, toFilename(artifact));
+      phaseFinished(Phase.COPYING);
+    }
+
+    if (srcDir != null) {
+      phaseStarted(Phase.RESOLUTION);
+      sources = resolveSources(resolve(dependencies));
+      phaseFinished(Phase.RESOLUTION);
+      phaseStarted(Phase.COPYING);
+      if (!srcDir.exists() && !srcDir.mkdirs())
+        throw new IOException("Failed to create directory: " + srcDir);
+      for (Artifact artifact: sources)
+        copy(artifact.getFile(), srcDir, toFilename(artifact));
+      phaseFinished(Phase.COPYING);
+      LOGGER.info("Copied " + sources.size() + " source jar(s) to: " + srcDir);
+    }
+
+    if (libDir != null)
+      LOGGER.info("Copied " + artifacts.size() + " jar(s) to: " + libDir);
+    LOGGER.info(m_Statistics.toString());
+    if (libDir != null)
+      reportDropped();
+
+    return artifacts.size();
+  }
+
+  /**
+   * Determines the size of the artifact that was left out, using the local
+   * repository or, if not present, the Content-Length of a HEAD request to
+   * the remote repositories (without authentication).
+   *
+   * @param artifact	the artifact
+   * @return		the size in bytes, -1 if not available
+   */
+  protected long size(Artifact artifact) {
+    String		path;
+    File		file;
+    BasicResponse	r;
+    String		length;
+
+    path = m_Session.getLocalRepositoryManager().getPathForLocalArtifact(artifact);
+    file = new File(m_Session.getLocalRepository().getBasedir(), path);
+    if (file.exists())
+      return file.length();
+    if (m_Session.isOffline())
+      return -1;
+
+    for (RemoteRepository repo: m_Repositories) {
+      if (!Cache.isRemote(repo.getUrl()))
+	continue;
+      try {
+	r      = Requests.head(repo.getUrl().replaceAll("/$", "") + "/" + path.replace('\\', '/')).allowRedirects(true).execute();
+	length = null;
+	if (r.ok()) {
+	  for (String key: r.headers().keySet()) {
+	    if ("Content-Length".equalsIgnoreCase(key) && !r.headers().get(key).isEmpty())
+	      length = r.headers().get(key).get(0);
+	  }
+	}
+	if (length != null)
+	  return Long.parseLong(length);
+      }
+      catch (Exception e) {
+	LOGGER.log(Level.FINE, "Failed to determine size of " + artifact + " in: " + repo, e);
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Records the artifacts that were left out for other platforms in the
+   * report (if any) and outputs the bytes saved.
+   */
+  protected void reportDropped() {
+    List<Artifact>	dropped;
+    List<String>	names;
+    long[]		sizes;
+    long		bytes;
+    int			unknown;
+    int			i;
+
+    dropped = getDropped();
+    if ((m_TargetPlatform == null) || dropped.isEmpty())
+      return;
+
+    sizes   = dropped.parallelStream().mapToLong(this::size).toArray();
+    names   = new ArrayList<>();
+    bytes   = 0;
+    unknown = 0;
+    for (i = 0; i < dropped.size(); i++) {
+      names.add(toFilename(dropped.get(i)));
+      if (sizes[i] < 0)
+	unknown++;
+      else
+	bytes += sizes[i];
+    }
+    LOGGER.info("Left out " + names.size() + " jar(s) for platforms other than " + m_TargetPlatform + ", saving "
+      + String.format("%.2f", bytes / 1024.0 / 1024.0) + " MB" + ((unknown > 0) ? " (size of " + unknown + " unknown)" : ""));
+    if (m_Report != null)
+      m_Report.addPlatformPruned(names, bytes);
+  }
+
+  /**
+   * Resolves the dependencies like {@link #copyDependencies(List, File, File)}
+   * does and returns the files of the artifacts in the local repository.
+   *
+   * @param dependencies	the dependencies (group:artifact:version)
+   * @param sources		whether to include the source jars
+   * @return			the files in the local repository per file name in the output
+   * @throws Exception		if resolution fails
+   */
+  public Map<String,File> locate(List<String> dependencies, boolean sources) throws Exception {
+    Map<String,File>	result;
+
+    result = new HashMap<>();
+    for (Artifact artifact: resolve(dependencies, JavaScopes.COMPILE))
+      result.put(toFilename(artifact), artifact.getFile());
+    if (sources) {
+      for (Artifact artifact: resolveSources(resolve(dependencies)))
+	result.put(toFilename(artifact), artifact.getFile());
+    }
+
+    return result;
+  }
+
+  /**
+   * Resolves the dependencies like {@link #copyDependencies(List, File, File)}
+   * does and lists the artifacts with their exact versions and checksums.
+   *
+   * @param dependencies	the dependencies (group:artifact:version)
+   * @param sources		whether to include the source jars
+   * @return			the lockfile
+   * @throws Exception		if resolution or hashing fails
+   */
+  public Lockfile lock(List<String> dependencies, boolean sources) throws Exception {
+    Lockfile	result;
+
+    result = new Lockfile();
+    for (Artifact artifact: resolve(dependencies, JavaScopes.COMPILE))
+      result.add(new Lockfile.Entry(Lockfile.Type.LIB, artifact.setFile(null), toFilename(artifact), Fingerprint.hash(artifact.getFile())));
+    if (sources) {
+      for (Artifact artifact: resolveSources(resolve(dependencies)))
+	result.add(new Lockfile.Entry(Lockfile.Type.SRC, artifact.setFile(null), toFilename(artifact), Fingerprint.hash(artifact.getFile())));
+    }
+
+    return result;
+  }
+
+  /**
+   * Copies the artifacts listed in the lockfile into the lib and, if
+   * requested, src directory. No transitive resolution takes place, the
+   * artifacts only get downloaded if not present in the local repository
+   * and their checksums get verified.
+   *
+   * @param lockfile	the lockfile with the artifacts
+   * @param libDir	the directory for the jars, null to skip the jars (sources only)
+   * @param srcDir	the directory for the source jars, null to skip sources
+   * @return		the number of copied jars (excluding source jars)
+   * @throws Exception	if resolution, verification or copying fails
+   */
+  public int copyLocked(Lockfile lockfile, File libDir, File srcDir) throws Exception {
+    List<Lockfile.Entry>	entries;
+    List<ArtifactRequest>	requests;
+    List<ArtifactResult>	results;
+    Set<String>			missing;
+    Lockfile.Entry		entry;
+    String			checksum;
+    File			dir;
+    int				i;
+    int				count;
+
+    initialize();
+
+    entries = new ArrayList<>();
+    if (libDir != null)
+      entries.addAll(lockfile.getEntries(Lockfile.Type.LIB));
+    if (srcDir != null) {
+      for (Lockfile.Entry e: lockfile.getEntries(Lockfile.Type.SRC)) {
+	if ((m_SourcesFilter == null) || m_SourcesFilter.accept(e.getArtifact()))
+	  entries.add(e);
+      }
+    }
+    if (m_TargetPlatform != null) {
+      for (i = entries.size() - 1; i >= 0; i--) {
+	if (!m_TargetPlatform.accept(entries.get(i).getArtifact())) {
+	  synchronized (m_Dropped) {
+	    m_Dropped.add(entries.get(i).getArtifact());
+	  }
+	  entries.remove(i);
+	}
+      }
+    }
+    requests = new ArrayList<>();
+    for (Lockfile.Entry e: entries)
+      requests.add(new ArtifactRequest(e.getArtifact(), m_Repositories, null));
+
+    phaseStarted(Phase.RESOLUTION);
+    try {
+      results = getSystem().resolveArtifacts(m_Session, requests);
+    }
+    catch (ArtifactResolutionException e) {
+      missing = new TreeSet<>();
+      collectMissing(e, missing);
+      throw new IOException("Failed to resolve " + missing.size() + " locked artifact(s): " + String.join(", ", missing), e);
+    }
+    phaseFinished(Phase.RESOLUTION);
+
+    phaseStarted(Phase.COPYING);
+    if ((libDir != null) && !libDir.exists() && !libDir.mkdirs())
+      throw new IOException("Failed to create directory: " + libDir);
+    if ((srcDir != null) && !srcDir.exists() && !srcDir.mkdirs())
+      throw new IOException("Failed to create directory: " + srcDir);
+
+    count = 0;
+    for (i = 0; i < entries.size(); i++) {
+      entry    = entries.get(i);
+      checksum = Fingerprint.hash(results.get(i).getArtifact().getFile());
+      if (!checksum.equals(entry.getChecksum()))
+	throw new IOException("Checksum mismatch for " + entry.getArtifact() + ": expected " + entry.getChecksum() + ", found " + checksum);
+      dir = (entry.getType() == Lockfile.Type.LIB) ? libDir : srcDir;
+      copy(results.get(i).getArtifact().getFile(), dir, entry.getFilename());
+      if (entry.getType() == Lockfile.Type.LIB)
+	count++;
+    }
+    phaseFinished(Phase.COPYING);
+
+    if (libDir != null)
+      LOGGER.info("Copied " + count + " locked jar(s) to: " + libDir);
+    if (srcDir != null)
+      LOGGER.info("Copied " + (entries.size() - count) + " locked source jar(s) to: " + srcDir);
+    LOGGER.info(m_Statistics.toString());
+    if (libDir != null)
+      reportDropped();
+
+    return count;
+  }
+
+  /**
+   * Copies the external jars into the directory, using the same naming
+   * scheme as the system-scoped dependencies of the forked Maven build.
+   *
+   * @param jars	the jars to copy
+   * @param dir		the target directory
+   * @param classifier	the classifier to use, null for none
+   * @throws IOException	if copying fails
+   */
+  public void copyExternal(List<File> jars, File dir, String classifier) throws IOException {
+    String	name;
+
+    if (jars.isEmpty())
+      return;
+    if (!dir.exists() && !dir.mkdirs())
+      throw new IOException("Failed to create directory: " + dir);
+    for (File jar: jars) {
+      name = toFilename(jar, classifier);
+      try {
+	copy(jar, dir, name);
+      }
+      catch (IOException e) {
+        LOGGER.log(Level.SEVERE, "Failed to copy external jar: " + jar, e);
+        throw e;
+      }
+    }
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Fingerprint.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fingerprint of all the inputs of a bootstrap run, including the content
+ * hashes of files. Two runs with the same fingerprint produce the same
+ * output, unless SNAPSHOT versions are involved.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Fingerprint {
+
+  /** the file name for storing the fingerprint in the output directory. */
+  public final static String FILENAME = "instant-adams.fingerprint";
+
+  /** the buffer size for hashing. */
+  public final static int BUFFER_SIZE = 64 * 1024;
+
+  /** the entries (sorted). */
+  protected Map<String,String> m_Entries;
+
+  /** whether any SNAPSHOT versions are involved. */
+  protected boolean m_Snapshot;
+
+  /**
+   * Initializes the fingerprint.
+   */
+  public Fingerprint() {
+    m_Entries  = new TreeMap<>();
+    m_Snapshot = false;
+  }
+
+  /**
+   * Computes the SHA-256 hash of the file.
+   *
+   * @param file	the file to hash
+   * @return		the hash (hex)
+   * @throws IOException	if reading fails
+   */
+  public static String hash(File file) throws IOException {
+    MessageDigest	digest;
+    StringBuilder	result;
+    byte[]		buffer;
+    int			read;
+
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    }
+    catch (Exception e) {
+      throw new IOException("Failed to initialize SHA-256!", e);
+    }
+    buffer = new byte[BUFFER_SIZE];
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      while ((read = in.read(buffer)) != -1)
+        digest.update(buffer, 0, read);
+    }
+
+    result = new StringBuilder();
+    for (byte b: digest.digest())
+      result.append(String.format("%02x", b));
+
+    return result.toString();
+  }
+
+  /**
+   * Adds the value.
+   *
+   * @param key		the key for the value
+   * @param value	the value, can be null
+   * @return		itself
+   */
+  public Fingerprint add(String key, Object value) {
+    m_Entries.put(key, (value == null) ? "" : value.toString().replace("\n", "\\n"));
+    return this;
+  }
+
+  /**
+   * Adds the values.
+   *
+   * @param key		the key for the values
+   * @param values	the values, can be null
+   * @return		itself
+   */
+  public Fingerprint add(String key, List<?> values) {
+    int		i;
+
+    if (values == null) {
+      add(key, (Object) null);
+    }
+    else {
+      add(key + ".size", values.size());
+      for (i = 0; i < values.size(); i++)
+        add(key + "." + i, values.get(i));
+    }
+    return this;
+  }
+
+  /**
+   * Adds the Maven dependencies (group:artifact:version), keeping track of
+   * SNAPSHOT versions.
+   *
+   * @param key		the key for the dependencies
+   * @param dependencies	the dependencies, can be null
+   * @return		itself
+   */
+  public Fingerprint addDependencies(String key, List<String> dependencies) {
+    add(key, dependencies);
+    if (dependencies != null) {
+      for (String dependency: dependencies) {
+        if (dependency.contains("-SNAPSHOT"))
+          m_Snapshot = true;
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Adds the content hashes of the files with Maven dependencies (one per
+   * line), keeping track of SNAPSHOT versions.
+   *
+   * @param key		the key for the files
+   * @param files	the files, can be null
+   * @return		itself
+   * @throws IOException	if reading fails
+   */
+  public Fingerprint addDependencyFiles(String key, List<File> files) throws IOException {
+    addFiles(key, files);
+    if (files != null) {
+      for (File file: files) {
+        for (String line: Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+          if (line.contains("-SNAPSHOT"))
+            m_Snapshot = true;
+        }
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Adds the content hash of the file. In case of a directory, all files
+   * below it are added.
+   *
+   * @param key		the key for the file
+   * @param file	the file/dir, can be null
+   * @return		itself
+   * @throws IOException	if hashing fails
+   */
+  public Fingerprint addFile(String key, File file) throws IOException {
+    File[]	files;
+
+    if (file == null) {
+      add(key, (Object) null);
+    }
+    else if (file.isDirectory()) {
+      add(key, file.getAbsolutePath());
+      files = file.listFiles();
+      if (files != null) {
+        Arrays.sort(files);
+        for (File f: files)
+          addFile(key + "/" + f.getName(), f);
+      }
+    }
+    else if (file.exists()) {
+      add(key, file.getAbsolutePath() + "@" + hash(file));
+    }
+    else {
+      add(key, file.getAbsolutePath() + "@missing");
+    }
+    return this;
+  }
+
+  /**
+   * Adds the content hashes of the files.
+   *
+   * @param key		the key for the files
+   * @param files	the files/dirs, can be null
+   * @return		itself
+   * @throws IOException	if hashing fails
+   */
+  public Fingerprint addFiles(String key, List<File> files) throws IOException {
+    int		i;
+
+    if (files == null) {
+      add(key, (Object) null);
+    }
+    else {
+      add(key + ".size", files.size());
+      for (i = 0; i < files.size(); i++)
+        addFile(key + "." + i, files.get(i));
+    }
+    return this;
+  }
+
+  /**
+   * Returns whether any SNAPSHOT versions are part of the fingerprint.
+   *
+   * @return		true if SNAPSHOTs involved
+   */
+  public boolean hasSnapshot() {
+    return m_Snapshot;
+  }
+
+  /**
+   * Returns the fingerprint as string, one key=value pair per line.
+   *
+   * @return		the fingerprint
+   */
+  @Override
+  public String toString() {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (String key: m_Entries.keySet())
+      result.append(key).append("=").append(m_Entries.get(key)).append("\n");
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the file for storing the fingerprint in the output directory.
+   *
+   * @param outputDir	the output directory
+   * @return		the file
+   */
+  public static File file(File outputDir) {
+    return new File(outputDir, FILENAME);
+  }
+
+  /**
+   * Checks whether the fingerprint matches the one stored in the output
+   * directory.
+   *
+   * @param outputDir	the output directory
+   * @return		true if matching
+   */
+  public boolean matches(File outputDir) {
+    File	file;
+
+    file = file(outputDir);
+    if (!file.exists())
+      return false;
+    try {
+      return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).equals(toString());
+    }
+    catch (Exception e) {
+      return false;
+    }
+  }
+
+  /**
+   * Stores the fingerprint in the output directory.
+   *
+   * @param outputDir	the output directory
+   * @throws IOException	if writing fails
+   */
+  public void store(File outputDir) throws IOException {
+    Files.write(file(outputDir).toPath(), toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Removes the fingerprint from the output directory.
+   *
+   * @param outputDir	the output directory
+   */
+  public static void remove(File outputDir) {
+    File	file;
+
+    file = file(outputDir);
+    if (file.exists() && !file.delete())
+      file.deleteOnExit();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GroupFilter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import org.eclipse.aether.artifact.Artifact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Filters artifacts by their groupId, using include and exclude patterns.
+ * A pattern matches the group itself and all groups below it (eg
+ * nz.ac.waikato matches nz.ac.waikato.cms.adams), * matches any characters.
+ * Without include patterns, all groups are included; excludes take
+ * precedence over includes.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class GroupFilter {
+
+  /** the include patterns. */
+  protected List<Pattern> m_Include;
+
+  /** the exclude patterns. */
+  protected List<Pattern> m_Exclude;
+
+  /** the patterns as supplied. */
+  protected String m_Patterns;
+
+  /**
+   * Initializes the filter.
+   *
+   * @param include	the comma-separated include patterns, null or empty for all
+   * @param exclude	the comma-separated exclude patterns, null or empty for none
+   */
+  public GroupFilter(String include, String exclude) {
+    m_Include  = compile(include);
+    m_Exclude  = compile(exclude);
+    m_Patterns = "include=" + ((include == null) ? "" : include) + ", exclude=" + ((exclude == null) ? "" : exclude);
+  }
+
+  /**
+   * Turns the comma-separated patterns into regular expressions.
+   *
+   * @param patterns	the patterns, can be null
+   * @return		the regular expressions
+   */
+  protected static List<Pattern> compile(String patterns) {
+    List<Pattern>	result;
+    StringBuilder	regexp;
+
+    result = new ArrayList<>();
+    if (patterns == null)
+      return result;
+    for (String pattern: patterns.split(",")) {
+      pattern = pattern.trim();
+      if (pattern.isEmpty())
+	continue;
+      regexp = new StringBuilder();
+      for (String part: pattern.split("\\*", -1)) {
+	if (regexp.length() > 0)
+	  regexp.append(".*");
+	regexp.append(Pattern.quote(part));
+      }
+      regexp.append("(\\..*)?");
+      result.add(Pattern.compile(regexp.toString()));
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks whether any of the patterns matches the group.
+   *
+   * @param patterns	the patterns to check
+   * @param group	the groupId
+   * @return		true if matched
+   */
+  protected static boolean matches(List<Pattern> patterns, String group) {
+    for (Pattern pattern: patterns) {
+      if (pattern.matcher(group).matches())
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether the group is accepted.
+   *
+   * @param group	the groupId
+   * @return		true if accepted
+   */
+  public boolean accept(String group) {
+    if (matches(m_Exclude, group))
+      return false;
+    return m_Include.isEmpty() || matches(m_Include, group);
+  }
+
+  /**
+   * Checks whether the group of the artifact is accepted.
+   *
+   * @param artifact	the artifact to check
+   * @return		true if accepted
+   */
+  public boolean accept(Artifact artifact) {
+    return accept(artifact.getGroupId());
+  }
+
+  /**
+   * Returns the patterns.
+   *
+   * @return		the patterns
+   */
+  @Override
+  public String toString() {
+    return m_Patterns;
+  }
+}
@@ -0,0 +1,944 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HomeCache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Size accounting and least-recently-used eviction for the caches below the
+ * home directory (module catalogs, shared jar store) and the local Maven
+ * repository. Bootstrapped output directories get registered (together with
+ * the lockfile they used), which records the access of their jars. Anything
+ * referenced by an existing output directory or its lockfile never gets
+ * evicted, neither does anything accessed within the grace period (eg by
+ * concurrent runs).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class HomeCache {
+
+  /** the sub-directory in the home directory for the book-keeping. */
+  public final static String GC_DIR = "gc";
+
+  /** the sub-directory for the registered output directories. */
+  public final static String REFS_DIR = "refs";
+
+  /** the extension for registration files. */
+  public final static String EXT_REFS = ".refs";
+
+  /** the file with the last access of the jars (file name - timestamp). */
+  public final static String ACCESS_FILE = "access.tsv";
+
+  /** the time in msec after the last access during which nothing gets evicted. */
+  public final static long GRACE_PERIOD = 60 * 60 * 1000;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(HomeCache.class.getName());
+
+  /**
+   * The cached areas.
+   */
+  public enum Area {
+    /** the module catalogs and version lists. */
+    CATALOGS,
+    /** the shared jar store. */
+    STORE,
+    /** the local Maven repository. */
+    REPOSITORY,
+  }
+
+  /**
+   * A unit of eviction, eg a cached catalog or an artifact version directory.
+   */
+  public static class Entry {
+
+    /** the area. */
+    protected Area m_Area;
+
+    /** the name, eg the directory relative to the repository. */
+    protected String m_Name;
+
+    /** the files. */
+    protected List<File> m_Files;
+
+    /** the total size. */
+    protected long m_Size;
+
+    /** the last access. */
+    protected long m_LastAccess;
+
+    /** whether the entry must not be evicted. */
+    protected boolean m_Protected;
+
+    /**
+     * Initializes the entry.
+     *
+     * @param area	the area
+     * @param name	the name
+     */
+    public Entry(Area area, String name) {
+      m_Area       = area;
+      m_Name       = name;
+      m_Files      = new ArrayList<>();
+      m_Size       = 0;
+      m_LastAccess = 0;
+      m_Protected  = false;
+    }
+
+    /**
+     * Adds the file, updating size and last access.
+     *
+     * @param file	the file
+     * @param attrs	the attributes of the file
+     */
+    public void add(File file, BasicFileAttributes attrs) {
+      m_Files.add(file);
+      m_Size      += attrs.size();
+      m_LastAccess = Math.max(m_LastAccess, attrs.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * Returns the area.
+     *
+     * @return		the area
+     */
+    public Area getArea() {
+      return m_Area;
+    }
+
+    /**
+     * Returns the name.
+     *
+     * @return		the name
+     */
+    public String getName() {
+      return m_Name;
+    }
+
+    /**
+     * Returns the files.
+     *
+     * @return		the files
+     */
+    public List<File> getFiles() {
+      return m_Files;
+    }
+
+    /**
+     * Returns the total size of the files.
+     *
+     * @return		the size
+     */
+    public long getSize() {
+      return m_Size;
+    }
+
+    /**
+     * Returns the last access.
+     *
+     * @return		the timestamp
+     */
+    public long getLastAccess() {
+      return m_LastAccess;
+    }
+
+    /**
+     * Returns whether the entry must not be evicted.
+     *
+     * @return		true if protected
+     */
+    public boolean isProtected() {
+      return m_Protected;
+    }
+
+    /**
+     * Returns a short description.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      return m_Area.toString().toLowerCase() + ":" + m_Name;
+    }
+  }
+
+  /** the home directory. */
+  protected File m_HomeDir;
+
+  /** the directory with the cached catalogs. */
+  protected File m_Catalogs;
+
+  /** the shared jar store. */
+  protected JarStore m_Store;
+
+  /** the local Maven repository. */
+  protected File m_LocalRepository;
+
+  /** the maximum size in bytes, 0 for unlimited. */
+  protected long m_MaxSize;
+
+  /** additional lockfiles whose artifacts must not be evicted. */
+  protected List<File> m_Lockfiles;
+
+  /**
+   * Initializes the cache.
+   *
+   * @param homeDir	the home directory
+   */
+  public HomeCache(File homeDir) {
+    m_HomeDir         = homeDir;
+    m_Catalogs        = null;
+    m_Store           = null;
+    m_LocalRepository = null;
+    m_MaxSize         = 0;
+    m_Lockfiles       = new ArrayList<>();
+  }
+
+  /**
+   * Returns the home directory.
+   *
+   * @return		the directory
+   */
+  public File getHomeDir() {
+    return m_HomeDir;
+  }
+
+  /**
+   * Sets the directory with the cached catalogs.
+   *
+   * @param dir		the directory, null to ignore
+   * @return		itself
+   */
+  public HomeCache catalogs(File dir) {
+    m_Catalogs = dir;
+    return this;
+  }
+
+  /**
+   * Returns the directory with the cached catalogs.
+   *
+   * @return		the directory, null if ignored
+   */
+  public File getCatalogs() {
+    return m_Catalogs;
+  }
+
+  /**
+   * Sets the shared jar store.
+   *
+   * @param store	the store, null to ignore
+   * @return		itself
+   */
+  public HomeCache store(JarStore store) {
+    m_Store = store;
+    return this;
+  }
+
+  /**
+   * Returns the shared jar store.
+   *
+   * @return		the store, null if ignored
+   */
+  public JarStore getStore() {
+    return m_Store;
+  }
+
+  /**
+   * Sets the local Maven repository.
+   *
+   * @param dir		the repository, null to ignore
+   * @return		itself
+   */
+  public HomeCache localRepository(File dir) {
+    m_LocalRepository = dir;
+    return this;
+  }
+
+  /**
+   * Returns the local Maven repository.
+   *
+   * @return		the repository, null if ignored
+   */
+  public File getLocalRepository() {
+    return m_LocalRepository;
+  }
+
+  /**
+   * Sets the maximum size of all areas.
+   *
+   * @param size	the size in bytes, 0 for unlimited
+   * @return		itself
+   */
+  public HomeCache maxSize(long size) {
+    m_MaxSize = Math.max(0, size);
+    return this;
+  }
+
+  /**
+   * Returns the maximum size of all areas.
+   *
+   * @return		the size in bytes, 0 for unlimited
+   */
+  public long getMaxSize() {
+    return m_MaxSize;
+  }
+
+  /**
+   * Sets additional lockfiles whose artifacts must not be evicted.
+   *
+   * @param files	the lockfiles
+   * @return		itself
+   */
+  public HomeCache lockfiles(List<File> files) {
+    m_Lockfiles = (files == null) ? new ArrayList<>() : files;
+    return this;
+  }
+
+  /**
+   * Returns the additional lockfiles whose artifacts must not be evicted.
+   *
+   * @return		the lockfiles
+   */
+  public List<File> getLockfiles() {
+    return m_Lockfiles;
+  }
+
+  /**
+   * Returns the directory for the book-keeping.
+   *
+   * @return		the directory
+   */
+  protected File gcDir() {
+    return new File(m_HomeDir, GC_DIR);
+  }
+
+  /**
+   * Returns the registration file for the output directory.
+   *
+   * @param outputDir	the output directory of the application
+   * @return		the file
+   */
+  protected File refsFile(File outputDir) {
+    String	key;
+
+    key = Integer.toHexString(outputDir.getAbsolutePath().hashCode()) + "-" + outputDir.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+    return new File(gcDir(), REFS_DIR + "/" + key + EXT_REFS);
+  }
+
+  /**
+   * Writes the lines to the file via a temporary file.
+   *
+   * @param file	the file to write
+   * @param lines	the lines
+   * @throws IOException	if writing fails
+   */
+  protected static void write(File file, List<String> lines) throws IOException {
+    Path	tmp;
+
+    if (!file.getParentFile().exists() && !file.getParentFile().mkdirs() && !file.getParentFile().exists())
+      throw new IOException("Failed to create directory: " + file.getParentFile());
+    tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+    try {
+      Files.write(tmp, lines, StandardCharsets.UTF_8);
+      Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Registers the output directory, so that the jars in its directories
+   * (and the artifacts of its lockfile) do not get evicted, and records the
+   * access of these jars.
+   *
+   * @param outputDir	the output directory of the application
+   * @param lockfile	the lockfile used for bootstrapping, can be null
+   * @param dirs	the lib/src directories with the jars
+   * @return		null if successful, otherwise error message
+   */
+  public String register(File outputDir, File lockfile, File... dirs) {
+    List<String>	lines;
+    Set<String>		names;
+
+    lines = new ArrayList<>();
+    lines.add(outputDir.getAbsolutePath());
+    lines.add((lockfile == null) ? "" : lockfile.getAbsolutePath());
+    names = new HashSet<>();
+    for (File dir: dirs) {
+      lines.add(dir.getAbsolutePath());
+      names.addAll(jarNames(dir));
+    }
+
+    try {
+      write(refsFile(outputDir), lines);
+      recordAccess(names, System.currentTimeMillis());
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to register output directory: " + outputDir, e);
+      return "Failed to register output directory: " + outputDir;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the names of the jars in the directory.
+   *
+   * @param dir		the directory
+   * @return		the names
+   */
+  protected static Set<String> jarNames(File dir) {
+    Set<String>	result;
+    String[]	names;
+
+    result = new HashSet<>();
+    names  = dir.list((File d, String name) -> name.endsWith(".jar"));
+    if (names != null)
+      result.addAll(Arrays.asList(names));
+
+    return result;
+  }
+
+  /**
+   * Reads the last access of the jars.
+   *
+   * @return		the timestamps per file name
+   */
+  protected Map<String,Long> readAccess() {
+    Map<String,Long>	result;
+    File		file;
+    String[]		parts;
+
+    result = new HashMap<>();
+    file   = new File(gcDir(), ACCESS_FILE);
+    if (!file.exists())
+      return result;
+    try {
+      for (String line: Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+	parts = line.split("\t");
+	if (parts.length == 2)
+	  result.put(parts[0], Long.parseLong(parts[1]));
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Failed to read access times: " + file, e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Records the access of the jars, locking the file as other processes may
+   * use the same home directory.
+   *
+   * @param names	the file names of the jars
+   * @param timestamp	the time of the access
+   * @throws IOException	if updating fails
+   */
+  protected void recordAccess(Set<String> names, long timestamp) throws IOException {
+    File	file;
+
+    file = new File(gcDir(), ACCESS_FILE);
+    if (!gcDir().exists() && !gcDir().mkdirs() && !gcDir().exists())
+      throw new IOException("Failed to create directory: " + gcDir());
+    SharedLock.run(SharedLock.lockFile(file), () -> {
+      Map<String,Long>	access;
+      List<String>	lines;
+
+      access = readAccess();
+      for (String name: names)
+	access.put(name, timestamp);
+      lines = new ArrayList<>();
+      for (String name: access.keySet())
+	lines.add(name + "\t" + access.get(name));
+      write(file, lines);
+      return null;
+    });
+  }
+
+  /**
+   * Removes the access times of jars that are no longer present.
+   *
+   * @param present	the file names still present
+   * @throws IOException	if updating fails
+   */
+  protected void compactAccess(Set<String> present) throws IOException {
+    File	file;
+
+    file = new File(gcDir(), ACCESS_FILE);
+    if (!file.exists())
+      return;
+    SharedLock.run(SharedLock.lockFile(file), () -> {
+      Map<String,Long>	access;
+      List<String>	lines;
+
+      access = readAccess();
+      lines  = new ArrayList<>();
+      for (String name: access.keySet()) {
+	if (present.contains(name))
+	  lines.add(name + "\t" + access.get(name));
+      }
+      write(file, lines);
+      return null;
+    });
+  }
+
+  /**
+   * Collects the file names of the jars in the registered output directories
+   * that still exist and the repository directories of the artifacts in their
+   * lockfiles (and the additional ones). Registrations of output directories
+   * that no longer exist get removed.
+   *
+   * @param names	for adding the file names of the jars
+   * @param dirs	for adding the repository directories (groupId/artifactId/version)
+   * @throws IOException	if reading fails
+   */
+  protected void referenced(Set<String> names, Set<String> dirs) throws IOException {
+    File[]		files;
+    List<String>	lines;
+    List<File>		lockfiles;
+    File		outputDir;
+    Artifact		artifact;
+
+    lockfiles = new ArrayList<>(m_Lockfiles);
+    files     = new File(gcDir(), REFS_DIR).listFiles((File f) -> f.getName().endsWith(EXT_REFS));
+    if (files != null) {
+      for (File file: files) {
+	lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+	if (lines.isEmpty() || !new File(lines.get(0)).isDirectory()) {
+	  LOGGER.info("Removing registration of missing output directory: " + (lines.isEmpty() ? file : lines.get(0)));
+	  Files.deleteIfExists(file.toPath());
+	  continue;
+	}
+	outputDir = new File(lines.get(0));
+	lockfiles.add(Lockfile.file(outputDir));
+	if ((lines.size() > 1) && !lines.get(1).isEmpty())
+	  lockfiles.add(new File(lines.get(1)));
+	for (int i = 2; i < lines.size(); i++)
+	  names.addAll(jarNames(new File(lines.get(i))));
+      }
+    }
+
+    for (File lockfile: lockfiles) {
+      if (!lockfile.exists())
+	continue;
+      for (Lockfile.Entry entry: Lockfile.read(lockfile).getEntries()) {
+	artifact = entry.getArtifact();
+	dirs.add(artifact.getGroupId().replace('.', '/') + "/" + artifact.getArtifactId() + "/" + artifact.getBaseVersion());
+	names.add(entry.getFilename());
+      }
+    }
+  }
+
+  /**
+   * Lists the cached catalogs, grouping content and meta-data. The lock
+   * files are not part of the entries, as they must never get deleted.
+   *
+   * @param result	for adding the entries
+   * @throws IOException	if listing fails
+   */
+  protected void listCatalogs(List<Entry> result) throws IOException {
+    final Map<String,Entry>	entries;
+
+    if ((m_Catalogs == null) || !m_Catalogs.isDirectory())
+      return;
+
+    entries = new HashMap<>();
+    Files.walkFileTree(m_Catalogs.toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+	String key = file.getFileName().toString();
+	if (key.endsWith(SharedLock.EXT))
+	  return FileVisitResult.CONTINUE;
+	if (key.endsWith(Cache.EXT_META))
+	  key = key.substring(0, key.length() - Cache.EXT_META.length());
+	entries.computeIfAbsent(key, (String k) -> new Entry(Area.CATALOGS, k)).add(file.toFile(), attrs);
+	return FileVisitResult.CONTINUE;
+      }
+    });
+    result.addAll(entries.values());
+  }
+
+  /**
+   * Lists the jars in the shared store, protecting the ones referenced by
+   * output directories or hardlinked from elsewhere.
+   *
+   * @param result	for adding the entries
+   * @throws IOException	if listing fails
+   */
+  protected void listStore(List<Entry> result) throws IOException {
+    final Set<String>	referenced;
+    final File		blobs;
+
+    if (m_Store == null)
+      return;
+    blobs = new File(m_Store.getDirectory(), JarStore.BLOBS_DIR);
+    if (!blobs.isDirectory())
+      return;
+
+    referenced = m_Store.referenced();
+    Files.walkFileTree(blobs.toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+	Entry entry = new Entry(Area.STORE, file.getFileName().toString());
+	entry.add(file.toFile(), attrs);
+	entry.m_Protected = referenced.contains(entry.getName().replace(".jar", "")) || (JarStore.linkCount(file.toFile()) > 1);
+	result.add(entry);
+	return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Lists the directories of the local repository that contain files
+   * (usually groupId/artifactId/version), protecting the ones containing
+   * referenced jars or listed in referenced lockfiles.
+   *
+   * @param result	for adding the entries
+   * @param names	the file names of the referenced jars
+   * @param dirs	the referenced directories
+   * @param access	the last access of the jars
+   * @throws IOException	if listing fails
+   */
+  protected void listRepository(List<Entry> result, final Set<String> names, final Set<String> dirs, final Map<String,Long> access) throws IOException {
+    final Path			repo;
+    final Map<Path,Entry>	entries;
+    long			now;
+
+    if ((m_LocalRepository == null) || !m_LocalRepository.isDirectory())
+      return;
+
+    repo    = m_LocalRepository.toPath();
+    entries = new HashMap<>();
+    Files.walkFileTree(repo, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+	// eg the lock directory of the resolver
+	if (!dir.equals(repo) && dir.getFileName().toString().startsWith("."))
+	  return FileVisitResult.SKIP_SUBTREE;
+	return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+	Path parent = file.getParent();
+	if (parent.equals(repo))
+	  return FileVisitResult.CONTINUE;
+	Entry entry = entries.computeIfAbsent(parent, (Path p) -> new Entry(Area.REPOSITORY, repo.relativize(p).toString().replace(File.separatorChar, '/')));
+	String name = file.getFileName().toString();
+	entry.add(file.toFile(), attrs);
+	if (access.containsKey(name))
+	  entry.m_LastAccess = Math.max(entry.m_LastAccess, access.get(name));
+	if (names.contains(name) || dirs.contains(entry.getName()))
+	  entry.m_Protected = true;
+	return FileVisitResult.CONTINUE;
+      }
+    });
+    now = System.currentTimeMillis();
+    for (Entry entry: entries.values()) {
+      if (now - entry.getLastAccess() < GRACE_PERIOD)
+	entry.m_Protected = true;
+    }
+    protectReferencedPoms(entries.values());
+    result.addAll(entries.values());
+  }
+
+  /**
+   * Protects the parent poms, imported BOMs and dependencies of the protected
+   * repository entries (recursively), as resolving the artifacts offline
+   * requires them. If the version of a dependency is not known (eg managed
+   * by the parent), all its versions get protected.
+   *
+   * @param entries	the repository entries
+   */
+  protected void protectReferencedPoms(Collection<Entry> entries) {
+    Map<String,List<Entry>>	byArtifact;
+    Map<String,Entry>		byName;
+    Deque<Entry>		queue;
+    List<Entry>			referenced;
+    Entry			entry;
+    String[]			parts;
+    String			dir;
+
+    byName     = new HashMap<>();
+    byArtifact = new HashMap<>();
+    queue      = new ArrayDeque<>();
+    for (Entry e: entries) {
+      byName.put(e.getName(), e);
+      if (e.getName().lastIndexOf('/') > -1)
+	byArtifact.computeIfAbsent(e.getName().substring(0, e.getName().lastIndexOf('/')), (String k) -> new ArrayList<>()).add(e);
+      if (e.isProtected())
+	queue.add(e);
+    }
+
+    while (!queue.isEmpty()) {
+      entry = queue.removeFirst();
+      for (File file: entry.getFiles()) {
+	if (!file.getName().endsWith(".pom"))
+	  continue;
+	try (InputStream in = Files.newInputStream(file.toPath())) {
+	  for (String reference: PomParser.extractReferences(in)) {
+	    parts = reference.split(":", -1);
+	    dir   = parts[0].replace('.', '/') + "/" + parts[1];
+	    if (parts[2].isEmpty())
+	      referenced = byArtifact.getOrDefault(dir, new ArrayList<>());
+	    else
+	      referenced = byName.containsKey(dir + "/" + parts[2]) ? Collections.singletonList(byName.get(dir + "/" + parts[2])) : new ArrayList<>();
+	    for (Entry r: referenced) {
+	      if (!r.isProtected()) {
+		r.m_Protected = true;
+		queue.add(r);
+	      }
+	    }
+	  }
+	}
+	catch (Exception e) {
+	  LOGGER.log(Level.FINE, "Failed to parse pom: " + file, e);
+	}
+      }
+    }
+  }
+
+  /**
+   * Lists all entries of the areas, with their protection determined.
+   *
+   * @return		the entries
+   * @throws IOException	if listing fails
+   */
+  public List<Entry> list() throws IOException {
+    List<Entry>		result;
+    Set<String>		names;
+    Set<String>		dirs;
+    long		now;
+
+    result = new ArrayList<>();
+    names  = new HashSet<>();
+    dirs   = new HashSet<>();
+    referenced(names, dirs);
+    listCatalogs(result);
+    listStore(result);
+    listRepository(result, names, dirs, readAccess());
+
+    now = System.currentTimeMillis();
+    for (Entry entry: result) {
+      if (now - entry.getLastAccess() < GRACE_PERIOD)
+	entry.m_Protected = true;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the sizes of the areas.
+   *
+   * @param entries	the entries to sum up
+   * @return		the sizes in bytes
+   */
+  public static Map<Area,Long> usage(List<Entry> entries) {
+    Map<Area,Long>	result;
+
+    result = new EnumMap<>(Area.class);
+    for (Area area: Area.values())
+      result.put(area, 0L);
+    for (Entry entry: entries)
+      result.put(entry.getArea(), result.get(entry.getArea()) + entry.getSize());
+
+    return result;
+  }
+
+  /**
+   * Turns the size into MB.
+   *
+   * @param size	the size in bytes
+   * @return		the formatted size
+   */
+  protected static String toMB(long size) {
+    return String.format("%.1f MB", size / 1024.0 / 1024.0);
+  }
+
+  /**
+   * Deletes the files of the entry.
+   *
+   * @param entry	the entry to delete
+   * @return		true if all files got deleted
+   */
+  protected boolean deleteFiles(Entry entry) {
+    boolean	result;
+
+    result = true;
+    for (File file: entry.getFiles()) {
+      if (file.exists() && !file.delete()) {
+	LOGGER.warning("Failed to evict: " + file);
+	result = false;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Deletes the files of the entry and any directories that became empty.
+   * Catalogs get deleted while holding the lock on their content, which
+   * stays in place.
+   *
+   * @param entry	the entry to delete
+   * @return		true if all files got deleted
+   */
+  protected boolean delete(Entry entry) {
+    boolean	result;
+    File	dir;
+    File	root;
+    String[]	remaining;
+    File	content;
+
+    if (entry.getArea() == Area.CATALOGS) {
+      content = new File(entry.getFiles().get(0).getParentFile(), entry.getName());
+      try {
+	return SharedLock.run(SharedLock.lockFile(content), () -> deleteFiles(entry));
+      }
+      catch (IOException e) {
+	LOGGER.log(Level.WARNING, "Failed to lock for eviction: " + content, e);
+	return false;
+      }
+    }
+
+    result = deleteFiles(entry);
+    root = (entry.getArea() == Area.STORE) ? new File(m_Store.getDirectory(), JarStore.BLOBS_DIR) : m_LocalRepository;
+    dir  = entry.getFiles().get(0).getParentFile();
+    while ((dir != null) && !dir.equals(root)) {
+      remaining = dir.list();
+      if ((remaining == null) || (remaining.length > 0) || !dir.delete())
+	break;
+      dir = dir.getParentFile();
+    }
+
+    return result;
+  }
+
+  /**
+   * Evicts the least-recently-used entries. Must be called while holding
+   * the lock on the gc directory.
+   *
+   * @throws IOException	if listing or updating fails
+   * @see		#evict()
+   */
+  protected void evictLocked() throws IOException {
+    List<Entry>		entries;
+    List<Entry>		candidates;
+    Map<Area,Long>	usage;
+    Set<String>		present;
+    long		total;
+    long		freed;
+    int			evicted;
+
+    entries = list();
+    usage   = usage(entries);
+    total   = 0;
+    for (Area area: usage.keySet())
+      total += usage.get(area);
+    LOGGER.info("Cache usage: " + toMB(total) + " (catalogs: " + toMB(usage.get(Area.CATALOGS)) + ", store: " + toMB(usage.get(Area.STORE))
+      + ", repository: " + toMB(usage.get(Area.REPOSITORY)) + ")" + ((m_MaxSize > 0) ? ", limit: " + toMB(m_MaxSize) : ""));
+
+    freed   = 0;
+    evicted = 0;
+    if ((m_MaxSize > 0) && (total > m_MaxSize)) {
+      candidates = new ArrayList<>();
+      for (Entry entry: entries) {
+	if (!entry.isProtected())
+	  candidates.add(entry);
+      }
+      candidates.sort(Comparator.comparingLong(Entry::getLastAccess));
+      for (Entry entry: candidates) {
+	if (total - freed <= m_MaxSize)
+	  break;
+	LOGGER.fine("Evicting: " + entry);
+	delete(entry);
+	freed += entry.getSize();
+	evicted++;
+      }
+      if (total - freed > m_MaxSize)
+	LOGGER.warning("Cache still exceeds limit, remaining entries are in use: " + toMB(total - freed));
+      LOGGER.info("Evicted " + evicted + " least-recently-used entries, freed " + toMB(freed));
+    }
+
+    // forget the access of jars that are gone
+    present = new HashSet<>();
+    for (Entry entry: entries) {
+      if ((entry.getArea() == Area.REPOSITORY) && entry.getFiles().get(0).exists()) {
+	for (File file: entry.getFiles())
+	  present.add(file.getName());
+      }
+    }
+    compactAccess(present);
+  }
+
+  /**
+   * Evicts the least-recently-used entries that are not protected until the
+   * total size is below the maximum size (if any), logging the usage of the
+   * areas. Only one process at a time performs the eviction.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String evict() {
+    if (!gcDir().exists() && !gcDir().mkdirs() && !gcDir().exists())
+      return "Failed to create directory: " + gcDir();
+
+    try {
+      SharedLock.run(SharedLock.lockFile(gcDir()), () -> {
+	evictLocked();
+	return null;
+      });
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to evict cache entries: " + m_HomeDir, e);
+      return "Failed to evict cache entries: " + m_HomeDir;
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HostLimitedTransporterFactory.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.util.ConfigUtils;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Wraps a transporter factory and limits the number of concurrent requests
+ * per host, across all repositories of a session. The limit is read from
+ * the {@link #CONFIG_PROP_CONNECTIONS_PER_HOST} session property, no limit
+ * if not set.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class HostLimitedTransporterFactory
+  implements TransporterFactory {
+
+  /** the session property with the maximum number of requests per host. */
+  public final static String CONFIG_PROP_CONNECTIONS_PER_HOST = "instant-adams.connectionsPerHost";
+
+  /** the key for the semaphores in the session data. */
+  protected final static String KEY_SEMAPHORES = HostLimitedTransporterFactory.class.getName() + ".semaphores";
+
+  /** the wrapped factory. */
+  protected TransporterFactory m_Factory;
+
+  /**
+   * Initializes the factory.
+   *
+   * @param factory	the factory to wrap
+   */
+  public HostLimitedTransporterFactory(TransporterFactory factory) {
+    m_Factory = factory;
+  }
+
+  /**
+   * Returns the host of the repository.
+   *
+   * @param repository	the repository
+   * @return		the host, the URL if no host available (eg file:)
+   */
+  protected static String host(RemoteRepository repository) {
+    if (repository.getHost() != null && !repository.getHost().isEmpty())
+      return repository.getHost();
+    try {
+      if (URI.create(repository.getUrl()).getHost() != null)
+        return URI.create(repository.getUrl()).getHost();
+    }
+    catch (Exception e) {
+      // ignored
+    }
+    return repository.getUrl();
+  }
+
+  /**
+   * Returns the semaphore for the host of the repository.
+   *
+   * @param session	the session to obtain the semaphores from
+   * @param repository	the repository
+   * @param limit	the maximum number of requests
+   * @return		the semaphore
+   */
+  @SuppressWarnings("unchecked")
+  protected static Semaphore semaphore(RepositorySystemSession session, RemoteRepository repository, int limit) {
+    Map<String,Semaphore> 	semaphores;
+
+    semaphores = (Map<String,Semaphore>) session.getData().computeIfAbsent(KEY_SEMAPHORES, ConcurrentHashMap::new);
+    return semaphores.computeIfAbsent(host(repository), (String h) -> new Semaphore(limit, true));
+  }
+
+  /**
+   * Creates a new transporter for the repository.
+   *
+   * @param session	the session
+   * @param repository	the repository
+   * @return		the transporter
+   * @throws NoTransporterException	if the repository is not supported
+   */
+  @Override
+  public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository) throws NoTransporterException {
+    Transporter	transporter;
+    int		limit;
+
+    transporter = m_Factory.newInstance(session, repository);
+    limit       = ConfigUtils.getInteger(session, 0, CONFIG_PROP_CONNECTIONS_PER_HOST);
+    if (limit <= 0)
+      return transporter;
+
+    return new HostLimitedTransporter(transporter, semaphore(session, repository, limit));
+  }
+
+  /**
+   * Returns the priority of the wrapped factory.
+   *
+   * @return		the priority
+   */
+  @Override
+  public float getPriority() {
+    return m_Factory.getPriority();
+  }
+
+  /**
+   * Transporter that acquires a permit from the semaphore of its host for
+   * each request.
+   */
+  public static class HostLimitedTransporter
+    implements Transporter {
+
+    /** the wrapped transporter. */
+    protected Transporter m_Transporter;
+
+    /** the semaphore of the host. */
+    protected Semaphore m_Semaphore;
+
+    /**
+     * Initializes the transporter.
+     *
+     * @param transporter	the transporter to wrap
+     * @param semaphore		the semaphore of the host
+     */
+    public HostLimitedTransporter(Transporter transporter, Semaphore semaphore) {
+      m_Transporter = transporter;
+      m_Semaphore   = semaphore;
+    }
+
+    /**
+     * Classifies the exception.
+     *
+     * @param error	the exception
+     * @return		the classification
+     */
+    @Override
+    public int classify(Throwable error) {
+      return m_Transporter.classify(error);
+    }
+
+    /**
+     * Checks the existence of a resource.
+     *
+     * @param task	the task
+     * @throws Exception	if the check fails
+     */
+    @Override
+    public void peek(PeekTask task) throws Exception {
+      m_Semaphore.acquire();
+      try {
+        m_Transporter.peek(task);
+      }
+      finally {
+        m_Semaphore.release();
+      }
+    }
+
+    /**
+     * Downloads a resource.
+     *
+     * @param task	the task
+     * @throws Exception	if the download fails
+     */
+    @Override
+    public void get(GetTask task) throws Exception {
+      m_Semaphore.acquire();
+      try {
+        m_Transporter.get(task);
+      }
+      finally {
+        m_Semaphore.release();
+      }
+    }
+
+    /**
+     * Uploads a resource.
+     *
+     * @param task	the task
+     * @throws Exception	if the upload fails
+     */
+    @Override
+    public void put(PutTask task) throws Exception {
+      m_Semaphore.acquire();
+      try {
+        m_Transporter.put(task);
+      }
+      finally {
+        m_Semaphore.release();
+      }
+    }
+
+    /**
+     * Closes the wrapped transporter.
+     */
+    @Override
+    public void close() {
+      m_Transporter.close();
+    }
+  }
+}
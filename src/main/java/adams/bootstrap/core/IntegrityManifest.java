@@ -0,0 +1,539 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * IntegrityManifest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lists the jars of the lib/src directories with size, modification time
+ * and SHA-256/SHA-1 hash. Hashing happens in parallel, reading the files via
+ * large buffers in a single pass for both hashes. Files whose size and
+ * modification time match a previous manifest do not get hashed again. The
+ * start scripts can verify the jars against the manifest (verify.sh/.ps1 in
+ * the bin directory), using the same shortcut.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class IntegrityManifest {
+
+  /** the manifest in the Maven output directory. */
+  public final static String FILENAME = "integrity.manifest";
+
+  /** the header of the manifest. */
+  public final static String HEADER = "# file\tsize\tmtime\tsha256\tsha1";
+
+  /** the verification script for bash. */
+  public final static String VERIFY_SH = "verify.sh";
+
+  /** the verification script for PowerShell. */
+  public final static String VERIFY_PS1 = "verify.ps1";
+
+  /** the location of the scripts in the resources. */
+  public final static String SCRIPTS = "adams/bootstrap/";
+
+  /** the size of the read buffer. */
+  public final static int BUFFER_SIZE = 1024 * 1024;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(IntegrityManifest.class.getName());
+
+  /**
+   * A single file of the manifest.
+   */
+  public static class Entry {
+
+    /** the path relative to the Maven output directory ("/" as separator). */
+    protected String m_Path;
+
+    /** the size in bytes. */
+    protected long m_Size;
+
+    /** the modification time in seconds since epoch. */
+    protected long m_Modified;
+
+    /** the SHA-256 hash (hex). */
+    protected String m_SHA256;
+
+    /** the SHA-1 hash (hex). */
+    protected String m_SHA1;
+
+    /**
+     * Initializes the entry.
+     *
+     * @param path	the relative path
+     * @param size	the size in bytes
+     * @param modified	the modification time in seconds
+     * @param sha256	the SHA-256 hash
+     * @param sha1	the SHA-1 hash
+     */
+    public Entry(String path, long size, long modified, String sha256, String sha1) {
+      m_Path     = path;
+      m_Size     = size;
+      m_Modified = modified;
+      m_SHA256   = sha256;
+      m_SHA1     = sha1;
+    }
+
+    /**
+     * Returns the relative path.
+     *
+     * @return		the path
+     */
+    public String getPath() {
+      return m_Path;
+    }
+
+    /**
+     * Returns the name of the file.
+     *
+     * @return		the name
+     */
+    public String getName() {
+      return m_Path.substring(m_Path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Returns the size.
+     *
+     * @return		the size in bytes
+     */
+    public long getSize() {
+      return m_Size;
+    }
+
+    /**
+     * Returns the modification time.
+     *
+     * @return		the time in seconds since epoch
+     */
+    public long getModified() {
+      return m_Modified;
+    }
+
+    /**
+     * Returns the SHA-256 hash.
+     *
+     * @return		the hash (hex)
+     */
+    public String getSHA256() {
+      return m_SHA256;
+    }
+
+    /**
+     * Returns the SHA-1 hash.
+     *
+     * @return		the hash (hex)
+     */
+    public String getSHA1() {
+      return m_SHA1;
+    }
+
+    /**
+     * Returns the entry as line of the manifest.
+     *
+     * @return		the line
+     */
+    @Override
+    public String toString() {
+      return m_Path + "\t" + m_Size + "\t" + m_Modified + "\t" + m_SHA256 + "\t" + m_SHA1;
+    }
+  }
+
+  /** the entries (relative path - entry). */
+  protected Map<String,Entry> m_Entries;
+
+  /** the number of hashed files. */
+  protected int m_Hashed;
+
+  /** the number of files taken from the previous manifest. */
+  protected int m_Reused;
+
+  /**
+   * Initializes the manifest.
+   */
+  public IntegrityManifest() {
+    m_Entries = new TreeMap<>();
+    m_Hashed  = 0;
+    m_Reused  = 0;
+  }
+
+  /**
+   * Returns the entries.
+   *
+   * @return		the entries (relative path - entry)
+   */
+  public Map<String,Entry> getEntries() {
+    return m_Entries;
+  }
+
+  /**
+   * Returns the number of files that got hashed.
+   *
+   * @return		the number
+   */
+  public int getHashed() {
+    return m_Hashed;
+  }
+
+  /**
+   * Returns the number of files whose hashes got taken from the previous
+   * manifest.
+   *
+   * @return		the number
+   */
+  public int getReused() {
+    return m_Reused;
+  }
+
+  /**
+   * Returns the manifest file.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		the file
+   */
+  public static File file(File outputDirMaven) {
+    return new File(outputDirMaven, FILENAME);
+  }
+
+  /**
+   * Turns the digest into a hex string.
+   *
+   * @param digest	the digest to convert
+   * @return		the hex string
+   */
+  protected static String toHex(MessageDigest digest) {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (byte b: digest.digest())
+      result.append(String.format("%02x", b));
+
+    return result.toString();
+  }
+
+  /**
+   * Computes the SHA-256 and SHA-1 hash of the file in a single pass.
+   *
+   * @param file	the file to hash
+   * @return		the SHA-256 and the SHA-1 hash (hex)
+   * @throws IOException	if reading fails
+   */
+  public static String[] hash(File file) throws IOException {
+    MessageDigest	sha256;
+    MessageDigest	sha1;
+    ByteBuffer		buffer;
+
+    try {
+      sha256 = MessageDigest.getInstance("SHA-256");
+      sha1   = MessageDigest.getInstance("SHA-1");
+    }
+    catch (Exception e) {
+      throw new IOException("Failed to initialize SHA-256/SHA-1!", e);
+    }
+    buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      while (channel.read(buffer) != -1) {
+	sha256.update(buffer.array(), 0, buffer.position());
+	sha1.update(buffer.array(), 0, buffer.position());
+	buffer.clear();
+      }
+    }
+
+    return new String[]{toHex(sha256), toHex(sha1)};
+  }
+
+  /**
+   * Returns the modification time of the file.
+   *
+   * @param file	the file
+   * @return		the time in seconds since epoch
+   * @throws IOException	if determining the time fails
+   */
+  protected static long modified(File file) throws IOException {
+    return Files.getLastModifiedTime(file.toPath()).to(TimeUnit.SECONDS);
+  }
+
+  /**
+   * Hashes the file.
+   *
+   * @param file	the file to hash
+   * @param path	the relative path
+   * @return		the entry
+   * @throws IOException	if hashing fails
+   */
+  protected static Entry newEntry(File file, String path) throws IOException {
+    long	size;
+    long	modified;
+    String[]	hashes;
+
+    size     = file.length();
+    modified = modified(file);
+    hashes   = hash(file);
+
+    return new Entry(path, size, modified, hashes[0], hashes[1]);
+  }
+
+  /**
+   * Generates the manifest for the jars in the directories.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @param dirs	the directories with jars, relative to the Maven output directory (eg lib, src)
+   * @param previous	the previous manifest for skipping unchanged files, can be null
+   * @param threads	the number of threads to use for hashing
+   * @return		the manifest
+   * @throws Exception	if hashing fails
+   */
+  public static IntegrityManifest compute(File outputDirMaven, List<String> dirs, IntegrityManifest previous, int threads) throws Exception {
+    IntegrityManifest	result;
+    List<File>		todo;
+    List<String>	paths;
+    List<Future<Entry>>	futures;
+    ExecutorService	executor;
+    File[]		files;
+    Entry		entry;
+    String		path;
+    int			i;
+
+    result = new IntegrityManifest();
+    todo   = new ArrayList<>();
+    paths  = new ArrayList<>();
+    for (String dir: dirs) {
+      files = new File(outputDirMaven, dir).listFiles((File d, String name) -> name.endsWith(".jar"));
+      if (files == null)
+	continue;
+      Arrays.sort(files);
+      for (File file: files) {
+	path  = dir + "/" + file.getName();
+	entry = (previous == null) ? null : previous.getEntries().get(path);
+	if ((entry != null) && (entry.getSize() == file.length()) && (entry.getModified() == modified(file))) {
+	  result.m_Entries.put(path, entry);
+	  result.m_Reused++;
+	}
+	else {
+	  todo.add(file);
+	  paths.add(path);
+	}
+      }
+    }
+    if (todo.isEmpty())
+      return result;
+
+    executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, todo.size())));
+    try {
+      futures = new ArrayList<>();
+      for (i = 0; i < todo.size(); i++) {
+	final File file = todo.get(i);
+	final String relative = paths.get(i);
+	futures.add(executor.submit(() -> newEntry(file, relative)));
+      }
+      for (Future<Entry> future: futures) {
+	entry = future.get();
+	result.m_Entries.put(entry.getPath(), entry);
+	result.m_Hashed++;
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks the hashes against the expected ones, eg the checksums of the
+   * repository.
+   *
+   * @param expected	the expected hashes per file name, SHA-1 (40 chars) or SHA-256 (64 chars)
+   * @param verified	for adding the names of the verified files, can be null
+   * @return		the problems, empty if none
+   */
+  public List<String> check(Map<String,String> expected, List<String> verified) {
+    List<String>	result;
+    String		hash;
+    String		actual;
+
+    result = new ArrayList<>();
+    for (Entry entry: m_Entries.values()) {
+      hash = expected.get(entry.getName());
+      if (hash == null)
+	continue;
+      actual = (hash.length() == 40) ? entry.getSHA1() : entry.getSHA256();
+      if (!actual.equalsIgnoreCase(hash))
+	result.add(entry.getPath() + ": expected " + hash + ", found " + actual);
+      else if (verified != null)
+	verified.add(entry.getName());
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes the manifest to the Maven output directory.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @throws IOException	if writing fails
+   */
+  public void write(File outputDirMaven) throws IOException {
+    List<String>	lines;
+
+    lines = new ArrayList<>();
+    lines.add(HEADER);
+    for (Entry entry: m_Entries.values())
+      lines.add(entry.toString());
+    Files.write(file(outputDirMaven).toPath(), lines, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads the manifest from the Maven output directory.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		the manifest, null if not present or invalid
+   */
+  public static IntegrityManifest read(File outputDirMaven) {
+    IntegrityManifest	result;
+    File		file;
+    String[]		parts;
+
+    file = file(outputDirMaven);
+    if (!file.exists())
+      return null;
+
+    result = new IntegrityManifest();
+    try {
+      for (String line: Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+	if (line.isEmpty() || line.startsWith("#"))
+	  continue;
+	parts = line.split("\t");
+	if (parts.length != 5)
+	  return null;
+	result.m_Entries.put(parts[0], new Entry(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3], parts[4]));
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Failed to read integrity manifest: " + file, e);
+      return null;
+    }
+
+    return result;
+  }
+
+  /**
+   * Copies the verification scripts into the bin directory.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		null if successful, otherwise error message
+   */
+  public static String writeScripts(File outputDirMaven) {
+    File	script;
+
+    for (String name: new String[]{VERIFY_SH, VERIFY_PS1}) {
+      script = new File(outputDirMaven, "bin/" + name);
+      try (InputStream in = IntegrityManifest.class.getClassLoader().getResourceAsStream(SCRIPTS + name)) {
+	if (in == null)
+	  return "Script not found: " + SCRIPTS + name;
+	Files.write(script.toPath(), in.readAllBytes());
+      }
+      catch (IOException e) {
+	LOGGER.log(Level.SEVERE, "Failed to write script: " + script, e);
+	return "Failed to write script: " + script;
+      }
+      if (name.endsWith(".sh"))
+	script.setExecutable(true);
+    }
+
+    return null;
+  }
+
+  /**
+   * Inserts the lines before the java command.
+   *
+   * @param script	the script to update
+   * @param lines	the lines to insert before the java command
+   * @return		null if successful, otherwise error message
+   */
+  protected static String patch(File script, String lines) {
+    List<String>	content;
+    int			i;
+
+    try {
+      content = Files.readAllLines(script.toPath());
+      i       = StartScripts.indexOfJavaCommand(content);
+      if (i == -1)
+	return "No java command found in script: " + script;
+      content.add(i, lines);
+      Files.write(script.toPath(), content);
+      return null;
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to update script: " + script, e);
+      return "Failed to update script: " + script;
+    }
+  }
+
+  /**
+   * Updates the bash start script to verify the jars first when started
+   * with --verify (changed files only) or --verify-full.
+   *
+   * @param script	the start.sh script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchShellScript(File script) {
+    return patch(script,
+      "if [ \"$1\" = \"--verify\" ] || [ \"$1\" = \"--verify-full\" ]\n"
+	+ "then\n"
+	+ "  \"$BASEDIR/bin/" + VERIFY_SH + "\" `[ \"$1\" = \"--verify-full\" ] && echo --full` || exit 1\n"
+	+ "  shift\n"
+	+ "fi");
+  }
+
+  /**
+   * Updates the batch start script to verify the jars first when started
+   * with --verify (changed files only) or --verify-full.
+   *
+   * @param script	the start.bat script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchBatchScript(File script) {
+    return patch(script,
+      "set VERIFY=powershell -NoProfile -ExecutionPolicy Bypass -File \"%BASEDIR%\\bin\\" + VERIFY_PS1 + "\"\n"
+	+ "if \"%1\"==\"--verify\" %VERIFY% || exit /b 1\n"
+	+ "if \"%1\"==\"--verify-full\" %VERIFY% -Full || exit /b 1");
+  }
+}
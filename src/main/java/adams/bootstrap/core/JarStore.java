@@ -0,0 +1,415 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * JarStore.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Content-addressed store for jar files, shared between bootstrapped
+ * applications. The lib/src directories of the applications only contain
+ * hardlinks to the jars in the store (or symlinks/copies if hardlinks are
+ * not possible). Each output directory registers the jars it references,
+ * which allows the removal of jars that are no longer in use.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class JarStore {
+
+  /** the sub-directory in the home directory for the store. */
+  public final static String STORE_DIR = "store";
+
+  /** the sub-directory for the jars. */
+  public final static String BLOBS_DIR = "blobs";
+
+  /** the sub-directory for the references. */
+  public final static String REFS_DIR = "refs";
+
+  /** the extension for reference files. */
+  public final static String EXT_REFS = ".refs";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(JarStore.class.getName());
+
+  /**
+   * How a file got linked to the store.
+   */
+  public enum LinkType {
+    HARDLINK,
+    SYMLINK,
+    COPY,
+  }
+
+  /** the top-level directory of the store. */
+  protected File m_Directory;
+
+  /**
+   * Initializes the store.
+   *
+   * @param dir		the top-level directory of the store
+   */
+  public JarStore(File dir) {
+    m_Directory = dir;
+  }
+
+  /**
+   * Returns the top-level directory of the store.
+   *
+   * @return		the directory
+   */
+  public File getDirectory() {
+    return m_Directory;
+  }
+
+  /**
+   * Returns the file in the store for the specified hash.
+   *
+   * @param hash	the SHA-256 hash of the jar
+   * @return		the file
+   */
+  public File blob(String hash) {
+    return new File(m_Directory, BLOBS_DIR + "/" + hash.substring(0, 2) + "/" + hash + ".jar");
+  }
+
+  /**
+   * Returns the reference file for the output directory.
+   *
+   * @param outputDir	the output directory of the application
+   * @return		the file
+   */
+  protected File refsFile(File outputDir) {
+    String	key;
+
+    key = Integer.toHexString(outputDir.getAbsolutePath().hashCode()) + "-" + outputDir.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+    return new File(m_Directory, REFS_DIR + "/" + key + EXT_REFS);
+  }
+
+  /**
+   * Returns the number of hardlinks of the file.
+   *
+   * @param file	the file to check
+   * @return		the number of links, 1 if not supported
+   */
+  protected static int linkCount(File file) {
+    try {
+      return (Integer) Files.getAttribute(file.toPath(), "unix:nlink");
+    }
+    catch (Exception e) {
+      return 1;
+    }
+  }
+
+  /**
+   * Returns the jar files in the directory.
+   *
+   * @param dir		the directory to scan
+   * @return		the jars
+   */
+  protected static List<File> jars(File dir) {
+    List<File>	result;
+    File[]	files;
+
+    result = new ArrayList<>();
+    files  = dir.listFiles((File f) -> f.getName().endsWith(".jar"));
+    if (files != null) {
+      for (File file: files)
+        result.add(file);
+    }
+
+    return result;
+  }
+
+  /**
+   * Removes all the jars from the directory that are links into the
+   * store, so that Maven will not write into the shared files.
+   *
+   * @param dir		the lib/src directory to clean up
+   * @return		the number of removed links
+   */
+  public int unlink(File dir) {
+    int		result;
+
+    result = 0;
+    for (File file: jars(dir)) {
+      if (Files.isSymbolicLink(file.toPath()) || (linkCount(file) > 1)) {
+        if (file.delete())
+          result++;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Moves the file into the store as the blob. Renames it if possible, only
+   * copying it (via a temp file) if the store is on a different file system.
+   * The file no longer exists afterwards.
+   *
+   * @param file	the jar to move
+   * @param blob	the blob in the store
+   * @throws IOException	if moving fails
+   */
+  protected void moveToStore(File file, File blob) throws IOException {
+    Path	tmp;
+
+    if (!blob.getParentFile().exists() && !blob.getParentFile().mkdirs() && !blob.getParentFile().exists())
+      throw new IOException("Failed to create store directory: " + blob.getParentFile());
+
+    file.setWritable(false, false);
+    try {
+      Files.move(file.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      return;
+    }
+    catch (AtomicMoveNotSupportedException e) {
+      LOGGER.log(Level.FINE, "Cannot rename into store, copying: " + file, e);
+    }
+    catch (IOException e) {
+      file.setWritable(true);
+      throw e;
+    }
+
+    // different file system
+    tmp = Files.createTempFile(blob.getParentFile().toPath(), blob.getName(), ".tmp");
+    try {
+      Files.copy(file.toPath(), tmp, StandardCopyOption.REPLACE_EXISTING);
+      tmp.toFile().setWritable(false, false);
+      Files.move(tmp, blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      Files.deleteIfExists(tmp);
+      file.setWritable(true);
+      // concurrently added by other process?
+      if (!blob.exists())
+	throw e;
+    }
+    Files.delete(file.toPath());
+  }
+
+  /**
+   * Moves the file into the store (unless already present) and replaces it
+   * with a link.
+   *
+   * @param file	the jar to store
+   * @param hash	the SHA-256 of the file
+   * @return		how the file got linked
+   * @throws IOException	if storing fails
+   */
+  protected LinkType store(File file, String hash) throws IOException {
+    File	blob;
+
+    blob = blob(hash);
+    if (blob.exists())
+      Files.delete(file.toPath());
+    else
+      moveToStore(file, blob);
+
+    try {
+      Files.createLink(file.toPath(), blob.toPath());
+      return LinkType.HARDLINK;
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.FINE, "Failed to create hardlink for: " + file, e);
+    }
+    try {
+      Files.createSymbolicLink(file.toPath(), blob.toPath());
+      return LinkType.SYMLINK;
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.FINE, "Failed to create symlink for: " + file, e);
+    }
+    Files.copy(blob.toPath(), file.toPath());
+    return LinkType.COPY;
+  }
+
+  /**
+   * Moves all the jars of the directories into the store, replaces them with
+   * links and registers them for the output directory.
+   *
+   * @param outputDir	the output directory of the application
+   * @param dirs	the lib/src directories with the jars
+   * @return		null if successful, otherwise error message
+   */
+  public String add(File outputDir, File... dirs) {
+    Set<String>		hashes;
+    String		hash;
+    int[]		counts;
+    LinkType		type;
+    File		target;
+
+    hashes = new HashSet<>();
+    counts = new int[LinkType.values().length];
+    for (File dir: dirs) {
+      if (!dir.isDirectory())
+        continue;
+      for (File file: jars(dir)) {
+        try {
+          if (Files.isSymbolicLink(file.toPath())) {
+            target = Files.readSymbolicLink(file.toPath()).toFile();
+            hash   = target.getName().replace(".jar", "");
+            if ((hash.length() == 64) && blob(hash).equals(target))
+              hashes.add(hash);
+            continue;
+          }
+	  hash = Fingerprint.hash(file);
+	  if (blob(hash).exists() && Files.isSameFile(file.toPath(), blob(hash).toPath())) {
+	    hashes.add(hash);
+	    continue;
+	  }
+	  type = store(file, hash);
+	  counts[type.ordinal()]++;
+	  hashes.add(hash);
+	}
+	catch (Exception e) {
+          LOGGER.log(Level.SEVERE, "Failed to add jar to store: " + file, e);
+          return "Failed to add jar to store: " + file;
+	}
+      }
+    }
+
+    try {
+      register(outputDir, hashes);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to register references for: " + outputDir, e);
+      return "Failed to register references for: " + outputDir;
+    }
+
+    LOGGER.info("Shared store: " + counts[LinkType.HARDLINK.ordinal()] + " hardlink(s), "
+      + counts[LinkType.SYMLINK.ordinal()] + " symlink(s), "
+      + counts[LinkType.COPY.ordinal()] + " copy/copies, "
+      + hashes.size() + " jar(s) referenced by " + outputDir);
+
+    return null;
+  }
+
+  /**
+   * Registers the jars that are referenced by the output directory.
+   *
+   * @param outputDir	the output directory of the application
+   * @param hashes	the hashes of the referenced jars
+   * @throws IOException	if writing fails
+   */
+  protected void register(File outputDir, Set<String> hashes) throws IOException {
+    File		file;
+    List<String>	lines;
+    Path		tmp;
+
+    file = refsFile(outputDir);
+    if (!file.getParentFile().exists() && !file.getParentFile().mkdirs() && !file.getParentFile().exists())
+      throw new IOException("Failed to create directory: " + file.getParentFile());
+    lines = new ArrayList<>();
+    lines.add(outputDir.getAbsolutePath());
+    lines.addAll(hashes);
+    tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+    Files.write(tmp, lines, StandardCharsets.UTF_8);
+    Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns all the hashes that are referenced by existing output
+   * directories. Registrations of output directories that no longer
+   * exist get removed.
+   *
+   * @return		the referenced hashes
+   * @throws IOException	if reading fails
+   */
+  public Set<String> referenced() throws IOException {
+    Set<String>		result;
+    File[]		files;
+    List<String>	lines;
+
+    result = new HashSet<>();
+    files  = new File(m_Directory, REFS_DIR).listFiles((File f) -> f.getName().endsWith(EXT_REFS));
+    if (files == null)
+      return result;
+
+    for (File file: files) {
+      lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+      if (lines.isEmpty() || !new File(lines.get(0)).isDirectory()) {
+        LOGGER.info("Removing registration of missing output directory: " + (lines.isEmpty() ? file : lines.get(0)));
+        Files.deleteIfExists(file.toPath());
+        continue;
+      }
+      result.addAll(lines.subList(1, lines.size()));
+    }
+
+    return result;
+  }
+
+  /**
+   * Removes all jars from the store that are neither referenced by a
+   * registered output directory nor hardlinked from elsewhere.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String cleanUp() {
+    Set<String>		referenced;
+    File[]		prefixes;
+    File[]		blobs;
+    String		hash;
+    int			removed;
+    long		freed;
+
+    try {
+      referenced = referenced();
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to determine referenced jars in store: " + m_Directory, e);
+      return "Failed to determine referenced jars in store: " + m_Directory;
+    }
+
+    removed  = 0;
+    freed    = 0;
+    prefixes = new File(m_Directory, BLOBS_DIR).listFiles(File::isDirectory);
+    if (prefixes != null) {
+      for (File prefix: prefixes) {
+        blobs = prefix.listFiles((File f) -> f.getName().endsWith(".jar"));
+        if (blobs == null)
+          continue;
+        for (File blob: blobs) {
+          hash = blob.getName().replace(".jar", "");
+          if (referenced.contains(hash) || (linkCount(blob) > 1))
+            continue;
+          freed += blob.length();
+          if (blob.delete())
+            removed++;
+          else
+            LOGGER.warning("Failed to remove jar from store: " + blob);
+        }
+      }
+    }
+
+    LOGGER.info("Removed " + removed + " unreferenced jar(s) from store, freed " + (freed / 1024 / 1024) + " MB");
+
+    return null;
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Lockfile.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists every resolved artifact of a bootstrap run (coordinates with the
+ * exact version, file name and SHA-256 checksum), for bootstrapping the
+ * same jars again without transitive resolution. Stored as tab-separated
+ * text, lines starting with '#' are comments.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Lockfile {
+
+  /** the file name for storing the lockfile in the output directory. */
+  public final static String FILENAME = "instant-adams.lock";
+
+  /** the header of the file. */
+  public final static String HEADER = "# type\tgroupId\tartifactId\tclassifier\textension\tversion\tfile\tsha256";
+
+  /**
+   * The directory an artifact belongs to.
+   */
+  public enum Type {
+    /** the jars. */
+    LIB,
+    /** the source jars. */
+    SRC,
+  }
+
+  /**
+   * A single locked artifact.
+   */
+  public static class Entry {
+
+    /** the type. */
+    protected Type m_Type;
+
+    /** the artifact (exact version). */
+    protected Artifact m_Artifact;
+
+    /** the file name in the output. */
+    protected String m_Filename;
+
+    /** the SHA-256 checksum (hex). */
+    protected String m_Checksum;
+
+    /**
+     * Initializes the entry.
+     *
+     * @param type	the type
+     * @param artifact	the artifact (exact version)
+     * @param filename	the file name in the output
+     * @param checksum	the SHA-256 checksum (hex)
+     */
+    public Entry(Type type, Artifact artifact, String filename, String checksum) {
+      m_Type     = type;
+      m_Artifact = artifact;
+      m_Filename = filename;
+      m_Checksum = checksum;
+    }
+
+    /**
+     * Returns the type.
+     *
+     * @return		the type
+     */
+    public Type getType() {
+      return m_Type;
+    }
+
+    /**
+     * Returns the artifact, without file.
+     *
+     * @return		the artifact
+     */
+    public Artifact getArtifact() {
+      return m_Artifact;
+    }
+
+    /**
+     * Returns the file name in the output.
+     *
+     * @return		the file name
+     */
+    public String getFilename() {
+      return m_Filename;
+    }
+
+    /**
+     * Returns the SHA-256 checksum.
+     *
+     * @return		the checksum (hex)
+     */
+    public String getChecksum() {
+      return m_Checksum;
+    }
+
+    /**
+     * Returns the entry as tab-separated line.
+     *
+     * @return		the line
+     */
+    @Override
+    public String toString() {
+      return m_Type.toString().toLowerCase()
+	+ "\t" + m_Artifact.getGroupId()
+	+ "\t" + m_Artifact.getArtifactId()
+	+ "\t" + m_Artifact.getClassifier()
+	+ "\t" + m_Artifact.getExtension()
+	+ "\t" + m_Artifact.getVersion()
+	+ "\t" + m_Filename
+	+ "\t" + m_Checksum;
+    }
+
+    /**
+     * Parses the tab-separated line.
+     *
+     * @param line	the line to parse
+     * @return		the entry
+     * @throws IllegalArgumentException	if the line is invalid
+     */
+    public static Entry parse(String line) {
+      String[]	parts;
+
+      parts = line.split("\t", -1);
+      if (parts.length != 8)
+	throw new IllegalArgumentException("Expected 8 columns, found " + parts.length + ": " + line);
+
+      return new Entry(
+	Type.valueOf(parts[0].toUpperCase()),
+	new DefaultArtifact(parts[1], parts[2], parts[3], parts[4], parts[5]),
+	parts[6],
+	parts[7]);
+    }
+  }
+
+  /** the entries. */
+  protected List<Entry> m_Entries;
+
+  /**
+   * Initializes the lockfile.
+   */
+  public Lockfile() {
+    m_Entries = new ArrayList<>();
+  }
+
+  /**
+   * Adds the entry.
+   *
+   * @param entry	the entry to add
+   * @return		itself
+   */
+  public Lockfile add(Entry entry) {
+    m_Entries.add(entry);
+    return this;
+  }
+
+  /**
+   * Returns the entries.
+   *
+   * @return		the entries
+   */
+  public List<Entry> getEntries() {
+    return m_Entries;
+  }
+
+  /**
+   * Returns the entries of the specified type.
+   *
+   * @param type	the type to get the entries for
+   * @return		the entries
+   */
+  public List<Entry> getEntries(Type type) {
+    List<Entry>	result;
+
+    result = new ArrayList<>();
+    for (Entry entry: m_Entries) {
+      if (entry.getType() == type)
+	result.add(entry);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the lockfile as string.
+   *
+   * @return		the content
+   */
+  @Override
+  public String toString() {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    result.append(HEADER).append("\n");
+    for (Entry entry: m_Entries)
+      result.append(entry).append("\n");
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the file for storing the lockfile in the output directory.
+   *
+   * @param outputDir	the output directory
+   * @return		the file
+   */
+  public static File file(File outputDir) {
+    return new File(outputDir, FILENAME);
+  }
+
+  /**
+   * Writes the lockfile.
+   *
+   * @param file	the file to write to
+   * @throws IOException	if writing fails
+   */
+  public void write(File file) throws IOException {
+    Files.write(file.toPath(), toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Reads the lockfile.
+   *
+   * @param file	the file to read
+   * @return		the lockfile
+   * @throws IOException	if reading or parsing fails
+   */
+  public static Lockfile read(File file) throws IOException {
+    Lockfile		result;
+    List<String>	lines;
+    int			i;
+
+    result = new Lockfile();
+    lines  = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    for (i = 0; i < lines.size(); i++) {
+      if (lines.get(i).trim().isEmpty() || lines.get(i).startsWith("#"))
+	continue;
+      try {
+	result.add(Entry.parse(lines.get(i)));
+      }
+      catch (Exception e) {
+	throw new IOException("Invalid entry in " + file + " at line " + (i + 1) + ": " + e.getMessage(), e);
+      }
+    }
+
+    return result;
+  }
+}
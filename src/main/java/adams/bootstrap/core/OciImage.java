@@ -0,0 +1,993 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * OciImage.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import com.github.fracpete.bootstrapp.core.Template;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the bootstrapped application as OCI image layout (oci-layout,
+ * index.json and blobs), without requiring a container daemon. The jars get
+ * split into layers by how often they change (runtime, third-party releases,
+ * ADAMS releases, SNAPSHOTs, external jars), so that registries only need
+ * to receive the layers that actually changed. Layers are reproducible
+ * (sorted entries, fixed timestamps and owners) and get built in parallel;
+ * layers with unchanged input files get reused from the previous run.
+ * <br>
+ * Optionally, an existing OCI image layout (eg a JRE image obtained via
+ * skopeo or crane) serves as base image, whose layers and environment get
+ * inherited.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class OciImage {
+
+  /** the directory of the image layout in the Maven output directory. */
+  public final static String DIR = "oci";
+
+  /** the file caching the layers of the previous run. */
+  public final static String CACHE = "layers.cache";
+
+  /** the media type of the image index. */
+  public final static String MEDIATYPE_INDEX = "application/vnd.oci.image.index.v1+json";
+
+  /** the media type of the image manifest. */
+  public final static String MEDIATYPE_MANIFEST = "application/vnd.oci.image.manifest.v1+json";
+
+  /** the media type of the image configuration. */
+  public final static String MEDIATYPE_CONFIG = "application/vnd.oci.image.config.v1+json";
+
+  /** the media type of the layers. */
+  public final static String MEDIATYPE_LAYER = "application/vnd.oci.image.layer.v1.tar+gzip";
+
+  /** the media type of Docker manifest lists (base images). */
+  public final static String MEDIATYPE_DOCKER_LIST = "application/vnd.docker.distribution.manifest.list.v2+json";
+
+  /** the annotation for the tag. */
+  public final static String ANNOTATION_REF_NAME = "org.opencontainers.image.ref.name";
+
+  /** the timestamp of all layer entries (msec), as some tools treat 0 as unset. */
+  public final static long MTIME = 1000;
+
+  /** the creation date of the image, fixed for reproducible digests. */
+  public final static String CREATED = "1970-01-01T00:00:01Z";
+
+  /** the size of the copy buffer. */
+  public final static int BUFFER_SIZE = 256 * 1024;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(OciImage.class.getName());
+
+  /** the OCI architectures of the Java architectures. */
+  protected final static Map<String,String> ARCH = new HashMap<>();
+  static {
+    ARCH.put("amd64", "amd64");
+    ARCH.put("x86_64", "amd64");
+    ARCH.put("aarch64", "arm64");
+    ARCH.put("arm", "arm");
+    ARCH.put("x86", "386");
+    ARCH.put("ppc64le", "ppc64le");
+  }
+
+  /**
+   * The layers, ordered from rarely to frequently changing.
+   */
+  public enum Layer {
+    /** the bundled runtime. */
+    RUNTIME,
+    /** third-party releases. */
+    THIRD_PARTY,
+    /** ADAMS releases. */
+    ADAMS,
+    /** SNAPSHOT versions. */
+    SNAPSHOTS,
+    /** external jars. */
+    EXTERNAL,
+  }
+
+  /**
+   * A layer blob.
+   */
+  public static class Blob {
+
+    /** the digest of the compressed tar. */
+    protected String m_Digest;
+
+    /** the digest of the uncompressed tar. */
+    protected String m_DiffId;
+
+    /** the size of the compressed tar. */
+    protected long m_Size;
+
+    /**
+     * Initializes the blob.
+     *
+     * @param digest	the digest of the compressed tar (sha256:...)
+     * @param diffId	the digest of the uncompressed tar (sha256:...)
+     * @param size	the size of the compressed tar
+     */
+    public Blob(String digest, String diffId, long size) {
+      m_Digest = digest;
+      m_DiffId = diffId;
+      m_Size   = size;
+    }
+
+    /**
+     * Returns the digest of the compressed tar.
+     *
+     * @return		the digest
+     */
+    public String getDigest() {
+      return m_Digest;
+    }
+
+    /**
+     * Returns the digest of the uncompressed tar.
+     *
+     * @return		the digest
+     */
+    public String getDiffId() {
+      return m_DiffId;
+    }
+
+    /**
+     * Returns the size of the compressed tar.
+     *
+     * @return		the size
+     */
+    public long getSize() {
+      return m_Size;
+    }
+  }
+
+  /** the name of the application (directory below /opt). */
+  protected String m_Name;
+
+  /** the tag. */
+  protected String m_Tag;
+
+  /** the main class. */
+  protected String m_MainClass;
+
+  /** the JVM parameters. */
+  protected List<String> m_JVM;
+
+  /** whether to include the runtime. */
+  protected boolean m_Runtime;
+
+  /** the image layout of the base image, null for none. */
+  protected File m_Base;
+
+  /** the artifacts of the jars in the lib directory (file name - artifact). */
+  protected Map<String,Artifact> m_Artifacts;
+
+  /** the file names of the external jars. */
+  protected Set<String> m_Externals;
+
+  /** the number of threads for building the layers. */
+  protected int m_NumThreads;
+
+  /** the layers of the last written image. */
+  protected Map<Layer,Blob> m_Layers;
+
+  /** the number of layers reused from the previous run. */
+  protected int m_Reused;
+
+  /**
+   * Initializes the writer.
+   */
+  public OciImage() {
+    m_Name       = Template.DEFAULT_NAME;
+    m_Tag        = "latest";
+    m_MainClass  = null;
+    m_JVM        = new ArrayList<>();
+    m_Runtime    = false;
+    m_Base       = null;
+    m_Artifacts  = new HashMap<>();
+    m_Externals  = new HashSet<>();
+    m_NumThreads = Runtime.getRuntime().availableProcessors();
+    m_Layers     = new EnumMap<>(Layer.class);
+    m_Reused     = 0;
+  }
+
+  /**
+   * Sets the name of the application.
+   *
+   * @param name	the name
+   * @return		itself
+   */
+  public OciImage name(String name) {
+    m_Name = name;
+    return this;
+  }
+
+  /**
+   * Returns the name of the application.
+   *
+   * @return		the name
+   */
+  public String getName() {
+    return m_Name;
+  }
+
+  /**
+   * Sets the tag of the image, characters not allowed in tags get replaced.
+   *
+   * @param tag		the tag, eg the version
+   * @return		itself
+   */
+  public OciImage tag(String tag) {
+    m_Tag = tag.replaceAll("[^A-Za-z0-9_.-]", "_");
+    return this;
+  }
+
+  /**
+   * Returns the tag of the image.
+   *
+   * @return		the tag
+   */
+  public String getTag() {
+    return m_Tag;
+  }
+
+  /**
+   * Sets the main class for the entrypoint.
+   *
+   * @param mainClass	the main class
+   * @return		itself
+   */
+  public OciImage mainClass(String mainClass) {
+    m_MainClass = mainClass;
+    return this;
+  }
+
+  /**
+   * Returns the main class for the entrypoint.
+   *
+   * @return		the main class
+   */
+  public String getMainClass() {
+    return m_MainClass;
+  }
+
+  /**
+   * Sets the JVM parameters for the entrypoint.
+   *
+   * @param jvm		the parameters, can be null
+   * @return		itself
+   */
+  public OciImage jvm(List<String> jvm) {
+    m_JVM = (jvm == null) ? new ArrayList<>() : jvm;
+    return this;
+  }
+
+  /**
+   * Returns the JVM parameters for the entrypoint.
+   *
+   * @return		the parameters
+   */
+  public List<String> getJVM() {
+    return m_JVM;
+  }
+
+  /**
+   * Sets whether to include the runtime (jre directory) as layer and use it
+   * in the entrypoint.
+   *
+   * @param runtime	true if to include
+   * @return		itself
+   */
+  public OciImage runtime(boolean runtime) {
+    m_Runtime = runtime;
+    return this;
+  }
+
+  /**
+   * Returns whether to include the runtime.
+   *
+   * @return		true if included
+   */
+  public boolean getRuntime() {
+    return m_Runtime;
+  }
+
+  /**
+   * Sets the OCI image layout of the base image.
+   *
+   * @param base	the directory, null for none
+   * @return		itself
+   */
+  public OciImage base(File base) {
+    m_Base = base;
+    return this;
+  }
+
+  /**
+   * Returns the OCI image layout of the base image.
+   *
+   * @return		the directory, null for none
+   */
+  public File getBase() {
+    return m_Base;
+  }
+
+  /**
+   * Sets the artifacts of the jars in the lib directory, for assigning them
+   * to layers.
+   *
+   * @param artifacts	the artifacts (file name - artifact)
+   * @return		itself
+   */
+  public OciImage artifacts(Map<String,Artifact> artifacts) {
+    m_Artifacts = artifacts;
+    return this;
+  }
+
+  /**
+   * Returns the artifacts of the jars in the lib directory.
+   *
+   * @return		the artifacts (file name - artifact)
+   */
+  public Map<String,Artifact> getArtifacts() {
+    return m_Artifacts;
+  }
+
+  /**
+   * Sets the file names of the external jars.
+   *
+   * @param externals	the file names
+   * @return		itself
+   */
+  public OciImage externals(Set<String> externals) {
+    m_Externals = externals;
+    return this;
+  }
+
+  /**
+   * Returns the file names of the external jars.
+   *
+   * @return		the file names
+   */
+  public Set<String> getExternals() {
+    return m_Externals;
+  }
+
+  /**
+   * Sets the number of threads for building the layers.
+   *
+   * @param num		the number of threads
+   * @return		itself
+   */
+  public OciImage numThreads(int num) {
+    m_NumThreads = Math.max(1, num);
+    return this;
+  }
+
+  /**
+   * Returns the number of threads for building the layers.
+   *
+   * @return		the number of threads
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns the layers of the last written image.
+   *
+   * @return		the layers
+   */
+  public Map<Layer,Blob> getLayers() {
+    return m_Layers;
+  }
+
+  /**
+   * Returns the number of layers reused from the previous run.
+   *
+   * @return		the number of layers
+   */
+  public int getReused() {
+    return m_Reused;
+  }
+
+  /**
+   * Returns the directory of the image layout.
+   *
+   * @param dir		the Maven output directory
+   * @return		the directory
+   */
+  public static File dir(File dir) {
+    return new File(dir, DIR);
+  }
+
+  /**
+   * Determines the layer of the jar.
+   *
+   * @param filename	the file name of the jar in the lib directory
+   * @return		the layer
+   */
+  public Layer classify(String filename) {
+    Artifact	artifact;
+
+    if (m_Externals.contains(filename))
+      return Layer.EXTERNAL;
+    artifact = m_Artifacts.get(filename);
+    if (artifact != null) {
+      if (artifact.isSnapshot())
+	return Layer.SNAPSHOTS;
+      if (artifact.getGroupId().startsWith(VersionResolver.GROUP_ID))
+	return Layer.ADAMS;
+      return Layer.THIRD_PARTY;
+    }
+    // no coordinates available, go by the file name
+    if (filename.contains("-SNAPSHOT"))
+      return Layer.SNAPSHOTS;
+    if (filename.startsWith("adams-"))
+      return Layer.ADAMS;
+    return Layer.THIRD_PARTY;
+  }
+
+  /**
+   * Returns the path of the blob.
+   *
+   * @param layout	the image layout
+   * @param digest	the digest (sha256:...)
+   * @return		the file
+   */
+  protected static File blob(File layout, String digest) {
+    return new File(layout, "blobs/" + digest.replace(':', '/'));
+  }
+
+  /**
+   * Returns the digest as hex string.
+   *
+   * @param digest	the digest
+   * @return		the hex string
+   */
+  protected static String hex(byte[] digest) {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (byte b: digest)
+      result.append(String.format("%02x", b));
+    return result.toString();
+  }
+
+  /**
+   * Stores the content as blob.
+   *
+   * @param layout	the image layout
+   * @param content	the content
+   * @return		the digest (sha256:...)
+   * @throws Exception	if writing fails
+   */
+  protected static String writeBlob(File layout, byte[] content) throws Exception {
+    String	result;
+    File	file;
+
+    result = "sha256:" + hex(MessageDigest.getInstance("SHA-256").digest(content));
+    file   = blob(layout, result);
+    if (!file.exists())
+      Files.write(file.toPath(), content);
+    return result;
+  }
+
+  /**
+   * Returns a descriptor.
+   *
+   * @param mediaType	the media type
+   * @param digest	the digest
+   * @param size	the size
+   * @return		the descriptor
+   */
+  protected static JsonObject descriptor(String mediaType, String digest, long size) {
+    JsonObject	result;
+
+    result = new JsonObject();
+    result.addProperty("mediaType", mediaType);
+    result.addProperty("digest", digest);
+    result.addProperty("size", size);
+    return result;
+  }
+
+  /**
+   * Reads the JSON blob.
+   *
+   * @param layout	the image layout
+   * @param digest	the digest
+   * @return		the JSON object
+   * @throws IOException	if reading fails
+   */
+  protected static JsonObject readJson(File layout, String digest) throws IOException {
+    return JsonParser.parseString(new String(Files.readAllBytes(blob(layout, digest).toPath()), StandardCharsets.UTF_8)).getAsJsonObject();
+  }
+
+  /**
+   * Locates the manifest of the base image for the architecture, resolving
+   * (multi-platform) image indexes.
+   *
+   * @param arch	the architecture
+   * @return		the manifest
+   * @throws IOException	if reading fails or no suitable manifest found
+   */
+  protected JsonObject baseManifest(String arch) throws IOException {
+    return resolveManifest(JsonParser.parseString(new String(Files.readAllBytes(new File(m_Base, "index.json").toPath()), StandardCharsets.UTF_8)).getAsJsonObject(), arch);
+  }
+
+  /**
+   * Picks the first manifest for the architecture from the index, descending
+   * into nested indexes.
+   *
+   * @param index	the index
+   * @param arch	the architecture
+   * @return		the manifest
+   * @throws IOException	if reading fails or no suitable manifest found
+   */
+  protected JsonObject resolveManifest(JsonObject index, String arch) throws IOException {
+    JsonObject	manifest;
+    JsonObject	platform;
+    String	mediaType;
+
+    for (JsonElement element: index.getAsJsonArray("manifests")) {
+      platform = element.getAsJsonObject().getAsJsonObject("platform");
+      if ((platform != null) && platform.has("architecture") && !platform.get("architecture").getAsString().equals(arch))
+	continue;
+      mediaType = element.getAsJsonObject().get("mediaType").getAsString();
+      manifest  = readJson(m_Base, element.getAsJsonObject().get("digest").getAsString());
+      if (mediaType.equals(MEDIATYPE_INDEX) || mediaType.equals(MEDIATYPE_DOCKER_LIST) || manifest.has("manifests"))
+	return resolveManifest(manifest, arch);
+      return manifest;
+    }
+    throw new IOException("No manifest for architecture " + arch + " in base image: " + m_Base);
+  }
+
+  /**
+   * Links (or copies) the blob of the base image into the layout.
+   *
+   * @param layout	the image layout
+   * @param digest	the digest of the blob
+   * @throws IOException	if linking/copying fails
+   */
+  protected void importBlob(File layout, String digest) throws IOException {
+    File	source;
+    File	target;
+
+    source = blob(m_Base, digest);
+    target = blob(layout, digest);
+    if (target.exists())
+      return;
+    if (!source.exists())
+      throw new IOException("Blob of base image missing: " + source);
+    try {
+      Files.createLink(target.toPath(), source.toPath());
+    }
+    catch (Exception e) {
+      Files.copy(source.toPath(), target.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+    }
+  }
+
+  /**
+   * Lists the files of the layers: path in the image - file.
+   *
+   * @param stagingDir	the Maven output directory
+   * @return		the files per layer (only non-empty ones)
+   * @throws IOException	if listing the runtime fails
+   */
+  protected Map<Layer,TreeMap<String,File>> collect(File stagingDir) throws IOException {
+    final Map<Layer,TreeMap<String,File>>	result;
+    final Path					runtime;
+    final String				base;
+    File[]					files;
+
+    result = new EnumMap<>(Layer.class);
+    base   = "opt/" + m_Name + "/";
+    files  = new File(stagingDir, "lib").listFiles((File d, String name) -> name.endsWith(".jar"));
+    if (files != null) {
+      for (File file: files)
+	result.computeIfAbsent(classify(file.getName()), (Layer l) -> new TreeMap<>()).put(base + "lib/" + file.getName(), file);
+    }
+
+    runtime = RuntimeImage.dir(stagingDir).toPath();
+    if (m_Runtime && Files.isDirectory(runtime)) {
+      result.put(Layer.RUNTIME, new TreeMap<>());
+      Files.walkFileTree(runtime, new SimpleFileVisitor<Path>() {
+	@Override
+	public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+	  result.get(Layer.RUNTIME).put(base + RuntimeImage.DIR + "/" + runtime.relativize(file).toString().replace(File.separatorChar, '/'), file.toFile());
+	  return FileVisitResult.CONTINUE;
+	}
+      });
+    }
+
+    return result;
+  }
+
+  /**
+   * Computes the key of the layer from the paths, sizes and modification
+   * times of its files.
+   *
+   * @param layer	the layer
+   * @param files	the files of the layer
+   * @return		the key
+   * @throws Exception	if hashing fails
+   */
+  protected static String key(Layer layer, TreeMap<String,File> files) throws Exception {
+    MessageDigest	digest;
+
+    digest = MessageDigest.getInstance("SHA-256");
+    digest.update(layer.toString().getBytes(StandardCharsets.UTF_8));
+    for (String path: files.keySet())
+      digest.update(("\n" + path + "\t" + files.get(path).length() + "\t" + files.get(path).lastModified()).getBytes(StandardCharsets.UTF_8));
+    return hex(digest.digest());
+  }
+
+  /**
+   * Reads the layers of the previous run.
+   *
+   * @param layout	the image layout
+   * @return		the layers per key
+   */
+  protected static Map<String,Blob> readCache(File layout) {
+    Map<String,Blob>	result;
+    File		file;
+    String[]		parts;
+
+    result = new HashMap<>();
+    file   = new File(layout, CACHE);
+    if (!file.exists())
+      return result;
+    try {
+      for (String line: Files.readAllLines(file.toPath())) {
+	parts = line.split("\t");
+	if ((parts.length == 4) && blob(layout, parts[1]).exists())
+	  result.put(parts[0], new Blob(parts[1], parts[2], Long.parseLong(parts[3])));
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Failed to read layer cache: " + file, e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Creates a tar entry owned by root with the fixed timestamp.
+   *
+   * @param path	the path in the image
+   * @param mode	the mode (file type and permissions)
+   * @param size	the size
+   * @return		the entry
+   */
+  protected static TarArchiveEntry newEntry(String path, int mode, long size) {
+    TarArchiveEntry	result;
+
+    result = new TarArchiveEntry(path);
+    result.setMode(mode);
+    result.setSize(size);
+    result.setModTime(MTIME);
+    result.setIds(0, 0);
+    result.setNames("root", "root");
+    return result;
+  }
+
+  /**
+   * Writes the layer as gzip-compressed tar blob, computing the digests of
+   * the compressed and uncompressed tar while streaming.
+   *
+   * @param layout	the image layout
+   * @param files	the files of the layer (path in image - file)
+   * @return		the blob
+   * @throws Exception	if writing fails
+   */
+  protected static Blob writeLayer(File layout, TreeMap<String,File> files) throws Exception {
+    MessageDigest	compressed;
+    MessageDigest	uncompressed;
+    File		tmp;
+    Set<String>		dirs;
+    String		dir;
+    byte[]		buffer;
+    int			read;
+    int			pos;
+    String		digest;
+
+    compressed   = MessageDigest.getInstance("SHA-256");
+    uncompressed = MessageDigest.getInstance("SHA-256");
+    tmp          = File.createTempFile("layer-", ".tmp", new File(layout, "blobs"));
+    dirs         = new HashSet<>();
+    buffer       = new byte[BUFFER_SIZE];
+    try {
+      try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath()), BUFFER_SIZE), compressed);
+	   GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE) {{ def.setLevel(Deflater.BEST_SPEED); }};
+	   TarArchiveOutputStream tar = new TarArchiveOutputStream(new DigestOutputStream(gzip, uncompressed))) {
+	tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+	tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+	for (String path: files.keySet()) {
+	  if (Thread.currentThread().isInterrupted())
+	    throw new InterruptedException("Writing layer interrupted");
+	  // parent directories first
+	  pos = path.indexOf('/');
+	  while (pos > -1) {
+	    dir = path.substring(0, pos + 1);
+	    if (dirs.add(dir)) {
+	      tar.putArchiveEntry(newEntry(dir, 040755, 0));
+	      tar.closeArchiveEntry();
+	    }
+	    pos = path.indexOf('/', pos + 1);
+	  }
+	  tar.putArchiveEntry(newEntry(path, files.get(path).canExecute() ? 0100755 : 0100644, files.get(path).length()));
+	  try (InputStream in = Files.newInputStream(files.get(path).toPath())) {
+	    while ((read = in.read(buffer)) > -1)
+	      tar.write(buffer, 0, read);
+	  }
+	  tar.closeArchiveEntry();
+	}
+      }
+      digest = "sha256:" + hex(compressed.digest());
+      Files.move(tmp.toPath(), blob(layout, digest).toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return new Blob(digest, "sha256:" + hex(uncompressed.digest()), blob(layout, digest).length());
+    }
+    finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+
+  /**
+   * Returns the architecture of the image.
+   *
+   * @param baseConfig	the configuration of the base image, null if none
+   * @return		the architecture
+   */
+  protected String arch(JsonObject baseConfig) {
+    String	arch;
+
+    if (!m_Runtime && (baseConfig != null) && baseConfig.has("architecture"))
+      return baseConfig.get("architecture").getAsString();
+    arch = System.getProperty("os.arch");
+    return ARCH.getOrDefault(arch, arch);
+  }
+
+  /**
+   * Removes the blobs that are no longer referenced.
+   *
+   * @param layout	the image layout
+   * @param referenced	the referenced digests
+   */
+  protected static void removeUnreferenced(File layout, Set<String> referenced) {
+    File[]	files;
+
+    files = new File(layout, "blobs/sha256").listFiles();
+    if (files == null)
+      return;
+    for (File file: files) {
+      if (!referenced.contains("sha256:" + file.getName()) && !file.delete())
+	LOGGER.warning("Failed to remove unreferenced blob: " + file);
+    }
+  }
+
+  /**
+   * Writes the image layout into the directory.
+   *
+   * @param stagingDir	the Maven output directory with lib and jre
+   * @param layout	the directory for the image layout
+   * @return		null if successful, otherwise error message
+   */
+  public String write(File stagingDir, File layout) {
+    Map<Layer,TreeMap<String,File>>	files;
+    Map<String,Blob>			cache;
+    Map<Layer,Future<Blob>>		futures;
+    Map<Layer,String>			keys;
+    ExecutorService			executor;
+    JsonObject				baseManifest;
+    JsonObject				baseConfig;
+    JsonObject				config;
+    JsonObject				containerConfig;
+    JsonObject				rootfs;
+    JsonArray				diffIds;
+    JsonArray				layers;
+    JsonArray				entrypoint;
+    JsonArray				env;
+    JsonObject				labels;
+    JsonObject				manifest;
+    JsonObject				index;
+    JsonObject				descriptor;
+    JsonObject				annotations;
+    Set<String>				referenced;
+    StringBuilder			cacheContent;
+    byte[]				content;
+    String				configDigest;
+    String				manifestDigest;
+    String				arch;
+
+    m_Layers.clear();
+    m_Reused = 0;
+    executor = null;
+    try {
+      if (!new File(layout, "blobs/sha256").isDirectory() && !new File(layout, "blobs/sha256").mkdirs())
+	return "Failed to create image layout directory: " + layout;
+
+      // base image
+      baseManifest = null;
+      baseConfig   = null;
+      arch         = arch(null);
+      if (m_Base != null) {
+	baseManifest = baseManifest(arch);
+	baseConfig   = readJson(m_Base, baseManifest.getAsJsonObject("config").get("digest").getAsString());
+	arch         = arch(baseConfig);
+	for (JsonElement layer: baseManifest.getAsJsonArray("layers"))
+	  importBlob(layout, layer.getAsJsonObject().get("digest").getAsString());
+      }
+
+      // application layers, reusing unchanged ones
+      files    = collect(stagingDir);
+      cache    = readCache(layout);
+      keys     = new EnumMap<>(Layer.class);
+      futures  = new EnumMap<>(Layer.class);
+      executor = Executors.newFixedThreadPool(Math.min(m_NumThreads, Math.max(1, files.size())));
+      for (Layer layer: files.keySet()) {
+	keys.put(layer, key(layer, files.get(layer)));
+	if (cache.containsKey(keys.get(layer))) {
+	  m_Layers.put(layer, cache.get(keys.get(layer)));
+	  m_Reused++;
+	  continue;
+	}
+	final TreeMap<String,File> layerFiles = files.get(layer);
+	futures.put(layer, executor.submit(() -> writeLayer(layout, layerFiles)));
+      }
+      for (Layer layer: futures.keySet())
+	m_Layers.put(layer, futures.get(layer).get());
+
+      // configuration
+      diffIds = new JsonArray();
+      layers  = new JsonArray();
+      env     = new JsonArray();
+      labels  = new JsonObject();
+      if (baseConfig != null) {
+	if (baseConfig.has("rootfs"))
+	  diffIds.addAll(baseConfig.getAsJsonObject("rootfs").getAsJsonArray("diff_ids"));
+	layers.addAll(baseManifest.getAsJsonArray("layers"));
+	if (baseConfig.has("config") && baseConfig.getAsJsonObject("config").has("Env"))
+	  env.addAll(baseConfig.getAsJsonObject("config").getAsJsonArray("Env"));
+	if (baseConfig.has("config") && baseConfig.getAsJsonObject("config").has("Labels") && baseConfig.getAsJsonObject("config").get("Labels").isJsonObject())
+	  labels = baseConfig.getAsJsonObject("config").getAsJsonObject("Labels").deepCopy();
+      }
+      for (Layer layer: m_Layers.keySet()) {
+	diffIds.add(m_Layers.get(layer).getDiffId());
+	descriptor  = descriptor(MEDIATYPE_LAYER, m_Layers.get(layer).getDigest(), m_Layers.get(layer).getSize());
+	annotations = new JsonObject();
+	annotations.addProperty("org.opencontainers.image.title", layer.toString().toLowerCase());
+	descriptor.add("annotations", annotations);
+	layers.add(descriptor);
+      }
+      entrypoint = new JsonArray();
+      entrypoint.add(m_Runtime && files.containsKey(Layer.RUNTIME) ? "/opt/" + m_Name + "/" + RuntimeImage.DIR + "/bin/java" : "java");
+      for (String jvm: m_JVM)
+	entrypoint.add(jvm);
+      entrypoint.add("-cp");
+      entrypoint.add("/opt/" + m_Name + "/lib/*");
+      if (m_MainClass != null)
+	entrypoint.add(m_MainClass);
+      labels.addProperty("org.opencontainers.image.title", m_Name);
+      labels.addProperty("org.opencontainers.image.version", m_Tag);
+      containerConfig = new JsonObject();
+      if (env.size() > 0)
+	containerConfig.add("Env", env);
+      containerConfig.add("Entrypoint", entrypoint);
+      containerConfig.addProperty("WorkingDir", "/opt/" + m_Name);
+      containerConfig.add("Labels", labels);
+      if ((baseConfig != null) && baseConfig.has("config") && baseConfig.getAsJsonObject("config").has("User"))
+	containerConfig.add("User", baseConfig.getAsJsonObject("config").get("User"));
+      rootfs = new JsonObject();
+      rootfs.addProperty("type", "layers");
+      rootfs.add("diff_ids", diffIds);
+      config = new JsonObject();
+      config.addProperty("created", CREATED);
+      config.addProperty("architecture", arch);
+      config.addProperty("os", "linux");
+      config.add("config", containerConfig);
+      config.add("rootfs", rootfs);
+      content      = config.toString().getBytes(StandardCharsets.UTF_8);
+      configDigest = writeBlob(layout, content);
+
+      // manifest and index
+      manifest = new JsonObject();
+      manifest.addProperty("schemaVersion", 2);
+      manifest.addProperty("mediaType", MEDIATYPE_MANIFEST);
+      manifest.add("config", descriptor(MEDIATYPE_CONFIG, configDigest, content.length));
+      manifest.add("layers", layers);
+      content        = manifest.toString().getBytes(StandardCharsets.UTF_8);
+      manifestDigest = writeBlob(layout, content);
+      descriptor     = descriptor(MEDIATYPE_MANIFEST, manifestDigest, content.length);
+      annotations    = new JsonObject();
+      annotations.addProperty(ANNOTATION_REF_NAME, m_Tag);
+      descriptor.add("annotations", annotations);
+      index = new JsonObject();
+      index.addProperty("schemaVersion", 2);
+      index.addProperty("mediaType", MEDIATYPE_INDEX);
+      index.add("manifests", new JsonArray());
+      index.getAsJsonArray("manifests").add(descriptor);
+      Files.write(new File(layout, "index.json").toPath(), index.toString().getBytes(StandardCharsets.UTF_8));
+      Files.write(new File(layout, "oci-layout").toPath(), "{\"imageLayoutVersion\":\"1.0.0\"}".getBytes(StandardCharsets.UTF_8));
+
+      // layer cache and clean up
+      cacheContent = new StringBuilder();
+      referenced   = new HashSet<>();
+      referenced.add(configDigest);
+      referenced.add(manifestDigest);
+      for (JsonElement layer: layers)
+	referenced.add(layer.getAsJsonObject().get("digest").getAsString());
+      for (Layer layer: m_Layers.keySet())
+	cacheContent.append(keys.get(layer)).append("\t").append(m_Layers.get(layer).getDigest()).append("\t")
+	  .append(m_Layers.get(layer).getDiffId()).append("\t").append(m_Layers.get(layer).getSize()).append("\n");
+      Files.write(new File(layout, CACHE).toPath(), cacheContent.toString().getBytes(StandardCharsets.UTF_8));
+      removeUnreferenced(layout, referenced);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "Interrupted while writing OCI image!";
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to write OCI image: " + layout, e);
+      return "Failed to write OCI image: " + e;
+    }
+    finally {
+      if (executor != null)
+	executor.shutdownNow();
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,1192 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PackageWriter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import com.github.fracpete.bootstrapp.core.Template;
+import org.apache.commons.compress.archivers.ar.ArArchiveEntry;
+import org.apache.commons.compress.archivers.ar.ArArchiveOutputStream;
+import org.apache.commons.compress.archivers.cpio.CpioArchiveEntry;
+import org.apache.commons.compress.archivers.cpio.CpioArchiveOutputStream;
+import org.apache.commons.compress.archivers.cpio.CpioConstants;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.eclipse.aether.artifact.Artifact;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes Debian (.deb) and Redhat (.rpm) packages in-process, without Maven
+ * plugins, fakeroot or dpkg-deb. The files of the staging tree (the lib, src
+ * and jre directories of the Maven output directory plus the launch script)
+ * get streamed straight into the archives: ar with xz-compressed control and
+ * data tars for Debian, lead/signature/header plus xz-compressed cpio payload
+ * for Redhat. Both packages get written concurrently from the same tree.
+ * <br>
+ * Like the debian-maven-plugin, the Debian package leaves out the jars of the
+ * lib directory that match one of the excludeArtifactsRegExp patterns of the
+ * Debian snippet, matched against groupId:artifactId:version[:classifier]
+ * (jars without known coordinates against their file name).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PackageWriter {
+
+  /** the name of the launch script in the output directory. */
+  public final static String LAUNCH = "launch";
+
+  /** the xz preset, jars are compressed already and hardly shrink further with higher ones. */
+  public final static int XZ_PRESET = 3;
+
+  /** the size of the copy buffer. */
+  public final static int BUFFER_SIZE = 256 * 1024;
+
+  /** the description of the packages. */
+  public final static String DESCRIPTION = "generated by instant-adams";
+
+  /** the Debian packages to depend on if the runtime is not bundled. */
+  public final static String DEBIAN_DEPENDS = "openjdk-11-jre | openjdk-11-jre-headless";
+
+  /** the release of the Redhat package. */
+  public final static String REDHAT_RELEASE = "1";
+
+  /** the directories a Debian package does not own, but has to list. */
+  protected final static String[] DEBIAN_PARENTS = {"/", "/usr/", "/usr/bin/", "/usr/lib/"};
+
+  /** the rpmlib features the Redhat package requires (name - version). */
+  protected final static Map<String,String> REDHAT_RPMLIB = new LinkedHashMap<>();
+  static {
+    REDHAT_RPMLIB.put("rpmlib(CompressedFileNames)", "3.0.4-1");
+    REDHAT_RPMLIB.put("rpmlib(FileDigests)", "4.6.0-1");
+    REDHAT_RPMLIB.put("rpmlib(PayloadFilesHavePrefix)", "4.0-1");
+    REDHAT_RPMLIB.put("rpmlib(PayloadIsXz)", "5.2-1");
+  }
+
+  /** the Debian architectures of the Java architectures. */
+  protected final static Map<String,String> DEBIAN_ARCH = new HashMap<>();
+
+  /** the Redhat architectures of the Java architectures. */
+  protected final static Map<String,String> REDHAT_ARCH = new HashMap<>();
+  static {
+    DEBIAN_ARCH.put("amd64", "amd64");
+    DEBIAN_ARCH.put("x86_64", "amd64");
+    DEBIAN_ARCH.put("aarch64", "arm64");
+    DEBIAN_ARCH.put("arm", "armhf");
+    DEBIAN_ARCH.put("x86", "i386");
+    DEBIAN_ARCH.put("ppc64le", "ppc64el");
+
+    REDHAT_ARCH.put("amd64", "x86_64");
+    REDHAT_ARCH.put("x86_64", "x86_64");
+    REDHAT_ARCH.put("aarch64", "aarch64");
+    REDHAT_ARCH.put("arm", "armv7hl");
+    REDHAT_ARCH.put("x86", "i686");
+    REDHAT_ARCH.put("ppc64le", "ppc64le");
+  }
+
+  /** RPM tag types. */
+  protected final static int RPM_INT16 = 3;
+  protected final static int RPM_INT32 = 4;
+  protected final static int RPM_STRING = 6;
+  protected final static int RPM_BIN = 7;
+  protected final static int RPM_STRING_ARRAY = 8;
+  protected final static int RPM_I18NSTRING = 9;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(PackageWriter.class.getName());
+
+  /**
+   * A file or directory of the packages.
+   */
+  public static class Entry {
+
+    /** the absolute path in the package. */
+    protected String m_Path;
+
+    /** the file in the staging tree, null for directories. */
+    protected File m_File;
+
+    /** the permissions. */
+    protected int m_Permissions;
+
+    /** the size in bytes. */
+    protected long m_Size;
+
+    /** the modification time (seconds since epoch). */
+    protected long m_MTime;
+
+    /**
+     * Initializes the entry.
+     *
+     * @param path		the absolute path in the package
+     * @param file		the file, null for directories
+     * @param permissions	the permissions
+     * @param mtime		the modification time in msec
+     */
+    public Entry(String path, File file, int permissions, long mtime) {
+      m_Path        = path;
+      m_File        = file;
+      m_Permissions = permissions;
+      m_Size        = (file == null) ? 0 : file.length();
+      m_MTime       = mtime / 1000;
+    }
+
+    /**
+     * Returns the absolute path in the package.
+     *
+     * @return		the path
+     */
+    public String getPath() {
+      return m_Path;
+    }
+
+    /**
+     * Returns the file in the staging tree.
+     *
+     * @return		the file, null for directories
+     */
+    public File getFile() {
+      return m_File;
+    }
+
+    /**
+     * Returns whether the entry is a directory.
+     *
+     * @return		true if directory
+     */
+    public boolean isDirectory() {
+      return (m_File == null);
+    }
+
+    /**
+     * Returns the permissions.
+     *
+     * @return		the permissions
+     */
+    public int getPermissions() {
+      return m_Permissions;
+    }
+
+    /**
+     * Returns the mode (file type and permissions).
+     *
+     * @return		the mode
+     */
+    public int getMode() {
+      return (isDirectory() ? 040000 : 0100000) | m_Permissions;
+    }
+
+    /**
+     * Returns the size.
+     *
+     * @return		the size in bytes
+     */
+    public long getSize() {
+      return m_Size;
+    }
+
+    /**
+     * Returns the modification time.
+     *
+     * @return		the time in seconds since epoch
+     */
+    public long getMTime() {
+      return m_MTime;
+    }
+
+    /**
+     * Returns the path.
+     *
+     * @return		the path
+     */
+    @Override
+    public String toString() {
+      return m_Path;
+    }
+  }
+
+  /**
+   * Counts the bytes written to the underlying stream.
+   */
+  protected static class CountingOutputStream
+    extends FilterOutputStream {
+
+    /** the bytes written. */
+    protected long m_Count;
+
+    /**
+     * Initializes the stream.
+     *
+     * @param out	the stream to write to
+     */
+    public CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      m_Count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      m_Count += len;
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return		the bytes
+     */
+    public long getCount() {
+      return m_Count;
+    }
+  }
+
+  /**
+   * The index and data of an RPM header (or signature) structure.
+   */
+  protected static class RpmHeader {
+
+    /** the type and value per tag. */
+    protected TreeMap<Integer,Object[]> m_Tags;
+
+    /**
+     * Initializes the header.
+     */
+    public RpmHeader() {
+      m_Tags = new TreeMap<>();
+    }
+
+    /**
+     * Adds the tag.
+     *
+     * @param tag	the tag
+     * @param type	the type
+     * @param value	the value: String, String[], int[], short[] or byte[]
+     * @return		itself
+     */
+    public RpmHeader add(int tag, int type, Object value) {
+      m_Tags.put(tag, new Object[]{type, value});
+      return this;
+    }
+
+    /**
+     * Generates the binary structure, with all tags in the immutable region.
+     *
+     * @param regionTag	the tag of the region (62 signature, 63 header)
+     * @return		the header
+     * @throws IOException	never
+     */
+    public byte[] toBytes(int regionTag) throws IOException {
+      ByteArrayOutputStream	index;
+      ByteArrayOutputStream	data;
+      DataOutputStream		indexOut;
+      DataOutputStream		dataOut;
+      ByteArrayOutputStream	result;
+      DataOutputStream		out;
+      int			type;
+      Object			value;
+      int			count;
+      int			offset;
+      int			numEntries;
+
+      index      = new ByteArrayOutputStream();
+      data       = new ByteArrayOutputStream();
+      indexOut   = new DataOutputStream(index);
+      dataOut    = new DataOutputStream(data);
+      numEntries = m_Tags.size() + 1;
+      for (int tag: m_Tags.keySet()) {
+	type  = (Integer) m_Tags.get(tag)[0];
+	value = m_Tags.get(tag)[1];
+	if (type == RPM_INT16)
+	  pad(dataOut, 2);
+	else if (type == RPM_INT32)
+	  pad(dataOut, 4);
+	offset = dataOut.size();
+	if (value instanceof String) {
+	  dataOut.write(((String) value).getBytes(StandardCharsets.UTF_8));
+	  dataOut.write(0);
+	  count = 1;
+	}
+	else if (value instanceof String[]) {
+	  for (String s: (String[]) value) {
+	    dataOut.write(s.getBytes(StandardCharsets.UTF_8));
+	    dataOut.write(0);
+	  }
+	  count = ((String[]) value).length;
+	}
+	else if (value instanceof int[]) {
+	  for (int i: (int[]) value)
+	    dataOut.writeInt(i);
+	  count = ((int[]) value).length;
+	}
+	else if (value instanceof short[]) {
+	  for (short s: (short[]) value)
+	    dataOut.writeShort(s);
+	  count = ((short[]) value).length;
+	}
+	else {
+	  dataOut.write((byte[]) value);
+	  count = ((byte[]) value).length;
+	}
+	indexOut.writeInt(tag);
+	indexOut.writeInt(type);
+	indexOut.writeInt(offset);
+	indexOut.writeInt(count);
+      }
+
+      // region trailer: negative offset covers all index entries
+      offset = dataOut.size();
+      dataOut.writeInt(regionTag);
+      dataOut.writeInt(RPM_BIN);
+      dataOut.writeInt(-numEntries * 16);
+      dataOut.writeInt(16);
+
+      result = new ByteArrayOutputStream();
+      out    = new DataOutputStream(result);
+      out.write(new byte[]{(byte) 0x8e, (byte) 0xad, (byte) 0xe8, 0x01});
+      out.writeInt(0);
+      out.writeInt(numEntries);
+      out.writeInt(dataOut.size());
+      out.writeInt(regionTag);
+      out.writeInt(RPM_BIN);
+      out.writeInt(offset);
+      out.writeInt(16);
+      out.write(index.toByteArray());
+      out.write(data.toByteArray());
+
+      return result.toByteArray();
+    }
+
+    /**
+     * Pads the data to the alignment.
+     *
+     * @param out	the data to pad
+     * @param align	the alignment
+     * @throws IOException	never
+     */
+    protected static void pad(DataOutputStream out, int align) throws IOException {
+      while (out.size() % align != 0)
+	out.write(0);
+    }
+  }
+
+  /** the name of the application (package name, directory below /usr/lib and executable). */
+  protected String m_Name;
+
+  /** the version. */
+  protected String m_Version;
+
+  /** whether the runtime is bundled. */
+  protected boolean m_Runtime;
+
+  /** the exclusion patterns for the jars of the Debian package. */
+  protected List<Pattern> m_Excludes;
+
+  /** the artifacts of the jars in the lib directory (file name - artifact). */
+  protected Map<String,Artifact> m_Artifacts;
+
+  /**
+   * Initializes the writer.
+   */
+  public PackageWriter() {
+    m_Name      = Template.DEFAULT_NAME;
+    m_Version   = "0.0.1";
+    m_Runtime   = false;
+    m_Excludes  = new ArrayList<>();
+    m_Artifacts = new HashMap<>();
+  }
+
+  /**
+   * Sets the name of the application.
+   *
+   * @param name	the name
+   * @return		itself
+   */
+  public PackageWriter name(String name) {
+    m_Name = name;
+    return this;
+  }
+
+  /**
+   * Returns the name of the application.
+   *
+   * @return		the name
+   */
+  public String getName() {
+    return m_Name;
+  }
+
+  /**
+   * Sets the version of the packages. Hyphens get turned into tildes (eg
+   * 1.0.0~SNAPSHOT), which Debian and Redhat sort before the release.
+   *
+   * @param version	the version
+   * @return		itself
+   */
+  public PackageWriter version(String version) {
+    m_Version = version.replace('-', '~');
+    return this;
+  }
+
+  /**
+   * Returns the version of the packages.
+   *
+   * @return		the version
+   */
+  public String getVersion() {
+    return m_Version;
+  }
+
+  /**
+   * Sets whether the runtime (jre directory) gets bundled, which makes the
+   * packages architecture-specific and drops the dependency on OpenJDK.
+   *
+   * @param runtime	true if bundled
+   * @return		itself
+   */
+  public PackageWriter runtime(boolean runtime) {
+    m_Runtime = runtime;
+    return this;
+  }
+
+  /**
+   * Returns whether the runtime gets bundled.
+   *
+   * @return		true if bundled
+   */
+  public boolean getRuntime() {
+    return m_Runtime;
+  }
+
+  /**
+   * Sets the exclusion patterns (regular expressions) for the jars of the
+   * Debian package.
+   *
+   * @param excludes	the patterns
+   * @return		itself
+   */
+  public PackageWriter excludes(List<String> excludes) {
+    m_Excludes = new ArrayList<>();
+    for (String exclude: excludes)
+      m_Excludes.add(Pattern.compile(exclude));
+    return this;
+  }
+
+  /**
+   * Returns the exclusion patterns.
+   *
+   * @return		the patterns
+   */
+  public List<Pattern> getExcludes() {
+    return m_Excludes;
+  }
+
+  /**
+   * Sets the artifacts of the jars in the lib directory, for matching the
+   * exclusion patterns.
+   *
+   * @param artifacts	the artifacts (file name - artifact)
+   * @return		itself
+   */
+  public PackageWriter artifacts(Map<String,Artifact> artifacts) {
+    m_Artifacts = artifacts;
+    return this;
+  }
+
+  /**
+   * Returns the artifacts of the jars in the lib directory.
+   *
+   * @return		the artifacts (file name - artifact)
+   */
+  public Map<String,Artifact> getArtifacts() {
+    return m_Artifacts;
+  }
+
+  /**
+   * Reads the excludeArtifactsRegExp patterns from the Debian snippet.
+   *
+   * @param snippet	the custom snippet, null for the one of bootstrapp
+   * @return		the patterns
+   * @throws IOException	if reading fails
+   */
+  public static List<String> readExcludes(File snippet) throws IOException {
+    List<String>	result;
+    String		content;
+    Matcher		block;
+    Matcher		param;
+
+    if (snippet == null)
+      content = RuntimeImage.readSnippet("debian.build", false);
+    else
+      content = new String(Files.readAllBytes(snippet.toPath()), StandardCharsets.UTF_8);
+
+    result = new ArrayList<>();
+    block  = Pattern.compile("(?s)<excludeArtifactsRegExp>(.*?)</excludeArtifactsRegExp>").matcher(content);
+    if (block.find()) {
+      param = Pattern.compile("(?s)<param>\\s*(.*?)\\s*</param>").matcher(block.group(1));
+      while (param.find())
+	result.add(param.group(1));
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks whether the jar from the lib directory matches an exclusion
+   * pattern.
+   *
+   * @param filename	the file name of the jar
+   * @return		true if excluded
+   */
+  protected boolean isExcluded(String filename) {
+    Artifact	artifact;
+    String	id;
+
+    artifact = m_Artifacts.get(filename);
+    if (artifact != null)
+      id = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getBaseVersion()
+	+ (artifact.getClassifier().isEmpty() ? "" : ":" + artifact.getClassifier());
+    else
+      id = filename.replaceAll("\\.jar$", "");
+    for (Pattern exclude: m_Excludes) {
+      if (exclude.matcher(id).matches())
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the permissions for the file.
+   *
+   * @param file	the file
+   * @return		the permissions
+   */
+  protected static int permissions(File file) {
+    return file.canExecute() ? 0755 : 0644;
+  }
+
+  /**
+   * Adds the jars of the directory to the entries.
+   *
+   * @param dir		the directory with the jars
+   * @param path	the path of the directory in the packages
+   * @param entries	the entries to add to
+   */
+  protected static void addJars(File dir, String path, List<Entry> entries) {
+    File[]	files;
+
+    files = dir.listFiles((File d, String name) -> name.endsWith(".jar"));
+    if (files == null)
+      return;
+    Arrays.sort(files);
+    entries.add(new Entry(path, null, 0755, dir.lastModified()));
+    for (File file: files)
+      entries.add(new Entry(path + "/" + file.getName(), file, 0644, file.lastModified()));
+  }
+
+  /**
+   * Lists the files and directories of the packages. Directories precede
+   * their content.
+   *
+   * @param stagingDir	the Maven output directory with lib, src and jre
+   * @param launch	the launch script
+   * @return		the entries
+   * @throws IOException	if listing the runtime fails
+   */
+  public List<Entry> collect(File stagingDir, File launch) throws IOException {
+    final List<Entry>	result;
+    final String	base;
+    final Path		runtime;
+
+    result = new ArrayList<>();
+    base   = "/usr/lib/" + m_Name;
+    result.add(new Entry("/usr/bin/" + m_Name, launch, 0755, launch.lastModified()));
+    addJars(new File(stagingDir, "lib"), base, result);
+    if (new File(stagingDir, "src").isDirectory())
+      addJars(new File(stagingDir, "src"), base + "/src", result);
+
+    runtime = RuntimeImage.dir(stagingDir).toPath();
+    if (m_Runtime && Files.isDirectory(runtime)) {
+      Files.walkFileTree(runtime, new SimpleFileVisitor<Path>() {
+	@Override
+	public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+	  result.add(new Entry(path(dir), null, 0755, attrs.lastModifiedTime().toMillis()));
+	  return FileVisitResult.CONTINUE;
+	}
+	@Override
+	public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+	  result.add(new Entry(path(file), file.toFile(), permissions(file.toFile()), attrs.lastModifiedTime().toMillis()));
+	  return FileVisitResult.CONTINUE;
+	}
+	protected String path(Path file) {
+	  String rel = runtime.relativize(file).toString().replace(File.separatorChar, '/');
+	  return base + "/" + RuntimeImage.DIR + (rel.isEmpty() ? "" : "/" + rel);
+	}
+      });
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the architecture of the packages.
+   *
+   * @param archs	the architectures per Java architecture
+   * @param noarch	the architecture for architecture-independent packages
+   * @return		the architecture
+   */
+  protected String arch(Map<String,String> archs, String noarch) {
+    String	arch;
+
+    if (!m_Runtime)
+      return noarch;
+    arch = System.getProperty("os.arch");
+    return archs.getOrDefault(arch, arch);
+  }
+
+  /**
+   * Returns the name of the Debian package, only lower case letters, digits
+   * and +-. are allowed.
+   *
+   * @return		the name
+   */
+  protected String debianName() {
+    return m_Name.toLowerCase().replaceAll("[^a-z0-9+.-]", "-");
+  }
+
+  /**
+   * Returns the file of the Debian package.
+   *
+   * @param dir		the directory for the package
+   * @return		the file
+   */
+  public File debianFile(File dir) {
+    return new File(dir, debianName() + "_" + m_Version + "_" + arch(DEBIAN_ARCH, "all") + ".deb");
+  }
+
+  /**
+   * Returns the file of the Redhat package.
+   *
+   * @param dir		the directory for the package
+   * @return		the file
+   */
+  public File redhatFile(File dir) {
+    return new File(dir, m_Name + "-" + m_Version + "-" + REDHAT_RELEASE + "." + arch(REDHAT_ARCH, "noarch") + ".rpm");
+  }
+
+  /**
+   * Throws an exception if the thread got interrupted, eg when the run got
+   * cancelled.
+   *
+   * @throws InterruptedIOException	if interrupted
+   */
+  protected static void checkInterrupted() throws InterruptedIOException {
+    if (Thread.currentThread().isInterrupted())
+      throw new InterruptedIOException("Writing package interrupted");
+  }
+
+  /**
+   * Streams the file into the output, updating the digest.
+   *
+   * @param file	the file to copy
+   * @param out		the stream to write to
+   * @param digest	the digest to update
+   * @throws IOException	if reading/writing fails
+   */
+  protected static void copy(File file, OutputStream out, MessageDigest digest) throws IOException {
+    byte[]	buffer;
+    int		read;
+
+    buffer = new byte[BUFFER_SIZE];
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      while ((read = in.read(buffer)) > -1) {
+	out.write(buffer, 0, read);
+	digest.update(buffer, 0, read);
+      }
+    }
+  }
+
+  /**
+   * Returns the digest as hex string.
+   *
+   * @param digest	the digest
+   * @return		the hex string
+   */
+  protected static String hex(byte[] digest) {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (byte b: digest)
+      result.append(String.format("%02x", b));
+    return result.toString();
+  }
+
+  /**
+   * Creates a tar stream with POSIX extensions for long names and big files.
+   *
+   * @param out		the stream to write to
+   * @return		the tar stream
+   */
+  protected static TarArchiveOutputStream newTar(OutputStream out) {
+    TarArchiveOutputStream	result;
+
+    result = new TarArchiveOutputStream(out);
+    result.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+    result.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+    return result;
+  }
+
+  /**
+   * Creates a tar entry owned by root.
+   *
+   * @param name	the name in the tar
+   * @param mode	the mode (file type and permissions)
+   * @param size	the size
+   * @param mtime	the modification time in seconds
+   * @return		the entry
+   */
+  protected static TarArchiveEntry newTarEntry(String name, int mode, long size, long mtime) {
+    TarArchiveEntry	result;
+
+    result = new TarArchiveEntry(name);
+    result.setMode(mode);
+    result.setSize(size);
+    result.setModTime(mtime * 1000);
+    result.setIds(0, 0);
+    result.setNames("root", "root");
+    return result;
+  }
+
+  /**
+   * Adds the content as file to the tar.
+   *
+   * @param tar		the tar to add to
+   * @param name	the name in the tar
+   * @param content	the content
+   * @param mtime	the modification time in seconds
+   * @throws IOException	if writing fails
+   */
+  protected static void addTarFile(TarArchiveOutputStream tar, String name, byte[] content, long mtime) throws IOException {
+    tar.putArchiveEntry(newTarEntry(name, 0100644, content.length, mtime));
+    tar.write(content);
+    tar.closeArchiveEntry();
+  }
+
+  /**
+   * Writes the Debian package: the data tar gets written (xz-compressed)
+   * to a temporary file first, as the ar header needs its size and the
+   * control tar (preceding it) the MD5 sums of the files.
+   *
+   * @param entries	the files and directories
+   * @param file	the package to write
+   * @throws Exception	if writing fails
+   */
+  public void writeDebian(List<Entry> entries, File file) throws Exception {
+    File			data;
+    StringBuilder		md5sums;
+    StringBuilder		control;
+    MessageDigest		md5;
+    long			installed;
+    long			now;
+    ByteArrayOutputStream	controlTar;
+    boolean			success;
+
+    data      = new File(file.getPath() + ".data.tar.xz");
+    md5sums   = new StringBuilder();
+    installed = 0;
+    now       = System.currentTimeMillis() / 1000;
+    success   = false;
+    try {
+      try (TarArchiveOutputStream tar = newTar(new XZOutputStream(new BufferedOutputStream(new FileOutputStream(data), BUFFER_SIZE), new LZMA2Options(XZ_PRESET)))) {
+	for (String parent: DEBIAN_PARENTS)
+	  tar.putArchiveEntry(newTarEntry("." + parent, 040755, 0, now));
+	for (Entry entry: entries) {
+	  checkInterrupted();
+	  if (entry.isDirectory()) {
+	    tar.putArchiveEntry(newTarEntry("." + entry.getPath() + "/", entry.getMode(), 0, entry.getMTime()));
+	    tar.closeArchiveEntry();
+	    continue;
+	  }
+	  tar.putArchiveEntry(newTarEntry("." + entry.getPath(), entry.getMode(), entry.getSize(), entry.getMTime()));
+	  md5 = MessageDigest.getInstance("MD5");
+	  copy(entry.getFile(), tar, md5);
+	  tar.closeArchiveEntry();
+	  md5sums.append(hex(md5.digest())).append("  ").append(entry.getPath().substring(1)).append("\n");
+	  installed += entry.getSize();
+	}
+      }
+
+      control = new StringBuilder();
+      control.append("Package: ").append(debianName()).append("\n");
+      control.append("Version: ").append(m_Version).append("\n");
+      control.append("Section: misc\n");
+      control.append("Priority: optional\n");
+      control.append("Architecture: ").append(arch(DEBIAN_ARCH, "all")).append("\n");
+      control.append("Maintainer: instant-adams\n");
+      control.append("Installed-Size: ").append((installed + 1023) / 1024).append("\n");
+      if (!m_Runtime)
+	control.append("Depends: ").append(DEBIAN_DEPENDS).append("\n");
+      control.append("Description: ").append(m_Name).append(" - ").append(DESCRIPTION).append("\n");
+      controlTar = new ByteArrayOutputStream();
+      try (TarArchiveOutputStream tar = newTar(new XZOutputStream(controlTar, new LZMA2Options(XZ_PRESET)))) {
+	tar.putArchiveEntry(newTarEntry("./", 040755, 0, now));
+	tar.closeArchiveEntry();
+	addTarFile(tar, "./control", control.toString().getBytes(StandardCharsets.UTF_8), now);
+	addTarFile(tar, "./md5sums", md5sums.toString().getBytes(StandardCharsets.UTF_8), now);
+      }
+
+      try (ArArchiveOutputStream ar = new ArArchiveOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+	ar.putArchiveEntry(new ArArchiveEntry("debian-binary", 4, 0, 0, 0100644, now));
+	ar.write("2.0\n".getBytes(StandardCharsets.US_ASCII));
+	ar.closeArchiveEntry();
+	ar.putArchiveEntry(new ArArchiveEntry("control.tar.xz", controlTar.size(), 0, 0, 0100644, now));
+	ar.write(controlTar.toByteArray());
+	ar.closeArchiveEntry();
+	ar.putArchiveEntry(new ArArchiveEntry("data.tar.xz", data.length(), 0, 0, 0100644, now));
+	Files.copy(data.toPath(), ar);
+	ar.closeArchiveEntry();
+      }
+      success = true;
+    }
+    finally {
+      Files.deleteIfExists(data.toPath());
+      if (!success)
+	Files.deleteIfExists(file.toPath());
+    }
+  }
+
+  /**
+   * Writes the Redhat package: the cpio payload gets written (xz-compressed)
+   * to a temporary file first, as the header needs the digests of the files
+   * and the signature the size and digests of header and payload.
+   *
+   * @param entries	the files and directories
+   * @param file	the package to write
+   * @throws Exception	if writing fails
+   */
+  public void writeRedhat(List<Entry> entries, File file) throws Exception {
+    File			payload;
+    MessageDigest		sha256;
+    MessageDigest		payloadDigest;
+    CountingOutputStream	uncompressed;
+    CpioArchiveEntry		cpioEntry;
+    Entry			entry;
+    int				n;
+    int[]			sizes;
+    short[]			modes;
+    int[]			mtimes;
+    String[]			digests;
+    int[]			inodes;
+    int[]			dirIndexes;
+    String[]			baseNames;
+    Map<String,Integer>		dirs;
+    String[]			fill;
+    int[]			zeros;
+    long			total;
+    long			payloadSize;
+    String			arch;
+    String			fullVersion;
+    int				pos;
+    RpmHeader			header;
+    byte[]			headerBytes;
+    RpmHeader			signature;
+    byte[]			signatureBytes;
+    MessageDigest		md5;
+    byte[]			lead;
+    byte[]			name;
+    String[]			requires;
+    int[]			requireFlags;
+    byte[]			buffer;
+    int				read;
+    boolean			success;
+
+    payload       = new File(file.getPath() + ".cpio.xz");
+    n             = entries.size();
+    sizes         = new int[n];
+    modes         = new short[n];
+    mtimes        = new int[n];
+    digests       = new String[n];
+    inodes        = new int[n];
+    dirIndexes    = new int[n];
+    baseNames     = new String[n];
+    dirs          = new LinkedHashMap<>();
+    total         = 0;
+    payloadDigest = MessageDigest.getInstance("SHA-256");
+    success       = false;
+    try {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(payload), BUFFER_SIZE)) {
+	uncompressed = new CountingOutputStream(new XZOutputStream(new DigestOutputStream(out, payloadDigest), new LZMA2Options(XZ_PRESET)));
+	try (CpioArchiveOutputStream cpio = new CpioArchiveOutputStream(uncompressed, CpioConstants.FORMAT_NEW)) {
+	  for (int i = 0; i < n; i++) {
+	    checkInterrupted();
+	    entry     = entries.get(i);
+	    cpioEntry = new CpioArchiveEntry(CpioConstants.FORMAT_NEW, "." + entry.getPath(), entry.getSize());
+	    cpioEntry.setMode(entry.getMode());
+	    cpioEntry.setInode(i + 1);
+	    cpioEntry.setNumberOfLinks(entry.isDirectory() ? 2 : 1);
+	    cpioEntry.setUID(0);
+	    cpioEntry.setGID(0);
+	    cpioEntry.setTime(entry.getMTime());
+	    cpio.putArchiveEntry(cpioEntry);
+	    if (entry.isDirectory()) {
+	      digests[i] = "";
+	    }
+	    else {
+	      sha256 = MessageDigest.getInstance("SHA-256");
+	      copy(entry.getFile(), cpio, sha256);
+	      digests[i] = hex(sha256.digest());
+	      total += entry.getSize();
+	    }
+	    cpio.closeArchiveEntry();
+	    sizes[i]     = (int) entry.getSize();
+	    modes[i]     = (short) entry.getMode();
+	    mtimes[i]    = (int) entry.getMTime();
+	    inodes[i]    = i + 1;
+	    pos          = entry.getPath().lastIndexOf('/');
+	    baseNames[i] = entry.getPath().substring(pos + 1);
+	    dirs.putIfAbsent(entry.getPath().substring(0, pos + 1), dirs.size());
+	    dirIndexes[i] = dirs.get(entry.getPath().substring(0, pos + 1));
+	  }
+	}
+      }
+      payloadSize = uncompressed.getCount();
+
+      arch         = arch(REDHAT_ARCH, "noarch");
+      fullVersion  = m_Version + "-" + REDHAT_RELEASE;
+      fill         = new String[n];
+      zeros        = new int[n];
+      requires     = REDHAT_RPMLIB.keySet().toArray(new String[0]);
+      requireFlags = new int[requires.length];
+      // RPMSENSE_LESS | RPMSENSE_EQUAL | RPMSENSE_RPMLIB
+      Arrays.fill(requireFlags, 0x02 | 0x08 | 0x1000000);
+      header = new RpmHeader()
+	.add(100, RPM_STRING_ARRAY, new String[]{"C"})
+	.add(1000, RPM_STRING, m_Name)
+	.add(1001, RPM_STRING, m_Version)
+	.add(1002, RPM_STRING, REDHAT_RELEASE)
+	.add(1004, RPM_I18NSTRING, m_Name + " - " + DESCRIPTION)
+	.add(1005, RPM_I18NSTRING, m_Name + " - " + DESCRIPTION)
+	.add(1006, RPM_INT32, new int[]{(int) (System.currentTimeMillis() / 1000)})
+	.add(1007, RPM_STRING, "localhost")
+	.add(1009, RPM_INT32, new int[]{(int) total})
+	.add(1014, RPM_STRING, "unknown")
+	.add(1016, RPM_I18NSTRING, "Applications")
+	.add(1021, RPM_STRING, "linux")
+	.add(1022, RPM_STRING, arch)
+	.add(1028, RPM_INT32, sizes)
+	.add(1030, RPM_INT16, modes)
+	.add(1033, RPM_INT16, new short[n])
+	.add(1034, RPM_INT32, mtimes)
+	.add(1035, RPM_STRING_ARRAY, digests);
+      Arrays.fill(fill, "");
+      header.add(1036, RPM_STRING_ARRAY, fill)
+	.add(1037, RPM_INT32, zeros);
+      fill = new String[n];
+      Arrays.fill(fill, "root");
+      header.add(1039, RPM_STRING_ARRAY, fill)
+	.add(1040, RPM_STRING_ARRAY, fill)
+	.add(1044, RPM_STRING, m_Name + "-" + fullVersion + ".src.rpm")
+	.add(1047, RPM_STRING_ARRAY, new String[]{m_Name})
+	.add(1048, RPM_INT32, requireFlags)
+	.add(1049, RPM_STRING_ARRAY, requires)
+	.add(1050, RPM_STRING_ARRAY, REDHAT_RPMLIB.values().toArray(new String[0]));
+      zeros = new int[n];
+      Arrays.fill(zeros, 1);
+      header.add(1095, RPM_INT32, zeros)
+	.add(1096, RPM_INT32, inodes);
+      fill = new String[n];
+      Arrays.fill(fill, "");
+      header.add(1097, RPM_STRING_ARRAY, fill)
+	// RPMSENSE_EQUAL
+	.add(1112, RPM_INT32, new int[]{0x08})
+	.add(1113, RPM_STRING_ARRAY, new String[]{fullVersion})
+	.add(1116, RPM_INT32, dirIndexes)
+	.add(1117, RPM_STRING_ARRAY, baseNames)
+	.add(1118, RPM_STRING_ARRAY, dirs.keySet().toArray(new String[0]))
+	.add(1124, RPM_STRING, "cpio")
+	.add(1125, RPM_STRING, "xz")
+	.add(1126, RPM_STRING, "" + XZ_PRESET)
+	// PGPHASHALGO_SHA256
+	.add(5011, RPM_INT32, new int[]{8})
+	.add(5092, RPM_STRING_ARRAY, new String[]{hex(payloadDigest.digest())})
+	.add(5093, RPM_INT32, new int[]{8});
+      headerBytes = header.toBytes(63);
+
+      md5 = MessageDigest.getInstance("MD5");
+      md5.update(headerBytes);
+      buffer = new byte[BUFFER_SIZE];
+      try (InputStream in = Files.newInputStream(payload.toPath())) {
+	while ((read = in.read(buffer)) > -1)
+	  md5.update(buffer, 0, read);
+      }
+      signature = new RpmHeader()
+	.add(269, RPM_STRING, hex(MessageDigest.getInstance("SHA-1").digest(headerBytes)))
+	.add(273, RPM_STRING, hex(MessageDigest.getInstance("SHA-256").digest(headerBytes)))
+	.add(1000, RPM_INT32, new int[]{(int) (headerBytes.length + payload.length())})
+	.add(1004, RPM_BIN, md5.digest())
+	.add(1007, RPM_INT32, new int[]{(int) payloadSize});
+      signatureBytes = signature.toBytes(62);
+
+      lead = new byte[96];
+      lead[0] = (byte) 0xed;
+      lead[1] = (byte) 0xab;
+      lead[2] = (byte) 0xee;
+      lead[3] = (byte) 0xdb;
+      lead[4] = 3;
+      // type: binary (0), arch: 1
+      lead[9] = 1;
+      name = (m_Name + "-" + fullVersion).getBytes(StandardCharsets.UTF_8);
+      System.arraycopy(name, 0, lead, 10, Math.min(name.length, 65));
+      // os: linux (1), signature type: header-style (5)
+      lead[77] = 1;
+      lead[79] = 5;
+
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)) {
+	out.write(lead);
+	out.write(signatureBytes);
+	out.write(new byte[(8 - signatureBytes.length % 8) % 8]);
+	out.write(headerBytes);
+	Files.copy(payload.toPath(), out);
+      }
+      success = true;
+    }
+    finally {
+      Files.deleteIfExists(payload.toPath());
+      if (!success)
+	Files.deleteIfExists(file.toPath());
+    }
+  }
+
+  /**
+   * Writes the requested packages concurrently into the staging directory.
+   *
+   * @param stagingDir	the Maven output directory with lib, src and jre
+   * @param launch	the launch script
+   * @param debian	whether to write the Debian package
+   * @param redhat	whether to write the Redhat package
+   * @param written	for adding the written packages, can be null
+   * @return		null if successful, otherwise error message
+   */
+  public String write(File stagingDir, File launch, boolean debian, boolean redhat, List<File> written) {
+    List<Entry>		entries;
+    List<Entry>		debianEntries;
+    List<String>	excluded;
+    ExecutorService	executor;
+    List<Future<File>>	futures;
+    File		file;
+
+    if (!launch.exists())
+      return "Launch script for Debian/Redhat packages not found (main class supplied?): " + launch;
+
+    try {
+      entries = collect(stagingDir, launch);
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to list files for packages: " + stagingDir, e);
+      return "Failed to list files for packages: " + stagingDir;
+    }
+
+    debianEntries = new ArrayList<>();
+    excluded      = new ArrayList<>();
+    for (Entry entry: entries) {
+      if ((entry.getFile() != null) && entry.getPath().equals("/usr/lib/" + m_Name + "/" + entry.getFile().getName()) && isExcluded(entry.getFile().getName()))
+	excluded.add(entry.getFile().getName());
+      else
+	debianEntries.add(entry);
+    }
+    if (debian && !excluded.isEmpty())
+      LOGGER.info("Excluded from Debian package (" + excluded.size() + "): " + String.join(", ", excluded));
+
+    executor = Executors.newFixedThreadPool(2);
+    futures  = new ArrayList<>();
+    try {
+      if (debian) {
+	futures.add(executor.submit(() -> {
+	  File deb = debianFile(stagingDir);
+	  writeDebian(debianEntries, deb);
+	  return deb;
+	}));
+      }
+      if (redhat) {
+	futures.add(executor.submit(() -> {
+	  File rpm = redhatFile(stagingDir);
+	  writeRedhat(entries, rpm);
+	  return rpm;
+	}));
+      }
+      for (Future<File> future: futures) {
+	file = future.get();
+	LOGGER.info("Wrote package: " + file + " (" + String.format("%.2f", file.length() / 1024.0 / 1024.0) + " MB)");
+	if (written != null)
+	  written.add(file);
+      }
+    }
+    catch (ExecutionException e) {
+      LOGGER.log(Level.SEVERE, "Failed to write package!", e.getCause());
+      return "Failed to write package: " + e.getCause();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "Interrupted while writing packages!";
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,533 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PomParser.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass, streaming extraction of information from pom.xml files.
+ * Comments are ignored, elements get matched by their path rather than
+ * by line. The modules of poms with the usual aggregator layout get
+ * extracted by a fast path that only looks at the relevant tags.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PomParser {
+
+  /** the (JDK) factory property for reusing the reader instance. */
+  public final static String REUSE_INSTANCE = "reuse-instance";
+
+  /**
+   * The factories for the readers, one per thread, as a factory that reuses
+   * its reader instance must not be shared.
+   */
+  protected static final ThreadLocal<XMLInputFactory> FACTORY = ThreadLocal.withInitial(PomParser::newFactory);
+
+  /**
+   * Creates a new factory. Namespace processing is off, like with Maven's
+   * own pom parser. Coalescing is off as well, as the text of elements gets
+   * retrieved with getElementText(), which concatenates the text anyway.
+   * If supported, the factory reuses its reader instance rather than
+   * allocating the buffers and symbol table for every pom.
+   *
+   * @return		the factory
+   */
+  protected static XMLInputFactory newFactory() {
+    XMLInputFactory	result;
+
+    result = XMLInputFactory.newInstance();
+    result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    result.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    result.setProperty(XMLInputFactory.IS_COALESCING, false);
+    if (result.isPropertySupported(REUSE_INSTANCE))
+      result.setProperty(REUSE_INSTANCE, true);
+
+    return result;
+  }
+
+  /**
+   * Creates a new reader for the stream. The reader may get reused, hence
+   * it must be closed before creating another one in the same thread.
+   *
+   * @param in		the stream to read from
+   * @return		the reader
+   * @throws XMLStreamException	if creation fails
+   */
+  protected static XMLStreamReader newReader(InputStream in) throws XMLStreamException {
+    return FACTORY.get().createXMLStreamReader(in);
+  }
+
+  /**
+   * Turns the element stack into a path, eg "project/modules/module".
+   *
+   * @param stack	the element names
+   * @return		the path
+   */
+  protected static String toPath(Deque<String> stack) {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (String name: stack) {
+      if (result.length() > 0)
+        result.append("/");
+      result.append(name);
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Extracts the (unique) modules from the pom.xml, from the top-level
+   * modules section and, if requested, from the profiles as well. Modules
+   * containing variables get skipped. Uses the fast path if the pom has the
+   * usual aggregator layout, otherwise the streaming parser.
+   *
+   * @param in			the pom.xml to read
+   * @param includeProfiles	whether to include modules declared in profiles
+   * @return			the sorted modules
+   * @throws IOException	if reading fails
+   * @throws XMLStreamException	if parsing fails
+   * @see			#extractModulesFast(String, boolean)
+   * @see			#extractModulesStreaming(InputStream, boolean)
+   */
+  public static List<String> extractModules(InputStream in, boolean includeProfiles) throws IOException, XMLStreamException {
+    byte[]		content;
+    List<String>	result;
+
+    content = in.readAllBytes();
+    result  = extractModulesFast(new String(content, StandardCharsets.UTF_8), includeProfiles);
+    if (result == null)
+      result = extractModulesStreaming(new ByteArrayInputStream(content), includeProfiles);
+
+    return result;
+  }
+
+  /**
+   * Extracts the (unique) modules from the pom.xml string, from the top-level
+   * modules section and, if requested, from the profiles as well. Modules
+   * containing variables get skipped. Uses the fast path if the pom has the
+   * usual aggregator layout, otherwise the streaming parser.
+   *
+   * @param pom			the pom.xml content
+   * @param includeProfiles	whether to include modules declared in profiles
+   * @return			the sorted modules
+   * @throws XMLStreamException	if parsing fails
+   * @see			#extractModulesFast(String, boolean)
+   * @see			#extractModulesStreaming(InputStream, boolean)
+   */
+  public static List<String> extractModules(String pom, boolean includeProfiles) throws XMLStreamException {
+    List<String>	result;
+
+    result = extractModulesFast(pom, includeProfiles);
+    if (result == null)
+      result = extractModulesStreaming(new ByteArrayInputStream(pom.getBytes(StandardCharsets.UTF_8)), includeProfiles);
+
+    return result;
+  }
+
+  /**
+   * Checks whether the element name between start and end is the specified
+   * one.
+   *
+   * @param pom		the pom.xml content
+   * @param start	the start of the name
+   * @param end		the end of the name (excluded)
+   * @param name	the name to check against
+   * @return		true if the name matches
+   */
+  protected static boolean isName(String pom, int start, int end, String name) {
+    return (end - start == name.length()) && pom.startsWith(name, start);
+  }
+
+  /**
+   * Fast path for the usual layout of aggregator poms, which only looks at
+   * the tags and skips comments: plain modules sections in the project or
+   * the profiles, containing nothing but module elements with plain text.
+   * Returns null for anything else (CDATA, entities, DTDs, attributes on the
+   * relevant tags, modules sections in build or reporting, encodings other
+   * than UTF-8), which requires the streaming parser.
+   *
+   * @param pom			the pom.xml content
+   * @param includeProfiles	whether to include modules declared in profiles
+   * @return			the sorted modules, null if the layout is not supported
+   */
+  public static List<String> extractModulesFast(String pom, boolean includeProfiles) {
+    Set<String>		modules;
+    List<String>	result;
+    String		module;
+    String		prolog;
+    int			pos;
+    int			end;
+    int			nameStart;
+    int			nameEnd;
+    int			nested;
+    char		c;
+    boolean		closing;
+    boolean		simple;
+    boolean		inModules;
+    boolean		inProfiles;
+    boolean		skip;
+
+    pos = pom.startsWith("\uFEFF") ? 1 : 0;
+    if (pom.startsWith("<?xml", pos)) {
+      end = pom.indexOf("?>", pos);
+      if (end < 0)
+        return null;
+      prolog = pom.substring(pos, end).toLowerCase();
+      if (prolog.contains("encoding") && !prolog.contains("utf-8"))
+        return null;
+    }
+    else if (!pom.startsWith("<project", pos)) {
+      return null;
+    }
+
+    modules    = new LinkedHashSet<>();
+    inModules  = false;
+    inProfiles = false;
+    skip       = false;
+    nested     = 0;
+    while ((pos = pom.indexOf('<', pos)) > -1) {
+      // comments, CDATA, DTD
+      if (pom.startsWith("<!--", pos)) {
+        end = pom.indexOf("-->", pos + 4);
+        if (end < 0)
+          return null;
+        pos = end + 3;
+        continue;
+      }
+      if (pom.startsWith("<!", pos))
+        return null;
+
+      closing   = (pos + 1 < pom.length()) && (pom.charAt(pos + 1) == '/');
+      nameStart = closing ? pos + 2 : pos + 1;
+      nameEnd   = nameStart;
+      while (nameEnd < pom.length()) {
+        c = pom.charAt(nameEnd);
+        if ((c == '>') || (c == '/') || Character.isWhitespace(c))
+          break;
+        nameEnd++;
+      }
+      simple = (nameEnd < pom.length()) && (pom.charAt(nameEnd) == '>');
+      pos    = nameEnd;
+
+      if (isName(pom, nameStart, nameEnd, "module")) {
+        if (closing || !simple || !inModules)
+          return null;
+        end = pom.indexOf('<', nameEnd + 1);
+        if ((end < 0) || !pom.startsWith("</module>", end))
+          return null;
+        module = pom.substring(nameEnd + 1, end);
+        if (module.indexOf('&') > -1)
+          return null;
+        module = module.trim();
+        if (!skip && !module.isEmpty() && !module.contains("$"))
+          modules.add(module);
+        pos = end + 9;
+      }
+      else if (isName(pom, nameStart, nameEnd, "modules")) {
+        if (!simple || (closing != inModules) || (nested > 0))
+          return null;
+        inModules = !closing;
+        skip      = inProfiles && !includeProfiles;
+      }
+      else if (inModules) {
+        return null;
+      }
+      else if (isName(pom, nameStart, nameEnd, "profiles")) {
+        if (!simple)
+          return null;
+        inProfiles = !closing;
+      }
+      // sections that may contain plugin configurations
+      else if (isName(pom, nameStart, nameEnd, "build") || isName(pom, nameStart, nameEnd, "reporting")) {
+        if (!simple)
+          return null;
+        nested += closing ? -1 : 1;
+      }
+    }
+
+    if (inModules)
+      return null;
+
+    result = new ArrayList<>(modules);
+    Collections.sort(result);
+
+    return result;
+  }
+
+  /**
+   * Extracts the (unique) modules from the pom.xml with the streaming
+   * parser, from the top-level modules section and, if requested, from the
+   * profiles as well. Modules containing variables get skipped.
+   *
+   * @param in			the pom.xml to read
+   * @param includeProfiles	whether to include modules declared in profiles
+   * @return			the sorted modules
+   * @throws XMLStreamException	if parsing fails
+   */
+  public static List<String> extractModulesStreaming(InputStream in, boolean includeProfiles) throws XMLStreamException {
+    XMLStreamReader	reader;
+    Deque<String>	stack;
+    Set<String>		modules;
+    List<String>	result;
+    String		path;
+    String		module;
+
+    modules = new LinkedHashSet<>();
+    stack   = new ArrayDeque<>();
+    reader  = newReader(in);
+    try {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            stack.addLast(reader.getLocalName());
+            if (!reader.getLocalName().equals("module"))
+              break;
+            path = toPath(stack);
+            if (path.equals("project/modules/module")
+              || (includeProfiles && path.equals("project/profiles/profile/modules/module"))) {
+              module = reader.getElementText().trim();
+              stack.removeLast();
+              if (!module.isEmpty() && !module.contains("$"))
+                modules.add(module);
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            stack.removeLast();
+            break;
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+
+    result = new ArrayList<>(modules);
+    Collections.sort(result);
+
+    return result;
+  }
+
+  /**
+   * Extracts the version of the project from the pom.xml. Falls back on the
+   * version of the parent if the project does not declare one.
+   *
+   * @param in		the pom.xml to read
+   * @return		the version, null if none found
+   * @throws XMLStreamException	if parsing fails
+   */
+  public static String extractVersion(InputStream in) throws XMLStreamException {
+    XMLStreamReader	reader;
+    Deque<String>	stack;
+    String		path;
+    String		parent;
+
+    parent = null;
+    stack  = new ArrayDeque<>();
+    reader = newReader(in);
+    try {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            stack.addLast(reader.getLocalName());
+            if (!reader.getLocalName().equals("version") || (stack.size() > 3))
+              break;
+            path = toPath(stack);
+            if (path.equals("project/version"))
+              return reader.getElementText().trim();
+            if (path.equals("project/parent/version")) {
+              parent = reader.getElementText().trim();
+              stack.removeLast();
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            stack.removeLast();
+            break;
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+
+    return parent;
+  }
+
+  /**
+   * Extracts what resolving the pom.xml requires: the parent, the imported
+   * BOMs and the non-optional compile/runtime dependencies. Variables
+   * referring to the project/parent coordinates or the properties of the
+   * pom.xml get expanded. The version is empty if not declared (eg managed by
+   * the parent) or if it contains other variables.
+   *
+   * @param in		the pom.xml to read
+   * @return		the references (groupId:artifactId:version)
+   * @throws XMLStreamException	if parsing fails
+   */
+  public static List<String> extractReferences(InputStream in) throws XMLStreamException {
+    XMLStreamReader	reader;
+    Deque<String>	stack;
+    List<String[]>	coords;
+    List<String>	result;
+    Map<String,String>	props;
+    String[]		parent;
+    String[]		dependency;
+    String		managed;
+    String		path;
+    String		name;
+    String		value;
+
+    coords     = new ArrayList<>();
+    props      = new HashMap<>();
+    parent     = new String[3];
+    dependency = new String[5];
+    managed    = "project/dependencyManagement/dependencies/dependency";
+    stack      = new ArrayDeque<>();
+    reader     = newReader(in);
+    try {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            stack.addLast(reader.getLocalName());
+            path = toPath(stack);
+            if (path.equals(managed) || path.equals("project/dependencies/dependency")) {
+              Arrays.fill(dependency, null);
+              break;
+            }
+            name = reader.getLocalName();
+            if ((path.startsWith("project/properties/") && (stack.size() == 3))
+              || path.equals("project/groupId") || path.equals("project/version")) {
+              props.put(path.startsWith("project/properties/") ? name : "project." + name, reader.getElementText().trim());
+              stack.removeLast();
+            }
+            else if (path.startsWith("project/parent/") && (stack.size() == 3)) {
+              value = reader.getElementText().trim();
+              stack.removeLast();
+              if (name.equals("groupId"))
+                parent[0] = value;
+              else if (name.equals("artifactId"))
+                parent[1] = value;
+              else if (name.equals("version"))
+                parent[2] = value;
+            }
+            else if ((path.startsWith(managed + "/") && (stack.size() == 5))
+              || (path.startsWith("project/dependencies/dependency/") && (stack.size() == 4))) {
+              value = reader.getElementText().trim();
+              stack.removeLast();
+              if (name.equals("groupId"))
+                dependency[0] = value;
+              else if (name.equals("artifactId"))
+                dependency[1] = value;
+              else if (name.equals("version"))
+                dependency[2] = value;
+              else if (name.equals("scope"))
+                dependency[3] = value;
+              else if (name.equals("optional"))
+                dependency[4] = value;
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            path = toPath(stack);
+            if (path.equals(managed) && "import".equals(dependency[3]))
+              coords.add(dependency.clone());
+            else if (path.equals("project/dependencies/dependency") && !"true".equals(dependency[4])
+              && ((dependency[3] == null) || dependency[3].equals("compile") || dependency[3].equals("runtime")))
+              coords.add(dependency.clone());
+            stack.removeLast();
+            break;
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+    coords.add(parent);
+
+    // coordinates inherited from the parent
+    if (parent[0] != null)
+      props.putIfAbsent("project.groupId", parent[0]);
+    if (parent[2] != null) {
+      props.put("project.parent.version", parent[2]);
+      props.putIfAbsent("project.version", parent[2]);
+    }
+    if (props.containsKey("project.version"))
+      props.put("pom.version", props.get("project.version"));
+
+    result = new ArrayList<>();
+    for (String[] c: coords) {
+      for (int i = 0; i < 3; i++)
+        c[i] = expand(c[i], props);
+      addReference(result, c);
+    }
+
+    return result;
+  }
+
+  /**
+   * Expands the variables in the value.
+   *
+   * @param value	the value to expand, can be null
+   * @param props	the variables
+   * @return		the expanded value
+   */
+  protected static String expand(String value, Map<String,String> props) {
+    if (value == null)
+      return null;
+    for (int i = 0; (i < 5) && value.contains("${"); i++) {
+      for (String key: props.keySet())
+        value = value.replace("${" + key + "}", props.get(key));
+    }
+    return value;
+  }
+
+  /**
+   * Adds the reference if groupId and artifactId are known, using an empty
+   * version if not known.
+   *
+   * @param references	the references to add to
+   * @param coords	groupId, artifactId and version
+   */
+  protected static void addReference(List<String> references, String[] coords) {
+    for (int i = 0; i < 2; i++) {
+      if ((coords[i] == null) || coords[i].isEmpty() || coords[i].contains("$"))
+        return;
+    }
+    references.add(coords[0] + ":" + coords[1] + ":" + (((coords[2] == null) || coords[2].contains("$")) ? "" : coords[2]));
+  }
+}
@@ -0,0 +1,408 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ResolverBootstrapp.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import adams.bootstrap.core.BootstrapReport.Phase;
+import org.eclipse.aether.RepositoryCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.logging.Level;
+
+/**
+ * Bootstrapp variant that resolves and copies the dependencies in-process
+ * rather than forking a Maven build. Falls back on the forked Maven build
+ * if in-process resolution fails (if enabled) or if the configuration
+ * requires Maven, e.g., for generating Debian/Redhat packages. In offline
+ * mode, there is no fallback. With a lockfile, only the listed artifacts get
+ * copied, without any transitive resolution.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ResolverBootstrapp
+  extends TimedBootstrapp {
+
+  /** whether to fall back on Maven if resolution fails. */
+  protected boolean m_Fallback;
+
+  /** the number of concurrent downloads. */
+  protected int m_DownloadThreads;
+
+  /** the maximum number of connections per host. */
+  protected int m_ConnectionsPerHost;
+
+  /** the number of retries for failed downloads. */
+  protected int m_DownloadRetries;
+
+  /** whether to work offline. */
+  protected boolean m_Offline;
+
+  /** the lockfile to bootstrap from. */
+  protected File m_Lockfile;
+
+  /** the in-memory resolution cache to use, can be null. */
+  protected transient RepositoryCache m_RepositoryCache;
+
+  /** the target platform(s), null for all. */
+  protected transient TargetPlatform m_TargetPlatform;
+
+  /** the groups to retrieve source jars for, null for all. */
+  protected transient GroupFilter m_SourcesFilter;
+
+  /** whether the Maven home has been initialized. */
+  protected transient boolean m_MavenHomeInitialized;
+
+  /**
+   * Initializes the members.
+   */
+  @Override
+  protected void initialize() {
+    super.initialize();
+    m_Fallback             = true;
+    m_DownloadThreads      = DependencyResolver.DEFAULT_DOWNLOAD_THREADS;
+    m_ConnectionsPerHost   = DependencyResolver.DEFAULT_CONNECTIONS_PER_HOST;
+    m_DownloadRetries      = DependencyResolver.DEFAULT_RETRIES;
+    m_Offline              = false;
+    m_Lockfile             = null;
+    m_RepositoryCache      = null;
+    m_TargetPlatform       = null;
+    m_SourcesFilter        = null;
+    m_MavenHomeInitialized = false;
+  }
+
+  /**
+   * Sets whether to fall back on the forked Maven build if in-process
+   * resolution fails.
+   *
+   * @param value	true if to fall back
+   * @return		itself
+   */
+  public ResolverBootstrapp fallback(boolean value) {
+    m_Fallback = value;
+    return this;
+  }
+
+  /**
+   * Returns whether to fall back on the forked Maven build if in-process
+   * resolution fails.
+   *
+   * @return		true if to fall back
+   */
+  public boolean getFallback() {
+    return m_Fallback;
+  }
+
+  /**
+   * Sets the number of concurrent downloads.
+   *
+   * @param num		the number of threads
+   * @return		itself
+   */
+  public ResolverBootstrapp downloadThreads(int num) {
+    m_DownloadThreads = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of concurrent downloads.
+   *
+   * @return		the number of threads
+   */
+  public int getDownloadThreads() {
+    return m_DownloadThreads;
+  }
+
+  /**
+   * Sets the maximum number of connections per host.
+   *
+   * @param num		the maximum number of connections
+   * @return		itself
+   */
+  public ResolverBootstrapp connectionsPerHost(int num) {
+    m_ConnectionsPerHost = num;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of connections per host.
+   *
+   * @return		the maximum number of connections
+   */
+  public int getConnectionsPerHost() {
+    return m_ConnectionsPerHost;
+  }
+
+  /**
+   * Sets the number of retries for failed downloads.
+   *
+   * @param num		the number of retries
+   * @return		itself
+   */
+  public ResolverBootstrapp downloadRetries(int num) {
+    m_DownloadRetries = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of retries for failed downloads.
+   *
+   * @return		the number of retries
+   */
+  public int getDownloadRetries() {
+    return m_DownloadRetries;
+  }
+
+  /**
+   * Sets whether to work offline, ie only use the local repository.
+   *
+   * @param value	true if offline
+   * @return		itself
+   */
+  public ResolverBootstrapp offline(boolean value) {
+    m_Offline = value;
+    return this;
+  }
+
+  /**
+   * Returns whether to work offline.
+   *
+   * @return		true if offline
+   */
+  public boolean getOffline() {
+    return m_Offline;
+  }
+
+  /**
+   * Sets the lockfile to bootstrap from, skipping transitive resolution.
+   *
+   * @param file	the lockfile, null to resolve the dependencies
+   * @return		itself
+   */
+  public ResolverBootstrapp lockfile(File file) {
+    m_Lockfile = file;
+    return this;
+  }
+
+  /**
+   * Returns the lockfile to bootstrap from.
+   *
+   * @return		the lockfile, null if resolving the dependencies
+   */
+  public File getLockfile() {
+    return m_Lockfile;
+  }
+
+  /**
+   * Sets the in-memory resolution cache to use.
+   *
+   * @param cache	the cache, null for a new one
+   * @return		itself
+   * @see		DependencyResolver#repositoryCache(RepositoryCache)
+   */
+  public ResolverBootstrapp repositoryCache(RepositoryCache cache) {
+    m_RepositoryCache = cache;
+    return this;
+  }
+
+  /**
+   * Returns the in-memory resolution cache to use.
+   *
+   * @return		the cache, null for a new one
+   */
+  public RepositoryCache getRepositoryCache() {
+    return m_RepositoryCache;
+  }
+
+  /**
+   * Sets the target platform(s).
+   *
+   * @param platform	the platform(s), null for all
+   * @return		itself
+   * @see		DependencyResolver#targetPlatform(TargetPlatform)
+   */
+  public ResolverBootstrapp targetPlatform(TargetPlatform platform) {
+    m_TargetPlatform = platform;
+    return this;
+  }
+
+  /**
+   * Returns the target platform(s).
+   *
+   * @return		the platform(s), null for all
+   */
+  public TargetPlatform getTargetPlatform() {
+    return m_TargetPlatform;
+  }
+
+  /**
+   * Sets the groups to retrieve source jars for.
+   *
+   * @param filter	the filter, null for all
+   * @return		itself
+   * @see		DependencyResolver#sourcesFilter(GroupFilter)
+   */
+  public ResolverBootstrapp sourcesFilter(GroupFilter filter) {
+    m_SourcesFilter = filter;
+    return this;
+  }
+
+  /**
+   * Returns the groups to retrieve source jars for.
+   *
+   * @return		the filter, null for all
+   */
+  public GroupFilter getSourcesFilter() {
+    return m_SourcesFilter;
+  }
+
+  /**
+   * Returns whether the configuration requires the forked Maven build.
+   *
+   * @return		true if Maven is required
+   */
+  protected boolean requiresMaven() {
+    return m_Debian || m_Redhat || m_SpringBoot
+      || ((getExclusions() != null) && !getExclusions().isEmpty())
+      || ((getRepositories() != null) && !getRepositories().isEmpty());
+  }
+
+  /**
+   * Initializes the Maven home. Deferred until Maven is actually needed,
+   * to avoid downloading Maven when resolving in-process.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  protected String initMavenHome() {
+    if (!requiresMaven() && !m_MavenHomeInitialized)
+      return null;
+    m_MavenHomeInitialized = true;
+    return super.initMavenHome();
+  }
+
+  /**
+   * Deletes the directory recursively.
+   *
+   * @param dir		the directory to delete
+   * @throws IOException	if deletion fails
+   */
+  protected void delete(File dir) throws IOException {
+    if (!dir.exists())
+      return;
+    Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+	Files.delete(file);
+	return FileVisitResult.CONTINUE;
+      }
+      @Override
+      public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+	Files.delete(d);
+	return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Resolves and copies the dependencies in-process.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String resolveDependencies() {
+    DependencyResolver	resolver;
+    File		libDir;
+    File		srcDir;
+
+    libDir   = new File(m_OutputDirMaven, "lib");
+    srcDir   = m_Sources ? new File(m_OutputDirMaven, "src") : null;
+    resolver = new DependencyResolver(m_MavenUserSettings, m_MavenHome)
+      .downloadThreads(m_DownloadThreads)
+      .connectionsPerHost(m_ConnectionsPerHost)
+      .retries(m_DownloadRetries)
+      .offline(m_Offline)
+      .repositoryCache(m_RepositoryCache)
+      .targetPlatform(m_TargetPlatform)
+      .sourcesFilter(m_SourcesFilter)
+      .report(m_Report);
+    if (m_Report != null)
+      m_Report.addStatistics(resolver.getStatistics());
+    try {
+      if (m_Clean)
+	delete(m_OutputDirMaven);
+      if (m_Lockfile != null)
+	resolver.copyLocked(Lockfile.read(m_Lockfile), libDir, srcDir);
+      else
+	resolver.copyDependencies(getAllDependencies(), libDir, srcDir);
+      if (m_Report != null)
+	m_Report.phaseStarted(Phase.COPYING);
+      if (m_ExternalJars != null)
+	resolver.copyExternal(toJars(m_ExternalJars), libDir, null);
+      if ((srcDir != null) && (m_ExternalSources != null))
+	resolver.copyExternal(toJars(m_ExternalSources), srcDir, DependencyResolver.CLASSIFIER_SOURCES);
+      if (m_Report != null)
+	m_Report.phaseFinished(Phase.COPYING);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to resolve dependencies in-process!", e);
+      return "Failed to resolve dependencies in-process: " + e;
+    }
+
+    return null;
+  }
+
+  /**
+   * Resolves the dependencies in-process, falling back on the forked
+   * Maven build if necessary.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  protected String executeMaven() {
+    String	result;
+
+    if (requiresMaven() && (m_Lockfile != null))
+      return "Bootstrapping from a lockfile is not supported for Debian/Redhat packages!";
+
+    if (requiresMaven()) {
+      getLogger().info("Configuration requires Maven, using forked Maven build");
+      return super.executeMaven();
+    }
+
+    result = resolveDependencies();
+    if ((result == null) || !m_Fallback || m_Offline || (m_Lockfile != null))
+      return result;
+    if ((m_Report != null) && m_Report.isCancelled())
+      return m_Report.getCancelled();
+
+    getLogger().warning("Falling back on forked Maven build");
+    if (m_Report != null)
+      m_Report.warning("Falling back on forked Maven build: " + result);
+    m_MavenHomeInitialized = true;
+    if ((result = super.initMavenHome()) != null)
+      return result;
+    return super.executeMaven();
+  }
+}
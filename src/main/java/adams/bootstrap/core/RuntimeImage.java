@@ -0,0 +1,536 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RuntimeImage.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates a trimmed Java runtime for a bootstrapped application with
+ * jlink, containing only the JDK modules that jdeps determines for the
+ * jars (plus some additional ones that get loaded via reflection/services).
+ * Debug information gets stripped and the modules compressed. Also updates
+ * the start scripts and the Maven snippets of the Debian/Redhat packages
+ * to use/bundle the runtime.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RuntimeImage {
+
+  /** the directory of the runtime (below the Maven output directory or the package directory). */
+  public final static String DIR = "jre";
+
+  /** the additional modules that get included by default (if available). */
+  public final static String DEFAULT_MODULES = "jdk.crypto.ec,jdk.zipfs";
+
+  /** the minimum Java version for generating the runtime. */
+  public final static int MIN_VERSION = 11;
+
+  /** the minimum Java version for zip-N compression and generating the CDS archive via jlink. */
+  public final static int MIN_VERSION_JLINK_CDS = 21;
+
+  /** the minimum Java version for generating the default CDS archive. */
+  public final static int MIN_VERSION_DEFAULT_CDS = 12;
+
+  /** the file name of the generated Debian snippet in the output directory. */
+  public final static String DEBIAN_SNIPPET = "instant-adams-runtime-debian.build";
+
+  /** the file name of the generated Redhat snippet in the output directory. */
+  public final static String REDHAT_SNIPPET = "instant-adams-runtime-redhat.build";
+
+  /** the bootstrapp resources with the package snippets. */
+  public final static String SNIPPETS = "com/github/fracpete/bootstrapp/";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(RuntimeImage.class.getName());
+
+  /** the Java home with jdeps/jlink to use, null for the current one. */
+  protected File m_JavaHome;
+
+  /** the additional modules (comma-separated). */
+  protected String m_Modules;
+
+  /**
+   * Initializes the generator.
+   */
+  public RuntimeImage() {
+    m_JavaHome = null;
+    m_Modules  = DEFAULT_MODULES;
+  }
+
+  /**
+   * Sets the Java home with jdeps/jlink to use.
+   *
+   * @param javaHome	the Java home, null for the current one
+   * @return		itself
+   */
+  public RuntimeImage javaHome(File javaHome) {
+    m_JavaHome = javaHome;
+    return this;
+  }
+
+  /**
+   * Sets the additional modules to include.
+   *
+   * @param modules	the modules (comma-separated), null or empty for none
+   * @return		itself
+   */
+  public RuntimeImage modules(String modules) {
+    m_Modules = (modules == null) ? "" : modules;
+    return this;
+  }
+
+  /**
+   * Returns the runtime directory below the directory.
+   *
+   * @param dir		the Maven output directory or the output directory
+   * @return		the runtime directory
+   */
+  public static File dir(File dir) {
+    return new File(dir, DIR);
+  }
+
+  /**
+   * Returns the absolute Java home in use.
+   *
+   * @return		the Java home
+   */
+  protected File actualJavaHome() {
+    return (m_JavaHome == null) ? new File(System.getProperty("java.home")) : m_JavaHome.getAbsoluteFile();
+  }
+
+  /**
+   * Returns the path of the tool in the Java home.
+   *
+   * @param javaHome	the Java home
+   * @param tool	the tool, eg jlink
+   * @return		the path
+   */
+  protected static String tool(File javaHome, String tool) {
+    return javaHome.getAbsolutePath() + File.separator + "bin" + File.separator + tool;
+  }
+
+  /**
+   * Executes the command and returns its output (stdout and stderr).
+   *
+   * @param cmd		the command to execute
+   * @param output	for storing the output
+   * @return		null if successful, otherwise error message
+   */
+  protected static String run(List<String> cmd, StringBuilder output) {
+    ProcessBuilder		builder;
+    Process			proc;
+    ByteArrayOutputStream	bytes;
+    int				exitCode;
+
+    LOGGER.fine("Executing: " + String.join(" ", cmd));
+    builder = new ProcessBuilder(cmd);
+    builder.redirectErrorStream(true);
+    bytes = new ByteArrayOutputStream();
+    try {
+      proc = builder.start();
+      try (InputStream in = proc.getInputStream()) {
+	in.transferTo(bytes);
+      }
+      exitCode = proc.waitFor();
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to execute: " + cmd.get(0), e);
+      return "Failed to execute: " + cmd.get(0);
+    }
+    output.append(bytes.toString(StandardCharsets.UTF_8));
+    if (exitCode != 0)
+      return new File(cmd.get(0)).getName() + " failed with exit code " + exitCode + ":\n" + output.toString().trim();
+
+    return null;
+  }
+
+  /**
+   * Lists the modules available in the Java home.
+   *
+   * @param javaHome	the Java home
+   * @return		the modules, null if failed to list
+   */
+  protected static Set<String> availableModules(File javaHome) {
+    Set<String>		result;
+    List<String>	cmd;
+    StringBuilder	output;
+
+    cmd = new ArrayList<>();
+    cmd.add(tool(javaHome, "java"));
+    cmd.add("--list-modules");
+    output = new StringBuilder();
+    if (run(cmd, output) != null)
+      return null;
+
+    result = new LinkedHashSet<>();
+    for (String line: output.toString().split("\n")) {
+      if (line.contains("@"))
+	result.add(line.substring(0, line.indexOf('@')).trim());
+    }
+
+    return result;
+  }
+
+  /**
+   * Determines the JDK modules that the jars require via jdeps.
+   *
+   * @param jars	the jars to analyze
+   * @param output	for storing the modules
+   * @return		null if successful, otherwise error message
+   */
+  protected String requiredModules(List<File> jars, Set<String> output) {
+    String		result;
+    List<String>	cmd;
+    List<String>	paths;
+    StringBuilder	stdout;
+    String[]		lines;
+    int			i;
+
+    paths = new ArrayList<>();
+    for (File jar: jars)
+      paths.add(jar.getAbsolutePath());
+
+    cmd = new ArrayList<>();
+    cmd.add(tool(actualJavaHome(), "jdeps"));
+    cmd.add("--print-module-deps");
+    cmd.add("--ignore-missing-deps");
+    cmd.add("-q");
+    cmd.add("--multi-release");
+    cmd.add("" + SharedArchive.javaVersion(m_JavaHome));
+    cmd.add("--class-path");
+    cmd.add(String.join(File.pathSeparator, paths));
+    cmd.addAll(paths);
+    stdout = new StringBuilder();
+    if ((result = run(cmd, stdout)) != null)
+      return result;
+
+    // the module list is the last line, any warnings come before it
+    lines = stdout.toString().trim().split("\n");
+    for (i = lines.length - 1; i >= 0; i--) {
+      if (lines[i].trim().matches("[a-zA-Z][\\w.]*(,[a-zA-Z][\\w.]*)*")) {
+	output.addAll(Arrays.asList(lines[i].trim().split(",")));
+	return null;
+      }
+    }
+
+    return "jdeps did not output any modules:\n" + stdout.toString().trim();
+  }
+
+  /**
+   * Deletes the directory recursively.
+   *
+   * @param dir		the directory to delete
+   * @throws IOException	if deletion fails
+   */
+  protected static void delete(File dir) throws IOException {
+    if (!dir.exists())
+      return;
+    Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+	Files.delete(file);
+	return FileVisitResult.CONTINUE;
+      }
+      @Override
+      public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+	Files.delete(d);
+	return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Moves the runtime to another directory, replacing any existing one.
+   *
+   * @param source	the runtime to move
+   * @param target	the new location
+   * @return		null if successful, otherwise error message
+   */
+  public static String relocate(File source, File target) {
+    try {
+      delete(target);
+      Files.move(source.toPath(), target.toPath());
+      return null;
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to move runtime from " + source + " to " + target, e);
+      return "Failed to move runtime from " + source + " to " + target;
+    }
+  }
+
+  /**
+   * Generates the runtime, replacing any existing one.
+   *
+   * @param jars	the jars of the application
+   * @param dir		the directory for the runtime
+   * @return		null if successful, otherwise error message
+   */
+  public String generate(List<File> jars, File dir) {
+    String		result;
+    File		javaHome;
+    int			version;
+    Set<String>		modules;
+    Set<String>		available;
+    List<String>	cmd;
+
+    javaHome = actualJavaHome();
+    version  = SharedArchive.javaVersion(m_JavaHome);
+    if (version < MIN_VERSION)
+      return "Generating runtime requires Java " + MIN_VERSION + "+ (found: " + version + ")!";
+    if (!new File(tool(javaHome, "jlink")).exists() && !new File(tool(javaHome, "jlink.exe")).exists())
+      return "No jlink available in Java home (requires a JDK): " + javaHome;
+
+    modules = new LinkedHashSet<>();
+    if (!jars.isEmpty()) {
+      if ((result = requiredModules(jars, modules)) != null)
+	return result;
+    }
+    modules.add("java.base");
+    LOGGER.info("Modules determined by jdeps: " + String.join(",", modules));
+    available = availableModules(javaHome);
+    for (String module: m_Modules.split(",")) {
+      module = module.trim();
+      if (module.isEmpty() || modules.contains(module))
+	continue;
+      if ((available != null) && !available.contains(module))
+	LOGGER.warning("Module not available in " + javaHome + ", skipping: " + module);
+      else
+	modules.add(module);
+    }
+
+    try {
+      delete(dir);
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to remove old runtime: " + dir, e);
+      return "Failed to remove old runtime: " + dir;
+    }
+    if (!dir.getParentFile().exists() && !dir.getParentFile().mkdirs())
+      return "Failed to create directory for runtime: " + dir.getParentFile();
+
+    cmd = new ArrayList<>();
+    cmd.add(tool(javaHome, "jlink"));
+    cmd.add("--add-modules");
+    cmd.add(String.join(",", modules));
+    cmd.add("--strip-debug");
+    cmd.add("--no-header-files");
+    cmd.add("--no-man-pages");
+    if (version >= MIN_VERSION_JLINK_CDS) {
+      cmd.add("--compress=zip-6");
+      cmd.add("--generate-cds-archive");
+    }
+    else {
+      cmd.add("--compress=2");
+    }
+    cmd.add("--output");
+    cmd.add(dir.getAbsolutePath());
+    if ((result = run(cmd, new StringBuilder())) != null)
+      return result;
+
+    // default CDS archive for the JDK classes, which jlink does not generate
+    if ((version >= MIN_VERSION_DEFAULT_CDS) && (version < MIN_VERSION_JLINK_CDS)) {
+      cmd = new ArrayList<>();
+      cmd.add(tool(dir, "java"));
+      cmd.add("-Xshare:dump");
+      if ((result = run(cmd, new StringBuilder())) != null)
+	LOGGER.warning("Failed to generate default CDS archive for runtime: " + result);
+    }
+
+    LOGGER.info("Runtime with " + modules.size() + " module(s) generated: " + dir);
+
+    return null;
+  }
+
+  /**
+   * Updates the bash start script to use the runtime if present.
+   *
+   * @param script	the start.sh script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchShellScript(File script) {
+    return patch(
+      script,
+      "JAVA=java\n"
+	+ "if [ -x \"$BASEDIR/" + DIR + "/bin/java\" ]\n"
+	+ "then\n"
+	+ "  JAVA=\"$BASEDIR/" + DIR + "/bin/java\"\n"
+	+ "fi",
+      "\"$JAVA\" ");
+  }
+
+  /**
+   * Updates the batch start script to use the runtime if present.
+   *
+   * @param script	the start.bat script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchBatchScript(File script) {
+    return patch(
+      script,
+      "set JAVA=java\n"
+	+ "if exist \"%BASEDIR%\\" + DIR + "\\bin\\java.exe\" set JAVA=%BASEDIR%\\" + DIR + "\\bin\\java.exe",
+      "\"%JAVA%\" ");
+  }
+
+  /**
+   * Updates the launch script of the Debian/Redhat packages to use the
+   * bundled runtime.
+   *
+   * @param script	the launch script
+   * @param name	the name of the application (package)
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchLaunchScript(File script, String name) {
+    return patch(script, "JAVA=\"/usr/lib/" + name + "/" + DIR + "/bin/java\"", "\"$JAVA\" ");
+  }
+
+  /**
+   * Inserts the lines before the java command and replaces the java
+   * executable.
+   *
+   * @param script	the script to update
+   * @param lines	the lines to insert before the java command
+   * @param java	the new java executable (incl trailing blank)
+   * @return		null if successful, otherwise error message
+   */
+  protected static String patch(File script, String lines, String java) {
+    List<String>	content;
+    int			i;
+
+    try {
+      content = Files.readAllLines(script.toPath());
+      i       = StartScripts.indexOfJavaCommand(content);
+      if (i == -1)
+	return "No java command found in script: " + script;
+      content.set(i, StartScripts.replaceExecutable(content.get(i), java));
+      content.add(i, lines);
+      Files.write(script.toPath(), content);
+      return null;
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to update script: " + script, e);
+      return "Failed to update script: " + script;
+    }
+  }
+
+  /**
+   * Reads the Maven snippet for the package from the bootstrapp resources.
+   *
+   * @param name	the name of the snippet, eg debian.build
+   * @param sources	whether to use the variant that includes the sources
+   * @return		the snippet
+   * @throws IOException	if reading fails
+   */
+  protected static String readSnippet(String name, boolean sources) throws IOException {
+    String	resource;
+
+    resource = SNIPPETS + name + (sources ? "_incl_sources" : "");
+    try (InputStream in = RuntimeImage.class.getClassLoader().getResourceAsStream(resource)) {
+      if (in == null)
+	throw new IOException("Snippet not found: " + resource);
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Writes the Debian snippet that bundles the runtime (located next to
+   * the pom.xml) and drops the dependency on the OpenJDK packages.
+   *
+   * @param sources	whether the sources get included
+   * @param file	the file to write the snippet to
+   * @return		null if successful, otherwise error message
+   */
+  public static String writeDebianSnippet(boolean sources, File file) {
+    String	snippet;
+    String	resources;
+
+    resources = "          <copyResources>\n"
+      + "            <copyResource>\n"
+      + "              <source>${project.build.directory}/../" + DIR + "</source>\n"
+      + "              <target>${project.build.directory}/../target/deb/usr/lib/${project.name}/" + DIR + "</target>\n"
+      + "            </copyResource>\n";
+    try {
+      snippet = readSnippet("debian.build", sources);
+      if (!snippet.contains("          <copyResources>\n"))
+	return "Failed to locate copyResources in Debian snippet!";
+      snippet = snippet.replace("          <copyResources>\n", resources);
+      snippet = snippet.replaceAll("(?s)\\s*<packageDependencies>.*</packageDependencies>", "");
+      Files.write(file.toPath(), snippet.getBytes(StandardCharsets.UTF_8));
+      return null;
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to write Debian snippet: " + file, e);
+      return "Failed to write Debian snippet: " + file;
+    }
+  }
+
+  /**
+   * Writes the Redhat snippet that bundles the runtime (located next to
+   * the pom.xml).
+   *
+   * @param sources	whether the sources get included
+   * @param file	the file to write the snippet to
+   * @return		null if successful, otherwise error message
+   */
+  public static String writeRedhatSnippet(boolean sources, File file) {
+    String	snippet;
+    String	entry;
+
+    entry = "                <entry>\n"
+      + "                  <collect>\n"
+      + "                    <from>${project.build.directory}/../" + DIR + "</from>\n"
+      + "                  </collect>\n"
+      + "                  <name>/usr/lib/${project.name}/" + DIR + "</name>\n"
+      + "                  <user>root</user>\n"
+      + "                  <group>root</group>\n"
+      + "                  <mode>0755</mode>\n"
+      + "                </entry>\n"
+      + "              </entries>\n";
+    try {
+      snippet = readSnippet("redhat.build", sources);
+      if (!snippet.contains("              </entries>\n"))
+	return "Failed to locate entries in Redhat snippet!";
+      snippet = snippet.replace("              </entries>\n", entry);
+      Files.write(file.toPath(), snippet.getBytes(StandardCharsets.UTF_8));
+      return null;
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to write Redhat snippet: " + file, e);
+      return "Failed to write Redhat snippet: " + file;
+    }
+  }
+}
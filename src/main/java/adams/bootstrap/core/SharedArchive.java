@@ -0,0 +1,382 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SharedArchive.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates an AppCDS archive (class data sharing) for a bootstrapped
+ * application to speed up its start, either via a training run of the main
+ * class (dynamic archive, Java 13+) or from a supplied class list (static
+ * archive, Java 10+, eg generated with -XX:DumpLoadedClassList). Also adds
+ * the archive to the start scripts.
+ * <br>
+ * The archive only works with the JVM that generated it and the jars at the
+ * same location, otherwise the JVM simply ignores it.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class SharedArchive {
+
+  /** the directory below the Maven output directory. */
+  public final static String DIR = "cds";
+
+  /** the archive file name. */
+  public final static String FILENAME = "app.jsa";
+
+  /** the log file of the training run. */
+  public final static String LOGFILE = "training.log";
+
+  /** the default timeout in seconds for the training run. */
+  public final static int DEFAULT_TIMEOUT = 60;
+
+  /** the minimum Java version for dynamic archives. */
+  public final static int MIN_VERSION_DYNAMIC = 13;
+
+  /** the minimum Java version for static archives of application classes. */
+  public final static int MIN_VERSION_STATIC = 10;
+
+  /** the minimum Java version for automatically created archives. */
+  public final static int MIN_VERSION_AUTO = 19;
+
+  /** the seconds to wait for the archive to get written after terminating the training run. */
+  public final static int SHUTDOWN_TIMEOUT = 60;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(SharedArchive.class.getName());
+
+  /** the Java home to use, null for the current one. */
+  protected File m_JavaHome;
+
+  /** the JVM parameters. */
+  protected List<String> m_JVM;
+
+  /** the main class for the training run. */
+  protected String m_MainClass;
+
+  /** the class list to use instead of a training run, can be null. */
+  protected File m_ClassList;
+
+  /** the timeout in seconds for the training run. */
+  protected int m_Timeout;
+
+  /** the class path options as used by the start scripts, null for the lib directory. */
+  protected List<String> m_ClassPath;
+
+  /**
+   * Initializes the generator.
+   */
+  public SharedArchive() {
+    m_JavaHome  = null;
+    m_JVM       = new ArrayList<>();
+    m_MainClass = null;
+    m_ClassList = null;
+    m_Timeout   = DEFAULT_TIMEOUT;
+    m_ClassPath = null;
+  }
+
+  /**
+   * Sets the Java home to generate the archive with.
+   *
+   * @param home	the Java home, null for the current one
+   * @return		itself
+   */
+  public SharedArchive javaHome(File home) {
+    m_JavaHome = home;
+    return this;
+  }
+
+  /**
+   * Sets the JVM parameters.
+   *
+   * @param jvm		the parameters, can be null
+   * @return		itself
+   */
+  public SharedArchive jvm(List<String> jvm) {
+    m_JVM = new ArrayList<>();
+    if (jvm != null)
+      m_JVM.addAll(jvm);
+    return this;
+  }
+
+  /**
+   * Sets the main class to execute in the training run.
+   *
+   * @param cls		the class
+   * @return		itself
+   */
+  public SharedArchive mainClass(String cls) {
+    m_MainClass = cls;
+    return this;
+  }
+
+  /**
+   * Sets the class list to use instead of a training run.
+   *
+   * @param file	the class list, null for a training run
+   * @return		itself
+   */
+  public SharedArchive classList(File file) {
+    m_ClassList = file;
+    return this;
+  }
+
+  /**
+   * Sets the timeout for the training run, after which the application gets
+   * terminated.
+   *
+   * @param seconds	the timeout in seconds
+   * @return		itself
+   */
+  public SharedArchive timeout(int seconds) {
+    m_Timeout = seconds;
+    return this;
+  }
+
+  /**
+   * Sets the class path options as used by the start scripts, as the
+   * archive only gets used with the same class path.
+   *
+   * @param options	the options (eg an argument file), null for all jars in the lib directory
+   * @return		itself
+   */
+  public SharedArchive classPath(List<String> options) {
+    m_ClassPath = options;
+    return this;
+  }
+
+  /**
+   * Returns the archive file.
+   *
+   * @param outputDirMaven	the Maven output directory
+   * @return		the file
+   */
+  public static File file(File outputDirMaven) {
+    return new File(outputDirMaven, DIR + "/" + FILENAME);
+  }
+
+  /**
+   * Returns the major version of the Java installation, as listed in its
+   * "release" file.
+   *
+   * @param javaHome	the Java home, null for the current one
+   * @return		the version (eg 8 or 17), -1 if cannot be determined
+   */
+  public static int javaVersion(File javaHome) {
+    Properties	props;
+    String	version;
+    String[]	parts;
+
+    if (javaHome == null)
+      javaHome = new File(System.getProperty("java.home"));
+    props = new Properties();
+    try {
+      props.load(Files.newBufferedReader(new File(javaHome, "release").toPath(), StandardCharsets.UTF_8));
+      version = props.getProperty("JAVA_VERSION", "").replace("\"", "");
+      parts   = version.split("[._+-]");
+      if (parts[0].equals("1") && (parts.length > 1))
+	return Integer.parseInt(parts[1]);
+      return Integer.parseInt(parts[0]);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Failed to determine Java version of: " + javaHome, e);
+      return -1;
+    }
+  }
+
+  /**
+   * Generates the archive, replacing any existing one.
+   *
+   * @param outputDirMaven	the Maven output directory with the lib directory
+   * @return		null if successful, otherwise error message
+   */
+  public String generate(File outputDirMaven) {
+    File		archive;
+    File		log;
+    int			version;
+    List<String>	cmd;
+    Process		proc;
+    String		java;
+    List<String>	cp;
+
+    version = javaVersion(m_JavaHome);
+    if ((m_ClassList == null) && (version < MIN_VERSION_DYNAMIC))
+      return "Generating AppCDS archive via training run requires Java " + MIN_VERSION_DYNAMIC + "+ (found: " + version + "), supply a class list instead!";
+    if (version < MIN_VERSION_STATIC)
+      return "Generating AppCDS archive requires Java " + MIN_VERSION_STATIC + "+ (found: " + version + ")!";
+    if ((m_ClassList == null) && ((m_MainClass == null) || m_MainClass.trim().isEmpty()))
+      return "Generating AppCDS archive via training run requires a main class!";
+
+    // same absolute class path as the start script
+    outputDirMaven = outputDirMaven.toPath().toAbsolutePath().normalize().toFile();
+    archive        = file(outputDirMaven);
+    log            = new File(archive.getParentFile(), LOGFILE);
+    if (!archive.getParentFile().exists() && !archive.getParentFile().mkdirs())
+      return "Failed to create directory for AppCDS archive: " + archive.getParentFile();
+    if (archive.exists() && !archive.delete())
+      return "Failed to remove old AppCDS archive: " + archive;
+
+    if (m_ClassPath == null) {
+      cp = new ArrayList<>();
+      cp.add("-cp");
+      cp.add(outputDirMaven.getAbsolutePath() + File.separator + "lib" + File.separator + "*");
+    }
+    else {
+      cp = m_ClassPath;
+    }
+
+    java = (m_JavaHome == null ? System.getProperty("java.home") : m_JavaHome.getAbsolutePath()) + File.separator + "bin" + File.separator + "java";
+    cmd  = new ArrayList<>();
+    cmd.add(java);
+    cmd.addAll(m_JVM);
+    if (m_ClassList != null) {
+      cmd.add("-Xshare:dump");
+      cmd.add("-XX:SharedClassListFile=" + m_ClassList.getAbsolutePath());
+      cmd.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+      cmd.addAll(cp);
+    }
+    else {
+      cmd.add("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+      cmd.addAll(cp);
+      cmd.add(m_MainClass);
+    }
+
+    LOGGER.info("Generating AppCDS archive: " + String.join(" ", cmd));
+    try {
+      proc = new ProcessBuilder(cmd)
+	.directory(outputDirMaven)
+	.redirectErrorStream(true)
+	.redirectOutput(log)
+	.redirectInput(ProcessBuilder.Redirect.from(new File(System.getProperty("os.name").toLowerCase().contains("windows") ? "NUL" : "/dev/null")))
+	.start();
+      if (!proc.waitFor(m_Timeout, TimeUnit.SECONDS)) {
+	LOGGER.info("Terminating AppCDS training run after " + m_Timeout + " seconds");
+	// regular termination, the JVM writes the archive when shutting down
+	proc.destroy();
+	if (!proc.waitFor(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+	  proc.destroyForcibly();
+	  return "AppCDS training run failed to terminate, see: " + log;
+	}
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to generate AppCDS archive: " + archive, e);
+      return "Failed to generate AppCDS archive: " + archive;
+    }
+
+    if (!archive.exists())
+      return "No AppCDS archive generated (exit code " + proc.exitValue() + "), see: " + log;
+    LOGGER.info("AppCDS archive generated: " + archive + " (" + archive.length() + " bytes)");
+
+    return null;
+  }
+
+  /**
+   * Inserts the lines before the java command and the parameters in the
+   * java command.
+   *
+   * @param script	the script to update
+   * @param lines	the lines to insert before the java command
+   * @param params	the parameters to insert after "java"
+   * @return		null if successful, otherwise error message
+   */
+  protected static String patch(File script, String lines, String params) {
+    List<String>	content;
+    int			i;
+
+    try {
+      content = Files.readAllLines(script.toPath());
+      i       = StartScripts.indexOfJavaCommand(content);
+      if (i == -1)
+	return "No java command found in script: " + script;
+      content.set(i, StartScripts.insertParameters(content.get(i), params));
+      content.add(i, lines);
+      Files.write(script.toPath(), content);
+      return null;
+    }
+    catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to update script: " + script, e);
+      return "Failed to update script: " + script;
+    }
+  }
+
+  /**
+   * Updates the bash start script to use the archive if present.
+   *
+   * @param script	the start.sh script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchShellScript(File script) {
+    return patch(script,
+      "CDS=()\n"
+	+ "if [ -f \"$BASEDIR/" + DIR + "/" + FILENAME + "\" ]\n"
+	+ "then\n"
+	+ "  CDS=(-XX:+IgnoreUnrecognizedVMOptions -Xshare:auto \"-XX:SharedArchiveFile=$BASEDIR/" + DIR + "/" + FILENAME + "\")\n"
+	+ "fi",
+      "\"${CDS[@]}\"");
+  }
+
+  /**
+   * Updates the batch start script to use the archive if present.
+   *
+   * @param script	the start.bat script
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchBatchScript(File script) {
+    return patch(script,
+      "set CDS=\n"
+	+ "if exist \"%BASEDIR%\\" + DIR + "\\" + FILENAME + "\" set CDS=-XX:+IgnoreUnrecognizedVMOptions -Xshare:auto \"-XX:SharedArchiveFile=%BASEDIR%\\" + DIR + "\\" + FILENAME + "\"",
+      "%CDS%");
+  }
+
+  /**
+   * Updates the launch script of Debian/Redhat packages. As the installed
+   * jars cannot match the ones at bootstrap time, the JVM creates the
+   * archive for the user on the first start and refreshes it whenever the
+   * runtime or the jars change (Java 19+, determined from the "release"
+   * file of the runtime, older runtimes do not get any archive).
+   *
+   * @param script	the launch script
+   * @param name	the name of the application
+   * @return		null if successful, otherwise error message
+   */
+  public static String patchLaunchScript(File script, String name) {
+    return patch(script,
+      "CDS=()\n"
+	+ "JAVA_RELEASE=\"$(dirname \"$(readlink -f \"$(command -v ${JAVA:-java})\")\")/../release\"\n"
+	+ "JAVA_MAJOR=`sed -n 's/^JAVA_VERSION=\"\\([0-9]*\\).*/\\1/p' \"$JAVA_RELEASE\" 2>/dev/null`\n"
+	+ "if [ \"${JAVA_MAJOR:-0}\" -ge " + MIN_VERSION_AUTO + " ]\n"
+	+ "then\n"
+	+ "  CDS_DIR=\"${XDG_CACHE_HOME:-$HOME/.cache}/" + name + "\"\n"
+	+ "  mkdir -p \"$CDS_DIR\" 2>/dev/null && CDS=(-XX:+AutoCreateSharedArchive \"-XX:SharedArchiveFile=$CDS_DIR/" + FILENAME + "\")\n"
+	+ "fi",
+      "\"${CDS[@]}\"");
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SharedLock.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Exclusive lock on a lock file, guarding a resource that is shared between
+ * bootstrap runs within the same JVM (threads) and across JVMs on the same
+ * host (processes). File locks are held on behalf of the whole JVM, hence
+ * threads get serialized with an additional in-memory lock per file.
+ * Reentrant for the same thread. The lock files themselves never get
+ * removed, as deleting them would allow two processes to lock different
+ * files with the same name.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class SharedLock
+  implements AutoCloseable {
+
+  /**
+   * Code to execute while holding a lock.
+   *
+   * @param <T>	the type of the result
+   * @param <E>	the type of exception that can get thrown
+   */
+  @FunctionalInterface
+  public interface LockedCall<T, E extends Exception> {
+
+    /**
+     * Executes the code.
+     *
+     * @return		the result
+     * @throws E	if execution fails
+     */
+    T call() throws E;
+  }
+
+  /** the extension for lock files. */
+  public final static String EXT = ".lock";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(SharedLock.class.getName());
+
+  /** the in-memory locks per lock file (canonical path). */
+  protected static final Map<String,ReentrantLock> LOCKS = new HashMap<>();
+
+  /** the lock file. */
+  protected File m_File;
+
+  /** the in-memory lock, null once released. */
+  protected ReentrantLock m_Local;
+
+  /** the channel of the lock file, null if reentered. */
+  protected FileChannel m_Channel;
+
+  /** the file lock, null if reentered. */
+  protected FileLock m_Lock;
+
+  /**
+   * Initializes the lock.
+   *
+   * @param file	the lock file
+   * @param local	the in-memory lock
+   * @param channel	the channel, null if reentered
+   * @param lock	the file lock, null if reentered
+   */
+  protected SharedLock(File file, ReentrantLock local, FileChannel channel, FileLock lock) {
+    m_File    = file;
+    m_Local   = local;
+    m_Channel = channel;
+    m_Lock    = lock;
+  }
+
+  /**
+   * Returns the lock file.
+   *
+   * @return		the file
+   */
+  public File getFile() {
+    return m_File;
+  }
+
+  /**
+   * Returns the lock file for the specified file, ie the file with
+   * {@link #EXT} appended.
+   *
+   * @param file	the file to get the lock file for
+   * @return		the lock file
+   */
+  public static File lockFile(File file) {
+    return new File(file.getPath() + EXT);
+  }
+
+  /**
+   * Returns the in-memory lock for the lock file.
+   *
+   * @param file	the lock file
+   * @return		the lock
+   * @throws IOException	if determining the canonical path fails
+   */
+  protected static ReentrantLock local(File file) throws IOException {
+    String	key;
+
+    key = file.getCanonicalPath();
+    synchronized(LOCKS) {
+      return LOCKS.computeIfAbsent(key, (String k) -> new ReentrantLock());
+    }
+  }
+
+  /**
+   * Acquires the lock, blocking until it is available or the thread gets
+   * interrupted. Creates the lock file (and its parent directory) if
+   * necessary.
+   *
+   * @param file	the lock file
+   * @return		the lock, needs closing
+   * @throws IOException	if acquiring fails
+   */
+  public static SharedLock acquire(File file) throws IOException {
+    ReentrantLock	local;
+    FileChannel		channel;
+    FileLock		lock;
+
+    if ((file.getParentFile() != null) && !file.getParentFile().exists() && !file.getParentFile().mkdirs() && !file.getParentFile().exists())
+      throw new IOException("Failed to create directory for lock file: " + file);
+
+    local = local(file);
+    if (!local.tryLock()) {
+      LOGGER.info("Waiting for lock held by other thread: " + file);
+      try {
+	local.lockInterruptibly();
+      }
+      catch (InterruptedException e) {
+	Thread.currentThread().interrupt();
+	throw new InterruptedIOException("Interrupted while waiting for lock: " + file);
+      }
+    }
+    if (local.getHoldCount() > 1)
+      return new SharedLock(file, local, null, null);
+
+    channel = null;
+    try {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      lock    = channel.tryLock();
+      if (lock == null) {
+	LOGGER.info("Waiting for lock held by other process: " + file);
+	lock = channel.lock();
+      }
+      return new SharedLock(file, local, channel, lock);
+    }
+    catch (IOException | RuntimeException e) {
+      if (channel != null) {
+	try {
+	  channel.close();
+	}
+	catch (Exception ex) {
+	  // ignored
+	}
+      }
+      local.unlock();
+      throw e;
+    }
+  }
+
+  /**
+   * Releases the lock.
+   *
+   * @throws IOException	if releasing fails
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (m_Lock != null)
+	m_Lock.release();
+      if (m_Channel != null)
+	m_Channel.close();
+    }
+    finally {
+      m_Lock    = null;
+      m_Channel = null;
+      if ((m_Local != null) && m_Local.isHeldByCurrentThread())
+	m_Local.unlock();
+      m_Local   = null;
+    }
+  }
+
+  /**
+   * Executes the code while holding the lock, releasing it afterwards.
+   *
+   * @param file	the lock file
+   * @param call	the code to execute
+   * @return		the result of the code
+   * @param <T>	the type of the result
+   * @param <E>	the type of exception the code can throw
+   * @throws IOException	if acquiring or releasing the lock fails
+   * @throws E		if the code fails
+   * @see		#acquire(File)
+   */
+  public static <T, E extends Exception> T run(File file, LockedCall<T,E> call) throws IOException, E {
+    SharedLock	lock;
+    T		result;
+
+    lock = acquire(file);
+    try {
+      result = call.call();
+    }
+    catch (Throwable e) {
+      try {
+	lock.close();
+      }
+      catch (IOException ex) {
+	e.addSuppressed(ex);
+      }
+      throw e;
+    }
+    lock.close();
+
+    return result;
+  }
+}
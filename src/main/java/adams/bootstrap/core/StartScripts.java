@@ -0,0 +1,89 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * StartScripts.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import java.util.List;
+
+/**
+ * Helper methods for updating the generated start/launch scripts.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class StartScripts {
+
+  /** the java executables the command lines can start with. */
+  public final static String[] JAVA_COMMANDS = {"java ", "\"$JAVA\" ", "\"%JAVA%\" "};
+
+  /**
+   * Returns the java executable the line starts with.
+   *
+   * @param line	the line to check
+   * @return		the executable (incl trailing blank), null if not a java command line
+   */
+  public static String javaCommand(String line) {
+    for (String cmd: JAVA_COMMANDS) {
+      if (line.startsWith(cmd))
+	return cmd;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the index of the java command line.
+   *
+   * @param lines	the lines of the script
+   * @return		the index, -1 if not found
+   */
+  public static int indexOfJavaCommand(List<String> lines) {
+    int		i;
+
+    for (i = 0; i < lines.size(); i++) {
+      if (javaCommand(lines.get(i)) != null)
+	return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Inserts the parameters right after the java executable.
+   *
+   * @param line	the java command line
+   * @param params	the parameters to insert
+   * @return		the updated line
+   */
+  public static String insertParameters(String line, String params) {
+    String	cmd;
+
+    cmd = javaCommand(line);
+    return cmd + params + " " + line.substring(cmd.length());
+  }
+
+  /**
+   * Replaces the java executable.
+   *
+   * @param line	the java command line
+   * @param java	the new executable (incl trailing blank)
+   * @return		the updated line
+   */
+  public static String replaceExecutable(String line, String java) {
+    return java + line.substring(javaCommand(line).length());
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TargetPlatform.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.graph.DependencyNode;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * The platforms (os-arch, eg linux-x86_64) that an application gets
+ * bootstrapped for. Jars with a native classifier for other platforms, like
+ * the ones of JavaCPP (windows-x86_64), LWJGL (natives-macos) or netty
+ * (osx-aarch_64), can be left out. Classifiers without architecture match
+ * all architectures of the operating system, as do platforms without one.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class TargetPlatform {
+
+  /** the prefix of LWJGL-style classifiers. */
+  public final static String PREFIX_NATIVES = "natives-";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(TargetPlatform.class.getName());
+
+  /** the operating systems (alias - name). */
+  protected static final Map<String,String> OS = new HashMap<>();
+
+  /** the architectures (alias - name). */
+  protected static final Map<String,String> ARCH = new HashMap<>();
+  static {
+    OS.put("linux", "linux");
+    OS.put("macosx", "macosx");
+    OS.put("macos", "macosx");
+    OS.put("osx", "macosx");
+    OS.put("windows", "windows");
+    OS.put("win", "windows");
+    OS.put("android", "android");
+    OS.put("ios", "ios");
+
+    ARCH.put("x86_64", "x86_64");
+    ARCH.put("amd64", "x86_64");
+    ARCH.put("x64", "x86_64");
+    ARCH.put("x86", "x86");
+    ARCH.put("i386", "x86");
+    ARCH.put("arm64", "arm64");
+    ARCH.put("aarch64", "arm64");
+    ARCH.put("aarch_64", "arm64");
+    ARCH.put("arm", "arm");
+    ARCH.put("armhf", "armhf");
+    ARCH.put("ppc64le", "ppc64le");
+    ARCH.put("ppcle_64", "ppc64le");
+  }
+
+  /** the platforms (os, arch or null). */
+  protected List<String[]> m_Platforms;
+
+  /**
+   * Initializes the target platform(s).
+   *
+   * @param platforms	comma-separated list of os-arch, eg linux-x86_64
+   * @throws IllegalArgumentException	if a platform is not recognized
+   */
+  public TargetPlatform(String platforms) {
+    String[]	parsed;
+
+    m_Platforms = new ArrayList<>();
+    for (String platform: platforms.split(",")) {
+      if (platform.trim().isEmpty())
+	continue;
+      parsed = parse(platform.trim());
+      if ((parsed == null) || (platform.contains("-") && (parsed[1] == null)))
+	throw new IllegalArgumentException("Unknown platform (expected os-arch, eg linux-x86_64): " + platform.trim());
+      m_Platforms.add(parsed);
+    }
+    if (m_Platforms.isEmpty())
+      throw new IllegalArgumentException("No target platform supplied!");
+  }
+
+  /**
+   * Parses the classifier or platform.
+   *
+   * @param classifier	the classifier to parse
+   * @return		os and arch (null if none), null if not a platform
+   */
+  protected static String[] parse(String classifier) {
+    String[]	parts;
+    String	os;
+    String	arch;
+
+    if (!classifier.matches("[A-Za-z0-9_-]+"))
+      return null;
+    if (classifier.startsWith(PREFIX_NATIVES))
+      classifier = classifier.substring(PREFIX_NATIVES.length());
+    parts = classifier.toLowerCase().split("-");
+    os    = OS.get(parts[0]);
+    if (os == null)
+      return null;
+    arch = (parts.length > 1) ? ARCH.get(parts[1]) : null;
+
+    return new String[]{os, arch};
+  }
+
+  /**
+   * Checks whether the classifier denotes native code, ie starts with an
+   * operating system.
+   *
+   * @param classifier	the classifier to check
+   * @return		true if native
+   */
+  public static boolean isNative(String classifier) {
+    return (classifier != null) && !classifier.isEmpty() && (parse(classifier) != null);
+  }
+
+  /**
+   * Checks whether the classifier is suitable for the target platform(s).
+   * Non-native classifiers always are.
+   *
+   * @param classifier	the classifier to check, can be null or empty
+   * @return		true if suitable
+   */
+  public boolean accept(String classifier) {
+    String[]	parsed;
+
+    if ((classifier == null) || classifier.isEmpty())
+      return true;
+    parsed = parse(classifier);
+    if (parsed == null)
+      return true;
+    for (String[] platform: m_Platforms) {
+      if (!platform[0].equals(parsed[0]))
+	continue;
+      if ((platform[1] == null) || (parsed[1] == null) || platform[1].equals(parsed[1]))
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether the artifact is suitable for the target platform(s).
+   *
+   * @param artifact	the artifact to check
+   * @return		true if suitable
+   */
+  public boolean accept(Artifact artifact) {
+    return (artifact == null) || accept(artifact.getClassifier());
+  }
+
+  /**
+   * Extracts the native classifier from a file name as generated by the
+   * maven-dependency-plugin (artifactId-version[-classifier].extension).
+   *
+   * @param filename	the file name
+   * @return		the classifier, null if none or not native
+   */
+  public static String classifier(String filename) {
+    String	name;
+    int		pos;
+
+    name = filename.replaceAll("\\.[A-Za-z0-9]+$", "");
+    pos  = name.indexOf('-');
+    while (pos > -1) {
+      // versions contain dots, hence the first match is the classifier
+      if (isNative(name.substring(pos + 1)))
+	return name.substring(pos + 1);
+      pos = name.indexOf('-', pos + 1);
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns a filter for the resolution that drops the artifacts not
+   * suitable for the target platform(s). Dropped artifacts are added to the
+   * supplied set.
+   *
+   * @param dropped	for collecting the dropped artifacts, can be null
+   * @return		the filter
+   */
+  public DependencyFilter filter(Set<Artifact> dropped) {
+    return (DependencyNode node, List<DependencyNode> parents) -> {
+      if (accept(node.getArtifact()))
+	return true;
+      if (dropped != null) {
+	synchronized (dropped) {
+	  dropped.add(node.getArtifact());
+	}
+      }
+      return false;
+    };
+  }
+
+  /**
+   * Removes the jars with a native classifier not suitable for the target
+   * platform(s) from the directory.
+   *
+   * @param dir		the directory to prune
+   * @param pruned	for adding the file names of the removed jars
+   * @return		the number of bytes saved
+   */
+  public long prune(File dir, List<String> pruned) {
+    long	result;
+    File[]	files;
+    long	size;
+
+    result = 0;
+    files  = dir.listFiles((File d, String name) -> name.endsWith(".jar"));
+    if (files == null)
+      return result;
+    Arrays.sort(files);
+    for (File file: files) {
+      if (accept(classifier(file.getName())))
+	continue;
+      size = file.length();
+      if (file.delete()) {
+	pruned.add(file.getName());
+	result += size;
+      }
+      else {
+	LOGGER.warning("Failed to remove jar for other platform: " + file);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the platforms.
+   *
+   * @return		the platforms
+   */
+  @Override
+  public String toString() {
+    Set<String>	result;
+
+    result = new TreeSet<>();
+    for (String[] platform: m_Platforms)
+      result.add(platform[0] + ((platform[1] == null) ? "" : "-" + platform[1]));
+    return String.join(",", result);
+  }
+}
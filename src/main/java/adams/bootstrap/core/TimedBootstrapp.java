@@ -0,0 +1,351 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TimedBootstrapp.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import adams.bootstrap.core.BootstrapReport.Phase;
+import com.github.fracpete.bootstrapp.Main;
+import com.github.fracpete.bootstrapp.core.Maven;
+import com.github.fracpete.resourceextractor4j.Content;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Bootstrapp variant that records the durations of its phases (Maven home,
+ * pom template, Maven build, scripts) in a report. Can also enable AppCDS and
+ * the bundled runtime in the launch script of Debian/Redhat packages.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class TimedBootstrapp
+  extends Main {
+
+  /** the bundled pom template of bootstrapp. */
+  public final static String POMTEMPLATE_RESOURCE = "com/github/fracpete/bootstrapp/template.xml";
+
+  /** the content of the bundled pom template, loaded once. */
+  protected static byte[] POMTEMPLATE_CONTENT;
+
+  /** the report to record the phases in, can be null. */
+  protected transient BootstrapReport m_Report;
+
+  /** whether to enable AppCDS in the launch script. */
+  protected boolean m_AppCDS;
+
+  /** whether the packages bundle the runtime. */
+  protected boolean m_Runtime;
+
+  /** whether to generate the launch script for packages written in-process. */
+  protected boolean m_LaunchScript;
+
+  /** the temp directory of the run, null for the default temp directory. */
+  protected transient File m_TempDir;
+
+  /**
+   * Initializes the members.
+   */
+  @Override
+  protected void initialize() {
+    super.initialize();
+    m_Report       = null;
+    m_AppCDS       = false;
+    m_Runtime      = false;
+    m_LaunchScript = false;
+    m_TempDir      = null;
+  }
+
+  /**
+   * Sets the report to record the phases in.
+   *
+   * @param report	the report, null for none
+   * @return		itself
+   */
+  public TimedBootstrapp report(BootstrapReport report) {
+    m_Report = report;
+    return this;
+  }
+
+  /**
+   * Returns the report to record the phases in.
+   *
+   * @return		the report, null if none
+   */
+  public BootstrapReport getReport() {
+    return m_Report;
+  }
+
+  /**
+   * Sets whether to enable AppCDS in the launch script of Debian/Redhat
+   * packages.
+   *
+   * @param enabled	true if to enable
+   * @return		itself
+   * @see		SharedArchive#patchLaunchScript(File, String)
+   */
+  public TimedBootstrapp appCDS(boolean enabled) {
+    m_AppCDS = enabled;
+    return this;
+  }
+
+  /**
+   * Returns whether to enable AppCDS in the launch script of Debian/Redhat
+   * packages.
+   *
+   * @return		true if enabled
+   */
+  public boolean getAppCDS() {
+    return m_AppCDS;
+  }
+
+  /**
+   * Sets whether the Debian/Redhat packages bundle the runtime, which the
+   * launch script then uses.
+   *
+   * @param enabled	true if bundled
+   * @return		itself
+   * @see		RuntimeImage#patchLaunchScript(File, String)
+   */
+  public TimedBootstrapp runtime(boolean enabled) {
+    m_Runtime = enabled;
+    return this;
+  }
+
+  /**
+   * Returns whether the Debian/Redhat packages bundle the runtime.
+   *
+   * @return		true if bundled
+   */
+  public boolean getRuntime() {
+    return m_Runtime;
+  }
+
+  /**
+   * Sets whether to generate the launch script for Debian/Redhat packages
+   * that get written in-process rather than by the Maven build.
+   *
+   * @param enabled	true if to generate
+   * @return		itself
+   * @see		PackageWriter
+   */
+  public TimedBootstrapp launchScript(boolean enabled) {
+    m_LaunchScript = enabled;
+    return this;
+  }
+
+  /**
+   * Returns whether to generate the launch script for packages written
+   * in-process.
+   *
+   * @return		true if to generate
+   */
+  public boolean getLaunchScript() {
+    return m_LaunchScript;
+  }
+
+  /**
+   * Sets the temp directory of the run, which receives the bundled pom
+   * template.
+   *
+   * @param dir		the directory, null for the default temp directory
+   * @return		itself
+   */
+  public TimedBootstrapp tempDir(File dir) {
+    m_TempDir = dir;
+    return this;
+  }
+
+  /**
+   * Returns the temp directory of the run.
+   *
+   * @return		the directory, null for the default temp directory
+   */
+  public File getTempDir() {
+    return m_TempDir;
+  }
+
+  /**
+   * Returns the content of the bundled pom template, only reading the
+   * resource the first time.
+   *
+   * @return		the content
+   * @throws IOException	if the resource is not available
+   */
+  protected static synchronized byte[] pomTemplateContent() throws IOException {
+    if (POMTEMPLATE_CONTENT == null) {
+      POMTEMPLATE_CONTENT = Content.readBytes(POMTEMPLATE_RESOURCE);
+      if (POMTEMPLATE_CONTENT == null)
+	throw new IOException("Failed to read pom.xml template: " + POMTEMPLATE_RESOURCE);
+    }
+    return POMTEMPLATE_CONTENT;
+  }
+
+  /**
+   * Executes the step and records its duration as the phase. Does not
+   * execute the step if the run got cancelled.
+   *
+   * @param phase	the phase
+   * @param step	the step to execute
+   * @return		the result of the step, the reason if cancelled
+   */
+  protected String timed(Phase phase, Supplier<String> step) {
+    String	result;
+
+    if (m_Report == null)
+      return step.get();
+    if (m_Report.isCancelled())
+      return m_Report.getCancelled();
+    m_Report.phaseStarted(phase);
+    try {
+      result = step.get();
+    }
+    finally {
+      m_Report.phaseFinished(phase);
+    }
+    if ((result != null) && m_Report.isCancelled())
+      result = m_Report.getCancelled();
+
+    return result;
+  }
+
+  /**
+   * Initializes the Maven home. Locks the bundled Maven installation while
+   * it gets downloaded, as concurrent runs share it.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  protected String initMavenHome() {
+    return timed(Phase.MAVEN_HOME, () -> {
+      if (getMavenHome() != null)
+	return super.initMavenHome();
+      try {
+	return SharedLock.run(SharedLock.lockFile(new File(Maven.homeDir())), super::initMavenHome);
+      }
+      catch (IOException e) {
+	getLogger().log(Level.SEVERE, "Failed to lock Maven installation: " + Maven.homeDir(), e);
+	return "Failed to lock Maven installation: " + Maven.homeDir();
+      }
+    });
+  }
+
+  /**
+   * Generates the launch script for Debian/Redhat packages.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  protected String createLaunchScript() {
+    String	result;
+    File	script;
+
+    result = super.createLaunchScript();
+    script = new File(m_OutputDir, PackageWriter.LAUNCH);
+    if ((result == null) && m_Runtime && (m_Debian || m_Redhat || m_LaunchScript) && script.exists())
+      result = RuntimeImage.patchLaunchScript(script, m_Name);
+    if ((result == null) && m_AppCDS && (m_Debian || m_Redhat || m_LaunchScript) && script.exists())
+      result = SharedArchive.patchLaunchScript(script, m_Name);
+
+    return result;
+  }
+
+  /**
+   * Generates the pom.xml from the template.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  protected String initPomTemplate() {
+    File	file;
+
+    // write the bundled template into the temp directory of the run rather
+    // than letting every run extract it to the same file
+    if ((m_PomTemplate == null) && (m_TempDir != null)) {
+      try {
+	file = new File(m_TempDir, "template.xml");
+	java.nio.file.Files.write(file.toPath(), pomTemplateContent());
+	m_PomTemplate = file;
+      }
+      catch (IOException e) {
+	getLogger().log(Level.SEVERE, "Failed to write pom.xml template to: " + m_TempDir, e);
+	return "Failed to write pom.xml template to: " + m_TempDir;
+      }
+    }
+    return timed(Phase.TEMPLATE, super::initPomTemplate);
+  }
+
+  /**
+   * Kills the forked Maven build of this run (the shell running mvn in the
+   * output directory) and its children. Killing just the process started by
+   * the invoker would leave the Maven JVM running.
+   */
+  protected void killForked() {
+    String	dir;
+
+    dir = getOutputDir().getAbsolutePath();
+    ProcessHandle.current().children()
+      .filter((ProcessHandle p) -> p.info().commandLine().map((String c) -> c.contains(dir)).orElse(false))
+      .forEach((ProcessHandle p) -> {
+	getLogger().info("Killing forked Maven build: " + p.pid());
+	p.descendants().forEach(ProcessHandle::destroyForcibly);
+	p.destroyForcibly();
+      });
+  }
+
+  /**
+   * Executes the Maven build. Kills the build if the run gets cancelled.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  protected String executeMaven() {
+    Runnable	hook;
+
+    if (m_Report == null)
+      return super.executeMaven();
+
+    hook = this::killForked;
+    m_Report.addCancelHook(hook);
+    try {
+      return timed(Phase.MAVEN, super::executeMaven);
+    }
+    finally {
+      m_Report.removeCancelHook(hook);
+    }
+  }
+
+  /**
+   * Generates the start scripts, as well as the launch script for packages
+   * written in-process.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  protected String createScripts() {
+    return timed(Phase.SCRIPTS, () -> {
+      String result = super.createScripts();
+      if ((result == null) && m_LaunchScript && !m_Debian && !m_Redhat)
+	result = createLaunchScript();
+      return result;
+    });
+  }
+}
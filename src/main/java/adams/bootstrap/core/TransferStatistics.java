@@ -0,0 +1,323 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TransferStatistics.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferEvent.RequestType;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects statistics about the downloads performed by the resolver, per
+ * host. Thread-safe, as downloads happen concurrently. If attached to a
+ * report, downloads get reported to its listeners and get aborted once the
+ * run got cancelled.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class TransferStatistics
+  extends AbstractTransferListener {
+
+  /**
+   * The statistics for a single host.
+   */
+  public static class HostStatistics {
+
+    /** the number of downloaded files. */
+    protected int m_Downloads;
+
+    /** the number of failed downloads. */
+    protected int m_Failures;
+
+    /** the number of downloaded bytes. */
+    protected long m_Bytes;
+
+    /**
+     * Returns the number of downloaded files.
+     *
+     * @return		the number
+     */
+    public int getDownloads() {
+      return m_Downloads;
+    }
+
+    /**
+     * Returns the number of failed downloads (includes files not present
+     * in the repository).
+     *
+     * @return		the number
+     */
+    public int getFailures() {
+      return m_Failures;
+    }
+
+    /**
+     * Returns the number of downloaded bytes.
+     *
+     * @return		the bytes
+     */
+    public long getBytes() {
+      return m_Bytes;
+    }
+  }
+
+  /** the statistics per host. */
+  protected Map<String,HostStatistics> m_Hosts;
+
+  /** the time of the first download (msec). */
+  protected long m_Start;
+
+  /** the time of the last finished download (msec). */
+  protected long m_End;
+
+  /** the report to notify, can be null. */
+  protected BootstrapReport m_Report;
+
+  /**
+   * Initializes the statistics.
+   */
+  public TransferStatistics() {
+    m_Hosts = new TreeMap<>();
+    m_Start  = -1;
+    m_End    = -1;
+    m_Report = null;
+  }
+
+  /**
+   * Sets the report to notify about downloads and to check for cancellation.
+   *
+   * @param report	the report, can be null
+   * @return		itself
+   */
+  public synchronized TransferStatistics report(BootstrapReport report) {
+    m_Report = report;
+    return this;
+  }
+
+  /**
+   * Returns the report to notify about downloads.
+   *
+   * @return		the report, null if none
+   */
+  public synchronized BootstrapReport getReport() {
+    return m_Report;
+  }
+
+  /**
+   * Aborts the transfer if the run got cancelled.
+   *
+   * @param event	the event
+   * @throws TransferCancelledException	if cancelled
+   */
+  protected void checkCancelled(TransferEvent event) throws TransferCancelledException {
+    BootstrapReport	report;
+
+    report = getReport();
+    if ((report != null) && report.isCancelled())
+      throw new TransferCancelledException(report.getCancelled() + ": " + event.getResource().getResourceName());
+  }
+
+  /**
+   * Returns the host of the repository the event is for.
+   *
+   * @param event	the event
+   * @return		the host
+   */
+  protected String host(TransferEvent event) {
+    String	url;
+
+    url = event.getResource().getRepositoryUrl();
+    try {
+      if (URI.create(url).getHost() != null)
+        return URI.create(url).getHost();
+    }
+    catch (Exception e) {
+      // ignored
+    }
+    return url;
+  }
+
+  /**
+   * Returns the statistics for the host of the event.
+   *
+   * @param event	the event
+   * @return		the statistics
+   */
+  protected HostStatistics forHost(TransferEvent event) {
+    String	host;
+
+    host = host(event);
+    if (!m_Hosts.containsKey(host))
+      m_Hosts.put(host, new HostStatistics());
+    return m_Hosts.get(host);
+  }
+
+  /**
+   * Records the start of the first download.
+   *
+   * @param event	the event
+   */
+  @Override
+  public void transferInitiated(TransferEvent event) throws TransferCancelledException {
+    synchronized (this) {
+      if ((event.getRequestType() == RequestType.GET) && (m_Start == -1))
+	m_Start = System.currentTimeMillis();
+    }
+    checkCancelled(event);
+  }
+
+  /**
+   * Aborts the download if the run got cancelled.
+   *
+   * @param event	the event
+   * @throws TransferCancelledException	if cancelled
+   */
+  @Override
+  public void transferProgressed(TransferEvent event) throws TransferCancelledException {
+    checkCancelled(event);
+  }
+
+  /**
+   * Records the successful download and notifies the report, if any.
+   *
+   * @param event	the event
+   */
+  @Override
+  public void transferSucceeded(TransferEvent event) {
+    HostStatistics	stats;
+    BootstrapReport	report;
+
+    if (event.getRequestType() != RequestType.GET)
+      return;
+    synchronized (this) {
+      stats = forHost(event);
+      stats.m_Downloads++;
+      stats.m_Bytes += event.getTransferredBytes();
+      m_End  = System.currentTimeMillis();
+      report = m_Report;
+    }
+    if (report != null)
+      report.artifactDownloaded(event.getResource().getResourceName(), event.getTransferredBytes());
+  }
+
+  /**
+   * Records the failed download.
+   *
+   * @param event	the event
+   */
+  @Override
+  public synchronized void transferFailed(TransferEvent event) {
+    if (event.getRequestType() != RequestType.GET)
+      return;
+    forHost(event).m_Failures++;
+    m_End = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns the statistics per host.
+   *
+   * @return		the statistics
+   */
+  public synchronized Map<String,HostStatistics> getHosts() {
+    return new TreeMap<>(m_Hosts);
+  }
+
+  /**
+   * Returns the total number of downloaded files.
+   *
+   * @return		the number
+   */
+  public synchronized int getDownloads() {
+    int		result;
+
+    result = 0;
+    for (HostStatistics stats: m_Hosts.values())
+      result += stats.m_Downloads;
+
+    return result;
+  }
+
+  /**
+   * Returns the total number of downloaded bytes.
+   *
+   * @return		the bytes
+   */
+  public synchronized long getBytes() {
+    long	result;
+
+    result = 0;
+    for (HostStatistics stats: m_Hosts.values())
+      result += stats.m_Bytes;
+
+    return result;
+  }
+
+  /**
+   * Returns the time between the first download starting and the last one
+   * finishing.
+   *
+   * @return		the duration in msec
+   */
+  public synchronized long getDuration() {
+    if ((m_Start == -1) || (m_End == -1))
+      return 0;
+    return m_End - m_Start;
+  }
+
+  /**
+   * Formats the throughput.
+   *
+   * @param bytes	the downloaded bytes
+   * @param msec	the time it took
+   * @return		the formatted throughput
+   */
+  protected static String throughput(long bytes, long msec) {
+    if (msec <= 0)
+      return "n/a";
+    return String.format("%.2f MB/s", bytes / 1024.0 / 1024.0 / (msec / 1000.0));
+  }
+
+  /**
+   * Returns a summary of the statistics.
+   *
+   * @return		the summary
+   */
+  @Override
+  public synchronized String toString() {
+    StringBuilder	result;
+    HostStatistics	stats;
+
+    result = new StringBuilder();
+    result.append(String.format("Downloaded %d file(s), %.2f MB in %.1fs (%s)",
+      getDownloads(), getBytes() / 1024.0 / 1024.0, getDuration() / 1000.0, throughput(getBytes(), getDuration())));
+    for (String host: m_Hosts.keySet()) {
+      stats = m_Hosts.get(host);
+      result.append(String.format("\n  %s: %d file(s), %.2f MB, %d failed/missing",
+        host, stats.m_Downloads, stats.m_Bytes / 1024.0 / 1024.0, stats.m_Failures));
+    }
+
+    return result.toString();
+  }
+}
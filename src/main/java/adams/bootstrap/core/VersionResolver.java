@@ -0,0 +1,197 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * VersionResolver.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap.core;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the latest ADAMS version using the maven-metadata.xml of the
+ * core module in the specified repository (remote or file: URL). Falls back
+ * on the version listed in the adams-base pom.xml if the metadata is not
+ * available. Results are cached on disk and in memory.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class VersionResolver {
+
+  /** the default repository with the ADAMS snapshots. */
+  public final static String DEFAULT_REPOSITORY = "https://adams.cms.waikato.ac.nz/nexus/content/repositories/snapshots";
+
+  /** the group ID of the ADAMS modules. */
+  public final static String GROUP_ID = "nz.ac.waikato.cms.adams";
+
+  /** the artifact to determine the version from. */
+  public final static String ARTIFACT_ID = "adams-core";
+
+  /** the name of the metadata file. */
+  public final static String METADATA_FILE = "maven-metadata.xml";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(VersionResolver.class.getName());
+
+  /** the cache to use. */
+  protected Cache m_Cache;
+
+  /** the repository URL. */
+  protected String m_Repository;
+
+  /** the URL of the pom.xml to fall back on. */
+  protected String m_FallbackPom;
+
+  /** the resolved version. */
+  protected String m_Resolved;
+
+  /**
+   * Initializes the resolver.
+   *
+   * @param cache		the cache to use
+   * @param repository		the repository URL with the metadata
+   * @param fallbackPom		the URL of the pom.xml to use if the metadata is not available, null to not fall back
+   */
+  public VersionResolver(Cache cache, String repository, String fallbackPom) {
+    m_Cache       = cache;
+    m_Repository  = repository.replaceAll("/+$", "");
+    m_FallbackPom = fallbackPom;
+    m_Resolved    = null;
+  }
+
+  /**
+   * Returns the cache in use.
+   *
+   * @return		the cache
+   */
+  public Cache getCache() {
+    return m_Cache;
+  }
+
+  /**
+   * Returns the repository URL.
+   *
+   * @return		the URL
+   */
+  public String getRepository() {
+    return m_Repository;
+  }
+
+  /**
+   * Returns the URL of the maven-metadata.xml file.
+   *
+   * @return		the URL
+   */
+  public String metadataURL() {
+    return m_Repository + "/" + GROUP_ID.replace('.', '/') + "/" + ARTIFACT_ID + "/" + METADATA_FILE;
+  }
+
+  /**
+   * Extracts the latest version from the maven-metadata.xml content.
+   * Uses the "latest" element, otherwise the last of the listed versions.
+   *
+   * @param in		the metadata to parse
+   * @return		the version, null if none found
+   * @throws Exception	if parsing fails
+   */
+  public static String extractLatest(InputStream in) throws Exception {
+    XMLStreamReader	reader;
+    String		latest;
+    String		last;
+    String		name;
+    boolean		versions;
+
+    reader   = PomParser.newReader(in);
+    latest   = null;
+    last     = null;
+    versions = false;
+    try {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            name = reader.getLocalName();
+            if (name.equals("latest"))
+              latest = reader.getElementText().trim();
+            else if (name.equals("versions"))
+              versions = true;
+            else if (versions && name.equals("version"))
+              last = reader.getElementText().trim();
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (reader.getLocalName().equals("versions"))
+              versions = false;
+            break;
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+
+    if ((latest != null) && !latest.isEmpty())
+      return latest;
+    if ((last != null) && !last.isEmpty())
+      return last;
+    return null;
+  }
+
+  /**
+   * Resolves the latest version. Once resolved, the version is kept in
+   * memory and returned by subsequent calls.
+   *
+   * @return		the version
+   * @throws Exception	if resolution failed
+   */
+  public synchronized String resolve() throws Exception {
+    File	file;
+    String	version;
+
+    if (m_Resolved != null)
+      return m_Resolved;
+
+    version = null;
+    try {
+      file = m_Cache.get(metadataURL());
+      try (InputStream in = new FileInputStream(file)) {
+        version = extractLatest(in);
+      }
+      if (version == null)
+        throw new IllegalStateException("No version found in: " + metadataURL());
+    }
+    catch (Exception e) {
+      if (m_FallbackPom == null)
+        throw e;
+      LOGGER.log(Level.WARNING, "Failed to determine version from " + metadataURL() + ", falling back on: " + m_FallbackPom, e);
+      file = m_Cache.get(m_FallbackPom);
+      try (InputStream in = new FileInputStream(file)) {
+        version = PomParser.extractVersion(in);
+      }
+      if (version == null)
+        throw new IllegalStateException("Failed to extract version from: " + m_FallbackPom);
+    }
+
+    m_Resolved = version;
+
+    return m_Resolved;
+  }
+}
@@ -0,0 +1,42 @@
+# Verifies the jars against the integrity manifest. Only files whose size or
+# modification time differ from the manifest get hashed, unless -Full is
+# supplied.
+param([switch]$Full)
+
+$BaseDir = Split-Path -Parent $PSScriptRoot
+$Manifest = Join-Path $BaseDir "integrity.manifest"
+if (-not (Test-Path $Manifest)) {
+  Write-Error "No integrity manifest: $Manifest"
+  exit 1
+}
+
+$Failed = $false
+$Hashed = 0
+foreach ($Line in Get-Content $Manifest) {
+  if (($Line -eq "") -or $Line.StartsWith("#")) {
+    continue
+  }
+  $Parts = $Line.Split("`t")
+  $File = Join-Path $BaseDir $Parts[0]
+  if (-not (Test-Path $File)) {
+    Write-Host "Missing: $($Parts[0])"
+    $Failed = $true
+    continue
+  }
+  $Item = Get-Item $File
+  $MTime = [DateTimeOffset]::new($Item.LastWriteTimeUtc).ToUnixTimeSeconds()
+  if ((-not $Full) -and ("$($Item.Length)" -eq $Parts[1]) -and ("$MTime" -eq $Parts[2])) {
+    continue
+  }
+  $Hashed++
+  if ((Get-FileHash -Algorithm SHA256 $File).Hash.ToLower() -ne $Parts[3]) {
+    Write-Host "Checksum mismatch: $($Parts[0])"
+    $Failed = $true
+  }
+}
+
+if ($Failed) {
+  Write-Host "Verification failed: $BaseDir"
+  exit 1
+}
+Write-Host "Verified ($Hashed file(s) hashed): $BaseDir"
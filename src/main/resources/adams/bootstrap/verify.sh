@@ -0,0 +1,64 @@
+#!/bin/bash
+#
+# Verifies the jars against the integrity manifest. Only files whose size or
+# modification time differ from the manifest get hashed, unless --full is
+# supplied.
+#
+BASEDIR=`dirname $0`/..
+BASEDIR=`(cd "$BASEDIR"; pwd)`
+MANIFEST="$BASEDIR"/integrity.manifest
+FULL=0
+if [ "$1" = "--full" ]
+then
+  FULL=1
+fi
+if [ ! -f "$MANIFEST" ]
+then
+  echo "No integrity manifest: $MANIFEST" >&2
+  exit 1
+fi
+
+if command -v sha256sum > /dev/null 2>&1
+then
+  SHA256="sha256sum"
+else
+  SHA256="shasum -a 256"
+fi
+
+FAILED=0
+HASHED=0
+while IFS=$'\t' read -r FILE SIZE MTIME HASH SHA1
+do
+  case "$FILE" in
+    "#"*|"") continue ;;
+  esac
+  F="$BASEDIR/$FILE"
+  if [ ! -f "$F" ]
+  then
+    echo "Missing: $FILE" >&2
+    FAILED=1
+    continue
+  fi
+  if [ $FULL -eq 0 ]
+  then
+    STAT=`stat -L -c '%s %Y' "$F" 2>/dev/null || stat -L -f '%z %m' "$F"`
+    if [ "$STAT" = "$SIZE $MTIME" ]
+    then
+      continue
+    fi
+  fi
+  HASHED=$((HASHED + 1))
+  ACTUAL=`$SHA256 "$F" | cut -d' ' -f1`
+  if [ "$ACTUAL" != "$HASH" ]
+  then
+    echo "Checksum mismatch: $FILE" >&2
+    FAILED=1
+  fi
+done < "$MANIFEST"
+
+if [ $FAILED -ne 0 ]
+then
+  echo "Verification failed: $BASEDIR" >&2
+  exit 1
+fi
+echo "Verified ($HASHED file(s) hashed): $BASEDIR" >&2
@@ -0,0 +1,311 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ConcurrentBootstrapTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.bootstrap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs several bootstraps in parallel threads against a local file:
+ * repository, using the in-process resolver. Checks that all of them succeed,
+ * whether they share the output directory or not, and that no fixed files
+ * in java.io.tmpdir get used.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ConcurrentBootstrapTest {
+
+  /** the number of parallel runs. */
+  public final static int NUM_RUNS = 6;
+
+  /** the module in the repository. */
+  public final static String MODULE = "adams-core";
+
+  /** the version of the module. */
+  public final static String VERSION = "1.0.0";
+
+  /** the fixed names that older versions used in java.io.tmpdir. */
+  public final static String[] FIXED_TMP_FILES = {Main.POMTEMPLATE_FILE, "pom.xml"};
+
+  /** the base directory of the test. */
+  protected File m_BaseDir;
+
+  /** the settings pointing to the file: repository. */
+  protected File m_Settings;
+
+  /** the temp files present before the runs. */
+  protected Set<String> m_TmpBefore;
+
+  /** the modification times of the fixed temp files before the runs. */
+  protected long[] m_FixedBefore;
+
+  /**
+   * Bootstrap using its own home directory.
+   */
+  public static class HomeMain
+    extends Main {
+
+    /** the home directory. */
+    protected String m_Home;
+
+    /**
+     * Initializes the bootstrap.
+     *
+     * @param home	the home directory to use
+     */
+    public HomeMain(File home) {
+      m_Home = home.getAbsolutePath();
+    }
+
+    /**
+     * Returns the home directory.
+     *
+     * @return		the directory
+     */
+    @Override
+    public String homeDir() {
+      return m_Home;
+    }
+  }
+
+  /**
+   * Sets up the file: repository and the Maven settings.
+   *
+   * @throws Exception	if setting up fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    File	dir;
+    File	tmp;
+    int		i;
+
+    m_BaseDir = Files.createTempDirectory("instant-adams-test-").toFile();
+    dir       = new File(m_BaseDir, "repo/nz/ac/waikato/cms/adams/" + MODULE + "/" + VERSION);
+    assertTrue(dir.mkdirs());
+    Files.write(new File(dir, MODULE + "-" + VERSION + ".pom").toPath(), (
+      "<project>\n"
+	+ "  <modelVersion>4.0.0</modelVersion>\n"
+	+ "  <groupId>nz.ac.waikato.cms.adams</groupId>\n"
+	+ "  <artifactId>" + MODULE + "</artifactId>\n"
+	+ "  <version>" + VERSION + "</version>\n"
+	+ "</project>\n").getBytes(StandardCharsets.UTF_8));
+    try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(new File(dir, MODULE + "-" + VERSION + ".jar")), new Manifest())) {
+      jar.flush();
+    }
+
+    m_Settings = new File(m_BaseDir, "settings.xml");
+    Files.write(m_Settings.toPath(), (
+      "<settings>\n"
+	+ "  <localRepository>" + new File(m_BaseDir, "m2").getAbsolutePath() + "</localRepository>\n"
+	+ "  <profiles><profile><id>adams</id><repositories><repository>\n"
+	+ "    <id>adams-local</id><url>" + new File(m_BaseDir, "repo").toURI() + "</url>\n"
+	+ "  </repository></repositories></profile></profiles>\n"
+	+ "  <activeProfiles><activeProfile>adams</activeProfile></activeProfiles>\n"
+	+ "</settings>\n").getBytes(StandardCharsets.UTF_8));
+
+    tmp           = new File(System.getProperty("java.io.tmpdir"));
+    m_TmpBefore   = listTmp();
+    m_FixedBefore = new long[FIXED_TMP_FILES.length];
+    for (i = 0; i < FIXED_TMP_FILES.length; i++)
+      m_FixedBefore[i] = new File(tmp, FIXED_TMP_FILES[i]).lastModified();
+  }
+
+  /**
+   * Removes the base directory.
+   *
+   * @throws Exception	if removing fails
+   */
+  @After
+  public void tearDown() throws Exception {
+    if (m_BaseDir == null)
+      return;
+    try (Stream<java.nio.file.Path> paths = Files.walk(m_BaseDir.toPath())) {
+      paths.sorted(Comparator.reverseOrder()).forEach((java.nio.file.Path p) -> p.toFile().delete());
+    }
+  }
+
+  /**
+   * Returns the names of the instant-adams files in java.io.tmpdir.
+   *
+   * @return		the names
+   */
+  protected Set<String> listTmp() {
+    Set<String>	result;
+    String[]	names;
+
+    result = new HashSet<>();
+    names  = new File(System.getProperty("java.io.tmpdir")).list();
+    if (names != null) {
+      for (String name: names) {
+	if (name.startsWith("instant-adams") && !name.startsWith("instant-adams-test-"))
+	  result.add(name);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Configures a bootstrap for the output directory.
+   *
+   * @param outputDir	the output directory
+   * @param shared	whether to use the shared jar store
+   * @return		the bootstrap
+   */
+  protected Main newMain(File outputDir, boolean shared) {
+    return new HomeMain(new File(m_BaseDir, "home"))
+      .mavenUserSettings(m_Settings)
+      .modules(MODULE)
+      .version(VERSION)
+      .outputDir(outputDir)
+      .name("adams-demo")
+      .mainClass("adams.gui.Main")
+      .engine(Main.Engine.RESOLVER)
+      .sharedStore(shared);
+  }
+
+  /**
+   * Runs the bootstraps in parallel.
+   *
+   * @param outputDirs	the output directories, one per run
+   * @param shared	whether to use the shared jar store
+   * @return		the results of the runs (null if successful)
+   * @throws Exception	if a run fails unexpectedly
+   */
+  protected List<String> run(List<File> outputDirs, boolean shared) throws Exception {
+    ExecutorService		executor;
+    List<Future<String>>	futures;
+    List<String>		result;
+
+    executor = Executors.newFixedThreadPool(outputDirs.size());
+    futures  = new ArrayList<>();
+    try {
+      for (File outputDir: outputDirs)
+	futures.add(executor.submit((Callable<String>) () -> newMain(outputDir, shared).execute()));
+      result = new ArrayList<>();
+      for (Future<String> future: futures)
+	result.add(future.get(5, TimeUnit.MINUTES));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks that all runs succeeded, that every output directory contains
+   * the module's jar and that java.io.tmpdir is left as it was.
+   *
+   * @param outputDirs	the output directories
+   * @param results	the results of the runs
+   */
+  protected void check(List<File> outputDirs, List<String> results) {
+    File	tmp;
+    int		i;
+
+    assertEquals(outputDirs.size(), results.size());
+    for (i = 0; i < results.size(); i++)
+      assertNull("Run #" + (i + 1) + " failed: " + results.get(i), results.get(i));
+    for (File outputDir: outputDirs) {
+      assertTrue("Missing jar in " + outputDir, new File(outputDir, "target/lib/" + MODULE + "-" + VERSION + ".jar").exists());
+    }
+
+    tmp = new File(System.getProperty("java.io.tmpdir"));
+    for (i = 0; i < FIXED_TMP_FILES.length; i++)
+      assertEquals("Fixed temp file used: " + FIXED_TMP_FILES[i], m_FixedBefore[i], new File(tmp, FIXED_TMP_FILES[i]).lastModified());
+    assertEquals("Temp files left behind", m_TmpBefore, listTmp());
+  }
+
+  /**
+   * Runs all bootstraps into the same output directory, which get serialized.
+   *
+   * @throws Exception	if a run fails unexpectedly
+   */
+  @Test
+  public void testSharedOutputDir() throws Exception {
+    List<File>	outputDirs;
+    File	outputDir;
+    int		i;
+
+    outputDir  = new File(m_BaseDir, "out");
+    outputDirs = new ArrayList<>();
+    for (i = 0; i < NUM_RUNS; i++)
+      outputDirs.add(outputDir);
+    check(outputDirs, run(outputDirs, false));
+  }
+
+  /**
+   * Runs each bootstrap into its own output directory, sharing the
+   * local repository, the catalog cache and the home directory.
+   *
+   * @throws Exception	if a run fails unexpectedly
+   */
+  @Test
+  public void testDistinctOutputDirs() throws Exception {
+    List<File>	outputDirs;
+    int		i;
+
+    outputDirs = new ArrayList<>();
+    for (i = 0; i < NUM_RUNS; i++)
+      outputDirs.add(new File(m_BaseDir, "out-" + i));
+    check(outputDirs, run(outputDirs, false));
+  }
+
+  /**
+   * Runs each bootstrap into its own output directory, also adding the jars
+   * to the shared store.
+   *
+   * @throws Exception	if a run fails unexpectedly
+   */
+  @Test
+  public void testDistinctOutputDirsSharedStore() throws Exception {
+    List<File>	outputDirs;
+    int		i;
+
+    outputDirs = new ArrayList<>();
+    for (i = 0; i < NUM_RUNS; i++)
+      outputDirs.add(new File(m_BaseDir, "out-" + i));
+    check(outputDirs, run(outputDirs, true));
+  }
+}